@@ -0,0 +1,288 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.config.AppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Persistent cache of per-file detector findings, one file per project under
+ * the configured cache directory. An entry is reused when the file's size and
+ * mtime are unchanged, or when its content hash still matches (e.g. after a
+ * checkout touched the file); otherwise the detector scans the file again.
+ *
+ * <p>Only files visited during an analysis are written back, so entries of
+ * deleted files disappear with the next run. Findings recorded under other
+ * detection rules are discarded as a whole.
+ */
+@Component
+@Slf4j
+public class AnalysisCache {
+
+    static final int FORMAT_VERSION = 2;
+
+    private final boolean enabled;
+    private final Path cacheDirectory;
+    private final ObjectMapper objectMapper;
+
+    public AnalysisCache(AppProperties appProperties, ObjectMapper objectMapper) {
+        this.enabled = appProperties.getAnalysis().isCacheEnabled();
+        this.cacheDirectory = Paths.get(appProperties.getAnalysis().getCacheDirectory());
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Loads the cached findings of a project for one analysis run
+     */
+    public Session open(Path projectRoot) {
+        return open(projectRoot, null);
+    }
+
+    /**
+     * Loads the cached findings of a project that were recorded under the given detection rules
+     *
+     * @param rulesVersion {@link DetectionRuleSet#getVersion()} of the rules used by this run
+     */
+    public Session open(Path projectRoot, String rulesVersion) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        Map<String, FileEntry> previous = enabled ? load(root, rulesVersion) : Map.of();
+        return new Session(root, rulesVersion, previous);
+    }
+
+    /**
+     * Drops the cached findings of a project
+     */
+    public void invalidate(Path projectRoot) {
+        try {
+            Files.deleteIfExists(cacheFile(projectRoot.toAbsolutePath().normalize()));
+        } catch (IOException e) {
+            log.debug("Failed to delete analysis cache for {}: {}", projectRoot, e.getMessage());
+        }
+    }
+
+    private Map<String, FileEntry> load(Path root, String rulesVersion) {
+        Path file = cacheFile(root);
+        if (!Files.exists(file)) {
+            return Map.of();
+        }
+        try {
+            CacheFile cached = objectMapper.readValue(file.toFile(), CacheFile.class);
+            if (cached.getVersion() != FORMAT_VERSION || !root.toString().equals(cached.getProjectPath())
+                    || !Objects.equals(rulesVersion, cached.getRulesVersion()) || cached.getFiles() == null) {
+                return Map.of();
+            }
+            return cached.getFiles();
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable analysis cache {}: {}", file, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void save(Path root, String rulesVersion, Map<String, FileEntry> files) {
+        Path file = cacheFile(root);
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path temp = Files.createTempFile(cacheDirectory, "analysis-", ".tmp");
+            objectMapper.writeValue(temp.toFile(), new CacheFile(FORMAT_VERSION, root.toString(), rulesVersion, files));
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write analysis cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path cacheFile(Path root) {
+        return cacheDirectory.resolve(sha256(root.toString().getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Scans the content of one file into findings, encoded as strings by the detector
+     */
+    @FunctionalInterface
+    public interface FileScanner {
+        List<String> scan(String content);
+    }
+
+    /**
+     * Cache view for a single analysis run. Safe for concurrent use.
+     */
+    public class Session implements AutoCloseable {
+        private final Path root;
+        private final String rulesVersion;
+        private final Map<String, FileEntry> previous;
+        private final Map<String, FileEntry> current = new ConcurrentHashMap<>();
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong hashHits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        Session(Path root, String rulesVersion, Map<String, FileEntry> previous) {
+            this.root = root;
+            this.rulesVersion = rulesVersion;
+            this.previous = previous;
+        }
+
+        /**
+         * Returns the detector's findings for a file, scanning it only when
+         * no valid cached findings exist. Unreadable, binary, non-UTF-8 and
+         * oversized files yield no findings.
+         */
+        public List<String> findings(String detector, ScannedFile file, FileScanner scanner) {
+            return lookup(detector, file, () -> {
+                String content = file.content();
+                return content != null ? scanner.scan(content) : List.of();
+            });
+        }
+
+        /**
+         * Returns the line count of a file, counting only when no valid cached count exists
+         */
+        public long lineCount(String detector, ScannedFile file) {
+            List<String> findings = lookup(detector, file, () -> List.of(String.valueOf(file.lineCount())));
+            return findings.isEmpty() ? 0 : Long.parseLong(findings.get(0));
+        }
+
+        private List<String> lookup(String detector, ScannedFile file, Supplier<List<String>> scan) {
+            String key = file.getRelativePath();
+            long size = file.getSize();
+            long modified = file.getLastModified();
+
+            FileEntry entry = current.computeIfAbsent(key, k -> {
+                FileEntry cached = previous.get(k);
+                return cached != null && cached.matches(size, modified) ? cached.copy() : new FileEntry(size, modified);
+            });
+
+            synchronized (entry) {
+                List<String> cached = entry.findings.get(detector);
+                if (cached != null && entry.matches(size, modified)) {
+                    hits.incrementAndGet();
+                    return cached;
+                }
+
+                String hash = file.hash();
+                if (hash == null) {
+                    return List.of();
+                }
+                if (!hash.equals(entry.hash)) {
+                    // Content is new to this run; reuse the previous findings only if it did not change
+                    FileEntry old = previous.get(key);
+                    entry.findings.clear();
+                    if (old != null && hash.equals(old.hash)) {
+                        entry.findings.putAll(old.findings);
+                    }
+                    entry.hash = hash;
+                    entry.size = size;
+                    entry.modified = modified;
+                }
+                cached = entry.findings.get(detector);
+                if (cached != null) {
+                    hashHits.incrementAndGet();
+                    return cached;
+                }
+
+                misses.incrementAndGet();
+                List<String> findings = List.copyOf(scan.get());
+                entry.findings.put(detector, findings);
+                return findings;
+            }
+        }
+
+        public CacheStatistics getStatistics() {
+            return new CacheStatistics(hits.get(), hashHits.get(), misses.get(), current.size());
+        }
+
+        /**
+         * Writes the entries of the files visited in this run back to disk
+         */
+        @Override
+        public void close() {
+            if (enabled) {
+                save(root, rulesVersion, new HashMap<>(current));
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CacheStatistics {
+        private final long hits;
+        private final long hashHits;
+        private final long misses;
+        private final int files;
+
+        public double getHitRate() {
+            long lookups = hits + hashHits + misses;
+            return lookups > 0 ? (double) (hits + hashHits) / lookups : 0.0;
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CacheFile {
+        private int version;
+        private String projectPath;
+        private String rulesVersion;
+        private Map<String, FileEntry> files;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    static class FileEntry {
+        private long size;
+        private long modified;
+        private String hash;
+        private Map<String, List<String>> findings = new ConcurrentHashMap<>();
+
+        FileEntry(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        boolean matches(long size, long modified) {
+            return hash != null && this.size == size && this.modified == modified;
+        }
+
+        FileEntry copy() {
+            FileEntry copy = new FileEntry(size, modified);
+            copy.hash = hash;
+            copy.findings.putAll(findings);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.analyzer.detector.TechnologyDetector;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * State shared by all detectors during one analysis run
+ */
+public class AnalysisContext {
+
+    private final Path projectRoot;
+    private final AnalysisCache.Session cache;
+
+    public AnalysisContext(Path projectRoot, AnalysisCache.Session cache) {
+        this.projectRoot = projectRoot;
+        this.cache = cache;
+    }
+
+    public Path getProjectRoot() {
+        return projectRoot;
+    }
+
+    /**
+     * Context without a findings cache, e.g. for running a single detector
+     */
+    public static AnalysisContext uncached(Path projectRoot) {
+        return new AnalysisContext(projectRoot, null);
+    }
+
+    /**
+     * Per-file findings of a detector, from the cache when the file is unchanged
+     */
+    public List<String> fileFindings(String detector, ScannedFile file, AnalysisCache.FileScanner scanner) {
+        if (cache == null) {
+            String content = file.content();
+            return content != null ? scanner.scan(content) : List.of();
+        }
+        return cache.findings(detector, file, scanner);
+    }
+
+    /**
+     * Line count of a file, from the cache when the file is unchanged
+     */
+    public long lineCount(String detector, ScannedFile file) {
+        return cache != null ? cache.lineCount(detector, file) : file.lineCount();
+    }
+
+    /**
+     * Runs the visitors of the given detectors over the project in one walk and completes them
+     */
+    public void walk(List<TechnologyDetector.ProjectFileVisitor> visitors) throws IOException {
+        ProjectFileWalker walker = new ProjectFileWalker(projectRoot);
+        walker.walk(file -> visitors.forEach(visitor -> visitor.visitFile(file)));
+        visitors.forEach(TechnologyDetector.ProjectFileVisitor::complete);
+    }
+}
@@ -0,0 +1,85 @@
+package com.devorchestrator.analyzer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte budgets of one analysis. Files larger than the per-file limit are
+ * never held in memory, and once the analysis has read its total budget no
+ * more file content is read at all. Together with releasing every file after
+ * it was visited this caps the memory a walk needs, whatever the repository.
+ */
+public class ContentBudget {
+
+    public static final long DEFAULT_MAX_FILE_BYTES = 1024 * 1024;
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 512L * 1024 * 1024;
+
+    private final long maxFileBytes;
+    private final long maxTotalBytes;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong filesOversized = new AtomicLong();
+    private volatile boolean exhausted;
+
+    public ContentBudget(long maxFileBytes, long maxTotalBytes) {
+        this.maxFileBytes = maxFileBytes;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public static ContentBudget defaults() {
+        return new ContentBudget(DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_TOTAL_BYTES);
+    }
+
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    /**
+     * Takes bytes about to be read from the budget
+     *
+     * @return false, without taking anything, when the total budget does not cover them
+     */
+    public boolean tryAcquire(long bytes) {
+        if (exhausted) {
+            return false;
+        }
+        if (bytesRead.addAndGet(bytes) > maxTotalBytes) {
+            bytesRead.addAndGet(-bytes);
+            exhausted = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a file whose content was left unread because the total budget ran out
+     */
+    void recordSkipped() {
+        filesSkipped.incrementAndGet();
+    }
+
+    /**
+     * Records a file whose content was withheld because it is above the per-file limit
+     */
+    void recordOversized() {
+        filesOversized.incrementAndGet();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    public long getFilesOversized() {
+        return filesOversized.get();
+    }
+
+    /**
+     * Whether the total budget ran out, so later files were not read
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
@@ -0,0 +1,193 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.analyzer.model.DetectionPattern;
+import com.devorchestrator.config.AppProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Loads the detection rules from tech-stack-detection-patterns.yml and the
+ * optional rules directory into an indexed {@link DetectionRuleSet}. External
+ * files are applied in name order after the bundled file; a rule replaces the
+ * one with the same category and key. Changed external files are picked up by
+ * a periodic check, without a restart. A file that fails to parse leaves the
+ * current rules in place.
+ */
+@Service
+@Slf4j
+public class DetectionRuleService {
+
+    static final String BUNDLED_RULES = "tech-stack-detection-patterns.yml";
+
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    private final Path rulesDirectory;
+
+    private volatile DetectionRuleSet ruleSet;
+    private volatile String externalFingerprint;
+
+    public DetectionRuleService(AppProperties appProperties) {
+        String directory = appProperties.getAnalysis().getRulesDirectory();
+        this.rulesDirectory = directory == null || directory.isBlank() ? null : Paths.get(directory);
+        List<Path> files = externalFiles();
+        this.externalFingerprint = fingerprint(files);
+        DetectionRuleSet loaded;
+        try {
+            loaded = load(files);
+        } catch (IllegalStateException e) {
+            log.warn("Ignoring external detection rules: {}", e.getMessage());
+            loaded = load(List.of());
+        }
+        this.ruleSet = loaded;
+        log.info("Loaded detection rules version {}", ruleSet.getVersion());
+    }
+
+    /**
+     * The current rules; callers should hold on to the returned set for one analysis
+     */
+    public DetectionRuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Reloads the rules if an external rule file was added, changed or removed
+     */
+    @Scheduled(fixedDelayString = "${app.analysis.rules-reload-interval:30}000")
+    public void reloadIfChanged() {
+        if (rulesDirectory == null) {
+            return;
+        }
+        List<Path> files = externalFiles();
+        String fingerprint = fingerprint(files);
+        if (fingerprint.equals(externalFingerprint)) {
+            return;
+        }
+        // Remember the attempt either way, so a broken file is reported once rather than on every check
+        externalFingerprint = fingerprint;
+        try {
+            DetectionRuleSet reloaded = load(files);
+            if (!reloaded.getVersion().equals(ruleSet.getVersion())) {
+                ruleSet = reloaded;
+                log.info("Reloaded detection rules, now version {}", reloaded.getVersion());
+            }
+        } catch (IllegalStateException e) {
+            log.warn("Keeping detection rules version {}: {}", ruleSet.getVersion(), e.getMessage());
+        }
+    }
+
+    private DetectionRuleSet load(List<Path> externalFiles) {
+        Map<String, Map<String, DetectionPattern>> rules = new LinkedHashMap<>();
+        ByteArrayOutputStream sources = new ByteArrayOutputStream();
+        try (InputStream bundled = new ClassPathResource(BUNDLED_RULES).getInputStream()) {
+            byte[] content = bundled.readAllBytes();
+            sources.writeBytes(content);
+            merge(rules, content);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read bundled detection rules: " + e.getMessage(), e);
+        }
+        for (Path file : externalFiles) {
+            try {
+                byte[] content = Files.readAllBytes(file);
+                sources.writeBytes(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                sources.writeBytes(content);
+                merge(rules, content);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read detection rules " + file + ": " + e.getMessage(), e);
+            }
+        }
+        String version = AnalysisCache.sha256(sources.toByteArray()).substring(0, 16);
+        return new DetectionRuleSet(rules, version);
+    }
+
+    private void merge(Map<String, Map<String, DetectionPattern>> rules, byte[] content) throws IOException {
+        JsonNode root = yamlMapper.readTree(content);
+        if (root == null || !root.isObject()) {
+            return;
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> categories = root.fields(); categories.hasNext(); ) {
+            Map.Entry<String, JsonNode> category = categories.next();
+            for (Iterator<Map.Entry<String, JsonNode>> entries = category.getValue().fields(); entries.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                // Sections of settings rather than rules, like detection_priority, have scalar values
+                if (entry.getValue().isObject()) {
+                    rules.computeIfAbsent(category.getKey(), k -> new LinkedHashMap<>())
+                        .put(entry.getKey(), toRule(category.getKey(), entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+    }
+
+    private static DetectionPattern toRule(String category, String key, JsonNode node) {
+        return DetectionPattern.builder()
+            .key(key)
+            .category(category)
+            .technology(node.path("name").asText(key))
+            .language(node.hasNonNull("language") ? node.get("language").asText() : null)
+            .type(node.hasNonNull("type") ? node.get("type").asText() : null)
+            .fileExtensions(strings(node, "extensions"))
+            .filePatterns(strings(node, "file_patterns"))
+            .configFiles(strings(node, "config_files"))
+            .dependencies(strings(node, "dependencies"))
+            .codePatterns(strings(node, "code_patterns"))
+            .connectionPatterns(strings(node, "connection_patterns"))
+            .markers(strings(node, "markers"))
+            .packageManager(node.hasNonNull("package_manager") ? node.get("package_manager").asText() : null)
+            .dockerImage(node.hasNonNull("docker_image") ? node.get("docker_image").asText() : null)
+            .defaultPort(node.hasNonNull("default_port") ? node.get("default_port").asInt() : null)
+            .baseConfidence(0.5)
+            .build();
+    }
+
+    private static List<String> strings(JsonNode node, String field) {
+        List<String> values = new ArrayList<>();
+        node.path(field).forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    private List<Path> externalFiles() {
+        if (rulesDirectory == null || !Files.isDirectory(rulesDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(rulesDirectory)) {
+            return files
+                .filter(file -> file.toString().endsWith(".yml") || file.toString().endsWith(".yaml"))
+                .filter(Files::isRegularFile)
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            log.warn("Failed to list detection rules in {}: {}", rulesDirectory, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static String fingerprint(List<Path> files) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Path file : files) {
+            try {
+                fingerprint.append(file).append(':').append(Files.size(file)).append(':')
+                    .append(Files.getLastModifiedTime(file).toMillis()).append('\n');
+            } catch (IOException e) {
+                fingerprint.append(file).append(":?\n");
+            }
+        }
+        return fingerprint.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.analyzer.model.DetectionPattern;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, indexed set of detection rules. Per category, the extensions,
+ * config files and file patterns of all rules are indexed so that finding the
+ * rules for a file takes a hash lookup by file name or extension. Globs with a
+ * fixed extension ("tsconfig.*.json") are indexed by that extension and only
+ * then matched; only the few remaining globs, such as directory globs
+ * (".mvn/**"), are tried for every file. Detectors keep what they compile
+ * from the rules, such as content matchers, with the set it was compiled from.
+ */
+public class DetectionRuleSet {
+
+    private final String version;
+    private final Map<String, Map<String, DetectionPattern>> rules;
+    private final Map<String, CategoryIndex> indexes = new HashMap<>();
+    private final Map<String, Object> derived = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules rules by category and key
+     * @param version digest of the rule sources, changes whenever a rule does
+     */
+    public DetectionRuleSet(Map<String, Map<String, DetectionPattern>> rules, String version) {
+        this.rules = rules;
+        this.version = version;
+        rules.forEach((category, byKey) -> indexes.put(category, new CategoryIndex(byKey.values())));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Collection<DetectionPattern> getRules(String category) {
+        Map<String, DetectionPattern> byKey = rules.get(category);
+        return byKey != null ? byKey.values() : List.of();
+    }
+
+    public DetectionPattern getRule(String category, String key) {
+        Map<String, DetectionPattern> byKey = rules.get(category);
+        return byKey != null ? byKey.get(key) : null;
+    }
+
+    /**
+     * Value computed from this set once and shared until the rules are reloaded
+     *
+     * @param name unique per kind of value, e.g. the detector class name
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T derive(String name, Function<DetectionRuleSet, T> compiler) {
+        return (T) derived.computeIfAbsent(name, k -> compiler.apply(this));
+    }
+
+    /**
+     * Rules of the category whose source extensions the file has
+     */
+    public List<DetectionPattern> findByExtension(String category, String fileName) {
+        CategoryIndex index = indexes.get(category);
+        if (index == null) {
+            return List.of();
+        }
+        return index.byExtension.getOrDefault(extension(fileName), List.of());
+    }
+
+    /**
+     * Rules of the category with a config file or file pattern matching the file
+     *
+     * @param relativePath path below the project root, matched by directory globs
+     */
+    public List<DetectionPattern> findByFile(String category, String relativePath, String fileName) {
+        CategoryIndex index = indexes.get(category);
+        if (index == null) {
+            return List.of();
+        }
+        List<DetectionPattern> found = new ArrayList<>(index.byName.getOrDefault(fileName, List.of()));
+        Path name = null;
+        for (Glob glob : index.globsByExtension.getOrDefault(extension(fileName), List.of())) {
+            if (name == null) {
+                name = Path.of(fileName);
+            }
+            addMatch(found, glob, name);
+        }
+        for (Glob glob : index.nameGlobs) {
+            if (name == null) {
+                name = Path.of(fileName);
+            }
+            addMatch(found, glob, name);
+        }
+        if (!index.pathGlobs.isEmpty()) {
+            Path path = Path.of(relativePath);
+            for (Glob glob : index.pathGlobs) {
+                addMatch(found, glob, path);
+            }
+        }
+        return found;
+    }
+
+    private static void addMatch(List<DetectionPattern> found, Glob glob, Path path) {
+        if (glob.matcher().matches(path) && !found.contains(glob.rule())) {
+            found.add(glob.rule());
+        }
+    }
+
+    /**
+     * Extension including the dot, or the whole name if it has none
+     */
+    static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot) : fileName;
+    }
+
+    private record Glob(DetectionPattern rule, PathMatcher matcher) {
+    }
+
+    private static class CategoryIndex {
+        final Map<String, List<DetectionPattern>> byExtension = new HashMap<>();
+        final Map<String, List<DetectionPattern>> byName = new HashMap<>();
+        final Map<String, List<Glob>> globsByExtension = new HashMap<>();
+        final List<Glob> nameGlobs = new ArrayList<>();
+        final List<Glob> pathGlobs = new ArrayList<>();
+
+        CategoryIndex(Collection<DetectionPattern> rules) {
+            for (DetectionPattern rule : rules) {
+                for (String extension : rule.getFileExtensions()) {
+                    addUnique(byExtension, extension, rule);
+                }
+                List<String> filePatterns = new ArrayList<>(rule.getConfigFiles());
+                filePatterns.addAll(rule.getFilePatterns());
+                for (String pattern : filePatterns) {
+                    index(rule, pattern);
+                }
+            }
+        }
+
+        private void index(DetectionPattern rule, String pattern) {
+            boolean wildcard = pattern.chars().anyMatch(c -> "*?[{".indexOf(c) >= 0);
+            if (!wildcard && !pattern.contains("/")) {
+                addUnique(byName, pattern, rule);
+                return;
+            }
+            Glob glob = new Glob(rule, FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            String extension = extension(pattern);
+            if (pattern.contains("/")) {
+                pathGlobs.add(glob);
+            } else if (extension.equals(pattern) || extension.chars().anyMatch(c -> "*?[{".indexOf(c) >= 0)) {
+                nameGlobs.add(glob);
+            } else {
+                globsByExtension.computeIfAbsent(extension, k -> new ArrayList<>()).add(glob);
+            }
+        }
+
+        private static <T> void addUnique(Map<String, List<T>> index, String key, T value) {
+            List<T> values = index.computeIfAbsent(key, k -> new ArrayList<>());
+            if (!values.contains(value)) {
+                values.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.devorchestrator.analyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Bounded reads for the analyzer. Files are read in fixed-size chunks
+ * through a channel, so scanning a large file never needs more than one
+ * chunk of memory, and manifests read whole are size-checked first.
+ */
+public final class FileContents {
+
+    /**
+     * Leading bytes inspected for a NUL byte, the same heuristic git uses to tell binary files
+     */
+    static final int SNIFF_BYTES = 8000;
+
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    private FileContents() {
+    }
+
+    /**
+     * Reads a manifest or config file like {@link Files#readString(Path)},
+     * but fails with an IOException instead of loading a file above the
+     * per-file limit
+     */
+    public static String readString(Path file) throws IOException {
+        checkSize(file);
+        return Files.readString(file);
+    }
+
+    /**
+     * Like {@link Files#readAllLines(Path)}, with the size check of {@link #readString(Path)}
+     */
+    public static List<String> readAllLines(Path file) throws IOException {
+        checkSize(file);
+        return Files.readAllLines(file);
+    }
+
+    private static void checkSize(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size > ContentBudget.DEFAULT_MAX_FILE_BYTES) {
+            throw new IOException(String.format("%s is too large to scan (%d bytes)", file.getFileName(), size));
+        }
+    }
+
+    /**
+     * Whether the leading bytes contain a NUL byte
+     */
+    static boolean isBinary(byte[] content, int length) {
+        length = Math.min(length, SNIFF_BYTES);
+        for (int i = 0; i < length; i++) {
+            if (content[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts lines by scanning for '\n' bytes; a last line without a terminator counts too
+     */
+    static long countLines(byte[] content) {
+        LineCounter counter = new LineCounter();
+        counter.accept(content, content.length);
+        return counter.lines();
+    }
+
+    /**
+     * Reads at most {@code maxBytes} of a file, so a file that grew after it
+     * was measured is cut at the measured size instead of overrunning the budget
+     */
+    static byte[] readAtMost(Path file, long maxBytes) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes((int) Math.min(maxBytes, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Streams at most {@code maxBytes} of a file in chunks, counting its
+     * lines and hashing it with SHA-256
+     *
+     * @return the line count and the hex digest, or the line count 0 for binary files
+     */
+    static Summary summarize(Path file, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        LineCounter counter = new LineCounter();
+        boolean binary = false;
+        byte[] chunk = new byte[CHUNK_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            boolean first = true;
+            long remaining = maxBytes;
+            int read;
+            while (remaining > 0
+                    && (read = channel.read(buffer.clear().limit((int) Math.min(CHUNK_BYTES, remaining)))) >= 0) {
+                if (read == 0) {
+                    continue;
+                }
+                remaining -= read;
+                if (first) {
+                    binary = isBinary(chunk, read);
+                    first = false;
+                }
+                digest.update(chunk, 0, read);
+                if (!binary) {
+                    counter.accept(chunk, read);
+                }
+            }
+        }
+        return new Summary(binary ? 0 : counter.lines(), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    record Summary(long lines, String hash) {
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class LineCounter {
+        private long newlines;
+        private boolean pending;
+
+        void accept(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    newlines++;
+                    pending = false;
+                } else {
+                    pending = true;
+                }
+            }
+        }
+
+        long lines() {
+            return newlines + (pending ? 1 : 0);
+        }
+    }
+}
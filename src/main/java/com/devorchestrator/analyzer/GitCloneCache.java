@@ -0,0 +1,259 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.config.AppProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local clones of analyzed git repositories, one per URL. The first analysis
+ * makes a shallow partial clone that only downloads the blobs of the checked
+ * out commit, leaving out the directories the analyzer skips anyway; later
+ * analyses fetch the new tip into the same clone. Clones are evicted least
+ * recently used first once they take more disk than the configured budget.
+ */
+@Service
+@Slf4j
+public class GitCloneCache {
+
+    private static final Duration GIT_TIMEOUT = Duration.ofMinutes(10);
+
+    private final Path cacheDirectory;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public GitCloneCache(AppProperties appProperties) {
+        this(Paths.get(appProperties.getAnalysis().getCloneCacheDirectory()),
+            appProperties.getAnalysis().getCloneCacheMaxMb() * 1024L * 1024L);
+    }
+
+    GitCloneCache(Path cacheDirectory, long maxBytes) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxBytes = maxBytes;
+        loadExistingClones();
+    }
+
+    /**
+     * Brings the clone of the repository up to date with the branch and locks
+     * it until the returned checkout is closed, so it is neither updated nor
+     * evicted while being analyzed
+     */
+    public Checkout checkout(String gitUrl, String branch) throws IOException {
+        String key = AnalysisCache.sha256(gitUrl.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        while (true) {
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry(cacheDirectory.resolve(k)));
+            entry.lock.lock();
+            if (entry.evicted) {
+                entry.lock.unlock();
+                continue;
+            }
+            try {
+                update(entry, gitUrl, branch);
+            } catch (IOException | RuntimeException e) {
+                entry.lock.unlock();
+                throw e;
+            }
+            evictLeastRecentlyUsed();
+            return new Checkout(entry);
+        }
+    }
+
+    private void update(Entry entry, String gitUrl, String branch) throws IOException {
+        Path directory = entry.directory;
+        boolean fetched = false;
+        if (Files.isDirectory(directory.resolve(".git"))) {
+            try {
+                git(directory, "fetch", "--quiet", "--depth", "1", "--", "origin", branch);
+                git(directory, "checkout", "--quiet", "--force", "--detach", "FETCH_HEAD");
+                fetched = true;
+                log.debug("Fetched {} ({}) into cached clone {}", gitUrl, branch, directory);
+            } catch (IOException e) {
+                log.warn("Failed to update cached clone of {}, cloning again: {}", gitUrl, e.getMessage());
+            }
+        }
+        if (!fetched) {
+            clone(directory, gitUrl, branch);
+        }
+
+        entry.sizeBytes = sizeOf(directory);
+        entry.lastUsed = System.currentTimeMillis();
+        Files.setLastModifiedTime(directory, FileTime.fromMillis(entry.lastUsed));
+    }
+
+    private void clone(Path directory, String gitUrl, String branch) throws IOException {
+        deleteRecursively(directory);
+        Files.createDirectories(cacheDirectory);
+        try {
+            git(cacheDirectory, "clone", "--quiet", "--filter=blob:none", "--depth", "1", "--no-checkout",
+                "--branch", branch, "--", gitUrl, directory.toString());
+            git(directory, "config", "core.sparseCheckout", "true");
+            Files.writeString(directory.resolve(".git/info/sparse-checkout"), sparseCheckoutPatterns());
+            git(directory, "checkout", "--quiet", "--force", "HEAD");
+            log.info("Cloned {} ({}) into {}", gitUrl, branch, directory);
+        } catch (IOException e) {
+            deleteRecursively(directory);
+            throw e;
+        }
+    }
+
+    /**
+     * Materializes everything except the directories {@link ProjectFileWalker} never visits
+     */
+    static String sparseCheckoutPatterns() {
+        StringBuilder patterns = new StringBuilder("/*\n");
+        ProjectFileWalker.SKIPPED_DIRECTORIES.stream()
+            .filter(name -> !name.equals(".git"))
+            .sorted()
+            .forEach(name -> patterns.append('!').append(name).append("/\n"));
+        return patterns.toString();
+    }
+
+    /**
+     * Deletes clones not in use, least recently used first, until the cache fits its budget
+     */
+    private void evictLeastRecentlyUsed() {
+        long total = entries.values().stream().mapToLong(entry -> entry.sizeBytes).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+        List<Entry> candidates = new ArrayList<>(entries.values());
+        candidates.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (Entry entry : candidates) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (entry.lock.isHeldByCurrentThread() || !entry.lock.tryLock()) {
+                continue;
+            }
+            try {
+                deleteRecursively(entry.directory);
+                entry.evicted = true;
+                entries.remove(entry.directory.getFileName().toString(), entry);
+                total -= entry.sizeBytes;
+                log.info("Evicted cached clone {} ({} bytes)", entry.directory, entry.sizeBytes);
+            } catch (IOException e) {
+                log.warn("Failed to evict cached clone {}: {}", entry.directory, e.getMessage());
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private void loadExistingClones() {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> clones = Files.newDirectoryStream(cacheDirectory, Files::isDirectory)) {
+            for (Path directory : clones) {
+                if (Files.isDirectory(directory.resolve(".git"))) {
+                    Entry entry = new Entry(directory);
+                    entry.sizeBytes = sizeOf(directory);
+                    entry.lastUsed = Files.getLastModifiedTime(directory).toMillis();
+                    entries.put(directory.getFileName().toString(), entry);
+                }
+            }
+            log.info("Found {} cached clones in {}", entries.size(), cacheDirectory);
+        } catch (IOException e) {
+            log.warn("Failed to read clone cache {}: {}", cacheDirectory, e.getMessage());
+        }
+    }
+
+    private static void git(Path workingDirectory, String... arguments) throws IOException {
+        List<String> command = new ArrayList<>(arguments.length + 1);
+        command.add("git");
+        command.addAll(List.of(arguments));
+        // Output goes to a file rather than a pipe, so nothing blocks on git and the timeout always applies
+        Path output = Files.createTempFile("git-", ".log");
+        try {
+            ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile());
+            // Fail instead of waiting for credentials nobody will type
+            builder.environment().put("GIT_TERMINAL_PROMPT", "0");
+            Process process = builder.start();
+            try {
+                if (!process.waitFor(GIT_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    throw new IOException("git " + arguments[0] + " timed out");
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted running git " + arguments[0]);
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("git " + arguments[0] + " failed: "
+                    + new String(Files.readAllBytes(output), StandardCharsets.UTF_8).trim());
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static class Entry {
+        final Path directory;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long sizeBytes;
+        volatile long lastUsed;
+        volatile boolean evicted;
+
+        Entry(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * A cached clone checked out at the requested branch, locked until closed
+     */
+    public static class Checkout implements AutoCloseable {
+        private final Entry entry;
+
+        private Checkout(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Path getDirectory() {
+            return entry.directory;
+        }
+
+        @Override
+        public void close() {
+            entry.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.devorchestrator.analyzer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches a fixed set of patterns against file contents in one pass and
+ * reports which of them occur. Patterns get consecutive ids in the order
+ * they are added. Plain strings are compiled into Aho-Corasick automata (one
+ * case-sensitive, one for case-insensitive strings). Real regular expressions
+ * contribute their longest required literal to the same automata and are
+ * only run when it occurs; the few without one are combined into a single
+ * alternation. Built once, then immutable and safe for concurrent use.
+ *
+ * <p>Regular expressions must not use back-references, since their groups
+ * are renumbered inside the alternation.
+ */
+@Slf4j
+public final class MultiPatternMatcher {
+
+    private static final int MIN_ANCHOR_LENGTH = 3;
+    private static final Pattern COUNTED_QUANTIFIER = Pattern.compile("\\{\\d+(,\\d*)?}");
+
+    private final int size;
+    private final int anchorLimit;
+    private final LiteralAutomaton caseSensitive;
+    private final LiteralAutomaton caseInsensitive;
+    private final List<AnchoredRegex> anchoredRegexes = new ArrayList<>();
+    private final RegexAlternation regexes;
+
+    private MultiPatternMatcher(Builder builder) {
+        this.size = builder.count;
+        List<Literal> literals = new ArrayList<>(builder.literals);
+        List<Literal> ignoreCaseLiterals = new ArrayList<>(builder.ignoreCaseLiterals);
+        List<Integer> unanchoredIds = new ArrayList<>();
+        List<Pattern> unanchored = new ArrayList<>();
+        // Anchors get internal ids above the public ones and are cleared before returning
+        int anchorId = size;
+        for (int i = 0; i < builder.regexes.size(); i++) {
+            Pattern pattern = builder.regexes.get(i);
+            String anchor = requiredLiteral(pattern.pattern());
+            if (anchor == null) {
+                unanchoredIds.add(builder.regexIds.get(i));
+                unanchored.add(pattern);
+                continue;
+            }
+            boolean ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+            (ignoreCase ? ignoreCaseLiterals : literals).add(new Literal(anchorId, anchor));
+            anchoredRegexes.add(new AnchoredRegex(builder.regexIds.get(i), anchorId++, pattern));
+        }
+        this.anchorLimit = anchorId;
+        this.caseSensitive = LiteralAutomaton.build(literals, false);
+        this.caseInsensitive = LiteralAutomaton.build(ignoreCaseLiterals, true);
+        this.regexes = RegexAlternation.build(unanchoredIds, unanchored);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Number of patterns, i.e. one more than the highest id
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ids of all patterns that occur in the content
+     */
+    public BitSet match(CharSequence content) {
+        BitSet found = new BitSet(anchorLimit);
+        if (caseSensitive != null) {
+            caseSensitive.scan(content, found);
+        }
+        if (caseInsensitive != null) {
+            caseInsensitive.scan(content, found);
+        }
+        for (AnchoredRegex regex : anchoredRegexes) {
+            if (found.get(regex.anchorId()) && regex.pattern().matcher(content).find()) {
+                found.set(regex.id());
+            }
+        }
+        found.clear(size, anchorLimit);
+        if (regexes != null) {
+            regexes.scan(content, found);
+        }
+        return found;
+    }
+
+    /**
+     * The longest literal that every match of the regex must contain, or null
+     * if none of at least {@link #MIN_ANCHOR_LENGTH} characters can be
+     * derived. Only the top-level sequence is considered: groups, classes,
+     * wildcards and quantified characters end a literal run, and a top-level
+     * alternation or inline flags give no anchor at all. The digits of a
+     * counted quantifier such as {@code {2,4}} are not literal text.
+     */
+    static String requiredLiteral(String regex) {
+        if (regex.contains("\\Q") || regex.matches(".*\\(\\?[a-zA-Z\\-].*")) {
+            return null;
+        }
+        String best = null;
+        StringBuilder run = new StringBuilder();
+        int length = regex.length();
+        Matcher counted = COUNTED_QUANTIFIER.matcher(regex);
+        int i = 0;
+        while (i < length) {
+            char c = regex.charAt(i);
+            String atom = null;
+            int next = i + 1;
+            if (c == '\\') {
+                if (next >= length) {
+                    return null;
+                }
+                char escaped = regex.charAt(next);
+                // \d, \s, \b and friends are classes or anchors rather than characters
+                atom = Character.isLetterOrDigit(escaped) ? null : String.valueOf(escaped);
+                next++;
+            } else if (c == '(' || c == '[') {
+                next = closingIndex(regex, i) + 1;
+                if (next == 0) {
+                    return null;
+                }
+            } else if (c == '|') {
+                return null;
+            } else if (c == '{' && counted.region(i, length).lookingAt()) {
+                next = counted.end();
+            } else if (".^$*+?{}".indexOf(c) < 0) {
+                atom = String.valueOf(c);
+            }
+
+            char quantifier = next < length ? regex.charAt(next) : 0;
+            boolean optional = quantifier == '*' || quantifier == '?' || quantifier == '{';
+            if (atom != null && !optional) {
+                run.append(atom);
+            }
+            if (atom == null || optional || quantifier == '+') {
+                best = longer(best, run);
+                run.setLength(0);
+            }
+            i = next;
+        }
+        best = longer(best, run);
+        return best != null && best.length() >= MIN_ANCHOR_LENGTH ? best : null;
+    }
+
+    private static String longer(String best, CharSequence run) {
+        return best == null || run.length() > best.length() ? run.toString() : best;
+    }
+
+    /**
+     * Index of the ')' or ']' closing the group or class at {@code open}, or -1
+     */
+    private static int closingIndex(String regex, int open) {
+        int depth = 0;
+        boolean inClass = false;
+        for (int i = open; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']' && i > open + 1) {
+                    inClass = false;
+                    if (regex.charAt(open) == '[') {
+                        return i;
+                    }
+                }
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static final class Builder {
+        private final List<Literal> literals = new ArrayList<>();
+        private final List<Literal> ignoreCaseLiterals = new ArrayList<>();
+        private final List<Integer> regexIds = new ArrayList<>();
+        private final List<Pattern> regexes = new ArrayList<>();
+        private int count;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a plain string, found wherever it occurs as a substring
+         */
+        public int addLiteral(String literal, boolean ignoreCase) {
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            int id = count++;
+            (ignoreCase ? ignoreCaseLiterals : literals).add(new Literal(id, literal));
+            return id;
+        }
+
+        /**
+         * Adds a regular expression, found wherever it matches. Expressions
+         * that only consist of plain and escaped characters are treated as
+         * literals. An unescaped '{' that does not start a quantifier is taken
+         * literally instead of failing to compile.
+         */
+        public int addRegex(String regex, boolean ignoreCase) {
+            String literal = asLiteral(regex);
+            if (literal != null && !literal.isEmpty()) {
+                return addLiteral(literal, ignoreCase);
+            }
+            int flags = ignoreCase ? Pattern.CASE_INSENSITIVE : 0;
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex, flags);
+            } catch (PatternSyntaxException e) {
+                String escaped = regex.replaceAll("(?<!\\\\)\\{(?!\\d)", "\\\\{");
+                log.debug("Escaping braces of invalid pattern '{}': {}", regex, e.getDescription());
+                pattern = Pattern.compile(escaped, flags);
+            }
+            int id = count++;
+            regexIds.add(id);
+            regexes.add(pattern);
+            return id;
+        }
+
+        public MultiPatternMatcher build() {
+            return new MultiPatternMatcher(this);
+        }
+
+        /**
+         * The string matched by a regex without metacharacters, or null
+         */
+        private static String asLiteral(String regex) {
+            StringBuilder literal = new StringBuilder(regex.length());
+            for (int i = 0; i < regex.length(); i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                        // \d, \s, \b and friends are character classes or anchors
+                        return null;
+                    }
+                    literal.append(regex.charAt(++i));
+                } else if (".[]{}()*+?^$|".indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.toString();
+        }
+    }
+
+    private record Literal(int id, String text) {
+    }
+
+    private record AnchoredRegex(int id, int anchorId, Pattern pattern) {
+    }
+
+    /**
+     * Aho-Corasick automaton compiled to a dense transition table over the
+     * characters that occur in the patterns; every other character shares
+     * column 0.
+     */
+    private static final class LiteralAutomaton {
+        private final boolean ignoreCase;
+        private final char[] alphabet;
+        private final int[][] transitions;
+        private final int[][] outputs;
+        private final int patternCount;
+
+        private LiteralAutomaton(boolean ignoreCase, char[] alphabet, int[][] transitions, int[][] outputs,
+                                 int patternCount) {
+            this.ignoreCase = ignoreCase;
+            this.alphabet = alphabet;
+            this.transitions = transitions;
+            this.outputs = outputs;
+            this.patternCount = patternCount;
+        }
+
+        static LiteralAutomaton build(List<Literal> literals, boolean ignoreCase) {
+            if (literals.isEmpty()) {
+                return null;
+            }
+            // Map pattern characters to table columns first, so every trie node has the same width
+            char[] alphabet = new char[Character.MAX_VALUE + 1];
+            int symbols = 1;
+            List<String> texts = new ArrayList<>();
+            for (Literal literal : literals) {
+                String text = ignoreCase ? lowerCase(literal.text()) : literal.text();
+                texts.add(text);
+                for (int i = 0; i < text.length(); i++) {
+                    if (alphabet[text.charAt(i)] == 0) {
+                        alphabet[text.charAt(i)] = (char) symbols++;
+                    }
+                }
+            }
+
+            List<int[]> trie = new ArrayList<>();
+            List<List<Integer>> outputs = new ArrayList<>();
+            trie.add(new int[symbols]);
+            outputs.add(new ArrayList<>());
+            for (int l = 0; l < texts.size(); l++) {
+                String text = texts.get(l);
+                int state = 0;
+                for (int i = 0; i < text.length(); i++) {
+                    int symbol = alphabet[text.charAt(i)];
+                    if (trie.get(state)[symbol] == 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(new int[symbols]);
+                        outputs.add(new ArrayList<>());
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                outputs.get(state).add(literals.get(l).id());
+            }
+
+            // Breadth-first failure links, folded into the table so scanning never backtracks
+            int[] failure = new int[trie.size()];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 1; symbol < symbols; symbol++) {
+                int next = trie.get(0)[symbol];
+                if (next != 0) {
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs.get(state).addAll(outputs.get(failure[state]));
+                for (int symbol = 1; symbol < symbols; symbol++) {
+                    int next = trie.get(state)[symbol];
+                    if (next != 0) {
+                        failure[next] = trie.get(failure[state])[symbol];
+                        queue.add(next);
+                    } else {
+                        trie.get(state)[symbol] = trie.get(failure[state])[symbol];
+                    }
+                }
+            }
+
+            int[][] outputTable = new int[outputs.size()][];
+            for (int i = 0; i < outputTable.length; i++) {
+                outputTable[i] = outputs.get(i).stream().mapToInt(Integer::intValue).distinct().toArray();
+            }
+            return new LiteralAutomaton(ignoreCase, alphabet, trie.toArray(new int[0][]), outputTable,
+                literals.size());
+        }
+
+        /**
+         * Lowercases per character, the same way content is folded while scanning
+         */
+        private static String lowerCase(String text) {
+            char[] chars = text.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(chars[i]);
+            }
+            return new String(chars);
+        }
+
+        void scan(CharSequence content, BitSet found) {
+            int state = 0;
+            int remaining = patternCount;
+            for (int i = 0, length = content.length(); i < length; i++) {
+                char c = content.charAt(i);
+                if (ignoreCase) {
+                    c = Character.toLowerCase(c);
+                }
+                state = transitions[state][alphabet[c]];
+                for (int id : outputs[state]) {
+                    if (!found.get(id)) {
+                        found.set(id);
+                        if (--remaining == 0) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * All regular expressions as one alternation of capturing groups. After
+     * each match the alternatives behind the winning one are tried at the
+     * same position, since the alternation only reports the first that
+     * matches there.
+     */
+    private static final class RegexAlternation {
+        private final int[] ids;
+        private final Pattern[] patterns;
+        private final int[] groups;
+        private final Pattern combined;
+
+        private RegexAlternation(int[] ids, Pattern[] patterns, int[] groups, Pattern combined) {
+            this.ids = ids;
+            this.patterns = patterns;
+            this.groups = groups;
+            this.combined = combined;
+        }
+
+        static RegexAlternation build(List<Integer> ids, List<Pattern> patterns) {
+            if (patterns.isEmpty()) {
+                return null;
+            }
+            int[] groups = new int[patterns.size()];
+            StringBuilder alternation = new StringBuilder();
+            int group = 1;
+            for (int i = 0; i < patterns.size(); i++) {
+                Pattern pattern = patterns.get(i);
+                if (i > 0) {
+                    alternation.append('|');
+                }
+                boolean ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+                alternation.append(ignoreCase ? "(?i:(" : "(?-i:(").append(pattern.pattern()).append("))");
+                groups[i] = group;
+                group += 1 + pattern.matcher("").groupCount();
+            }
+            return new RegexAlternation(ids.stream().mapToInt(Integer::intValue).toArray(),
+                patterns.toArray(new Pattern[0]), groups, Pattern.compile(alternation.toString()));
+        }
+
+        void scan(CharSequence content, BitSet found) {
+            Matcher matcher = combined.matcher(content);
+            int remaining = (int) Arrays.stream(ids).filter(id -> !found.get(id)).count();
+            int from = 0;
+            while (remaining > 0 && from <= content.length() && matcher.find(from)) {
+                int start = matcher.start();
+                int winner = 0;
+                while (matcher.start(groups[winner]) < 0) {
+                    winner++;
+                }
+                if (!found.get(ids[winner])) {
+                    found.set(ids[winner]);
+                    remaining--;
+                }
+                for (int i = winner + 1; i < patterns.length && remaining > 0; i++) {
+                    if (!found.get(ids[i]) && patterns[i].matcher(content).region(start, content.length()).lookingAt()) {
+                        found.set(ids[i]);
+                        remaining--;
+                    }
+                }
+                from = start + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.devorchestrator.analyzer;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-file findings of a capped source scan. The parallel walk visits files
+ * in no particular order, so findings are kept for the first files by
+ * relative path only and replayed in that order once the walk is done,
+ * which gives the same result on every run.
+ *
+ * @param <T> findings of one file
+ */
+public class OrderedFindings<T> {
+
+    private final int limit;
+    private final ConcurrentSkipListMap<String, T> findings = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public OrderedFindings(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Keeps the file's findings if it is among the first files by path seen so far
+     */
+    public void add(ScannedFile file, T fileFindings) {
+        if (findings.put(file.getRelativePath(), fileFindings) == null && size.incrementAndGet() > limit) {
+            findings.pollLastEntry();
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Hands the kept findings to the action in relative path order
+     */
+    public void forEach(BiConsumer<String, T> action) {
+        findings.forEach(action);
+    }
+}
@@ -2,7 +2,9 @@ package com.devorchestrator.analyzer;
 
 import com.devorchestrator.analyzer.detector.TechnologyDetector;
 import com.devorchestrator.analyzer.model.ProjectAnalysis;
+import com.devorchestrator.config.AppProperties;
 import com.devorchestrator.exception.DevOrchestratorException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -10,12 +12,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,15 +33,48 @@ import java.util.stream.Collectors;
 public class ProjectAnalyzerService {
     
     private final List<TechnologyDetector> detectors;
+    private final AnalysisCache analysisCache;
+    private final DetectionRuleService detectionRuleService;
+    private final GitCloneCache cloneCache;
     private final ExecutorService executorService;
+    private final ForkJoinPool scanPool;
+    private final Duration timeBudget;
+    private final long maxFileBytes;
+    private final long maxAnalysisBytes;
     
-    public ProjectAnalyzerService(List<TechnologyDetector> detectors) {
+    public ProjectAnalyzerService(List<TechnologyDetector> detectors, AnalysisCache analysisCache,
+                                  DetectionRuleService detectionRuleService, GitCloneCache cloneCache,
+                                  AppProperties appProperties) {
+        this.analysisCache = analysisCache;
+        this.detectionRuleService = detectionRuleService;
+        this.cloneCache = cloneCache;
         this.detectors = detectors.stream()
             .sorted(Comparator.comparing(TechnologyDetector::getPriority).reversed())
             .collect(Collectors.toList());
         this.executorService = Executors.newFixedThreadPool(4);
         
-        log.info("Initialized ProjectAnalyzerService with {} detectors", detectors.size());
+        AppProperties.Analysis config = appProperties.getAnalysis();
+        int parallelism = config.getScanParallelism() > 0
+            ? config.getScanParallelism() : Runtime.getRuntime().availableProcessors();
+        this.scanPool = parallelism > 1 ? new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("analysis-scan-" + thread.getPoolIndex());
+            return thread;
+        }, null, false) : null;
+        this.timeBudget = Duration.ofSeconds(config.getTimeBudgetSeconds());
+        this.maxFileBytes = config.getMaxFileSizeKb() * 1024L;
+        this.maxAnalysisBytes = config.getMaxBytesPerAnalysisMb() * 1024L * 1024L;
+        
+        log.info("Initialized ProjectAnalyzerService with {} detectors, scan parallelism {}", 
+            detectors.size(), parallelism);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+        if (scanPool != null) {
+            scanPool.shutdownNow();
+        }
     }
     
     public ProjectAnalysis analyzeProject(String projectPath) {
@@ -49,16 +92,79 @@ public class ProjectAnalyzerService {
             .analyzedAt(LocalDateTime.now())
             .build();
         
-        // Run detectors in priority order
-        for (TechnologyDetector detector : detectors) {
-            try {
-                log.debug("Running detector: {}", detector.getName());
-                detector.detect(path, analysis);
-            } catch (Exception e) {
-                log.error("Error in detector {}: {}", detector.getName(), e.getMessage());
-                analysis.addWarning("Detector Error", 
-                    String.format("Failed to run %s detector: %s", detector.getName(), e.getMessage()));
+        long startedAt = System.currentTimeMillis();
+        long deadlineNanos = System.nanoTime() + timeBudget.toNanos();
+        String rulesVersion = detectionRuleService.getRuleSet().getVersion();
+        try (AnalysisCache.Session cache = analysisCache.open(path, rulesVersion)) {
+            AnalysisContext context = new AnalysisContext(path, cache);
+            
+            // Collect the file visitors of all detectors for a single walk
+            Map<TechnologyDetector, TechnologyDetector.ProjectFileVisitor> visitors = new LinkedHashMap<>();
+            Set<TechnologyDetector> failed = new HashSet<>();
+            for (TechnologyDetector detector : detectors) {
+                try {
+                    TechnologyDetector.ProjectFileVisitor visitor = detector.createFileVisitor(path, analysis, context);
+                    if (visitor != null) {
+                        visitors.put(detector, visitor);
+                    }
+                } catch (Exception e) {
+                    addDetectorWarning(analysis, detector, e);
+                    failed.add(detector);
+                }
+            }
+            
+            ContentBudget budget = new ContentBudget(maxFileBytes, maxAnalysisBytes);
+            ProjectFileWalker walker = new ProjectFileWalker(path, scanPool, deadlineNanos, budget);
+            walkProject(walker, visitors, failed, analysis);
+            if (walker.isTruncated()) {
+                log.warn("Analysis of {} exceeded its time budget of {}s after {} files", 
+                    projectPath, timeBudget.toSeconds(), walker.getFilesVisited());
+                analysis.addWarning("Analysis Time Budget", String.format(
+                    "Scanning stopped after %d files (%ds budget); results may be incomplete", 
+                    walker.getFilesVisited(), timeBudget.toSeconds()));
+            }
+            if (budget.isExhausted()) {
+                log.warn("Analysis of {} read its budget of {} bytes; {} files were matched by name only",
+                    projectPath, maxAnalysisBytes, budget.getFilesSkipped());
+                analysis.addWarning("Analysis Byte Budget", String.format(
+                    "Content of %d files was not scanned after reading %d MB; results may be incomplete",
+                    budget.getFilesSkipped(), maxAnalysisBytes / (1024 * 1024)));
+            }
+            
+            // Complete visitors and run the remaining detectors in priority order
+            for (TechnologyDetector detector : detectors) {
+                if (failed.contains(detector)) {
+                    continue;
+                }
+                try {
+                    log.debug("Running detector: {}", detector.getName());
+                    TechnologyDetector.ProjectFileVisitor visitor = visitors.get(detector);
+                    if (visitor != null) {
+                        visitor.complete();
+                    } else {
+                        detector.detect(path, analysis, context);
+                    }
+                } catch (Exception e) {
+                    addDetectorWarning(analysis, detector, e);
+                }
             }
+            
+            AnalysisCache.CacheStatistics stats = cache.getStatistics();
+            analysis.setScanStatistics(ProjectAnalysis.ScanStatistics.builder()
+                .filesScanned(walker.getFilesVisited())
+                .bytesRead(walker.getBytesRead())
+                .truncated(walker.isTruncated())
+                .filesSkipped(budget.getFilesSkipped())
+                .filesOversized(budget.getFilesOversized())
+                .cacheHits(stats.getHits() + stats.getHashHits())
+                .cacheMisses(stats.getMisses())
+                .filesCached(stats.getFiles())
+                .cacheHitRate(stats.getHitRate())
+                .durationMs(System.currentTimeMillis() - startedAt)
+                .build());
+            log.info("Scanned {} files ({} bytes read) of {}; cache: {} hits, {} misses ({}% hit rate)",
+                walker.getFilesVisited(), walker.getBytesRead(), projectPath,
+                stats.getHits() + stats.getHashHits(), stats.getMisses(), Math.round(stats.getHitRate() * 100));
         }
         
         // Post-process analysis
@@ -75,20 +181,53 @@ public class ProjectAnalyzerService {
     }
     
     public ProjectAnalysis analyzeGitRepository(String gitUrl, String branch) {
-        // Clone repository to temp directory
-        Path tempDir = cloneRepository(gitUrl, branch);
-        
-        try {
-            // Analyze the cloned repository
-            ProjectAnalysis analysis = analyzeProject(tempDir.toString());
+        // Clone the repository, or fetch into the clone kept from an earlier analysis
+        try (GitCloneCache.Checkout checkout = cloneCache.checkout(gitUrl, branch)) {
+            ProjectAnalysis analysis = analyzeProject(checkout.getDirectory().toString());
             analysis.setProjectName(extractProjectNameFromGitUrl(gitUrl));
             return analysis;
-        } finally {
-            // Clean up temp directory
-            cleanupTempDirectory(tempDir);
+        } catch (IOException e) {
+            throw new DevOrchestratorException("Error cloning repository", e);
         }
     }
     
+    /**
+     * Walks the project once, handing every file to all visitors, possibly
+     * from several threads. A visitor that fails is dropped for the rest of
+     * the walk, reported once and added to the failed detectors.
+     */
+    private void walkProject(ProjectFileWalker walker,
+                             Map<TechnologyDetector, TechnologyDetector.ProjectFileVisitor> visitors,
+                             Set<TechnologyDetector> failed, ProjectAnalysis analysis) {
+        if (visitors.isEmpty()) {
+            return;
+        }
+        Map<TechnologyDetector, Exception> errors = new ConcurrentHashMap<>();
+        try {
+            walker.walk(file -> visitors.forEach((detector, visitor) -> {
+                if (errors.containsKey(detector)) {
+                    return;
+                }
+                try {
+                    visitor.visitFile(file);
+                } catch (Exception e) {
+                    errors.putIfAbsent(detector, e);
+                }
+            }));
+        } catch (IOException e) {
+            log.error("Error walking project {}: {}", analysis.getProjectPath(), e.getMessage());
+            analysis.addWarning("Project Scan", "Failed to scan project files: " + e.getMessage());
+        }
+        errors.forEach((detector, e) -> addDetectorWarning(analysis, detector, e));
+        failed.addAll(errors.keySet());
+    }
+    
+    private void addDetectorWarning(ProjectAnalysis analysis, TechnologyDetector detector, Exception e) {
+        log.error("Error in detector {}: {}", detector.getName(), e.getMessage());
+        analysis.addWarning("Detector Error", 
+            String.format("Failed to run %s detector: %s", detector.getName(), e.getMessage()));
+    }
+    
     private void postProcessAnalysis(ProjectAnalysis analysis) {
         // Calculate overall confidence
         analysis.calculateOverallConfidence();
@@ -205,7 +344,7 @@ public class ProjectAnalyzerService {
         Path packageJson = projectPath.resolve("package.json");
         if (Files.exists(packageJson)) {
             try {
-                String content = Files.readString(packageJson);
+                String content = FileContents.readString(packageJson);
                 // Simple extraction - in production use proper JSON parser
                 if (content.contains("\"name\"")) {
                     int start = content.indexOf("\"name\"") + 8;
@@ -223,7 +362,7 @@ public class ProjectAnalyzerService {
         Path pomXml = projectPath.resolve("pom.xml");
         if (Files.exists(pomXml)) {
             try {
-                String content = Files.readString(pomXml);
+                String content = FileContents.readString(pomXml);
                 if (content.contains("<artifactId>")) {
                     int start = content.indexOf("<artifactId>") + 12;
                     int end = content.indexOf("</artifactId>", start);
@@ -250,43 +389,4 @@ public class ProjectAnalyzerService {
         }
         return name;
     }
-    
-    private Path cloneRepository(String gitUrl, String branch) {
-        try {
-            Path tempDir = Files.createTempDirectory("devorchestrator-analyze-");
-            
-            ProcessBuilder pb = new ProcessBuilder(
-                "git", "clone", "--depth", "1", "--branch", branch, gitUrl, tempDir.toString()
-            );
-            
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode != 0) {
-                throw new DevOrchestratorException("Failed to clone repository: " + gitUrl);
-            }
-            
-            return tempDir;
-        } catch (IOException | InterruptedException e) {
-            throw new DevOrchestratorException("Error cloning repository", e);
-        }
-    }
-    
-    private void cleanupTempDirectory(Path tempDir) {
-        try {
-            if (Files.exists(tempDir)) {
-                Files.walk(tempDir)
-                    .sorted(Comparator.reverseOrder())
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            log.warn("Failed to delete temp file: {}", path);
-                        }
-                    });
-            }
-        } catch (IOException e) {
-            log.warn("Failed to cleanup temp directory: {}", tempDir);
-        }
-    }
 }
\ No newline at end of file
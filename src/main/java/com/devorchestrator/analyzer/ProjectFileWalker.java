@@ -0,0 +1,240 @@
+package com.devorchestrator.analyzer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Walks a project tree once for all detectors. Dependency, build output,
+ * version control and IDE directories are pruned as a whole, so no detector
+ * sees files below them.
+ *
+ * <p>With a fork-join pool the walk runs in parallel: every directory is a
+ * task, and large directories are split further into batches of files, so
+ * the consumer is called concurrently. Once the deadline has passed no more
+ * files are handed out and the walk is marked as truncated.
+ *
+ * <p>File content is read within the given {@link ContentBudget} and released
+ * as soon as the consumer returns, so memory use depends on the number of
+ * threads rather than on the size of the project.
+ */
+@Slf4j
+public class ProjectFileWalker {
+
+    static final Set<String> SKIPPED_DIRECTORIES = Set.of(
+        ".git", ".svn", ".hg",
+        "node_modules", "vendor", ".venv", "venv", "__pycache__",
+        "target", "build", "dist", "out", ".gradle", ".next", ".nuxt",
+        ".idea", ".vscode", ".vs"
+    );
+
+    static final int FILE_BATCH_SIZE = 64;
+
+    private final Path root;
+    private final ForkJoinPool pool;
+    private final long deadlineNanos;
+    private final ContentBudget budget;
+    private final AtomicLong filesVisited = new AtomicLong();
+    private volatile boolean truncated;
+
+    /**
+     * Sequential walker without a deadline, reading within the default budgets
+     */
+    public ProjectFileWalker(Path root) {
+        this(root, null, Long.MAX_VALUE);
+    }
+
+    public ProjectFileWalker(Path root, ForkJoinPool pool, long deadlineNanos) {
+        this(root, pool, deadlineNanos, ContentBudget.defaults());
+    }
+
+    /**
+     * @param pool pool for a parallel walk, or null to walk on the caller thread
+     * @param deadlineNanos {@link System#nanoTime()} after which the walk stops
+     * @param budget byte budgets for reading file content during this walk
+     */
+    public ProjectFileWalker(Path root, ForkJoinPool pool, long deadlineNanos, ContentBudget budget) {
+        this.root = root;
+        this.pool = pool;
+        this.deadlineNanos = deadlineNanos;
+        this.budget = budget;
+    }
+
+    public static boolean isSkippedDirectory(String name) {
+        return SKIPPED_DIRECTORIES.contains(name);
+    }
+
+    /**
+     * Passes every regular file outside the skipped directories to the consumer
+     */
+    public void walk(Consumer<ScannedFile> consumer) throws IOException {
+        if (pool == null) {
+            walkSequentially(consumer);
+            return;
+        }
+        try {
+            pool.invoke(new DirectoryTask(root, consumer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void walkSequentially(Consumer<ScannedFile> consumer) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && isSkippedDirectory(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    if (expired()) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    visit(consumer, toScannedFile(file, attrs));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.debug("Skipping unreadable path {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean expired() {
+        if (System.nanoTime() - deadlineNanos > 0) {
+            truncated = true;
+        }
+        return truncated;
+    }
+
+    private void visit(Consumer<ScannedFile> consumer, ScannedFile file) {
+        filesVisited.incrementAndGet();
+        try {
+            consumer.accept(file);
+        } finally {
+            file.release();
+        }
+    }
+
+    private ScannedFile toScannedFile(Path file, BasicFileAttributes attrs) {
+        return new ScannedFile(file, root.relativize(file).toString(), attrs.size(),
+            attrs.lastModifiedTime().toMillis(), budget);
+    }
+
+    public long getFilesVisited() {
+        return filesVisited.get();
+    }
+
+    public long getBytesRead() {
+        return budget.getBytesRead();
+    }
+
+    /**
+     * Whether the deadline stopped the walk before all files were visited
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final Consumer<ScannedFile> consumer;
+
+        DirectoryTask(Path dir, Consumer<ScannedFile> consumer) {
+            this.dir = dir;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (expired()) {
+                return;
+            }
+            List<ForkJoinTask<?>> subtasks = new ArrayList<>();
+            List<ScannedFile> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        // Like walkFileTree, symbolic links are neither followed nor visited
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        log.debug("Skipping unreadable path {}: {}", entry, e.getMessage());
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        if (!isSkippedDirectory(entry.getFileName().toString())) {
+                            subtasks.add(new DirectoryTask(entry, consumer));
+                        }
+                    } else if (attrs.isRegularFile()) {
+                        files.add(toScannedFile(entry, attrs));
+                    }
+                }
+            } catch (IOException e) {
+                if (dir.equals(root)) {
+                    throw new UncheckedIOException(e);
+                }
+                log.debug("Skipping unreadable directory {}: {}", dir, e.getMessage());
+                return;
+            }
+
+            for (int from = FILE_BATCH_SIZE; from < files.size(); from += FILE_BATCH_SIZE) {
+                subtasks.add(new FileBatchTask(files.subList(from, Math.min(from + FILE_BATCH_SIZE, files.size())),
+                    consumer));
+            }
+            subtasks.forEach(ForkJoinTask::fork);
+            visitAll(files.subList(0, Math.min(FILE_BATCH_SIZE, files.size())), consumer);
+            for (int i = subtasks.size() - 1; i >= 0; i--) {
+                subtasks.get(i).join();
+            }
+        }
+    }
+
+    private class FileBatchTask extends RecursiveAction {
+        private final List<ScannedFile> files;
+        private final Consumer<ScannedFile> consumer;
+
+        FileBatchTask(List<ScannedFile> files, Consumer<ScannedFile> consumer) {
+            this.files = files;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            visitAll(files, consumer);
+        }
+    }
+
+    private void visitAll(List<ScannedFile> files, Consumer<ScannedFile> consumer) {
+        for (ScannedFile file : files) {
+            if (expired()) {
+                return;
+            }
+            visit(consumer, file);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.devorchestrator.analyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * A regular file found by the {@link ProjectFileWalker}. The content is read
+ * on first access and then shared by every detector, so each file is read at
+ * most once per analysis; the walker releases it once all detectors have seen
+ * the file. Files above the per-file budget are never held in memory: their
+ * content is withheld and their hash and line count are computed while
+ * streaming them in chunks. Only the size taken from the budget is ever
+ * read, even if the file grew after it was found.
+ */
+public class ScannedFile {
+
+    private static final byte[] UNREADABLE = new byte[0];
+
+    private final Path path;
+    private final String relativePath;
+    private final String fileName;
+    private final long size;
+    private final long lastModified;
+    private final ContentBudget budget;
+
+    private byte[] bytes;
+    private String content;
+    private boolean decoded;
+    private FileContents.Summary summary;
+
+    public ScannedFile(Path path, String relativePath, long size, long lastModified, ContentBudget budget) {
+        this.path = path;
+        this.relativePath = relativePath;
+        this.fileName = path.getFileName().toString();
+        this.size = size;
+        this.lastModified = lastModified;
+        this.budget = budget;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Path relative to the project root, with the platform separator
+     */
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Whether the file is too large to be held in memory
+     */
+    public boolean isOversized() {
+        return size > budget.getMaxFileBytes();
+    }
+
+    /**
+     * Raw content, or null when the file cannot be read, is oversized or the
+     * analysis has used up its byte budget
+     */
+    public synchronized byte[] bytes() {
+        if (bytes == null) {
+            if (isOversized()) {
+                budget.recordOversized();
+                bytes = UNREADABLE;
+                return null;
+            }
+            if (!budget.tryAcquire(size)) {
+                budget.recordSkipped();
+                bytes = UNREADABLE;
+                return null;
+            }
+            try {
+                bytes = FileContents.readAtMost(path, size);
+            } catch (IOException e) {
+                bytes = UNREADABLE;
+                return null;
+            }
+        }
+        return bytes == UNREADABLE ? null : bytes;
+    }
+
+    /**
+     * Content decoded as UTF-8, or null for unreadable, oversized and binary files
+     */
+    public synchronized String content() {
+        if (!decoded) {
+            byte[] raw = bytes();
+            content = raw != null && !FileContents.isBinary(raw, raw.length) ? decode(raw) : null;
+            decoded = true;
+        }
+        return content;
+    }
+
+    /**
+     * SHA-256 of the content, or null when the file cannot be read within the budgets
+     */
+    public synchronized String hash() {
+        if (!isOversized()) {
+            byte[] raw = bytes();
+            return raw != null ? AnalysisCache.sha256(raw) : null;
+        }
+        FileContents.Summary streamed = summarize();
+        return streamed != null ? streamed.hash() : null;
+    }
+
+    /**
+     * Number of lines, counted on the raw bytes; 0 for binary and unreadable files
+     */
+    public synchronized long lineCount() {
+        if (!isOversized()) {
+            byte[] raw = bytes();
+            return raw != null && !FileContents.isBinary(raw, raw.length) ? FileContents.countLines(raw) : 0;
+        }
+        FileContents.Summary streamed = summarize();
+        return streamed != null ? streamed.lines() : 0;
+    }
+
+    private FileContents.Summary summarize() {
+        if (summary == null) {
+            if (!budget.tryAcquire(size)) {
+                budget.recordSkipped();
+                return null;
+            }
+            try {
+                summary = FileContents.summarize(path, size);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Drops the content held in memory; it is read again if accessed later
+     */
+    public synchronized void release() {
+        bytes = null;
+        content = null;
+        decoded = false;
+    }
+
+    private static String decode(byte[] bytes) {
+        try {
+            // Strict like Files.readString, so files in other encodings are skipped rather than scanned
+            return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(bytes))
+                .toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+}
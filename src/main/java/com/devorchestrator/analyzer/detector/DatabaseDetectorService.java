@@ -1,5 +1,12 @@
 package com.devorchestrator.analyzer.detector;
 
+import com.devorchestrator.analyzer.AnalysisContext;
+import com.devorchestrator.analyzer.DetectionRuleService;
+import com.devorchestrator.analyzer.DetectionRuleSet;
+import com.devorchestrator.analyzer.FileContents;
+import com.devorchestrator.analyzer.MultiPatternMatcher;
+import com.devorchestrator.analyzer.OrderedFindings;
+import com.devorchestrator.analyzer.ScannedFile;
 import com.devorchestrator.analyzer.model.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -8,6 +15,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -16,190 +24,94 @@ import java.util.stream.Stream;
 @Slf4j
 public class DatabaseDetectorService implements TechnologyDetector {
     
-    private static final Map<String, DatabasePattern> DATABASE_PATTERNS = new HashMap<>();
+    private static final String CATEGORY = "database_detector";
+    private static final int MAX_SOURCE_FILES = 50;
     
-    static {
-        initializeDatabasePatterns();
+    private static final Pattern CONNECTION_DETAILS = Pattern.compile(
+        "(?:([a-zA-Z0-9]+)://)?(?:([^:@]+)(?::([^@]+))?@)?([^:/]+)(?::(\\d+))?(?:/([^?]+))?"
+    );
+    
+    private final DetectionRuleService detectionRuleService;
+    
+    public DatabaseDetectorService(DetectionRuleService detectionRuleService) {
+        this.detectionRuleService = detectionRuleService;
     }
     
-    private static void initializeDatabasePatterns() {
-        // PostgreSQL
-        DATABASE_PATTERNS.put("postgresql", new DatabasePattern(
-            "PostgreSQL",
-            Arrays.asList(
-                "postgres://", "postgresql://", "psql://",
-                "jdbc:postgresql://", "postgres:", "POSTGRES_"
-            ),
-            Arrays.asList("psycopg2", "asyncpg", "pg", "node-postgres", "pq", "gorm.io/driver/postgres"),
-            Arrays.asList("*.sql", "schema.sql", "migrations/*.sql"),
-            5432,
-            "postgres:15-alpine"
-        ));
-        
-        // MySQL/MariaDB
-        DATABASE_PATTERNS.put("mysql", new DatabasePattern(
-            "MySQL",
-            Arrays.asList(
-                "mysql://", "mysqli://", "jdbc:mysql://",
-                "mysql:", "MYSQL_", "mariadb://", "MariaDB"
-            ),
-            Arrays.asList("mysql2", "mysqlclient", "pymysql", "aiomysql", "mysql-connector", "gorm.io/driver/mysql"),
-            Arrays.asList("*.sql", "schema.sql"),
-            3306,
-            "mysql:8-alpine"
-        ));
-        
-        // MongoDB
-        DATABASE_PATTERNS.put("mongodb", new DatabasePattern(
-            "MongoDB",
-            Arrays.asList(
-                "mongodb://", "mongodb+srv://", "mongo:",
-                "MONGO_", "MONGODB_"
-            ),
-            Arrays.asList("mongodb", "mongoose", "pymongo", "motor", "mongo-driver"),
-            Arrays.asList("*.js", "schema.js"),
-            27017,
-            "mongo:6-alpine"
-        ));
-        
-        // Redis
-        DATABASE_PATTERNS.put("redis", new DatabasePattern(
-            "Redis",
-            Arrays.asList(
-                "redis://", "rediss://", "redis:",
-                "REDIS_", "CACHE_"
-            ),
-            Arrays.asList("redis", "ioredis", "redis-py", "go-redis", "jedis", "lettuce"),
-            null,
-            6379,
-            "redis:7-alpine"
-        ));
-        
-        // SQLite
-        DATABASE_PATTERNS.put("sqlite", new DatabasePattern(
-            "SQLite",
-            Arrays.asList(
-                "sqlite://", "sqlite3://", ".db", ".sqlite",
-                ".sqlite3", "file:.*\\.db"
-            ),
-            Arrays.asList("sqlite3", "better-sqlite3", "sqlite", "gorm.io/driver/sqlite"),
-            Arrays.asList("*.db", "*.sqlite", "*.sqlite3"),
-            null,
-            null
-        ));
-        
-        // Elasticsearch
-        DATABASE_PATTERNS.put("elasticsearch", new DatabasePattern(
-            "Elasticsearch",
-            Arrays.asList(
-                "elasticsearch://", "elastic:", "ES_",
-                "ELASTICSEARCH_", "localhost:9200"
-            ),
-            Arrays.asList("elasticsearch", "@elastic/elasticsearch", "elasticsearch-py", "elastic/go-elasticsearch"),
-            null,
-            9200,
-            "elasticsearch:8.11.3"
-        ));
-        
-        // Cassandra
-        DATABASE_PATTERNS.put("cassandra", new DatabasePattern(
-            "Cassandra",
-            Arrays.asList(
-                "cassandra://", "cassandra:", "CASSANDRA_",
-                "ContactPoints", "cassandra-driver"
-            ),
-            Arrays.asList("cassandra-driver", "cassandra-driver-core", "gocql"),
-            Arrays.asList("*.cql"),
-            9042,
-            "cassandra:4.1"
-        ));
-        
-        // DynamoDB
-        DATABASE_PATTERNS.put("dynamodb", new DatabasePattern(
-            "DynamoDB",
-            Arrays.asList(
-                "dynamodb://", "amazonaws.com/dynamodb",
-                "DYNAMO_", "AWS_DYNAMODB_"
-            ),
-            Arrays.asList("aws-sdk", "@aws-sdk/client-dynamodb", "boto3", "aws-sdk-go"),
-            null,
-            8000,
-            "amazon/dynamodb-local:latest"
-        ));
-        
-        // RabbitMQ (Message Queue)
-        DATABASE_PATTERNS.put("rabbitmq", new DatabasePattern(
-            "RabbitMQ",
-            Arrays.asList(
-                "amqp://", "amqps://", "rabbitmq:",
-                "RABBITMQ_", "AMQP_"
-            ),
-            Arrays.asList("amqplib", "pika", "kombu", "amqp"),
-            null,
-            5672,
-            "rabbitmq:3.12-alpine"
-        ));
-        
-        // Kafka (Message Queue)
-        DATABASE_PATTERNS.put("kafka", new DatabasePattern(
-            "Kafka",
-            Arrays.asList(
-                "kafka://", "kafka:", "KAFKA_",
-                "bootstrap.servers", "kafka-clients"
-            ),
-            Arrays.asList("kafkajs", "kafka-python", "confluent-kafka", "sarama"),
-            null,
-            9092,
-            "confluentinc/cp-kafka:7.5.0"
-        ));
-        
-        // Memcached
-        DATABASE_PATTERNS.put("memcached", new DatabasePattern(
-            "Memcached",
-            Arrays.asList(
-                "memcached://", "memcache:", "MEMCACHED_",
-                "MEMCACHE_"
-            ),
-            Arrays.asList("memcached", "pymemcache", "node-memcached"),
-            null,
-            11211,
-            "memcached:1.6-alpine"
-        ));
+    /**
+     * Connection patterns and dependencies of all databases, indexed by matcher id
+     */
+    private static ContentRules compileContentRules(DetectionRuleSet rules) {
+        MultiPatternMatcher.Builder builder = MultiPatternMatcher.builder();
+        List<ContentRule> contentRules = new ArrayList<>();
+        for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+            for (String connPattern : rule.getConnectionPatterns()) {
+                builder.addLiteral(connPattern, true);
+                contentRules.add(new ContentRule(rule.getKey(), false, 
+                    Pattern.compile(Pattern.quote(connPattern) + "[^\\s\"']*", Pattern.CASE_INSENSITIVE)));
+            }
+            for (String dep : rule.getDependencies()) {
+                builder.addLiteral(dep, false);
+                contentRules.add(new ContentRule(rule.getKey(), true, null));
+            }
+        }
+        return new ContentRules(builder.build(), contentRules);
     }
     
     @Override
     public void detect(Path projectPath, ProjectAnalysis analysis) {
+        detect(projectPath, analysis, AnalysisContext.uncached(projectPath));
+    }
+    
+    @Override
+    public ProjectFileVisitor createFileVisitor(Path projectPath, ProjectAnalysis analysis, AnalysisContext context) {
         log.info("Starting database detection for project: {}", projectPath);
         
-        Map<String, DatabaseInfo> detectedDatabases = new HashMap<>();
+        // Files are visited concurrently by the parallel walk
+        Map<String, DatabaseInfo> detectedDatabases = new ConcurrentHashMap<>();
+        OrderedFindings<List<String>> sourceFindings = new OrderedFindings<>(MAX_SOURCE_FILES);
+        DetectionRuleSet rules = detectionRuleService.getRuleSet();
+        ContentRules contentRules = rules.derive(CATEGORY, DatabaseDetectorService::compileContentRules);
         
         // Scan configuration files
-        scanConfigurationFiles(projectPath, detectedDatabases);
+        scanConfigurationFiles(projectPath, rules, contentRules, detectedDatabases);
         
         // Scan environment files
-        scanEnvironmentFiles(projectPath, detectedDatabases, analysis);
-        
-        // Scan source code for connection strings
-        scanSourceCode(projectPath, detectedDatabases);
-        
-        // Check for database migration files
-        checkMigrationFiles(projectPath, detectedDatabases);
-        
-        // Check docker-compose files
-        scanDockerCompose(projectPath, detectedDatabases);
-        
-        // Check dependency files
-        scanDependencies(projectPath, detectedDatabases);
-        
-        // Convert to DetectedDatabase objects
-        detectedDatabases.values().stream()
-            .map(this::createDetectedDatabase)
-            .forEach(analysis::addDatabase);
-        
-        log.info("Detected {} databases in project", detectedDatabases.size());
+        scanEnvironmentFiles(projectPath, rules, detectedDatabases, analysis);
+        
+        return new ProjectFileVisitor() {
+            @Override
+            public void visitFile(ScannedFile file) {
+                // Scan source code for connection strings; only the first source files by path count
+                if (isSourceFile(file.getFileName())) {
+                    sourceFindings.add(file, context.fileFindings(getName(), file, content -> scanContent(contentRules, content, true)));
+                }
+            }
+            
+            @Override
+            public void complete() {
+                sourceFindings.forEach((relativePath, findings) -> applyFindings(findings, rules, detectedDatabases));
+                
+                // Check for database migration files
+                checkMigrationFiles(projectPath, rules, detectedDatabases);
+                
+                // Check docker-compose files
+                scanDockerCompose(projectPath, rules, detectedDatabases);
+                
+                // Check dependency files
+                scanDependencies(projectPath, rules, detectedDatabases);
+                
+                // Convert to DetectedDatabase objects
+                detectedDatabases.values().stream()
+                    .map(DatabaseDetectorService.this::createDetectedDatabase)
+                    .forEach(analysis::addDatabase);
+                
+                log.info("Detected {} databases in project", detectedDatabases.size());
+            }
+        };
     }
     
-    private void scanConfigurationFiles(Path projectPath, Map<String, DatabaseInfo> detected) {
+    private void scanConfigurationFiles(Path projectPath, DetectionRuleSet rules, ContentRules contentRules,
+                                        Map<String, DatabaseInfo> detected) {
         List<String> configFiles = Arrays.asList(
             "application.properties", "application.yml", "application.yaml",
             "config.json", "config.yml", "settings.py", "config.py",
@@ -210,8 +122,8 @@ public class DatabaseDetectorService implements TechnologyDetector {
             Path configPath = projectPath.resolve(configFile);
             if (Files.exists(configPath)) {
                 try {
-                    String content = Files.readString(configPath);
-                    detectDatabaseConnections(content, detected);
+                    String content = FileContents.readString(configPath);
+                    applyFindings(scanContent(contentRules, content, false), rules, detected);
                 } catch (IOException e) {
                     log.debug("Failed to read config file: {}", configFile, e);
                 }
@@ -219,7 +131,8 @@ public class DatabaseDetectorService implements TechnologyDetector {
         }
     }
     
-    private void scanEnvironmentFiles(Path projectPath, Map<String, DatabaseInfo> detected, ProjectAnalysis analysis) {
+    private void scanEnvironmentFiles(Path projectPath, DetectionRuleSet rules, Map<String, DatabaseInfo> detected,
+                                      ProjectAnalysis analysis) {
         Path envFile = projectPath.resolve(".env");
         Path envExample = projectPath.resolve(".env.example");
         
@@ -230,7 +143,7 @@ public class DatabaseDetectorService implements TechnologyDetector {
         for (Path env : envFiles) {
             if (Files.exists(env)) {
                 try {
-                    List<String> lines = Files.readAllLines(env);
+                    List<String> lines = FileContents.readAllLines(env);
                     Map<String, String> envVars = new HashMap<>();
                     
                     for (String line : lines) {
@@ -251,7 +164,7 @@ public class DatabaseDetectorService implements TechnologyDetector {
                             envVars.put(key, value);
                             
                             // Detect database from environment variable names and values
-                            detectFromEnvironmentVariable(key, value, detected);
+                            detectFromEnvironmentVariable(key, value, rules, detected);
                         }
                     }
                     
@@ -265,27 +178,26 @@ public class DatabaseDetectorService implements TechnologyDetector {
         }
     }
     
-    private void detectFromEnvironmentVariable(String key, String value, Map<String, DatabaseInfo> detected) {
+    private void detectFromEnvironmentVariable(String key, String value, DetectionRuleSet rules,
+                                               Map<String, DatabaseInfo> detected) {
         String upperKey = key.toUpperCase();
         
-        for (Map.Entry<String, DatabasePattern> entry : DATABASE_PATTERNS.entrySet()) {
-            DatabasePattern pattern = entry.getValue();
-            
+        for (DetectionPattern rule : rules.getRules(CATEGORY)) {
             // Check if key matches database patterns
-            for (String connPattern : pattern.connectionPatterns) {
+            for (String connPattern : rule.getConnectionPatterns()) {
                 if (upperKey.contains(connPattern.toUpperCase().replace(":", "").replace("_", ""))) {
-                    addDetection(detected, entry.getKey(), pattern, 0.7, value);
+                    addDetection(detected, rule, 0.7, value);
                     break;
                 }
             }
             
             // Check if value contains connection string
-            for (String connPattern : pattern.connectionPatterns) {
+            for (String connPattern : rule.getConnectionPatterns()) {
                 if (value.toLowerCase().contains(connPattern.toLowerCase())) {
-                    addDetection(detected, entry.getKey(), pattern, 0.9, value);
+                    addDetection(detected, rule, 0.9, value);
                     
                     // Try to extract connection details
-                    extractConnectionDetails(value, detected.get(entry.getKey()));
+                    extractConnectionDetails(value, detected.get(rule.getKey()));
                     break;
                 }
             }
@@ -296,11 +208,7 @@ public class DatabaseDetectorService implements TechnologyDetector {
         if (dbInfo == null) return;
         
         // Generic connection string pattern
-        Pattern connPattern = Pattern.compile(
-            "(?:([a-zA-Z0-9]+)://)?(?:([^:@]+)(?::([^@]+))?@)?([^:/]+)(?::(\\d+))?(?:/([^?]+))?"
-        );
-        
-        Matcher matcher = connPattern.matcher(connectionString);
+        Matcher matcher = CONNECTION_DETAILS.matcher(connectionString);
         if (matcher.find()) {
             String protocol = matcher.group(1);
             String username = matcher.group(2);
@@ -319,51 +227,53 @@ public class DatabaseDetectorService implements TechnologyDetector {
         }
     }
     
-    private void detectDatabaseConnections(String content, Map<String, DatabaseInfo> detected) {
-        for (Map.Entry<String, DatabasePattern> entry : DATABASE_PATTERNS.entrySet()) {
-            DatabasePattern pattern = entry.getValue();
-            
-            for (String connPattern : pattern.connectionPatterns) {
-                if (content.toLowerCase().contains(connPattern.toLowerCase())) {
-                    addDetection(detected, entry.getKey(), pattern, 0.8, null);
-                    
-                    // Try to find the actual connection string
-                    Pattern regex = Pattern.compile(
-                        connPattern + "[^\\s\"']*",
-                        Pattern.CASE_INSENSITIVE
-                    );
-                    Matcher matcher = regex.matcher(content);
-                    if (matcher.find()) {
-                        String connStr = matcher.group();
-                        extractConnectionDetails(connStr, detected.get(entry.getKey()));
-                    }
+    /**
+     * Connection findings of the content, encoded as {@code c<TAB>key<TAB>connection string},
+     * followed by dependency findings encoded as {@code d<TAB>key} when requested
+     */
+    private static List<String> scanContent(ContentRules contentRules, String content, boolean includeDependencies) {
+        List<String> connections = new ArrayList<>();
+        List<String> dependencies = new ArrayList<>();
+        BitSet matches = contentRules.matcher.match(content);
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            ContentRule rule = contentRules.rules.get(id);
+            if (rule.dependency) {
+                if (includeDependencies) {
+                    dependencies.add("d\t" + rule.databaseKey);
                 }
+            } else {
+                // Try to find the actual connection string
+                Matcher matcher = rule.connectionString.matcher(content);
+                String connStr = matcher.find() ? matcher.group() : "";
+                connections.add("c\t" + rule.databaseKey + "\t" + connStr);
             }
         }
+        connections.addAll(dependencies);
+        return connections;
     }
     
-    private void scanSourceCode(Path projectPath, Map<String, DatabaseInfo> detected) {
-        try (Stream<Path> paths = Files.walk(projectPath)) {
-            paths.filter(Files::isRegularFile)
-                .filter(this::isSourceFile)
-                .limit(50) // Limit for performance
-                .forEach(file -> analyzeSourceFile(file, detected));
-        } catch (IOException e) {
-            log.debug("Error scanning source code for databases", e);
+    private void applyFindings(List<String> findings, DetectionRuleSet rules, Map<String, DatabaseInfo> detected) {
+        for (String finding : findings) {
+            String[] parts = finding.split("\t", -1);
+            DetectionPattern rule = rules.getRule(CATEGORY, parts[1]);
+            if (rule == null) {
+                continue;
+            }
+            if ("c".equals(parts[0])) {
+                addDetection(detected, rule, 0.8, null);
+                if (parts.length > 2 && !parts[2].isEmpty()) {
+                    detected.computeIfPresent(parts[1], (key, info) -> {
+                        extractConnectionDetails(parts[2], info);
+                        return info;
+                    });
+                }
+            } else {
+                addDetection(detected, rule, 0.5, null);
+            }
         }
     }
     
-    private boolean isSourceFile(Path file) {
-        String fileName = file.getFileName().toString();
-        String pathStr = file.toString();
-        
-        // Skip common non-source directories
-        if (pathStr.contains("node_modules") || pathStr.contains(".git") ||
-            pathStr.contains("vendor") || pathStr.contains("build") ||
-            pathStr.contains("dist") || pathStr.contains("target")) {
-            return false;
-        }
-        
+    private boolean isSourceFile(String fileName) {
         return fileName.endsWith(".java") || fileName.endsWith(".py") ||
                fileName.endsWith(".js") || fileName.endsWith(".ts") ||
                fileName.endsWith(".go") || fileName.endsWith(".rb") ||
@@ -372,28 +282,7 @@ public class DatabaseDetectorService implements TechnologyDetector {
                fileName.endsWith(".properties") || fileName.endsWith(".json");
     }
     
-    private void analyzeSourceFile(Path file, Map<String, DatabaseInfo> detected) {
-        try {
-            String content = Files.readString(file);
-            detectDatabaseConnections(content, detected);
-            
-            // Also check for database imports/dependencies in code
-            for (Map.Entry<String, DatabasePattern> entry : DATABASE_PATTERNS.entrySet()) {
-                DatabasePattern pattern = entry.getValue();
-                if (pattern.dependencies != null) {
-                    for (String dep : pattern.dependencies) {
-                        if (content.contains(dep)) {
-                            addDetection(detected, entry.getKey(), pattern, 0.5, null);
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            // Ignore individual file read errors
-        }
-    }
-    
-    private void checkMigrationFiles(Path projectPath, Map<String, DatabaseInfo> detected) {
+    private void checkMigrationFiles(Path projectPath, DetectionRuleSet rules, Map<String, DatabaseInfo> detected) {
         List<Path> migrationDirs = Arrays.asList(
             projectPath.resolve("migrations"),
             projectPath.resolve("db/migrations"),
@@ -414,21 +303,18 @@ public class DatabaseDetectorService implements TechnologyDetector {
                             if (fileName.endsWith(".sql")) {
                                 // Check content for specific database syntax
                                 try {
-                                    String content = Files.readString(file);
+                                    String content = FileContents.readString(file);
                                     if (content.contains("CREATE EXTENSION") || 
                                         content.contains("pg_") ||
                                         content.contains("SERIAL PRIMARY KEY")) {
-                                        addDetection(detected, "postgresql", 
-                                            DATABASE_PATTERNS.get("postgresql"), 0.8, null);
+                                        addDetection(detected, rules.getRule(CATEGORY, "postgresql"), 0.8, null);
                                     } else if (content.contains("AUTO_INCREMENT") ||
                                                content.contains("ENGINE=InnoDB")) {
-                                        addDetection(detected, "mysql", 
-                                            DATABASE_PATTERNS.get("mysql"), 0.8, null);
+                                        addDetection(detected, rules.getRule(CATEGORY, "mysql"), 0.8, null);
                                     }
                                 } catch (IOException e) {
                                     // Default to PostgreSQL for SQL files
-                                    addDetection(detected, "postgresql", 
-                                        DATABASE_PATTERNS.get("postgresql"), 0.6, null);
+                                    addDetection(detected, rules.getRule(CATEGORY, "postgresql"), 0.6, null);
                                 }
                             }
                         });
@@ -439,7 +325,7 @@ public class DatabaseDetectorService implements TechnologyDetector {
         }
     }
     
-    private void scanDockerCompose(Path projectPath, Map<String, DatabaseInfo> detected) {
+    private void scanDockerCompose(Path projectPath, DetectionRuleSet rules, Map<String, DatabaseInfo> detected) {
         List<String> composeFiles = Arrays.asList(
             "docker-compose.yml", "docker-compose.yaml",
             "compose.yml", "compose.yaml",
@@ -450,17 +336,16 @@ public class DatabaseDetectorService implements TechnologyDetector {
             Path composePath = projectPath.resolve(composeFile);
             if (Files.exists(composePath)) {
                 try {
-                    String content = Files.readString(composePath);
+                    String content = FileContents.readString(composePath);
                     
                     // Look for database service definitions
-                    for (Map.Entry<String, DatabasePattern> entry : DATABASE_PATTERNS.entrySet()) {
-                        DatabasePattern pattern = entry.getValue();
-                        String dbName = entry.getKey();
+                    for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+                        String dbName = rule.getKey();
                         
                         // Check for official images
-                        if (pattern.dockerImage != null && 
-                            content.contains(pattern.dockerImage.split(":")[0])) {
-                            addDetection(detected, dbName, pattern, 0.9, null);
+                        if (rule.getDockerImage() != null && 
+                            content.contains(rule.getDockerImage().split(":")[0])) {
+                            addDetection(detected, rule, 0.9, null);
                             
                             // Try to extract port mapping
                             Pattern portPattern = Pattern.compile(
@@ -483,43 +368,40 @@ public class DatabaseDetectorService implements TechnologyDetector {
         }
     }
     
-    private void scanDependencies(Path projectPath, Map<String, DatabaseInfo> detected) {
+    private void scanDependencies(Path projectPath, DetectionRuleSet rules, Map<String, DatabaseInfo> detected) {
         // Check package.json
         Path packageJson = projectPath.resolve("package.json");
         if (Files.exists(packageJson)) {
-            checkDependencyFile(packageJson, detected);
+            checkDependencyFile(packageJson, rules, detected);
         }
         
         // Check requirements.txt
         Path requirements = projectPath.resolve("requirements.txt");
         if (Files.exists(requirements)) {
-            checkDependencyFile(requirements, detected);
+            checkDependencyFile(requirements, rules, detected);
         }
         
         // Check go.mod
         Path goMod = projectPath.resolve("go.mod");
         if (Files.exists(goMod)) {
-            checkDependencyFile(goMod, detected);
+            checkDependencyFile(goMod, rules, detected);
         }
         
         // Check Gemfile
         Path gemfile = projectPath.resolve("Gemfile");
         if (Files.exists(gemfile)) {
-            checkDependencyFile(gemfile, detected);
+            checkDependencyFile(gemfile, rules, detected);
         }
     }
     
-    private void checkDependencyFile(Path depFile, Map<String, DatabaseInfo> detected) {
+    private void checkDependencyFile(Path depFile, DetectionRuleSet rules, Map<String, DatabaseInfo> detected) {
         try {
-            String content = Files.readString(depFile);
+            String content = FileContents.readString(depFile);
             
-            for (Map.Entry<String, DatabasePattern> entry : DATABASE_PATTERNS.entrySet()) {
-                DatabasePattern pattern = entry.getValue();
-                if (pattern.dependencies != null) {
-                    for (String dep : pattern.dependencies) {
-                        if (content.contains(dep)) {
-                            addDetection(detected, entry.getKey(), pattern, 0.6, null);
-                        }
+            for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+                for (String dep : rule.getDependencies()) {
+                    if (content.contains(dep)) {
+                        addDetection(detected, rule, 0.6, null);
                     }
                 }
             }
@@ -528,11 +410,11 @@ public class DatabaseDetectorService implements TechnologyDetector {
         }
     }
     
-    private void addDetection(Map<String, DatabaseInfo> detected, String key,
-                             DatabasePattern pattern, double confidence, String connectionString) {
-        detected.compute(key, (k, existing) -> {
+    private void addDetection(Map<String, DatabaseInfo> detected, DetectionPattern rule,
+                             double confidence, String connectionString) {
+        detected.compute(rule.getKey(), (k, existing) -> {
             if (existing == null) {
-                DatabaseInfo info = new DatabaseInfo(pattern, confidence);
+                DatabaseInfo info = new DatabaseInfo(rule, confidence);
                 if (connectionString != null) {
                     info.connectionString = connectionString;
                 }
@@ -548,17 +430,17 @@ public class DatabaseDetectorService implements TechnologyDetector {
     }
     
     private DetectedDatabase createDetectedDatabase(DatabaseInfo info) {
-        DatabasePattern pattern = info.pattern;
+        DetectionPattern rule = info.rule;
         
-        DetectedDatabase.DatabaseType type = determineType(pattern.name);
+        DetectedDatabase.DatabaseType type = determineType(rule.getTechnology());
         
         DetectedDatabase db = DetectedDatabase.builder()
-            .name(pattern.name)
+            .name(rule.getTechnology())
             .type(type)
             .confidence(Math.min(1.0, info.confidence))
             .source(DetectedTechnology.DetectionSource.CONFIG_FILE)
-            .defaultPort(pattern.defaultPort)
-            .dockerImage(pattern.dockerImage)
+            .defaultPort(rule.getDefaultPort())
+            .dockerImage(rule.getDockerImage())
             .build();
         
         // Set connection details if available
@@ -604,28 +486,30 @@ public class DatabaseDetectorService implements TechnologyDetector {
         return "Database Detector";
     }
     
-    private static class DatabasePattern {
-        final String name;
-        final List<String> connectionPatterns;
-        final List<String> dependencies;
-        final List<String> schemaFiles;
-        final Integer defaultPort;
-        final String dockerImage;
+    private static class ContentRule {
+        final String databaseKey;
+        final boolean dependency;
+        final Pattern connectionString;
+        
+        ContentRule(String databaseKey, boolean dependency, Pattern connectionString) {
+            this.databaseKey = databaseKey;
+            this.dependency = dependency;
+            this.connectionString = connectionString;
+        }
+    }
+    
+    private static class ContentRules {
+        final MultiPatternMatcher matcher;
+        final List<ContentRule> rules;
         
-        DatabasePattern(String name, List<String> connectionPatterns,
-                       List<String> dependencies, List<String> schemaFiles,
-                       Integer defaultPort, String dockerImage) {
-            this.name = name;
-            this.connectionPatterns = connectionPatterns;
-            this.dependencies = dependencies;
-            this.schemaFiles = schemaFiles;
-            this.defaultPort = defaultPort;
-            this.dockerImage = dockerImage;
+        ContentRules(MultiPatternMatcher matcher, List<ContentRule> rules) {
+            this.matcher = matcher;
+            this.rules = rules;
         }
     }
     
     private static class DatabaseInfo {
-        final DatabasePattern pattern;
+        final DetectionPattern rule;
         double confidence;
         String host;
         Integer port;
@@ -633,8 +517,8 @@ public class DatabaseDetectorService implements TechnologyDetector {
         String username;
         String connectionString;
         
-        DatabaseInfo(DatabasePattern pattern, double confidence) {
-            this.pattern = pattern;
+        DatabaseInfo(DetectionPattern rule, double confidence) {
+            this.rule = rule;
             this.confidence = confidence;
         }
         
@@ -1,5 +1,6 @@
 package com.devorchestrator.analyzer.detector;
 
+import com.devorchestrator.analyzer.FileContents;
 import com.devorchestrator.analyzer.model.*;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -66,7 +67,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(packageJson)) return;
         
         try {
-            JsonNode root = objectMapper.readTree(Files.newBufferedReader(packageJson));
+            JsonNode root = objectMapper.readTree(FileContents.readString(packageJson));
             
             // Extract package metadata
             String name = root.path("name").asText();
@@ -182,7 +183,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(requirements)) return;
         
         try {
-            List<String> lines = Files.readAllLines(requirements);
+            List<String> lines = FileContents.readAllLines(requirements);
             for (String line : lines) {
                 line = line.trim();
                 if (line.isEmpty() || line.startsWith("#")) continue;
@@ -233,7 +234,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(pipfile)) return;
         
         try {
-            List<String> lines = Files.readAllLines(pipfile);
+            List<String> lines = FileContents.readAllLines(pipfile);
             String currentSection = null;
             
             for (String line : lines) {
@@ -271,7 +272,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(setupPy)) return;
         
         try {
-            String content = Files.readString(setupPy);
+            String content = FileContents.readString(setupPy);
             
             // Extract install_requires
             Pattern pattern = Pattern.compile("install_requires\\s*=\\s*\\[(.*?)\\]", Pattern.DOTALL);
@@ -296,7 +297,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(pyproject)) return;
         
         try {
-            List<String> lines = Files.readAllLines(pyproject);
+            List<String> lines = FileContents.readAllLines(pyproject);
             boolean inDependencies = false;
             
             for (String line : lines) {
@@ -338,7 +339,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(goMod)) return;
         
         try {
-            List<String> lines = Files.readAllLines(goMod);
+            List<String> lines = FileContents.readAllLines(goMod);
             boolean inRequire = false;
             
             for (String line : lines) {
@@ -394,7 +395,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(pomXml)) return;
         
         try {
-            String content = Files.readString(pomXml);
+            String content = FileContents.readString(pomXml);
             
             // Extract artifactId as project name
             Pattern artifactPattern = Pattern.compile("<artifactId>([^<]+)</artifactId>");
@@ -447,7 +448,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         for (Path gradleFile : gradleFiles) {
             if (Files.exists(gradleFile)) {
                 try {
-                    String content = Files.readString(gradleFile);
+                    String content = FileContents.readString(gradleFile);
                     
                     // Extract dependencies
                     Pattern depPattern = Pattern.compile(
@@ -490,7 +491,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(gemfile)) return;
         
         try {
-            List<String> lines = Files.readAllLines(gemfile);
+            List<String> lines = FileContents.readAllLines(gemfile);
             
             for (String line : lines) {
                 line = line.trim();
@@ -527,7 +528,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(composerJson)) return;
         
         try {
-            JsonNode root = objectMapper.readTree(Files.newBufferedReader(composerJson));
+            JsonNode root = objectMapper.readTree(FileContents.readString(composerJson));
             
             String name = root.path("name").asText();
             if (!name.isEmpty() && analysis.getProjectName() == null) {
@@ -547,7 +548,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(cargoToml)) return;
         
         try {
-            List<String> lines = Files.readAllLines(cargoToml);
+            List<String> lines = FileContents.readAllLines(cargoToml);
             boolean inDependencies = false;
             
             for (String line : lines) {
@@ -586,7 +587,7 @@ public class DependencyAnalyzerService implements TechnologyDetector {
         if (!Files.exists(projectClj)) return;
         
         try {
-            String content = Files.readString(projectClj);
+            String content = FileContents.readString(projectClj);
             
             // Extract dependencies
             Pattern pattern = Pattern.compile(":dependencies\\s*\\[(.*?)\\]", Pattern.DOTALL);
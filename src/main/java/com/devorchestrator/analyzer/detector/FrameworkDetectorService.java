@@ -1,5 +1,12 @@
 package com.devorchestrator.analyzer.detector;
 
+import com.devorchestrator.analyzer.AnalysisContext;
+import com.devorchestrator.analyzer.DetectionRuleService;
+import com.devorchestrator.analyzer.DetectionRuleSet;
+import com.devorchestrator.analyzer.FileContents;
+import com.devorchestrator.analyzer.MultiPatternMatcher;
+import com.devorchestrator.analyzer.OrderedFindings;
+import com.devorchestrator.analyzer.ScannedFile;
 import com.devorchestrator.analyzer.model.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -8,257 +15,85 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FrameworkDetectorService implements TechnologyDetector {
     
-    private static final Map<String, FrameworkPattern> FRAMEWORK_PATTERNS = new HashMap<>();
+    private static final String CATEGORY = "framework_detector";
+    private static final int MAX_SOURCE_FILES = 100;
     
-    static {
-        initializeWebFrameworks();
-        initializeMobileFrameworks();
-        initializeDesktopFrameworks();
-        initializeBotFrameworks();
-        initializeMicroserviceFrameworks();
-    }
+    private final DetectionRuleService detectionRuleService;
     
-    private static void initializeWebFrameworks() {
-        // React and React ecosystem
-        FRAMEWORK_PATTERNS.put("react", new FrameworkPattern("React", "JavaScript", "web",
-            Arrays.asList("package.json"),
-            Arrays.asList("react", "react-dom"),
-            Arrays.asList("import.*React.*from.*['\"]react['\"]", "from.*['\"]react['\"]"),
-            "node:18-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("nextjs", new FrameworkPattern("Next.js", "JavaScript", "web",
-            Arrays.asList("next.config.js", "next.config.mjs", "pages", "app"),
-            Arrays.asList("next", "react", "react-dom"),
-            Arrays.asList("from.*['\"]next/.*['\"]"),
-            "node:18-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("gatsby", new FrameworkPattern("Gatsby", "JavaScript", "web",
-            Arrays.asList("gatsby-config.js", "gatsby-node.js"),
-            Arrays.asList("gatsby"),
-            null,
-            "node:18-alpine"));
-        
-        // Vue ecosystem
-        FRAMEWORK_PATTERNS.put("vue", new FrameworkPattern("Vue.js", "JavaScript", "web",
-            Arrays.asList("vue.config.js", "nuxt.config.js"),
-            Arrays.asList("vue", "@vue/cli"),
-            Arrays.asList("from.*['\"]vue['\"]", "import.*Vue.*from"),
-            "node:18-alpine"));
-        
-        // Angular
-        FRAMEWORK_PATTERNS.put("angular", new FrameworkPattern("Angular", "TypeScript", "web",
-            Arrays.asList("angular.json", ".angular"),
-            Arrays.asList("@angular/core", "@angular/cli"),
-            Arrays.asList("from.*['\"]@angular"),
-            "node:18-alpine"));
-        
-        // Python web frameworks
-        FRAMEWORK_PATTERNS.put("django", new FrameworkPattern("Django", "Python", "web",
-            Arrays.asList("manage.py", "settings.py", "wsgi.py", "asgi.py"),
-            Arrays.asList("django"),
-            Arrays.asList("from django", "import django", "django.core.wsgi"),
-            "python:3.11-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("flask", new FrameworkPattern("Flask", "Python", "web",
-            Arrays.asList("app.py", "application.py"),
-            Arrays.asList("flask"),
-            Arrays.asList("from flask import", "import flask"),
-            "python:3.11-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("fastapi", new FrameworkPattern("FastAPI", "Python", "web",
-            null,
-            Arrays.asList("fastapi", "uvicorn"),
-            Arrays.asList("from fastapi import", "import fastapi"),
-            "python:3.11-alpine"));
-        
-        // Go web frameworks
-        FRAMEWORK_PATTERNS.put("gin", new FrameworkPattern("Gin", "Go", "web",
-            null,
-            Arrays.asList("github.com/gin-gonic/gin"),
-            Arrays.asList("gin\\.Default\\(\\)", "gin\\.New\\(\\)", "github.com/gin-gonic/gin"),
-            "golang:1.21-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("echo", new FrameworkPattern("Echo", "Go", "web",
-            null,
-            Arrays.asList("github.com/labstack/echo"),
-            Arrays.asList("echo\\.New\\(\\)", "github.com/labstack/echo"),
-            "golang:1.21-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("fiber", new FrameworkPattern("Fiber", "Go", "web",
-            null,
-            Arrays.asList("github.com/gofiber/fiber"),
-            Arrays.asList("fiber\\.New\\(\\)", "github.com/gofiber/fiber"),
-            "golang:1.21-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("chi", new FrameworkPattern("Chi", "Go", "web",
-            null,
-            Arrays.asList("github.com/go-chi/chi"),
-            Arrays.asList("chi\\.NewRouter\\(\\)", "github.com/go-chi/chi"),
-            "golang:1.21-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("gorilla", new FrameworkPattern("Gorilla Mux", "Go", "web",
-            null,
-            Arrays.asList("github.com/gorilla/mux"),
-            Arrays.asList("mux\\.NewRouter\\(\\)", "github.com/gorilla/mux"),
-            "golang:1.21-alpine"));
-        
-        // Java web frameworks
-        FRAMEWORK_PATTERNS.put("spring-boot", new FrameworkPattern("Spring Boot", "Java", "web",
-            Arrays.asList("application.properties", "application.yml", "bootstrap.yml"),
-            Arrays.asList("spring-boot-starter", "spring-boot-starter-web"),
-            Arrays.asList("@SpringBootApplication", "@RestController", "import org.springframework"),
-            "openjdk:17-alpine"));
-        
-        // Ruby frameworks
-        FRAMEWORK_PATTERNS.put("rails", new FrameworkPattern("Ruby on Rails", "Ruby", "web",
-            Arrays.asList("Gemfile", "config.ru", "Rakefile", "config/routes.rb"),
-            Arrays.asList("rails"),
-            Arrays.asList("Rails.application", "class.*<.*ActionController"),
-            "ruby:3.2-alpine"));
-        
-        // PHP frameworks
-        FRAMEWORK_PATTERNS.put("laravel", new FrameworkPattern("Laravel", "PHP", "web",
-            Arrays.asList("artisan", "composer.json"),
-            Arrays.asList("laravel/framework"),
-            Arrays.asList("namespace App\\\\", "use Illuminate\\\\"),
-            "php:8.2-fpm-alpine"));
-        
-        FRAMEWORK_PATTERNS.put("symfony", new FrameworkPattern("Symfony", "PHP", "web",
-            Arrays.asList("symfony.lock", "bin/console"),
-            Arrays.asList("symfony/framework-bundle"),
-            Arrays.asList("use Symfony\\\\", "Symfony\\\\Component"),
-            "php:8.2-fpm-alpine"));
-        
-        // .NET frameworks
-        FRAMEWORK_PATTERNS.put("aspnet-core", new FrameworkPattern("ASP.NET Core", "C#", "web",
-            Arrays.asList("appsettings.json", "Program.cs", "Startup.cs"),
-            Arrays.asList("Microsoft.AspNetCore"),
-            Arrays.asList("WebApplication.CreateBuilder", "IApplicationBuilder", "using Microsoft.AspNetCore"),
-            "mcr.microsoft.com/dotnet/aspnet:7.0"));
+    public FrameworkDetectorService(DetectionRuleService detectionRuleService) {
+        this.detectionRuleService = detectionRuleService;
     }
     
-    private static void initializeMobileFrameworks() {
-        // React Native
-        FRAMEWORK_PATTERNS.put("react-native", new FrameworkPattern("React Native", "JavaScript", "mobile",
-            Arrays.asList("metro.config.js", "app.json", "index.js"),
-            Arrays.asList("react-native"),
-            Arrays.asList("from.*['\"]react-native['\"]", "AppRegistry.registerComponent"),
-            null));
-        
-        // Flutter
-        FRAMEWORK_PATTERNS.put("flutter", new FrameworkPattern("Flutter", "Dart", "mobile",
-            Arrays.asList("pubspec.yaml", "lib/main.dart", "android", "ios"),
-            Arrays.asList("flutter"),
-            Arrays.asList("import.*package:flutter", "MaterialApp", "StatelessWidget"),
-            null));
-        
-        // Ionic
-        FRAMEWORK_PATTERNS.put("ionic", new FrameworkPattern("Ionic", "TypeScript", "mobile",
-            Arrays.asList("ionic.config.json", "capacitor.config.json"),
-            Arrays.asList("@ionic/angular", "@ionic/react", "@ionic/vue"),
-            Arrays.asList("from.*['\"]@ionic"),
-            null));
-    }
-    
-    private static void initializeDesktopFrameworks() {
-        // Electron
-        FRAMEWORK_PATTERNS.put("electron", new FrameworkPattern("Electron", "JavaScript", "desktop",
-            Arrays.asList("electron-builder.json", "main.js", "electron.js"),
-            Arrays.asList("electron"),
-            Arrays.asList("const.*{.*app.*}.*=.*require\\(['\"]electron['\"]", "from.*['\"]electron['\"]"),
-            null));
-        
-        // Tauri
-        FRAMEWORK_PATTERNS.put("tauri", new FrameworkPattern("Tauri", "Rust", "desktop",
-            Arrays.asList("tauri.conf.json", "src-tauri"),
-            Arrays.asList("tauri"),
-            null,
-            null));
-    }
-    
-    private static void initializeBotFrameworks() {
-        // Discord.py
-        FRAMEWORK_PATTERNS.put("discord.py", new FrameworkPattern("Discord.py", "Python", "bot",
-            null,
-            Arrays.asList("discord.py", "discord"),
-            Arrays.asList("import discord", "from discord", "discord.Client", "discord.Bot", "@bot.command", "@client.command"),
-            "python:3.11-alpine"));
-        
-        // Discord.js
-        FRAMEWORK_PATTERNS.put("discord.js", new FrameworkPattern("Discord.js", "JavaScript", "bot",
-            null,
-            Arrays.asList("discord.js"),
-            Arrays.asList("require\\(['\"]discord\\.js['\"]", "from.*['\"]discord\\.js['\"]", "new.*Discord\\.Client"),
-            "node:18-alpine"));
-        
-        // Telegraf (Telegram)
-        FRAMEWORK_PATTERNS.put("telegraf", new FrameworkPattern("Telegraf", "JavaScript", "bot",
-            null,
-            Arrays.asList("telegraf"),
-            Arrays.asList("require\\(['\"]telegraf['\"]", "from.*['\"]telegraf['\"]", "new.*Telegraf"),
-            "node:18-alpine"));
-        
-        // python-telegram-bot
-        FRAMEWORK_PATTERNS.put("python-telegram-bot", new FrameworkPattern("Python Telegram Bot", "Python", "bot",
-            null,
-            Arrays.asList("python-telegram-bot"),
-            Arrays.asList("from telegram", "import telegram", "telegram.Bot", "telegram.ext"),
-            "python:3.11-alpine"));
+    private static CodePatterns compileCodePatterns(DetectionRuleSet rules) {
+        MultiPatternMatcher.Builder builder = MultiPatternMatcher.builder();
+        List<String> keys = new ArrayList<>();
+        for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+            for (String codePattern : rule.getCodePatterns()) {
+                builder.addRegex(codePattern, true);
+                keys.add(rule.getKey());
+            }
+        }
+        return new CodePatterns(builder.build(), keys);
     }
     
-    private static void initializeMicroserviceFrameworks() {
-        // gRPC
-        FRAMEWORK_PATTERNS.put("grpc", new FrameworkPattern("gRPC", null, "microservice",
-            Arrays.asList("*.proto", "protobuf"),
-            Arrays.asList("grpc", "grpcio", "@grpc/grpc-js", "google.golang.org/grpc"),
-            Arrays.asList("import.*grpc", "from.*grpc", "google.golang.org/grpc"),
-            null));
-        
-        // GraphQL
-        FRAMEWORK_PATTERNS.put("graphql", new FrameworkPattern("GraphQL", null, "api",
-            Arrays.asList("schema.graphql", "*.graphql"),
-            Arrays.asList("graphql", "apollo-server", "graphql-yoga", "gqlgen"),
-            Arrays.asList("type.*Query.*{", "type.*Mutation.*{", "schema.*{"),
-            null));
+    @Override
+    public void detect(Path projectPath, ProjectAnalysis analysis) {
+        detect(projectPath, analysis, AnalysisContext.uncached(projectPath));
     }
     
     @Override
-    public void detect(Path projectPath, ProjectAnalysis analysis) {
+    public ProjectFileVisitor createFileVisitor(Path projectPath, ProjectAnalysis analysis, AnalysisContext context) {
         log.info("Starting framework detection for project: {}", projectPath);
         
-        Map<String, FrameworkInfo> detectedFrameworks = new HashMap<>();
+        // Files are visited concurrently by the parallel walk
+        Map<String, FrameworkInfo> detectedFrameworks = new ConcurrentHashMap<>();
+        OrderedFindings<List<String>> sourceFindings = new OrderedFindings<>(MAX_SOURCE_FILES);
+        DetectionRuleSet rules = detectionRuleService.getRuleSet();
+        CodePatterns codePatterns = rules.derive(CATEGORY, FrameworkDetectorService::compileCodePatterns);
         
         // Check package managers files first
-        detectFromPackageFiles(projectPath, detectedFrameworks);
-        
-        // Then scan source code
-        scanSourceCode(projectPath, detectedFrameworks);
-        
-        // Check for specific framework files/directories
-        checkFrameworkMarkers(projectPath, detectedFrameworks);
-        
-        // Convert to DetectedFramework objects
-        detectedFrameworks.values().stream()
-            .map(this::createDetectedFramework)
-            .forEach(analysis::addFramework);
-        
-        log.info("Detected {} frameworks in project", detectedFrameworks.size());
+        detectFromPackageFiles(projectPath, rules, detectedFrameworks);
+        
+        return new ProjectFileVisitor() {
+            @Override
+            public void visitFile(ScannedFile file) {
+                // Then scan source code; only the first 100 source files by path count, so parallel runs agree
+                if (isSourceFile(file.getFileName())) {
+                    sourceFindings.add(file, context.fileFindings(getName(), file, content -> matchCodePatterns(codePatterns, content)));
+                }
+            }
+            
+            @Override
+            public void complete() {
+                sourceFindings.forEach((relativePath, keys) -> applySourceFindings(keys, rules, detectedFrameworks));
+                
+                // Check for specific framework files/directories
+                checkFrameworkMarkers(projectPath, rules, detectedFrameworks);
+                
+                // Convert to DetectedFramework objects
+                detectedFrameworks.values().stream()
+                    .map(FrameworkDetectorService.this::createDetectedFramework)
+                    .forEach(analysis::addFramework);
+                
+                log.info("Detected {} frameworks in project", detectedFrameworks.size());
+            }
+        };
     }
     
-    private void detectFromPackageFiles(Path projectPath, Map<String, FrameworkInfo> detected) {
+    private void detectFromPackageFiles(Path projectPath, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
         // Check package.json
         Path packageJson = projectPath.resolve("package.json");
         if (Files.exists(packageJson)) {
             try {
-                String content = Files.readString(packageJson);
-                detectFromPackageJson(content, detected);
+                String content = FileContents.readString(packageJson);
+                detectFromPackageJson(content, rules, detected);
             } catch (IOException e) {
                 log.debug("Failed to read package.json", e);
             }
@@ -268,8 +103,8 @@ public class FrameworkDetectorService implements TechnologyDetector {
         Path requirements = projectPath.resolve("requirements.txt");
         if (Files.exists(requirements)) {
             try {
-                List<String> lines = Files.readAllLines(requirements);
-                detectFromRequirements(lines, detected);
+                List<String> lines = FileContents.readAllLines(requirements);
+                detectFromRequirements(lines, rules, detected);
             } catch (IOException e) {
                 log.debug("Failed to read requirements.txt", e);
             }
@@ -279,8 +114,8 @@ public class FrameworkDetectorService implements TechnologyDetector {
         Path goMod = projectPath.resolve("go.mod");
         if (Files.exists(goMod)) {
             try {
-                String content = Files.readString(goMod);
-                detectFromGoMod(content, detected);
+                String content = FileContents.readString(goMod);
+                detectFromGoMod(content, rules, detected);
             } catch (IOException e) {
                 log.debug("Failed to read go.mod", e);
             }
@@ -290,8 +125,8 @@ public class FrameworkDetectorService implements TechnologyDetector {
         Path pomXml = projectPath.resolve("pom.xml");
         if (Files.exists(pomXml)) {
             try {
-                String content = Files.readString(pomXml);
-                detectFromPomXml(content, detected);
+                String content = FileContents.readString(pomXml);
+                detectFromPomXml(content, rules, detected);
             } catch (IOException e) {
                 log.debug("Failed to read pom.xml", e);
             }
@@ -301,38 +136,34 @@ public class FrameworkDetectorService implements TechnologyDetector {
         Path gemfile = projectPath.resolve("Gemfile");
         if (Files.exists(gemfile)) {
             try {
-                String content = Files.readString(gemfile);
-                detectFromGemfile(content, detected);
+                String content = FileContents.readString(gemfile);
+                detectFromGemfile(content, rules, detected);
             } catch (IOException e) {
                 log.debug("Failed to read Gemfile", e);
             }
         }
     }
     
-    private void detectFromPackageJson(String content, Map<String, FrameworkInfo> detected) {
-        for (Map.Entry<String, FrameworkPattern> entry : FRAMEWORK_PATTERNS.entrySet()) {
-            FrameworkPattern pattern = entry.getValue();
-            if (pattern.dependencies != null) {
-                for (String dep : pattern.dependencies) {
-                    if (content.contains("\"" + dep + "\"")) {
-                        addDetection(detected, entry.getKey(), pattern, 0.8);
-                    }
+    private void detectFromPackageJson(String content, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
+        for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+            for (String dep : rule.getDependencies()) {
+                if (content.contains("\"" + dep + "\"")) {
+                    addDetection(detected, rule, 0.8);
                 }
             }
         }
     }
     
-    private void detectFromRequirements(List<String> lines, Map<String, FrameworkInfo> detected) {
+    private void detectFromRequirements(List<String> lines, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
         for (String line : lines) {
             line = line.trim().toLowerCase();
             if (line.isEmpty() || line.startsWith("#")) continue;
             
-            for (Map.Entry<String, FrameworkPattern> entry : FRAMEWORK_PATTERNS.entrySet()) {
-                FrameworkPattern pattern = entry.getValue();
-                if (pattern.dependencies != null && "Python".equals(pattern.language)) {
-                    for (String dep : pattern.dependencies) {
+            for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+                if ("Python".equals(rule.getLanguage())) {
+                    for (String dep : rule.getDependencies()) {
                         if (line.startsWith(dep.toLowerCase())) {
-                            addDetection(detected, entry.getKey(), pattern, 0.8);
+                            addDetection(detected, rule, 0.8);
                         }
                     }
                 }
@@ -340,51 +171,37 @@ public class FrameworkDetectorService implements TechnologyDetector {
         }
     }
     
-    private void detectFromGoMod(String content, Map<String, FrameworkInfo> detected) {
-        for (Map.Entry<String, FrameworkPattern> entry : FRAMEWORK_PATTERNS.entrySet()) {
-            FrameworkPattern pattern = entry.getValue();
-            if (pattern.dependencies != null && "Go".equals(pattern.language)) {
-                for (String dep : pattern.dependencies) {
+    private void detectFromGoMod(String content, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
+        for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+            if ("Go".equals(rule.getLanguage())) {
+                for (String dep : rule.getDependencies()) {
                     if (content.contains(dep)) {
-                        addDetection(detected, entry.getKey(), pattern, 0.8);
+                        addDetection(detected, rule, 0.8);
                     }
                 }
             }
         }
     }
     
-    private void detectFromPomXml(String content, Map<String, FrameworkInfo> detected) {
+    private void detectFromPomXml(String content, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
         if (content.contains("spring-boot-starter")) {
-            FrameworkPattern pattern = FRAMEWORK_PATTERNS.get("spring-boot");
-            if (pattern != null) {
-                addDetection(detected, "spring-boot", pattern, 0.9);
+            DetectionPattern rule = rules.getRule(CATEGORY, "spring-boot");
+            if (rule != null) {
+                addDetection(detected, rule, 0.9);
             }
         }
     }
     
-    private void detectFromGemfile(String content, Map<String, FrameworkInfo> detected) {
+    private void detectFromGemfile(String content, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
         if (content.contains("gem 'rails'") || content.contains("gem \"rails\"")) {
-            FrameworkPattern pattern = FRAMEWORK_PATTERNS.get("rails");
-            if (pattern != null) {
-                addDetection(detected, "rails", pattern, 0.9);
+            DetectionPattern rule = rules.getRule(CATEGORY, "rails");
+            if (rule != null) {
+                addDetection(detected, rule, 0.9);
             }
         }
     }
     
-    private void scanSourceCode(Path projectPath, Map<String, FrameworkInfo> detected) {
-        try {
-            Files.walk(projectPath)
-                .filter(Files::isRegularFile)
-                .filter(path -> isSourceFile(path))
-                .limit(100) // Limit to first 100 source files for performance
-                .forEach(file -> analyzeSourceFile(file, detected));
-        } catch (IOException e) {
-            log.debug("Error scanning source code", e);
-        }
-    }
-    
-    private boolean isSourceFile(Path file) {
-        String fileName = file.getFileName().toString();
+    private boolean isSourceFile(String fileName) {
         return fileName.endsWith(".java") || fileName.endsWith(".py") || 
                fileName.endsWith(".js") || fileName.endsWith(".ts") ||
                fileName.endsWith(".go") || fileName.endsWith(".rb") ||
@@ -392,45 +209,42 @@ public class FrameworkDetectorService implements TechnologyDetector {
                fileName.endsWith(".dart") || fileName.endsWith(".rs");
     }
     
-    private void analyzeSourceFile(Path file, Map<String, FrameworkInfo> detected) {
-        try {
-            String content = Files.readString(file);
-            
-            for (Map.Entry<String, FrameworkPattern> entry : FRAMEWORK_PATTERNS.entrySet()) {
-                FrameworkPattern pattern = entry.getValue();
-                if (pattern.codePatterns != null) {
-                    for (String codePattern : pattern.codePatterns) {
-                        Pattern regex = Pattern.compile(codePattern, Pattern.CASE_INSENSITIVE);
-                        if (regex.matcher(content).find()) {
-                            addDetection(detected, entry.getKey(), pattern, 0.6);
-                        }
-                    }
-                }
+    private void applySourceFindings(List<String> keys, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
+        for (String key : keys) {
+            DetectionPattern rule = rules.getRule(CATEGORY, key);
+            if (rule != null) {
+                addDetection(detected, rule, 0.6);
             }
-        } catch (IOException e) {
-            // Ignore individual file read errors
         }
     }
     
-    private void checkFrameworkMarkers(Path projectPath, Map<String, FrameworkInfo> detected) {
-        for (Map.Entry<String, FrameworkPattern> entry : FRAMEWORK_PATTERNS.entrySet()) {
-            FrameworkPattern pattern = entry.getValue();
-            if (pattern.markerFiles != null) {
-                for (String marker : pattern.markerFiles) {
-                    Path markerPath = projectPath.resolve(marker);
-                    if (Files.exists(markerPath)) {
-                        addDetection(detected, entry.getKey(), pattern, 0.7);
-                    }
+    /**
+     * Framework keys of the code patterns found in the content, once per matching pattern
+     */
+    private static List<String> matchCodePatterns(CodePatterns codePatterns, String content) {
+        List<String> matches = new ArrayList<>();
+        BitSet found = codePatterns.matcher.match(content);
+        for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1)) {
+            matches.add(codePatterns.keys.get(id));
+        }
+        return matches;
+    }
+    
+    private void checkFrameworkMarkers(Path projectPath, DetectionRuleSet rules, Map<String, FrameworkInfo> detected) {
+        for (DetectionPattern rule : rules.getRules(CATEGORY)) {
+            for (String marker : rule.getMarkers()) {
+                Path markerPath = projectPath.resolve(marker);
+                if (Files.exists(markerPath)) {
+                    addDetection(detected, rule, 0.7);
                 }
             }
         }
     }
     
-    private void addDetection(Map<String, FrameworkInfo> detected, String key, 
-                              FrameworkPattern pattern, double confidence) {
-        detected.compute(key, (k, existing) -> {
+    private void addDetection(Map<String, FrameworkInfo> detected, DetectionPattern rule, double confidence) {
+        detected.compute(rule.getKey(), (k, existing) -> {
             if (existing == null) {
-                return new FrameworkInfo(pattern, confidence);
+                return new FrameworkInfo(rule, confidence);
             } else {
                 existing.increaseConfidence(confidence);
                 return existing;
@@ -439,15 +253,15 @@ public class FrameworkDetectorService implements TechnologyDetector {
     }
     
     private DetectedFramework createDetectedFramework(FrameworkInfo info) {
-        FrameworkPattern pattern = info.pattern;
+        DetectionPattern rule = info.rule;
         
         return DetectedFramework.builder()
-            .name(pattern.name)
-            .language(pattern.language)
-            .category(pattern.category)
+            .name(rule.getTechnology())
+            .language(rule.getLanguage())
+            .category(rule.getType())
             .confidence(Math.min(1.0, info.confidence))
             .source(DetectedTechnology.DetectionSource.DEPENDENCY_FILE)
-            .runtime(pattern.runtime)
+            .runtime(rule.getDockerImage())
             .build();
     }
     
@@ -461,34 +275,22 @@ public class FrameworkDetectorService implements TechnologyDetector {
         return "Framework Detector";
     }
     
-    private static class FrameworkPattern {
-        final String name;
-        final String language;
-        final String category;
-        final List<String> markerFiles;
-        final List<String> dependencies;
-        final List<String> codePatterns;
-        final String runtime;
+    private static class CodePatterns {
+        final MultiPatternMatcher matcher;
+        final List<String> keys; // framework key of each code pattern, indexed by matcher id
         
-        FrameworkPattern(String name, String language, String category,
-                        List<String> markerFiles, List<String> dependencies,
-                        List<String> codePatterns, String runtime) {
-            this.name = name;
-            this.language = language;
-            this.category = category;
-            this.markerFiles = markerFiles;
-            this.dependencies = dependencies;
-            this.codePatterns = codePatterns;
-            this.runtime = runtime;
+        CodePatterns(MultiPatternMatcher matcher, List<String> keys) {
+            this.matcher = matcher;
+            this.keys = keys;
         }
     }
     
     private static class FrameworkInfo {
-        final FrameworkPattern pattern;
+        final DetectionPattern rule;
         double confidence;
         
-        FrameworkInfo(FrameworkPattern pattern, double confidence) {
-            this.pattern = pattern;
+        FrameworkInfo(DetectionPattern rule, double confidence) {
+            this.rule = rule;
             this.confidence = confidence;
         }
         
@@ -1,8 +1,13 @@
 package com.devorchestrator.analyzer.detector;
 
+import com.devorchestrator.analyzer.AnalysisContext;
+import com.devorchestrator.analyzer.ScannedFile;
 import com.devorchestrator.analyzer.model.ProjectAnalysis;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.List;
 
 public interface TechnologyDetector {
     
@@ -13,6 +18,34 @@ public interface TechnologyDetector {
      */
     void detect(Path projectPath, ProjectAnalysis analysis);
     
+    /**
+     * Analyzes the project with access to the shared analysis context, e.g.
+     * the per-file findings cache. Detectors with a file visitor walk the
+     * project for themselves here; others ignore the context.
+     */
+    default void detect(Path projectPath, ProjectAnalysis analysis, AnalysisContext context) {
+        ProjectFileVisitor visitor = createFileVisitor(projectPath, analysis, context);
+        if (visitor == null) {
+            detect(projectPath, analysis);
+            return;
+        }
+        try {
+            context.walk(List.of(visitor));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Per-file visitor mode: returns a visitor that receives the files of the
+     * shared project walk, or null if this detector does not scan the tree.
+     * Work that does not depend on the walk may be done here or in
+     * {@link ProjectFileVisitor#complete()}.
+     */
+    default ProjectFileVisitor createFileVisitor(Path projectPath, ProjectAnalysis analysis, AnalysisContext context) {
+        return null;
+    }
+    
     /**
      * Returns the priority order of this detector (higher = runs first)
      */
@@ -24,4 +57,22 @@ public interface TechnologyDetector {
      * Returns the name of this detector for logging
      */
     String getName();
-}
\ No newline at end of file
+    
+    /**
+     * Receives the files of one project walk. Content is shared between
+     * visitors through {@link ScannedFile}, so a visitor should only read
+     * the files it needs.
+     */
+    interface ProjectFileVisitor {
+        /**
+         * Called for every walked file, concurrently from several threads
+         * when the walk runs in parallel
+         */
+        void visitFile(ScannedFile file);
+        
+        /**
+         * Called once the walk is done, in detector priority order
+         */
+        void complete();
+    }
+}
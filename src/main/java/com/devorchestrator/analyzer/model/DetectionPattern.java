@@ -15,10 +15,16 @@ import java.util.regex.Pattern;
 @Builder
 public class DetectionPattern {
     
+    private String key; // e.g. "java", unique within the category
+    
     private String technology;
     
     private String category; // language, framework, database, service
     
+    private String language; // language of a framework
+    
+    private String type; // framework category or service type, e.g. "web", "MONITORING"
+    
     @Builder.Default
     private List<String> filePatterns = new ArrayList<>();
     
@@ -43,6 +49,11 @@ public class DetectionPattern {
     @Builder.Default
     private List<String> environmentVariables = new ArrayList<>();
     
+    @Builder.Default
+    private List<String> markers = new ArrayList<>();
+    
+    private String packageManager;
+    
     private String dockerImage;
     
     private Integer defaultPort;
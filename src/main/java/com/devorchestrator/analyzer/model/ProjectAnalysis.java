@@ -58,6 +58,8 @@ public class ProjectAnalysis {
     
     private Double overallConfidence;
     
+    private ScanStatistics scanStatistics;
+    
     public void addLanguage(DetectedLanguage language) {
         this.languages.add(language);
     }
@@ -105,6 +107,27 @@ public class ProjectAnalysis {
         private String message;
     }
     
+    /**
+     * File scanning figures of one analysis run, including how many per-file
+     * detector results came from the analysis cache
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ScanStatistics {
+        private long filesScanned;
+        private long bytesRead;
+        private boolean truncated;
+        private long filesSkipped; // content not read because the per-analysis byte budget ran out
+        private long filesOversized; // content withheld because the file is above the per-file limit
+        private long cacheHits;
+        private long cacheMisses;
+        private int filesCached;
+        private double cacheHitRate;
+        private long durationMs;
+    }
+    
     @Data
     @Builder
     @NoArgsConstructor
@@ -17,6 +17,7 @@ import jakarta.validation.Validator;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableConfigurationProperties(AppProperties.class)
@@ -75,4 +76,20 @@ public class AppConfig {
         executor.initialize();
         return executor;
     }
+
+    @Bean(name = "reportTaskExecutor")
+    public ThreadPoolTaskExecutor reportTaskExecutor() {
+        AppProperties.Reports reportProps = appProperties.getReports();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportProps.getParallelism());
+        executor.setMaxPoolSize(reportProps.getParallelism());
+        executor.setQueueCapacity(reportProps.getQueueCapacity());
+        executor.setThreadNamePrefix("report-");
+        // Back-pressure onto the scheduler thread instead of dropping reports
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "app")
 @Validated
 public class AppProperties {
@@ -42,6 +45,22 @@ public class AppProperties {
     @NotNull
     private WebSocket websocket = new WebSocket();
 
+    @Valid
+    @NotNull
+    private Metrics metrics = new Metrics();
+
+    @Valid
+    @NotNull
+    private Reports reports = new Reports();
+
+    @Valid
+    @NotNull
+    private Analysis analysis = new Analysis();
+
+    @Valid
+    @NotNull
+    private Cache cache = new Cache();
+
     public static class Docker {
         @NotBlank
         private String host = "unix:///var/run/docker.sock";
@@ -65,6 +84,10 @@ public class AppProperties {
         @NotNull
         private PortRange portRange = new PortRange();
 
+        @Valid
+        @NotNull
+        private ImageCache imageCache = new ImageCache();
+
         public static class PortRange {
             @Min(1024)
             @Max(65535)
@@ -80,6 +103,40 @@ public class AppProperties {
             public void setEnd(int end) { this.end = end; }
         }
 
+        public static class ImageCache {
+            // Pull images of active templates in the background instead of on first environment creation
+            private boolean prePull = true;
+
+            // Disk budget of cached images; least recently used images no active template needs are removed beyond it
+            @Min(256)
+            @Max(1048576)
+            private int maxDiskMb = 20480;
+
+            @Min(1)
+            @Max(8)
+            private int pullParallelism = 2;
+
+            @Min(1)
+            @Max(120)
+            private int pullTimeoutMinutes = 15;
+
+            // Seconds between checks of the images active templates need
+            @Min(30)
+            @Max(86400)
+            private int refreshInterval = 300;
+
+            public boolean isPrePull() { return prePull; }
+            public void setPrePull(boolean prePull) { this.prePull = prePull; }
+            public int getMaxDiskMb() { return maxDiskMb; }
+            public void setMaxDiskMb(int maxDiskMb) { this.maxDiskMb = maxDiskMb; }
+            public int getPullParallelism() { return pullParallelism; }
+            public void setPullParallelism(int pullParallelism) { this.pullParallelism = pullParallelism; }
+            public int getPullTimeoutMinutes() { return pullTimeoutMinutes; }
+            public void setPullTimeoutMinutes(int pullTimeoutMinutes) { this.pullTimeoutMinutes = pullTimeoutMinutes; }
+            public int getRefreshInterval() { return refreshInterval; }
+            public void setRefreshInterval(int refreshInterval) { this.refreshInterval = refreshInterval; }
+        }
+
         public String getHost() { return host; }
         public void setHost(String host) { this.host = host; }
         public boolean isTlsVerify() { return tlsVerify; }
@@ -94,6 +151,8 @@ public class AppProperties {
         public void setReadTimeout(int readTimeout) { this.readTimeout = readTimeout; }
         public PortRange getPortRange() { return portRange; }
         public void setPortRange(PortRange portRange) { this.portRange = portRange; }
+        public ImageCache getImageCache() { return imageCache; }
+        public void setImageCache(ImageCache imageCache) { this.imageCache = imageCache; }
     }
 
     public static class Environment {
@@ -121,6 +180,60 @@ public class AppProperties {
         @Max(72)
         private int idleEnvironmentHours = 8;
 
+        // Threads creating and starting containers across all environments
+        @Min(1)
+        @Max(64)
+        private int startupParallelism = 8;
+
+        // How long a service waits for a depends_on condition before the environment fails
+        @Min(5)
+        @Max(3600)
+        private int dependencyTimeoutSeconds = 300;
+
+        @Valid
+        @NotNull
+        private StandbyPool standbyPool = new StandbyPool();
+
+        public static class StandbyPool {
+            // Keep paused, ready-to-claim containers for templates environments are created from
+            private boolean enabled = true;
+
+            // Fixed pool sizes by template id; other templates keep as many standbys as they had creations recently
+            @NotNull
+            private Map<String, Integer> sizes = new HashMap<>();
+
+            @Min(0)
+            @Max(20)
+            private int maxPerTemplate = 2;
+
+            @Min(0)
+            @Max(100)
+            private int maxTotal = 6;
+
+            // Window of recent environment creations that sizes adaptive pools
+            @Min(5)
+            @Max(10080)
+            private int demandWindowMinutes = 60;
+
+            // Seconds between resizing the pools to current demand
+            @Min(10)
+            @Max(3600)
+            private int refreshInterval = 60;
+
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            public Map<String, Integer> getSizes() { return sizes; }
+            public void setSizes(Map<String, Integer> sizes) { this.sizes = sizes; }
+            public int getMaxPerTemplate() { return maxPerTemplate; }
+            public void setMaxPerTemplate(int maxPerTemplate) { this.maxPerTemplate = maxPerTemplate; }
+            public int getMaxTotal() { return maxTotal; }
+            public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+            public int getDemandWindowMinutes() { return demandWindowMinutes; }
+            public void setDemandWindowMinutes(int demandWindowMinutes) { this.demandWindowMinutes = demandWindowMinutes; }
+            public int getRefreshInterval() { return refreshInterval; }
+            public void setRefreshInterval(int refreshInterval) { this.refreshInterval = refreshInterval; }
+        }
+
         public int getMaxEnvironmentsPerUser() { return maxEnvironmentsPerUser; }
         public void setMaxEnvironmentsPerUser(int maxEnvironmentsPerUser) { this.maxEnvironmentsPerUser = maxEnvironmentsPerUser; }
         public int getDefaultTimeout() { return defaultTimeout; }
@@ -133,6 +246,12 @@ public class AppProperties {
         public void setStaleEnvironmentHours(int staleEnvironmentHours) { this.staleEnvironmentHours = staleEnvironmentHours; }
         public int getIdleEnvironmentHours() { return idleEnvironmentHours; }
         public void setIdleEnvironmentHours(int idleEnvironmentHours) { this.idleEnvironmentHours = idleEnvironmentHours; }
+        public int getStartupParallelism() { return startupParallelism; }
+        public void setStartupParallelism(int startupParallelism) { this.startupParallelism = startupParallelism; }
+        public int getDependencyTimeoutSeconds() { return dependencyTimeoutSeconds; }
+        public void setDependencyTimeoutSeconds(int dependencyTimeoutSeconds) { this.dependencyTimeoutSeconds = dependencyTimeoutSeconds; }
+        public StandbyPool getStandbyPool() { return standbyPool; }
+        public void setStandbyPool(StandbyPool standbyPool) { this.standbyPool = standbyPool; }
     }
 
     public static class Resources {
@@ -237,10 +356,356 @@ public class AppProperties {
         @Max(300000)
         private int heartbeatInterval = 30000;
 
+        // Per-session outbound queue shared by all handlers
+        @Min(4)
+        @Max(10000)
+        private int sendQueueCapacity = 64;
+
+        @Min(1000)
+        @Max(120000)
+        private int sendTimeLimitMs = 10000;
+
+        @Min(1)
+        @Max(64)
+        private int writerThreads = 4;
+
+        // Container log streaming: lines buffered per viewer before dropping, and frame batching interval
+        @Min(100)
+        @Max(100000)
+        private int logBufferLines = 2000;
+
+        @Min(10)
+        @Max(5000)
+        private int logFlushIntervalMs = 50;
+
+        @Min(10)
+        @Max(10000)
+        private int logMaxLinesPerFrame = 500;
+
+        @Min(256)
+        @Max(1048576)
+        private int logMaxLineLength = 16384;
+
         public int getMessageBufferSize() { return messageBufferSize; }
         public void setMessageBufferSize(int messageBufferSize) { this.messageBufferSize = messageBufferSize; }
         public int getHeartbeatInterval() { return heartbeatInterval; }
         public void setHeartbeatInterval(int heartbeatInterval) { this.heartbeatInterval = heartbeatInterval; }
+        public int getSendQueueCapacity() { return sendQueueCapacity; }
+        public void setSendQueueCapacity(int sendQueueCapacity) { this.sendQueueCapacity = sendQueueCapacity; }
+        public int getSendTimeLimitMs() { return sendTimeLimitMs; }
+        public void setSendTimeLimitMs(int sendTimeLimitMs) { this.sendTimeLimitMs = sendTimeLimitMs; }
+        public int getWriterThreads() { return writerThreads; }
+        public void setWriterThreads(int writerThreads) { this.writerThreads = writerThreads; }
+        public int getLogBufferLines() { return logBufferLines; }
+        public void setLogBufferLines(int logBufferLines) { this.logBufferLines = logBufferLines; }
+        public int getLogFlushIntervalMs() { return logFlushIntervalMs; }
+        public void setLogFlushIntervalMs(int logFlushIntervalMs) { this.logFlushIntervalMs = logFlushIntervalMs; }
+        public int getLogMaxLinesPerFrame() { return logMaxLinesPerFrame; }
+        public void setLogMaxLinesPerFrame(int logMaxLinesPerFrame) { this.logMaxLinesPerFrame = logMaxLinesPerFrame; }
+        public int getLogMaxLineLength() { return logMaxLineLength; }
+        public void setLogMaxLineLength(int logMaxLineLength) { this.logMaxLineLength = logMaxLineLength; }
+    }
+
+    public static class Metrics {
+        @Min(5)
+        @Max(1440)
+        private int hotWindowMinutes = 120;
+
+        @Min(60)
+        @Max(86400)
+        private int samplesPerSeries = 480;
+
+        @Min(100)
+        @Max(1000000)
+        private int maxSeries = 10000;
+
+        @Min(1000)
+        @Max(1000000)
+        private int writeQueueCapacity = 50000;
+
+        @Min(10)
+        @Max(10000)
+        private int writeBatchSize = 1000;
+
+        @Min(100)
+        @Max(60000)
+        private int writeFlushIntervalMs = 2000;
+
+        @NotNull
+        private OverflowPolicy writeOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+        @Min(0)
+        @Max(10000)
+        private int writeOfferTimeoutMs = 100;
+
+        // Failed batches are retried with doubling backoff, then dropped
+        @Min(1)
+        @Max(100)
+        private int writeRetryAttempts = 6;
+
+        @Min(10)
+        @Max(60000)
+        private int writeRetryBackoffMs = 1000;
+
+        // Tiered retention: raw samples, then 1-minute, 1-hour and 1-day rollups
+        @Min(1)
+        @Max(90)
+        private int rawRetentionDays = 3;
+
+        @Min(1)
+        @Max(365)
+        private int minuteRollupRetentionDays = 14;
+
+        @Min(7)
+        @Max(3650)
+        private int hourRollupRetentionDays = 180;
+
+        @Min(30)
+        @Max(36500)
+        private int dayRollupRetentionDays = 1825;
+
+        // How long to wait for late samples before a minute is rolled up
+        @Min(0)
+        @Max(600)
+        private int rollupLagSeconds = 90;
+
+        // Longer gaps between two samples of a series count as downtime
+        @Min(10)
+        @Max(3600)
+        private int maxSampleGapSeconds = 90;
+
+        // Host and container usage is read from procfs and cgroup v2; mount the host's when running in a container
+        @NotBlank
+        private String procRoot = "/proc";
+
+        @NotBlank
+        private String cgroupRoot = "/sys/fs/cgroup";
+
+        @Min(100)
+        @Max(60000)
+        private int hostSampleIntervalMs = 1000;
+
+        public enum OverflowPolicy {
+            BLOCK,
+            DROP_NEWEST,
+            DROP_OLDEST
+        }
+
+        public int getHotWindowMinutes() { return hotWindowMinutes; }
+        public void setHotWindowMinutes(int hotWindowMinutes) { this.hotWindowMinutes = hotWindowMinutes; }
+        public int getSamplesPerSeries() { return samplesPerSeries; }
+        public void setSamplesPerSeries(int samplesPerSeries) { this.samplesPerSeries = samplesPerSeries; }
+        public int getMaxSeries() { return maxSeries; }
+        public void setMaxSeries(int maxSeries) { this.maxSeries = maxSeries; }
+        public int getWriteQueueCapacity() { return writeQueueCapacity; }
+        public void setWriteQueueCapacity(int writeQueueCapacity) { this.writeQueueCapacity = writeQueueCapacity; }
+        public int getWriteBatchSize() { return writeBatchSize; }
+        public void setWriteBatchSize(int writeBatchSize) { this.writeBatchSize = writeBatchSize; }
+        public int getWriteFlushIntervalMs() { return writeFlushIntervalMs; }
+        public void setWriteFlushIntervalMs(int writeFlushIntervalMs) { this.writeFlushIntervalMs = writeFlushIntervalMs; }
+        public OverflowPolicy getWriteOverflowPolicy() { return writeOverflowPolicy; }
+        public void setWriteOverflowPolicy(OverflowPolicy writeOverflowPolicy) { this.writeOverflowPolicy = writeOverflowPolicy; }
+        public int getWriteOfferTimeoutMs() { return writeOfferTimeoutMs; }
+        public void setWriteOfferTimeoutMs(int writeOfferTimeoutMs) { this.writeOfferTimeoutMs = writeOfferTimeoutMs; }
+        public int getWriteRetryAttempts() { return writeRetryAttempts; }
+        public void setWriteRetryAttempts(int writeRetryAttempts) { this.writeRetryAttempts = writeRetryAttempts; }
+        public int getWriteRetryBackoffMs() { return writeRetryBackoffMs; }
+        public void setWriteRetryBackoffMs(int writeRetryBackoffMs) { this.writeRetryBackoffMs = writeRetryBackoffMs; }
+        public int getRawRetentionDays() { return rawRetentionDays; }
+        public void setRawRetentionDays(int rawRetentionDays) { this.rawRetentionDays = rawRetentionDays; }
+        public int getMinuteRollupRetentionDays() { return minuteRollupRetentionDays; }
+        public void setMinuteRollupRetentionDays(int minuteRollupRetentionDays) { this.minuteRollupRetentionDays = minuteRollupRetentionDays; }
+        public int getHourRollupRetentionDays() { return hourRollupRetentionDays; }
+        public void setHourRollupRetentionDays(int hourRollupRetentionDays) { this.hourRollupRetentionDays = hourRollupRetentionDays; }
+        public int getDayRollupRetentionDays() { return dayRollupRetentionDays; }
+        public void setDayRollupRetentionDays(int dayRollupRetentionDays) { this.dayRollupRetentionDays = dayRollupRetentionDays; }
+        public int getRollupLagSeconds() { return rollupLagSeconds; }
+        public void setRollupLagSeconds(int rollupLagSeconds) { this.rollupLagSeconds = rollupLagSeconds; }
+        public int getMaxSampleGapSeconds() { return maxSampleGapSeconds; }
+        public void setMaxSampleGapSeconds(int maxSampleGapSeconds) { this.maxSampleGapSeconds = maxSampleGapSeconds; }
+        public String getProcRoot() { return procRoot; }
+        public void setProcRoot(String procRoot) { this.procRoot = procRoot; }
+        public String getCgroupRoot() { return cgroupRoot; }
+        public void setCgroupRoot(String cgroupRoot) { this.cgroupRoot = cgroupRoot; }
+        public int getHostSampleIntervalMs() { return hostSampleIntervalMs; }
+        public void setHostSampleIntervalMs(int hostSampleIntervalMs) { this.hostSampleIntervalMs = hostSampleIntervalMs; }
+    }
+
+    public static class Reports {
+        @Min(1)
+        @Max(64)
+        private int parallelism = 4;
+
+        @Min(10)
+        @Max(100000)
+        private int queueCapacity = 1000;
+
+        @Min(5)
+        @Max(3600)
+        private int projectTimeoutSeconds = 120;
+
+        @Min(1)
+        @Max(100)
+        private int runHistorySize = 20;
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getProjectTimeoutSeconds() { return projectTimeoutSeconds; }
+        public void setProjectTimeoutSeconds(int projectTimeoutSeconds) { this.projectTimeoutSeconds = projectTimeoutSeconds; }
+        public int getRunHistorySize() { return runHistorySize; }
+        public void setRunHistorySize(int runHistorySize) { this.runHistorySize = runHistorySize; }
+    }
+
+    public static class Analysis {
+        // Per-file detector findings are cached by path, size, mtime and content hash
+        private boolean cacheEnabled = true;
+
+        @NotBlank
+        private String cacheDirectory = System.getProperty("user.home") + "/.devorchestrator/analysis-cache";
+
+        // Number of fork-join workers scanning a project; 0 uses all available cores, 1 scans on the caller thread
+        @Min(0)
+        @Max(256)
+        private int scanParallelism = 0;
+
+        // Wall-clock budget of one analysis; files not scanned in time are left out and reported as a warning
+        @Min(1)
+        @Max(3600)
+        private int timeBudgetSeconds = 120;
+
+        // Larger files are not loaded for content scanning; their lines are counted while streaming
+        @Min(1)
+        @Max(1048576)
+        private int maxFileSizeKb = 1024;
+
+        // Total bytes one analysis may read; once used up, remaining files are matched by name only
+        @Min(1)
+        @Max(65536)
+        private int maxBytesPerAnalysisMb = 512;
+
+        // Project analyses running at once; 0 uses half of the available cores
+        @Min(0)
+        @Max(64)
+        private int maxConcurrentAnalyses = 0;
+
+        // Analyses waiting for a worker before background re-analyses are rejected
+        @Min(1)
+        @Max(10000)
+        private int analysisQueueCapacity = 100;
+
+        // Git repositories analyzed by URL are cloned here once and fetched incrementally afterwards
+        @NotBlank
+        private String cloneCacheDirectory = System.getProperty("user.home") + "/.devorchestrator/clone-cache";
+
+        // Disk budget of the clone cache; least recently analyzed clones are deleted beyond it
+        @Min(1)
+        @Max(1048576)
+        private int cloneCacheMaxMb = 2048;
+
+        // Directory of additional detection rule files (*.yml), applied over the bundled rules; empty for none
+        private String rulesDirectory = "";
+
+        // Seconds between checks of the rules directory for changed files
+        @Min(1)
+        @Max(3600)
+        private int rulesReloadInterval = 30;
+
+        public boolean isCacheEnabled() { return cacheEnabled; }
+        public void setCacheEnabled(boolean cacheEnabled) { this.cacheEnabled = cacheEnabled; }
+        public String getCacheDirectory() { return cacheDirectory; }
+        public void setCacheDirectory(String cacheDirectory) { this.cacheDirectory = cacheDirectory; }
+        public int getScanParallelism() { return scanParallelism; }
+        public void setScanParallelism(int scanParallelism) { this.scanParallelism = scanParallelism; }
+        public int getTimeBudgetSeconds() { return timeBudgetSeconds; }
+        public void setTimeBudgetSeconds(int timeBudgetSeconds) { this.timeBudgetSeconds = timeBudgetSeconds; }
+        public int getMaxFileSizeKb() { return maxFileSizeKb; }
+        public void setMaxFileSizeKb(int maxFileSizeKb) { this.maxFileSizeKb = maxFileSizeKb; }
+        public int getMaxBytesPerAnalysisMb() { return maxBytesPerAnalysisMb; }
+        public void setMaxBytesPerAnalysisMb(int maxBytesPerAnalysisMb) { this.maxBytesPerAnalysisMb = maxBytesPerAnalysisMb; }
+        public int getMaxConcurrentAnalyses() { return maxConcurrentAnalyses; }
+        public void setMaxConcurrentAnalyses(int maxConcurrentAnalyses) { this.maxConcurrentAnalyses = maxConcurrentAnalyses; }
+        public int getAnalysisQueueCapacity() { return analysisQueueCapacity; }
+        public void setAnalysisQueueCapacity(int analysisQueueCapacity) { this.analysisQueueCapacity = analysisQueueCapacity; }
+        public String getCloneCacheDirectory() { return cloneCacheDirectory; }
+        public void setCloneCacheDirectory(String cloneCacheDirectory) { this.cloneCacheDirectory = cloneCacheDirectory; }
+        public int getCloneCacheMaxMb() { return cloneCacheMaxMb; }
+        public void setCloneCacheMaxMb(int cloneCacheMaxMb) { this.cloneCacheMaxMb = cloneCacheMaxMb; }
+        public String getRulesDirectory() { return rulesDirectory; }
+        public void setRulesDirectory(String rulesDirectory) { this.rulesDirectory = rulesDirectory; }
+        public int getRulesReloadInterval() { return rulesReloadInterval; }
+        public void setRulesReloadInterval(int rulesReloadInterval) { this.rulesReloadInterval = rulesReloadInterval; }
+    }
+
+    public static class Cache {
+        // Keep recently used entries in process in front of Redis; other nodes drop changed entries via pub/sub
+        private boolean nearCacheEnabled = true;
+
+        @NotBlank
+        private String invalidationChannel = "devorchestrator:cache-invalidation";
+
+        // Settings of caches not listed under caches
+        @Valid
+        @NotNull
+        private Spec defaults = new Spec(600, 1000, 30);
+
+        @Valid
+        @NotNull
+        private Map<String, Spec> caches = new HashMap<>(Map.of(
+            "environments", new Spec(300, 1000, 30),
+            "templates", new Spec(1800, 500, 300),
+            "users", new Spec(900, 1000, 60),
+            "containers", new Spec(120, 1000, 15),
+            "system-resources", new Spec(60, 1, 5)
+        ));
+
+        public static class Spec {
+            // Time to live in Redis
+            @Min(1)
+            @Max(86400)
+            private int ttlSeconds;
+
+            // Entries kept in process, rarely used ones first out; 0 bypasses the near cache
+            @Min(0)
+            @Max(1000000)
+            private int localMaxSize;
+
+            // Bounds how long a node may serve an entry changed elsewhere if an invalidation is lost
+            @Min(1)
+            @Max(86400)
+            private int localTtlSeconds;
+
+            public Spec() {
+                this(600, 1000, 30);
+            }
+
+            public Spec(int ttlSeconds, int localMaxSize, int localTtlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+                this.localMaxSize = localMaxSize;
+                this.localTtlSeconds = localTtlSeconds;
+            }
+
+            public int getTtlSeconds() { return ttlSeconds; }
+            public void setTtlSeconds(int ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+            public int getLocalMaxSize() { return localMaxSize; }
+            public void setLocalMaxSize(int localMaxSize) { this.localMaxSize = localMaxSize; }
+            public int getLocalTtlSeconds() { return localTtlSeconds; }
+            public void setLocalTtlSeconds(int localTtlSeconds) { this.localTtlSeconds = localTtlSeconds; }
+        }
+
+        public Spec specOf(String cacheName) {
+            return caches.getOrDefault(cacheName, defaults);
+        }
+
+        public boolean isNearCacheEnabled() { return nearCacheEnabled; }
+        public void setNearCacheEnabled(boolean nearCacheEnabled) { this.nearCacheEnabled = nearCacheEnabled; }
+        public String getInvalidationChannel() { return invalidationChannel; }
+        public void setInvalidationChannel(String invalidationChannel) { this.invalidationChannel = invalidationChannel; }
+        public Spec getDefaults() { return defaults; }
+        public void setDefaults(Spec defaults) { this.defaults = defaults; }
+        public Map<String, Spec> getCaches() { return caches; }
+        public void setCaches(Map<String, Spec> caches) { this.caches = caches; }
     }
 
     public String getName() { return name; }
@@ -259,4 +724,12 @@ public class AppProperties {
     public void setSecurity(Security security) { this.security = security; }
     public WebSocket getWebsocket() { return websocket; }
     public void setWebsocket(WebSocket websocket) { this.websocket = websocket; }
+    public Metrics getMetrics() { return metrics; }
+    public void setMetrics(Metrics metrics) { this.metrics = metrics; }
+    public Reports getReports() { return reports; }
+    public void setReports(Reports reports) { this.reports = reports; }
+    public Analysis getAnalysis() { return analysis; }
+    public void setAnalysis(Analysis analysis) { this.analysis = analysis; }
+    public Cache getCache() { return cache; }
+    public void setCache(Cache cache) { this.cache = cache; }
 }
\ No newline at end of file
@@ -1,13 +1,16 @@
 package com.devorchestrator.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -18,22 +21,38 @@ import java.time.Duration;
 @EnableCaching
 public class CacheConfig {
 
-    @Bean
+    // Also registered under its former name so @Qualifier("redisCacheManager") keeps resolving
+    @Bean(name = {"cacheManager", "redisCacheManager"})
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            AppProperties appProperties,
+                                            MeterRegistry meterRegistry) {
+        AppProperties.Cache cacheConfig = appProperties.getCache();
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Duration.ofMinutes(10))
+            .entryTtl(Duration.ofSeconds(cacheConfig.getDefaults().getTtlSeconds()))
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
             .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
             .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
-            .cacheDefaults(config)
-            .withCacheConfiguration("environments", config.entryTtl(Duration.ofMinutes(5)))
-            .withCacheConfiguration("templates", config.entryTtl(Duration.ofMinutes(30)))
-            .withCacheConfiguration("users", config.entryTtl(Duration.ofMinutes(15)))
-            .withCacheConfiguration("containers", config.entryTtl(Duration.ofMinutes(2)))
-            .withCacheConfiguration("system-resources", config.entryTtl(Duration.ofMinutes(1)))
-            .build();
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+            .cacheDefaults(config);
+        cacheConfig.getCaches().forEach((name, spec) ->
+            builder.withCacheConfiguration(name, config.entryTtl(Duration.ofSeconds(spec.getTtlSeconds()))));
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, new StringRedisTemplate(connectionFactory),
+            cacheConfig, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoTierCacheManager cacheManager,
+                                                                            AppProperties appProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(appProperties.getCache().getInvalidationChannel()));
+        return container;
     }
-}
\ No newline at end of file
+}
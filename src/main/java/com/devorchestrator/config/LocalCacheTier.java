@@ -0,0 +1,110 @@
+package com.devorchestrator.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+
+/**
+ * Size-bounded in-process store for the near cache, backed by Caffeine.
+ * Entries are not served after their time to live. Keys are the string
+ * form of cache keys, the same form invalidations from other nodes carry.
+ *
+ * <p>Every write, eviction and clear advances a generation. A reader takes
+ * the generation before going to the remote tier and stores what it got
+ * only if the key has not changed since, so an invalidation that arrives
+ * during the remote read is not undone by a stale local copy.
+ */
+final class LocalCacheTier {
+
+    private final Cache<String, Object> entries;
+
+    // Generation of the last change per key, bounded like the entries
+    private final Cache<String, Long> changedAt;
+    private long generation;
+    // Changes up to this generation are no longer tracked per key
+    private long forgottenAt;
+
+    LocalCacheTier(int maxSize, Duration ttl) {
+        // Both evict on the writing thread; for the changes that thread holds
+        // the lock, so forgottenAt has moved past a dropped change before the
+        // next check
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .executor(Runnable::run)
+            .recordStats()
+            .build();
+        this.changedAt = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .executor(Runnable::run)
+            .evictionListener((String key, Long changed, RemovalCause cause) -> forgotten(changed))
+            .build();
+    }
+
+    /**
+     * Publishes Caffeine's hit, miss and eviction statistics for this tier
+     */
+    void bindTo(MeterRegistry meterRegistry, String cacheName) {
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, cacheName, "tier", "l1");
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @return the cached value, or null when absent or expired
+     */
+    Object get(String key) {
+        return entries.getIfPresent(key);
+    }
+
+    synchronized void put(String key, Object value) {
+        entries.put(key, value);
+        changed(key);
+    }
+
+    /**
+     * Stores a value read from the remote tier unless the key was written,
+     * evicted or cleared after the given generation
+     *
+     * @return whether the value was stored
+     */
+    synchronized boolean putIfUnchanged(String key, Object value, long since) {
+        Long changed = changedAt.getIfPresent(key);
+        if (forgottenAt > since || (changed != null && changed > since)) {
+            return false;
+        }
+        entries.put(key, value);
+        return true;
+    }
+
+    synchronized void evict(String key) {
+        entries.invalidate(key);
+        changed(key);
+    }
+
+    synchronized void clear() {
+        entries.invalidateAll();
+        changedAt.invalidateAll();
+        forgottenAt = ++generation;
+    }
+
+    private void changed(String key) {
+        changedAt.put(key, ++generation);
+    }
+
+    private synchronized void forgotten(Long changed) {
+        if (changed != null) {
+            forgottenAt = Math.max(forgottenAt, changed);
+        }
+    }
+
+    long size() {
+        return entries.estimatedSize();
+    }
+}
@@ -0,0 +1,207 @@
+package com.devorchestrator.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache that answers from the in-process tier first and from Redis on a
+ * local miss, keeping what Redis returns locally unless the entry was
+ * invalidated while Redis was read. Writes go to Redis and then to the
+ * local tier, and are announced so other nodes drop their local copy of
+ * the entry.
+ */
+class TwoTierCache implements Cache {
+
+    /**
+     * Announces a changed entry to other nodes; a null key means the whole cache
+     */
+    @FunctionalInterface
+    interface InvalidationPublisher {
+        void publish(String cacheName, String key);
+    }
+
+    private final Cache remote;
+    private final LocalCacheTier local;
+    private final InvalidationPublisher publisher;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    TwoTierCache(Cache remote, LocalCacheTier local, InvalidationPublisher publisher, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.local = local;
+        this.publisher = publisher;
+
+        this.localHits = requestCounter(meterRegistry, "l1", "hit");
+        this.localMisses = requestCounter(meterRegistry, "l1", "miss");
+        this.remoteHits = requestCounter(meterRegistry, "l2", "hit");
+        this.remoteMisses = requestCounter(meterRegistry, "l2", "miss");
+
+        hitRatioGauge(meterRegistry, "l1", localHits, localMisses);
+        hitRatioGauge(meterRegistry, "l2", remoteHits, remoteMisses);
+        Gauge.builder("cache.local.size", local, LocalCacheTier::size)
+            .description("Entries held in the in-process cache tier")
+            .tag("cache", getName())
+            .register(meterRegistry);
+        local.bindTo(meterRegistry, getName());
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.get(localKey);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        long generation = local.generation();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        if (wrapper.get() != null) {
+            local.putIfUnchanged(localKey, wrapper.get(), generation);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long generation = local.generation();
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value = remote.get(key, valueLoader);
+        if (value != null) {
+            local.putIfUnchanged(localKey(key), value, generation);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        storeLocally(key, value);
+        publisher.publish(getName(), localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing == null) {
+            storeLocally(key, value);
+            publisher.publish(getName(), localKey(key));
+        } else {
+            storeLocally(key, existing.get());
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.evict(localKey(key));
+        publisher.publish(getName(), localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        local.evict(localKey(key));
+        publisher.publish(getName(), localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.clear();
+        publisher.publish(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.clear();
+        publisher.publish(getName(), null);
+        return invalidated;
+    }
+
+    /**
+     * Drops the local copy of an entry changed on another node
+     */
+    void evictLocal(String key) {
+        local.evict(key);
+    }
+
+    void clearLocal() {
+        local.clear();
+    }
+
+    private void storeLocally(Object key, Object value) {
+        if (value != null) {
+            local.put(localKey(key), value);
+        } else {
+            local.evict(localKey(key));
+        }
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter requestCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.requests")
+            .description("Cache lookups per tier and result")
+            .tag("cache", getName())
+            .tag("tier", tier)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private void hitRatioGauge(MeterRegistry meterRegistry, String tier, Counter hits, Counter misses) {
+        Gauge.builder("cache.tier.hit.ratio", () -> {
+                double total = hits.count() + misses.count();
+                return total == 0 ? 0.0 : hits.count() / total;
+            })
+            .description("Share of lookups answered by the tier")
+            .tag("cache", getName())
+            .tag("tier", tier)
+            .register(meterRegistry);
+    }
+}
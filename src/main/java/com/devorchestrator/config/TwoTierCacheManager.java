@@ -0,0 +1,93 @@
+package com.devorchestrator.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts an in-process tier in front of each Redis cache. Changes are
+ * published on a Redis channel as {@code node|cache|key}, or
+ * {@code node|cache} when the whole cache was cleared, and every other
+ * node drops its local copies on receipt.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remote;
+    private final StringRedisTemplate redisTemplate;
+    private final AppProperties.Cache config;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remote, StringRedisTemplate redisTemplate,
+                               AppProperties.Cache config, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> decorate(remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (caches.get(parts[1]) instanceof TwoTierCache cache) {
+            if (parts.length == 3) {
+                cache.evictLocal(parts[2]);
+            } else {
+                cache.clearLocal();
+            }
+        }
+    }
+
+    private Cache decorate(Cache remoteCache) {
+        AppProperties.Cache.Spec spec = config.specOf(remoteCache.getName());
+        if (!config.isNearCacheEnabled() || spec.getLocalMaxSize() == 0) {
+            return remoteCache;
+        }
+        LocalCacheTier local = new LocalCacheTier(spec.getLocalMaxSize(), Duration.ofSeconds(spec.getLocalTtlSeconds()));
+        return new TwoTierCache(remoteCache, local, this::publishInvalidation, meterRegistry);
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        String message = key != null ? nodeId + "|" + cacheName + "|" + key : nodeId + "|" + cacheName;
+        try {
+            redisTemplate.convertAndSend(config.getInvalidationChannel(), message);
+        } catch (Exception e) {
+            // Other nodes fall back to the local time to live
+            log.warn("Failed to publish invalidation for cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
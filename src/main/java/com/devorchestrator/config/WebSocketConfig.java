@@ -21,5 +21,9 @@ public class WebSocketConfig implements WebSocketConfigurer {
         registry.addHandler(metricsWebSocketHandler, "/ws/metrics")
             .setAllowedOrigins("*") // Configure appropriately for production
             .withSockJS(); // Enable SockJS fallback
+        
+        // Plain WebSocket endpoint; SockJS framing is text-only, so binary protocol v2 frames need this one
+        registry.addHandler(metricsWebSocketHandler, "/ws/metrics/native")
+            .setAllowedOrigins("*");
     }
 }
\ No newline at end of file
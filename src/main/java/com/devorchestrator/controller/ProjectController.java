@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -33,6 +34,8 @@ public class ProjectController {
     private final ProjectAnalyzerService analyzerService;
     private final MetricsCollectorService metricsCollectorService;
     private final ResourceMetricRepository metricRepository;
+    private final RecentMetricsStore recentMetricsStore;
+    private final MetricRollupService metricRollupService;
     private final ProjectStartupService projectStartupService;
     private final TemplateGeneratorService templateGeneratorService;
     private final UsageAnalyticsService usageAnalyticsService;
@@ -43,6 +46,8 @@ public class ProjectController {
                            ProjectAnalyzerService analyzerService,
                            MetricsCollectorService metricsCollectorService,
                            ResourceMetricRepository metricRepository,
+                           RecentMetricsStore recentMetricsStore,
+                           MetricRollupService metricRollupService,
                            ProjectStartupService projectStartupService,
                            TemplateGeneratorService templateGeneratorService,
                            UsageAnalyticsService usageAnalyticsService,
@@ -52,6 +57,8 @@ public class ProjectController {
         this.analyzerService = analyzerService;
         this.metricsCollectorService = metricsCollectorService;
         this.metricRepository = metricRepository;
+        this.recentMetricsStore = recentMetricsStore;
+        this.metricRollupService = metricRollupService;
         this.projectStartupService = projectStartupService;
         this.templateGeneratorService = templateGeneratorService;
         this.usageAnalyticsService = usageAnalyticsService;
@@ -192,11 +199,27 @@ public class ProjectController {
             );
         }
         
-        // Calculate aggregates
-        Double avgCpu = metricRepository.getAverageMetricValue(projectId, "cpu_usage_percent", start, end);
-        Double maxCpu = metricRepository.getMaxMetricValue(projectId, "cpu_usage_percent", start, end);
-        Double avgMemory = metricRepository.getAverageMetricValue(projectId, "memory_used_mb", start, end);
-        Double maxMemory = metricRepository.getMaxMetricValue(projectId, "memory_used_mb", start, end);
+        // Calculate aggregates, from memory when the range is inside the hot window
+        Double avgCpu;
+        Double maxCpu;
+        Double avgMemory;
+        Double maxMemory;
+        if (recentMetricsStore.covers(start)) {
+            RecentMetricsStore.SeriesStats cpu = recentMetricsStore.aggregate(projectId, "cpu_usage_percent", start, end);
+            RecentMetricsStore.SeriesStats memory = recentMetricsStore.aggregate(projectId, "memory_used_mb", start, end);
+            avgCpu = cpu.isEmpty() ? null : cpu.getAvg();
+            maxCpu = cpu.isEmpty() ? null : cpu.getMax();
+            avgMemory = memory.isEmpty() ? null : memory.getAvg();
+            maxMemory = memory.isEmpty() ? null : memory.getMax();
+        } else {
+            Map<String, MetricRollupService.MetricSummary> usage = metricRollupService.summarize(projectId, start, end);
+            MetricRollupService.MetricSummary cpu = usage.get("cpu_usage_percent");
+            MetricRollupService.MetricSummary memory = usage.get("memory_used_mb");
+            avgCpu = cpu == null ? null : cpu.getAvg();
+            maxCpu = cpu == null ? null : cpu.getMax();
+            avgMemory = memory == null ? null : memory.getAvg();
+            maxMemory = memory == null ? null : memory.getMax();
+        }
         
         return ResponseEntity.ok(ProjectMetricsDto.builder()
             .projectId(projectId)
@@ -212,6 +235,24 @@ public class ProjectController {
             .build());
     }
     
+    @GetMapping("/{projectId}/metrics/trend")
+    @Operation(summary = "Get metric trend", description = "Returns a downsampled series for one metric from the rollup tables")
+    public ResponseEntity<List<MetricRollupService.TrendPoint>> getMetricTrend(
+            @PathVariable String projectId,
+            @RequestParam @Parameter(description = "Metric name, e.g. cpu_usage_percent") String metric,
+            @RequestParam(required = false) @Parameter(description = "Start time for the trend") LocalDateTime start,
+            @RequestParam(required = false) @Parameter(description = "End time for the trend") LocalDateTime end,
+            @RequestParam(defaultValue = "500") @Parameter(description = "Maximum number of points") int maxPoints,
+            @AuthenticationPrincipal User user) {
+        
+        projectRegistryService.getProjectById(projectId, user);
+        
+        if (start == null) start = LocalDateTime.now().minusDays(7);
+        if (end == null) end = LocalDateTime.now();
+        
+        return ResponseEntity.ok(metricRollupService.getTrend(projectId, metric, start, end, maxPoints));
+    }
+    
     @GetMapping("/{projectId}/analysis")
     @Operation(summary = "Get project analysis", description = "Returns the latest analysis results for a project")
     public ResponseEntity<ProjectAnalysisDto> getProjectAnalysis(
@@ -1,6 +1,7 @@
 package com.devorchestrator.controller;
 
 import com.devorchestrator.service.ResourceMonitoringService;
+import com.devorchestrator.websocket.WebSocketBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,9 +21,12 @@ import java.util.Map;
 public class SystemController {
 
     private final ResourceMonitoringService resourceService;
+    private final WebSocketBroadcaster webSocketBroadcaster;
 
-    public SystemController(ResourceMonitoringService resourceService) {
+    public SystemController(ResourceMonitoringService resourceService,
+                            WebSocketBroadcaster webSocketBroadcaster) {
         this.resourceService = resourceService;
+        this.webSocketBroadcaster = webSocketBroadcaster;
     }
 
     @GetMapping("/resources")
@@ -48,8 +53,15 @@ public class SystemController {
             "cpuUsage", stats.getCpuUsagePercent(),
             "memoryUsage", (stats.getMemoryUsageMb() * 100.0 / stats.getTotalMemoryMb()),
             "availableMemoryMb", stats.getAvailableMemoryMb(),
-            "allocatedCpuMb", stats.getAllocatedCpuMb(),
+            "allocatedCpuMillicores", stats.getAllocatedCpuMillicores(),
             "allocatedMemoryMb", stats.getAllocatedMemoryMb()
         ));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/websocket-sessions")
+    @Operation(summary = "Get WebSocket session stats", description = "Outbound queue depth, drops and lag per WebSocket session")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<WebSocketBroadcaster.SessionStats>> getWebSocketSessions() {
+        return ResponseEntity.ok(webSocketBroadcaster.getSessionStats());
+    }
+}
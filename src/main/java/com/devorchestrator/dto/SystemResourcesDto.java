@@ -13,7 +13,7 @@ public class SystemResourcesDto {
     private long availableMemoryMb;
     private double memoryUsagePercent;
     
-    private long allocatedCpuMb;
+    private long allocatedCpuMillicores;
     private long allocatedMemoryMb;
     
     private int availableProcessors;
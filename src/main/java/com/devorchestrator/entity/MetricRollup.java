@@ -0,0 +1,95 @@
+package com.devorchestrator.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated bucket of resource_metrics samples for one series.
+ * Host-level series are stored with an empty container id so that the
+ * unique key also applies to them.
+ */
+@Entity
+@Table(name = "resource_metric_rollups",
+    uniqueConstraints = @UniqueConstraint(name = "uk_metric_rollups_series_bucket",
+        columnNames = {"project_id", "container_id", "metric_name", "resolution", "bucket_start"}),
+    indexes = {
+        @Index(name = "idx_metric_rollups_project_bucket", columnList = "project_id, resolution, bucket_start"),
+        @Index(name = "idx_metric_rollups_resolution_bucket", columnList = "resolution, bucket_start")
+    })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MetricRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "project_id", nullable = false, length = 36)
+    private String projectId;
+
+    @Column(name = "container_id", nullable = false, length = 64)
+    private String containerId;
+
+    @Column(name = "metric_name", nullable = false, length = 100)
+    private String metricName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric_type", nullable = false, length = 50)
+    private ResourceMetric.MetricType metricType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false, length = 10)
+    private Resolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Aggregates
+    @Column(name = "min_value", nullable = false, precision = 20, scale = 4)
+    private BigDecimal minValue;
+
+    @Column(name = "max_value", nullable = false, precision = 20, scale = 4)
+    private BigDecimal maxValue;
+
+    @Column(name = "sum_value", nullable = false, precision = 24, scale = 4)
+    private BigDecimal sumValue;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "last_value", nullable = false, precision = 20, scale = 4)
+    private BigDecimal lastValue;
+
+    // Time-weighted value (value x seconds), used for resource-hour totals
+    @Column(name = "integral_value", nullable = false, precision = 24, scale = 4)
+    private BigDecimal integralValue;
+
+    // Seconds the series was reporting within the bucket
+    @Column(name = "covered_seconds", nullable = false)
+    private Long coveredSeconds;
+
+    @Column(name = "last_recorded_at", nullable = false)
+    private LocalDateTime lastRecordedAt;
+
+    public enum Resolution {
+        MINUTE(60),
+        HOUR(3600),
+        DAY(86400);
+
+        private final long seconds;
+
+        Resolution(long seconds) {
+            this.seconds = seconds;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,13 @@ public interface EnvironmentRepository extends JpaRepository<Environment, String
 
     Page<Environment> findByOwnerId(Long ownerId, Pageable pageable);
 
+    @Query("SELECT e.id FROM Environment e WHERE e.owner.id = :ownerId ORDER BY e.createdAt, e.id")
+    List<String> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT DISTINCT e FROM Environment e JOIN FETCH e.template LEFT JOIN FETCH e.containers " +
+           "WHERE e.id IN :ids")
+    List<Environment> findAllByIdWithDetails(@Param("ids") Collection<String> ids);
+
     List<Environment> findByOwnerIdAndStatus(Long ownerId, EnvironmentStatus status);
 
     Page<Environment> findByOwnerIdAndStatus(Long ownerId, EnvironmentStatus status, Pageable pageable);
@@ -29,6 +37,8 @@ public interface EnvironmentRepository extends JpaRepository<Environment, String
 
     List<Environment> findByStatus(EnvironmentStatus status);
 
+    List<Environment> findByStatusIn(List<EnvironmentStatus> statuses);
+
     @Query("SELECT e FROM Environment e WHERE e.status = :status AND e.lastAccessedAt < :cutoff")
     List<Environment> findByStatusAndLastAccessedBefore(@Param("status") EnvironmentStatus status, 
                                                        @Param("cutoff") LocalDateTime cutoff);
@@ -49,7 +59,7 @@ public interface EnvironmentRepository extends JpaRepository<Environment, String
     @Query("SELECT COUNT(e) FROM Environment e WHERE e.status IN ('CREATING', 'RUNNING', 'STOPPED')")
     long countActiveEnvironments();
 
-    @Modifying
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE Environment e SET e.status = :status WHERE e.id = :id")
     int updateEnvironmentStatus(@Param("id") String id, @Param("status") EnvironmentStatus status);
 
@@ -71,7 +81,7 @@ public interface EnvironmentRepository extends JpaRepository<Environment, String
                                            @Param("search") String search, 
                                            Pageable pageable);
 
-    @Query("SELECT AVG(EXTRACT(EPOCH FROM (CURRENT_TIMESTAMP - e.createdAt))) FROM Environment e WHERE e.status = 'RUNNING'")
+    @Query("SELECT AVG(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) - EXTRACT(EPOCH FROM e.createdAt)) FROM Environment e WHERE e.status = 'RUNNING'")
     Double getAverageEnvironmentUptime();
 
     @Query("SELECT COUNT(e) FROM Environment e WHERE e.createdAt >= CURRENT_DATE")
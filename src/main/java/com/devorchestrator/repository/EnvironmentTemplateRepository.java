@@ -39,6 +39,9 @@ public interface EnvironmentTemplateRepository extends JpaRepository<Environment
     @Query("SELECT COUNT(e) FROM Environment e WHERE e.template.id = :templateId")
     long countEnvironmentsByTemplateId(@Param("templateId") String templateId);
 
+    @Query("SELECT DISTINCT e.template FROM Environment e WHERE e.status != 'DESTROYED'")
+    List<EnvironmentTemplate> findTemplatesInUse();
+
     @Query("SELECT t FROM EnvironmentTemplate t WHERE t.memoryLimitMb <= :maxMemory AND t.cpuLimit <= :maxCpu")
     List<EnvironmentTemplate> findByResourceLimits(@Param("maxMemory") Integer maxMemory, 
                                                   @Param("maxCpu") Double maxCpu);
@@ -0,0 +1,134 @@
+package com.devorchestrator.repository;
+
+import com.devorchestrator.entity.MetricRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MetricRollupRepository extends JpaRepository<MetricRollup, Long> {
+
+    String UPSERT_COLUMNS =
+        "INSERT INTO resource_metric_rollups (project_id, container_id, metric_name, metric_type, resolution, " +
+        "bucket_start, min_value, max_value, sum_value, sample_count, last_value, integral_value, covered_seconds, " +
+        "last_recorded_at) ";
+
+    String ON_CONFLICT_UPDATE =
+        " ON CONFLICT (project_id, container_id, metric_name, resolution, bucket_start) DO UPDATE SET " +
+        "min_value = EXCLUDED.min_value, max_value = EXCLUDED.max_value, sum_value = EXCLUDED.sum_value, " +
+        "sample_count = EXCLUDED.sample_count, last_value = EXCLUDED.last_value, " +
+        "integral_value = EXCLUDED.integral_value, covered_seconds = EXCLUDED.covered_seconds, " +
+        "last_recorded_at = EXCLUDED.last_recorded_at";
+
+    /**
+     * Rolls raw samples up into one-minute buckets. The integral and covered
+     * time follow UsageAggregator: the trapezoid between two consecutive
+     * samples of a series belongs to the bucket of the later sample, and gaps
+     * longer than maxGapSeconds count as neither. Samples from lookbackFrom
+     * on are read so the first sample of the range has its predecessor.
+     */
+    @Modifying
+    @Query(value = UPSERT_COLUMNS +
+           "SELECT project_id, container_id, metric_name, MIN(metric_type), 'MINUTE', " +
+           "date_trunc('minute', recorded_at), MIN(value), MAX(value), SUM(value), COUNT(*), " +
+           "(array_agg(value ORDER BY recorded_at DESC))[1], " +
+           "COALESCE(SUM(CASE WHEN gap > 0 AND gap <= :maxGapSeconds THEN (previous_value + value) / 2 * gap END), 0), " +
+           "COALESCE(ROUND(SUM(CASE WHEN gap > 0 AND gap <= :maxGapSeconds THEN gap END)), 0), MAX(recorded_at) " +
+           "FROM (SELECT project_id, COALESCE(container_id, '') AS container_id, metric_name, metric_type, value, " +
+           "recorded_at, LAG(value) OVER series AS previous_value, " +
+           "EXTRACT(EPOCH FROM (recorded_at - LAG(recorded_at) OVER series)) AS gap " +
+           "FROM resource_metrics WHERE recorded_at >= :lookbackFrom AND recorded_at < :to " +
+           "WINDOW series AS (PARTITION BY project_id, COALESCE(container_id, ''), metric_name ORDER BY recorded_at)) samples " +
+           "WHERE recorded_at >= :from " +
+           "GROUP BY project_id, container_id, metric_name, date_trunc('minute', recorded_at)" +
+           ON_CONFLICT_UPDATE,
+           nativeQuery = true)
+    int rollupRawToMinutes(@Param("lookbackFrom") LocalDateTime lookbackFrom,
+                           @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to,
+                           @Param("maxGapSeconds") int maxGapSeconds);
+
+    /**
+     * Rolls minute buckets up into hour buckets
+     */
+    @Modifying
+    @Query(value = UPSERT_COLUMNS +
+           "SELECT project_id, container_id, metric_name, MIN(metric_type), 'HOUR', " +
+           "date_trunc('hour', bucket_start), MIN(min_value), MAX(max_value), SUM(sum_value), SUM(sample_count), " +
+           "(array_agg(last_value ORDER BY bucket_start DESC))[1], SUM(integral_value), SUM(covered_seconds), " +
+           "MAX(last_recorded_at) FROM resource_metric_rollups WHERE resolution = 'MINUTE' AND bucket_start >= :from AND bucket_start < :to " +
+           "GROUP BY project_id, container_id, metric_name, date_trunc('hour', bucket_start)" +
+           ON_CONFLICT_UPDATE,
+           nativeQuery = true)
+    int rollupMinutesToHours(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Rolls hour buckets up into day buckets
+     */
+    @Modifying
+    @Query(value = UPSERT_COLUMNS +
+           "SELECT project_id, container_id, metric_name, MIN(metric_type), 'DAY', " +
+           "date_trunc('day', bucket_start), MIN(min_value), MAX(max_value), SUM(sum_value), SUM(sample_count), " +
+           "(array_agg(last_value ORDER BY bucket_start DESC))[1], SUM(integral_value), SUM(covered_seconds), " +
+           "MAX(last_recorded_at) FROM resource_metric_rollups WHERE resolution = 'HOUR' AND bucket_start >= :from AND bucket_start < :to " +
+           "GROUP BY project_id, container_id, metric_name, date_trunc('day', bucket_start)" +
+           ON_CONFLICT_UPDATE,
+           nativeQuery = true)
+    int rollupHoursToDays(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Per-metric totals over a range of buckets: metric name, min, max, sum,
+     * sample count, integral, covered seconds, series count
+     */
+    @Query("SELECT r.metricName, MIN(r.minValue), MAX(r.maxValue), SUM(r.sumValue), SUM(r.sampleCount), " +
+           "SUM(r.integralValue), SUM(r.coveredSeconds), COUNT(DISTINCT r.containerId) FROM MetricRollup r WHERE r.projectId = :projectId " +
+           "AND r.resolution = :resolution AND r.bucketStart >= :start AND r.bucketStart < :end " +
+           "GROUP BY r.metricName")
+    List<Object[]> summarize(@Param("projectId") String projectId,
+                             @Param("resolution") MetricRollup.Resolution resolution,
+                             @Param("start") LocalDateTime start,
+                             @Param("end") LocalDateTime end);
+
+    /**
+     * Per-day, per-metric totals from DAY buckets: bucket start, metric name,
+     * min, max, sum, sample count, integral, covered seconds, series count
+     */
+    @Query("SELECT r.bucketStart, r.metricName, MIN(r.minValue), MAX(r.maxValue), SUM(r.sumValue), " +
+           "SUM(r.sampleCount), SUM(r.integralValue), SUM(r.coveredSeconds), COUNT(DISTINCT r.containerId) " +
+           "FROM MetricRollup r WHERE r.projectId = :projectId " +
+           "AND r.resolution = com.devorchestrator.entity.MetricRollup.Resolution.DAY AND r.bucketStart >= :start AND r.bucketStart < :end " +
+           "GROUP BY r.bucketStart, r.metricName")
+    List<Object[]> summarizeDays(@Param("projectId") String projectId,
+                                 @Param("start") LocalDateTime start,
+                                 @Param("end") LocalDateTime end);
+
+    /**
+     * Buckets of one metric across all containers, oldest first:
+     * bucket start, min, max, sum, sample count
+     */
+    @Query("SELECT r.bucketStart, MIN(r.minValue), MAX(r.maxValue), SUM(r.sumValue), SUM(r.sampleCount) " +
+           "FROM MetricRollup r WHERE r.projectId = :projectId AND r.metricName = :metricName " +
+           "AND r.resolution = :resolution AND r.bucketStart >= :start AND r.bucketStart < :end " +
+           "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> findSeries(@Param("projectId") String projectId,
+                              @Param("metricName") String metricName,
+                              @Param("resolution") MetricRollup.Resolution resolution,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
+
+    @Query("SELECT MAX(r.bucketStart) FROM MetricRollup r WHERE r.resolution = :resolution")
+    LocalDateTime findLatestBucketStart(@Param("resolution") MetricRollup.Resolution resolution);
+
+    @Query("SELECT MIN(r.bucketStart) FROM MetricRollup r WHERE r.resolution = :resolution")
+    LocalDateTime findEarliestBucketStart(@Param("resolution") MetricRollup.Resolution resolution);
+
+    @Modifying
+    @Query("DELETE FROM MetricRollup r WHERE r.resolution = :resolution AND r.bucketStart < :cutoff")
+    int deleteByResolutionAndBucketStartBefore(@Param("resolution") MetricRollup.Resolution resolution,
+                                               @Param("cutoff") LocalDateTime cutoff);
+}
@@ -4,6 +4,7 @@ import com.devorchestrator.entity.ResourceMetric;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -37,6 +38,19 @@ public interface ResourceMetricRepository extends JpaRepository<ResourceMetric,
      */
     void deleteByRecordedAtBefore(LocalDateTime cutoff);
     
+    /**
+     * Bulk delete of raw samples without loading them
+     */
+    @Modifying
+    @Query("DELETE FROM ResourceMetric m WHERE m.recordedAt < :cutoff")
+    int purgeRecordedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    /**
+     * Earliest raw sample still stored
+     */
+    @Query("SELECT MIN(m.recordedAt) FROM ResourceMetric m")
+    LocalDateTime findEarliestRecordedAt();
+    
     /**
      * Get average metric value for a project
      */
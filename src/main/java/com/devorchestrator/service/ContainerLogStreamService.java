@@ -0,0 +1,282 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Follows container logs through the Docker Engine API. There is at most one
+ * follow-mode stream per container, shared by every listener of that
+ * container; it is opened with the first listener and closed with the last.
+ * Frames are split into lines as they arrive and handed to the listeners,
+ * which are expected to buffer them without blocking.
+ */
+@Service
+@Slf4j
+public class ContainerLogStreamService {
+
+    private final DockerClient dockerClient;
+    private final int maxLineLength;
+
+    private final Map<String, LogFollower> followers = new ConcurrentHashMap<>();
+
+    public ContainerLogStreamService(DockerClient dockerClient, AppProperties appProperties) {
+        this.dockerClient = dockerClient;
+        this.maxLineLength = appProperties.getWebsocket().getLogMaxLineLength();
+    }
+
+    /**
+     * Adds a listener to the container's follower, starting it if needed.
+     * Only lines written from now on are delivered; use {@link #fetchTail}
+     * for history.
+     */
+    public void subscribe(String containerId, LogListener listener) {
+        followers.compute(containerId, (id, follower) -> {
+            if (follower == null) {
+                follower = new LogFollower(id);
+                dockerClient.logContainerCmd(id)
+                    .withStdOut(true)
+                    .withStdErr(true)
+                    .withFollowStream(true)
+                    .withTail(0)
+                    .exec(follower);
+                log.debug("Opened log follower for container {}", id);
+            }
+            follower.listeners.add(listener);
+            return follower;
+        });
+    }
+
+    /**
+     * Removes a listener; the follower is closed once nobody listens
+     */
+    public void unsubscribe(String containerId, LogListener listener) {
+        followers.computeIfPresent(containerId, (id, follower) -> {
+            follower.listeners.remove(listener);
+            if (follower.listeners.isEmpty()) {
+                closeQuietly(follower);
+                log.debug("Closed log follower for container {}", id);
+                return null;
+            }
+            return follower;
+        });
+    }
+
+    /**
+     * Reads the last lines of the container once, without following, and
+     * passes them to {@link LogListener#onTail} when complete
+     */
+    public void fetchTail(String containerId, int lines, LogListener listener) {
+        List<LogLine> tail = new ArrayList<>(Math.min(lines, 1000));
+        dockerClient.logContainerCmd(containerId)
+            .withStdOut(true)
+            .withStdErr(true)
+            .withFollowStream(false)
+            .withTail(lines)
+            .exec(new LineCallback(containerId) {
+                @Override
+                void onLine(LogLine line) {
+                    tail.add(line);
+                }
+
+                @Override
+                public void onComplete() {
+                    flushPartial();
+                    listener.onTail(containerId, tail);
+                    super.onComplete();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    log.debug("Log tail for container {} failed: {}", containerId, throwable.getMessage());
+                    listener.onTail(containerId, tail);
+                    super.onError(throwable);
+                }
+            });
+    }
+
+    public int getActiveFollowerCount() {
+        return followers.size();
+    }
+
+    public Set<String> getFollowedContainers() {
+        return Set.copyOf(followers.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        followers.values().forEach(this::closeQuietly);
+        followers.clear();
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Error closing log stream: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Receives the lines of followed containers. Called on Docker client
+     * threads, so implementations must not block.
+     */
+    public interface LogListener {
+        void onLine(LogLine line);
+
+        default void onTail(String containerId, List<LogLine> lines) {
+        }
+
+        /**
+         * The stream ended, e.g. because the container stopped
+         */
+        default void onEnd(String containerId) {
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LogLine {
+        private final String containerId;
+        private final String stream;
+        private final String text;
+    }
+
+    /**
+     * Splits Docker frames into lines. A frame can end in the middle of a
+     * line, so the remainder is kept per stream until its newline arrives;
+     * lines longer than the limit are cut.
+     */
+    abstract class LineCallback extends ResultCallback.Adapter<Frame> {
+        final String containerId;
+        private final Map<StreamType, LineBuffer> partial = new ConcurrentHashMap<>();
+
+        LineCallback(String containerId) {
+            this.containerId = containerId;
+        }
+
+        abstract void onLine(LogLine line);
+
+        @Override
+        public void onNext(Frame frame) {
+            byte[] payload = frame.getPayload();
+            if (payload == null || payload.length == 0) {
+                return;
+            }
+            StreamType type = frame.getStreamType();
+            LineBuffer buffer = partial.computeIfAbsent(type, t -> new LineBuffer(maxLineLength));
+            String stream = type == StreamType.STDERR ? "stderr" : "stdout";
+
+            synchronized (buffer) {
+                int start = 0;
+                for (int i = 0; i < payload.length; i++) {
+                    if (payload[i] == '\n') {
+                        buffer.append(payload, start, i - start);
+                        onLine(new LogLine(containerId, stream, buffer.takeLine()));
+                        start = i + 1;
+                    }
+                }
+                buffer.append(payload, start, payload.length - start);
+            }
+        }
+
+        void flushPartial() {
+            partial.forEach((type, buffer) -> {
+                synchronized (buffer) {
+                    if (buffer.length > 0) {
+                        onLine(new LogLine(containerId, type == StreamType.STDERR ? "stderr" : "stdout",
+                            buffer.takeLine()));
+                    }
+                }
+            });
+        }
+    }
+
+    private static final class LineBuffer {
+        private final byte[] bytes;
+        private int length;
+
+        LineBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void append(byte[] source, int offset, int count) {
+            int copy = Math.min(count, bytes.length - length);
+            if (copy > 0) {
+                System.arraycopy(source, offset, bytes, length, copy);
+                length += copy;
+            }
+        }
+
+        String takeLine() {
+            int end = length;
+            if (end > 0 && bytes[end - 1] == '\r') {
+                end--;
+            }
+            String line = new String(bytes, 0, end, StandardCharsets.UTF_8);
+            length = 0;
+            return line;
+        }
+    }
+
+    /**
+     * Follow-mode stream of one container, fanned out to its listeners
+     */
+    private class LogFollower extends LineCallback {
+        private final Set<LogListener> listeners = new CopyOnWriteArraySet<>();
+
+        LogFollower(String containerId) {
+            super(containerId);
+        }
+
+        @Override
+        void onLine(LogLine line) {
+            for (LogListener listener : listeners) {
+                try {
+                    listener.onLine(line);
+                } catch (Exception e) {
+                    log.debug("Log listener failed for container {}: {}", containerId, e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.debug("Log follower for container {} failed: {}", containerId, throwable.getMessage());
+            end();
+            super.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            flushPartial();
+            end();
+            super.onComplete();
+        }
+
+        private void end() {
+            // The daemon ends the stream when the container stops; a later subscribe opens a new one
+            followers.remove(containerId, this);
+            for (LogListener listener : listeners) {
+                listener.onEnd(containerId);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.devorchestrator.service;
 
+import com.devorchestrator.config.AppProperties;
 import com.devorchestrator.entity.ContainerInstance;
 import com.devorchestrator.entity.ContainerStatus;
 import com.devorchestrator.entity.Environment;
@@ -8,26 +9,43 @@ import com.devorchestrator.exception.DockerOperationException;
 import com.devorchestrator.repository.ContainerInstanceRepository;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.HealthState;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.HealthCheck;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.Ports;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.yaml.snakeyaml.Yaml;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @Transactional
@@ -38,51 +56,110 @@ public class ContainerOrchestrationService {
     private final ContainerInstanceRepository containerRepository;
     private final PortAllocationService portService;
     private final WebSocketNotificationService notificationService;
+    private final ImageCacheService imageCacheService;
+    private final MeterRegistry meterRegistry;
+
+    private static final Duration CONDITION_POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final String ENVIRONMENT_LABEL = "devorchestrator.environment";
+    private static final String STANDBY_NAME_PREFIX = "dev-standby-";
+    private static final Pattern COMPOSE_DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)(ns|us|ms|s|m|h)");
+
+    // Runs container creation and startup steps and polls dependency conditions without blocking a thread
+    private final ScheduledThreadPoolExecutor startupExecutor;
+    private final Duration dependencyTimeout;
 
     public ContainerOrchestrationService(DockerClient dockerClient,
                                        ContainerInstanceRepository containerRepository,
                                        PortAllocationService portService,
-                                       WebSocketNotificationService notificationService) {
+                                       WebSocketNotificationService notificationService,
+                                       ImageCacheService imageCacheService,
+                                       AppProperties appProperties,
+                                       MeterRegistry meterRegistry) {
         this.dockerClient = dockerClient;
         this.containerRepository = containerRepository;
         this.portService = portService;
         this.notificationService = notificationService;
+        this.imageCacheService = imageCacheService;
+        this.meterRegistry = meterRegistry;
+
+        AppProperties.Environment config = appProperties.getEnvironment();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.startupExecutor = new ScheduledThreadPoolExecutor(config.getStartupParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "container-startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dependencyTimeout = Duration.ofSeconds(config.getDependencyTimeoutSeconds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        startupExecutor.shutdownNow();
     }
 
     @Async("orchestratorTaskExecutor")
     public CompletableFuture<Void> createEnvironment(Environment environment, EnvironmentTemplate template) {
         try {
-            List<ContainerInstance> containers = new ArrayList<>();
+            long startedAt = System.nanoTime();
             
-            // Parse template configuration and create containers
+            // Parse template configuration and plan startup along depends_on
             Map<String, Object> services = parseDockerComposeServices(template.getDockerComposeContent());
-            
-            for (Map.Entry<String, Object> service : services.entrySet()) {
-                String serviceName = service.getKey();
-                @SuppressWarnings("unchecked")
-                Map<String, Object> serviceConfig = (Map<String, Object>) service.getValue();
-                
-                ContainerInstance container = createContainer(environment, serviceName, serviceConfig);
-                containers.add(container);
-            }
-            
-            // Start all containers in dependency order
-            for (ContainerInstance container : containers) {
-                startContainer(container);
-            }
-            
-            log.info("Successfully created environment {} with {} containers", 
-                environment.getId(), containers.size());
+            ContainerStartupPlan plan = ContainerStartupPlan.fromServices(services);
+            log.debug("Starting environment {} in waves {}", environment.getId(), plan.getWaves());
+            
+            // Create all containers concurrently, start each once its dependencies are ready
+            Map<String, ContainerInstance> containers = new ConcurrentHashMap<>();
+            Set<String> pulledImages = ConcurrentHashMap.newKeySet();
+            // When each container was created, which is when it starts waiting for its dependencies
+            Map<String, Long> waitingSince = new ConcurrentHashMap<>();
+            plan.execute(startupExecutor,
+                serviceName -> {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> serviceConfig = (Map<String, Object>) services.get(serviceName);
+                    long pullAt = System.nanoTime();
+                    String imageName = (String) serviceConfig.get("image");
+                    if (!imageCacheService.ensureImage(imageName)) {
+                        pulledImages.add(imageName);
+                        recordStartupPhase("pull", pullAt);
+                    }
+                    long createdAt = System.nanoTime();
+                    containers.put(serviceName, createContainer(environment, serviceName, serviceConfig));
+                    recordStartupPhase("create", createdAt);
+                    waitingSince.put(serviceName, System.nanoTime());
+                },
+                serviceName -> {
+                    recordStartupPhase("wait", waitingSince.get(serviceName));
+                    long startAt = System.nanoTime();
+                    startContainer(containers.get(serviceName));
+                    recordStartupPhase("start", startAt);
+                    log.debug("Started service {} of environment {} {} ms after environment creation began",
+                        serviceName, environment.getId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                },
+                (serviceName, condition) -> awaitCondition(containers.get(serviceName).getDockerContainerId(), serviceName, condition)
+            ).join();
+            
+            // A warm start found every image locally, a cold start had to pull at least one
+            String start = pulledImages.isEmpty() ? "warm" : "cold";
+            long elapsed = System.nanoTime() - startedAt;
+            Timer.builder("environment.startup.duration")
+                .description("Time from creating an environment until all of its containers were started")
+                .tag("start", start)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Successfully created environment {} with {} containers in {} ms ({} start{})", 
+                environment.getId(), containers.size(), TimeUnit.NANOSECONDS.toMillis(elapsed), start,
+                pulledImages.isEmpty() ? "" : ", pulled " + String.join(", ", pulledImages));
             
             // Notify WebSocket clients of completion
             notificationService.notifyEnvironmentStatusChange(environment);
             return CompletableFuture.completedFuture(null);
                 
         } catch (Exception e) {
-            log.error("Failed to create environment {}: {}", environment.getId(), e.getMessage());
-            notificationService.notifyEnvironmentError(environment.getId(), "Failed to create environment: " + e.getMessage());
+            Throwable cause = unwrap(e);
+            log.error("Failed to create environment {}: {}", environment.getId(), cause.getMessage());
+            notificationService.notifyEnvironmentError(environment.getId(), "Failed to create environment: " + cause.getMessage());
             cleanupFailedEnvironment(environment);
-            return CompletableFuture.failedFuture(new DockerOperationException("Failed to create environment: " + e.getMessage(), e));
+            return CompletableFuture.failedFuture(new DockerOperationException("Failed to create environment: " + cause.getMessage(), cause));
         }
     }
 
@@ -90,22 +167,164 @@ public class ContainerOrchestrationService {
     public CompletableFuture<Void> startEnvironment(Environment environment) {
         try {
             List<ContainerInstance> containers = containerRepository.findByEnvironmentId(environment.getId());
-            
+            Map<String, ContainerInstance> byService = new HashMap<>();
             for (ContainerInstance container : containers) {
-                if (container.getStatus() == ContainerStatus.STOPPED) {
-                    startContainer(container);
+                byService.put(container.getServiceName(), container);
+            }
+            
+            // Restart stopped containers in the order of the template's depends_on
+            Map<String, Object> services = new LinkedHashMap<>();
+            Map<String, Object> templateServices = environment.getTemplate() != null
+                ? parseDockerComposeServices(environment.getTemplate().getDockerComposeContent()) : Map.of();
+            for (String serviceName : byService.keySet()) {
+                services.put(serviceName, templateServices.getOrDefault(serviceName, Map.of()));
+            }
+            for (Object serviceConfig : services.values()) {
+                if (serviceConfig instanceof Map<?, ?> config && config.get("depends_on") instanceof Map<?, ?> dependsOn) {
+                    dependsOn.keySet().retainAll(byService.keySet());
                 }
             }
             
+            ContainerStartupPlan.fromServices(services).execute(startupExecutor,
+                serviceName -> { },
+                serviceName -> {
+                    ContainerInstance container = byService.get(serviceName);
+                    if (container.getStatus() == ContainerStatus.STOPPED) {
+                        startContainer(container);
+                    }
+                },
+                (serviceName, condition) -> awaitCondition(byService.get(serviceName).getDockerContainerId(), serviceName, condition)
+            ).join();
+            
             log.info("Successfully started environment {}", environment.getId());
             notificationService.notifyEnvironmentStatusChange(environment);
             return CompletableFuture.completedFuture(null);
             
         } catch (Exception e) {
-            log.error("Failed to start environment {}: {}", environment.getId(), e.getMessage());
-            notificationService.notifyEnvironmentError(environment.getId(), "Failed to start environment: " + e.getMessage());
-            return CompletableFuture.failedFuture(new DockerOperationException("Failed to start environment: " + e.getMessage(), e));
+            Throwable cause = unwrap(e);
+            log.error("Failed to start environment {}: {}", environment.getId(), cause.getMessage());
+            notificationService.notifyEnvironmentError(environment.getId(), "Failed to start environment: " + cause.getMessage());
+            return CompletableFuture.failedFuture(new DockerOperationException("Failed to start environment: " + cause.getMessage(), cause));
+        }
+    }
+
+    /**
+     * Creates and starts the containers of a template for an environment that
+     * does not exist yet, then pauses them, so claiming them only takes a
+     * rename and an unpause
+     */
+    public StandbyEnvironment createStandby(EnvironmentTemplate template) {
+        String environmentId = UUID.randomUUID().toString();
+        Map<String, Object> services = parseDockerComposeServices(template.getDockerComposeContent());
+        Map<String, StandbyEnvironment.Container> containers = new ConcurrentHashMap<>();
+        try {
+            ContainerStartupPlan.fromServices(services).execute(startupExecutor,
+                serviceName -> {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> serviceConfig = (Map<String, Object>) services.get(serviceName);
+                    imageCacheService.ensureImage((String) serviceConfig.get("image"));
+                    String containerName = STANDBY_NAME_PREFIX + environmentId.substring(0, 8) + "-" + serviceName;
+                    CreatedContainer created = createDockerContainer(environmentId, serviceName, containerName, serviceConfig);
+                    containers.put(serviceName, new StandbyEnvironment.Container(serviceName,
+                        created.dockerContainerId(), created.containerPort(), created.hostPort()));
+                },
+                serviceName -> dockerClient.startContainerCmd(containers.get(serviceName).dockerContainerId()).exec(),
+                (serviceName, condition) ->
+                    awaitCondition(containers.get(serviceName).dockerContainerId(), serviceName, condition)
+            ).join();
+            for (StandbyEnvironment.Container container : containers.values()) {
+                dockerClient.pauseContainerCmd(container.dockerContainerId()).exec();
+            }
+        } catch (RuntimeException e) {
+            Throwable cause = unwrap(e);
+            removeStandbyContainers(containers.values());
+            throw new DockerOperationException("Create standby for template " + template.getId(), cause.getMessage(), cause);
         }
+        return new StandbyEnvironment(environmentId, template.getId(), template.getDockerComposeContent(),
+            List.copyOf(containers.values()), LocalDateTime.now());
+    }
+
+    /**
+     * Hands the paused containers of a standby to the environment created with its id
+     */
+    @Async("orchestratorTaskExecutor")
+    public CompletableFuture<Void> claimStandby(Environment environment, StandbyEnvironment standby) {
+        long startedAt = System.nanoTime();
+        try {
+            for (StandbyEnvironment.Container standbyContainer : standby.containers()) {
+                String containerName = generateContainerName(environment.getId(), standbyContainer.serviceName());
+                dockerClient.renameContainerCmd(standbyContainer.dockerContainerId()).withName(containerName).exec();
+                dockerClient.unpauseContainerCmd(standbyContainer.dockerContainerId()).exec();
+                containerRepository.save(ContainerInstance.builder()
+                    .id(UUID.randomUUID().toString())
+                    .environment(environment)
+                    .dockerContainerId(standbyContainer.dockerContainerId())
+                    .serviceName(standbyContainer.serviceName())
+                    .containerName(containerName)
+                    .status(ContainerStatus.RUNNING)
+                    .hostPort(standbyContainer.hostPort())
+                    .build());
+                if (standbyContainer.hostPort() != null) {
+                    portService.recordAllocation(environment.getId(), standbyContainer.serviceName(),
+                        standbyContainer.containerPort(), standbyContainer.hostPort());
+                }
+            }
+            
+            long elapsed = System.nanoTime() - startedAt;
+            Timer.builder("environment.startup.duration")
+                .description("Time from creating an environment until all of its containers were started")
+                .tag("start", "standby")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Created environment {} from a standby of template {} in {} ms", 
+                environment.getId(), standby.templateId(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            
+            notificationService.notifyEnvironmentStatusChange(environment);
+            return CompletableFuture.completedFuture(null);
+            
+        } catch (Exception e) {
+            log.warn("Failed to claim standby for environment {}: {}", environment.getId(), e.getMessage());
+            cleanupFailedEnvironment(environment);
+            destroyStandby(standby);
+            return CompletableFuture.failedFuture(new DockerOperationException("Failed to claim standby: " + e.getMessage(), e));
+        }
+    }
+
+    public void destroyStandby(StandbyEnvironment standby) {
+        removeStandbyContainers(standby.containers());
+    }
+
+    private void removeStandbyContainers(Collection<StandbyEnvironment.Container> containers) {
+        for (StandbyEnvironment.Container container : containers) {
+            try {
+                dockerClient.removeContainerCmd(container.dockerContainerId()).withForce(true).exec();
+            } catch (NotFoundException e) {
+                log.debug("Standby container {} was already removed", container.dockerContainerId());
+            } catch (Exception e) {
+                log.warn("Failed to remove standby container {}: {}", container.dockerContainerId(), e.getMessage());
+            }
+            if (container.hostPort() != null) {
+                portService.releasePort(container.hostPort());
+            }
+        }
+    }
+
+    /**
+     * Removes standby containers left behind by an earlier run; claimed ones were renamed
+     */
+    public int removeOrphanedStandbys() {
+        List<Container> orphans = dockerClient.listContainersCmd()
+            .withShowAll(true)
+            .withNameFilter(List.of(STANDBY_NAME_PREFIX))
+            .exec();
+        for (Container orphan : orphans) {
+            try {
+                dockerClient.removeContainerCmd(orphan.getId()).withForce(true).exec();
+            } catch (Exception e) {
+                log.warn("Failed to remove orphaned standby container {}: {}", orphan.getId(), e.getMessage());
+            }
+        }
+        return orphans.size();
     }
 
     @Async("orchestratorTaskExecutor")
@@ -149,7 +368,7 @@ public class ContainerOrchestrationService {
                     
                     // Release allocated ports
                     if (container.getHostPort() != null) {
-                        portService.releasePort(container.getHostPort());
+                        portService.releasePort(container.getHostPort(), environment.getId());
                     }
                     
                     // Remove from database
@@ -177,6 +396,33 @@ public class ContainerOrchestrationService {
 
     private ContainerInstance createContainer(Environment environment, String serviceName, 
                                             Map<String, Object> serviceConfig) {
+        String containerName = generateContainerName(environment.getId(), serviceName);
+        CreatedContainer created = createDockerContainer(environment.getId(), serviceName, containerName, serviceConfig);
+        
+        // Save container instance
+        ContainerInstance container = ContainerInstance.builder()
+            .id(UUID.randomUUID().toString())
+            .environment(environment)
+            .dockerContainerId(created.dockerContainerId())
+            .serviceName(serviceName)
+            .containerName(containerName)
+            .status(ContainerStatus.STARTING)
+            .hostPort(created.hostPort())
+            .build();
+        ContainerInstance saved = containerRepository.save(container);
+        
+        // Keep the host port taken across restarts
+        if (created.hostPort() != null) {
+            portService.recordAllocation(environment.getId(), serviceName, created.containerPort(), created.hostPort());
+        }
+        
+        return saved;
+    }
+
+    private CreatedContainer createDockerContainer(String environmentId, String serviceName, String containerName,
+                                                   Map<String, Object> serviceConfig) {
+        Integer hostPort = null;
+        Integer containerPort = null;
         try {
             String imageName = (String) serviceConfig.get("image");
             @SuppressWarnings("unchecked")
@@ -185,7 +431,6 @@ public class ContainerOrchestrationService {
             Map<String, String> environmentVars = (Map<String, String>) serviceConfig.getOrDefault("environment", Map.of());
             
             // Allocate host port if container exposes ports
-            Integer hostPort = null;
             if (!exposedPorts.isEmpty()) {
                 hostPort = portService.allocatePort();
             }
@@ -195,7 +440,8 @@ public class ContainerOrchestrationService {
             List<ExposedPort> exposedPortList = new ArrayList<>();
             
             if (hostPort != null && !exposedPorts.isEmpty()) {
-                ExposedPort exposedPort = ExposedPort.tcp(Integer.parseInt(exposedPorts.get(0)));
+                containerPort = Integer.parseInt(exposedPorts.get(0));
+                ExposedPort exposedPort = ExposedPort.tcp(containerPort);
                 exposedPortList.add(exposedPort);
                 portBindings.add(PortBinding.parse(hostPort + ":" + exposedPorts.get(0)));
             }
@@ -205,38 +451,35 @@ public class ContainerOrchestrationService {
             environmentVars.forEach((key, value) -> envList.add(key + "=" + value));
             
             // Add environment-specific variables
-            envList.add("ENVIRONMENT_ID=" + environment.getId());
+            envList.add("ENVIRONMENT_ID=" + environmentId);
             envList.add("SERVICE_NAME=" + serviceName);
             
             // Create container
             CreateContainerResponse containerResponse = dockerClient.createContainerCmd(imageName)
-                .withName(generateContainerName(environment.getId(), serviceName))
+                .withName(containerName)
+                .withLabels(Map.of(ENVIRONMENT_LABEL, environmentId))
                 .withExposedPorts(exposedPortList)
                 .withHostConfig(HostConfig.newHostConfig()
                     .withPortBindings(portBindings)
                     .withAutoRemove(false))
                 .withEnv(envList)
+                .withHealthcheck((HealthCheck) serviceConfig.get("healthcheck"))
                 .exec();
             
-            // Save container instance
-            ContainerInstance container = ContainerInstance.builder()
-                .id(UUID.randomUUID().toString())
-                .environment(environment)
-                .dockerContainerId(containerResponse.getId())
-                .serviceName(serviceName)
-                .containerName(generateContainerName(environment.getId(), serviceName))
-                .status(ContainerStatus.STARTING)
-                .hostPort(hostPort)
-                .build();
-            
-            return containerRepository.save(container);
+            return new CreatedContainer(containerResponse.getId(), containerPort, hostPort);
             
         } catch (Exception e) {
+            if (hostPort != null) {
+                portService.releasePort(hostPort);
+            }
             log.error("Failed to create container for service {}: {}", serviceName, e.getMessage());
             throw new DockerOperationException("Failed to create container: " + e.getMessage(), e);
         }
     }
 
+    private record CreatedContainer(String dockerContainerId, Integer containerPort, Integer hostPort) {
+    }
+
     private void startContainer(ContainerInstance container) {
         try {
             dockerClient.startContainerCmd(container.getDockerContainerId()).exec();
@@ -274,6 +517,79 @@ public class ContainerOrchestrationService {
         }
     }
 
+    /**
+     * Polls the container until it reached the condition a dependent service waits for
+     */
+    private CompletableFuture<Void> awaitCondition(String dockerContainerId, String serviceName,
+                                                   ContainerStartupPlan.Condition condition) {
+        CompletableFuture<Void> reached = new CompletableFuture<>();
+        pollCondition(dockerContainerId, serviceName, condition, System.nanoTime() + dependencyTimeout.toNanos(), reached);
+        return reached;
+    }
+
+    private void pollCondition(String dockerContainerId, String serviceName, ContainerStartupPlan.Condition condition,
+                               long deadline, CompletableFuture<Void> reached) {
+        try {
+            if (isConditionMet(dockerContainerId, serviceName, condition)) {
+                reached.complete(null);
+            } else if (System.nanoTime() > deadline) {
+                reached.completeExceptionally(new DockerOperationException("Wait for service " + serviceName,
+                    "not " + condition.getComposeName() + " after " + dependencyTimeout.toSeconds() + " seconds"));
+            } else {
+                startupExecutor.schedule(() -> pollCondition(dockerContainerId, serviceName, condition, deadline, reached),
+                    CONDITION_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            reached.completeExceptionally(e);
+        }
+    }
+
+    private boolean isConditionMet(String dockerContainerId, String serviceName, ContainerStartupPlan.Condition condition) {
+        InspectContainerResponse.ContainerState state =
+            dockerClient.inspectContainerCmd(dockerContainerId).exec().getState();
+        boolean running = Boolean.TRUE.equals(state.getRunning());
+        switch (condition) {
+            case HEALTHY -> {
+                HealthState health = state.getHealth();
+                if (health == null) {
+                    // Neither the template nor the image defines a healthcheck; running is the best available signal
+                    log.warn("Service {} has no healthcheck, treating it as healthy once running", serviceName);
+                    return running;
+                }
+                if ("unhealthy".equals(health.getStatus())) {
+                    throw new DockerOperationException("Wait for service " + serviceName, "container is unhealthy");
+                }
+                return "healthy".equals(health.getStatus());
+            }
+            case COMPLETED -> {
+                if (running) {
+                    return false;
+                }
+                Long exitCode = state.getExitCodeLong();
+                if (exitCode != null && exitCode != 0) {
+                    throw new DockerOperationException("Wait for service " + serviceName,
+                        "exited with code " + exitCode);
+                }
+                return true;
+            }
+            default -> {
+                return true;
+            }
+        }
+    }
+
+    private void recordStartupPhase(String phase, long startedAt) {
+        Timer.builder("environment.container.startup")
+            .description("Time taken by each phase of bringing up a container")
+            .tag("phase", phase)
+            .register(meterRegistry)
+            .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
     private void cleanupFailedEnvironment(Environment environment) {
         try {
             List<ContainerInstance> containers = containerRepository.findByEnvironmentId(environment.getId());
@@ -285,7 +601,7 @@ public class ContainerOrchestrationService {
                         .exec();
                     
                     if (container.getHostPort() != null) {
-                        portService.releasePort(container.getHostPort());
+                        portService.releasePort(container.getHostPort(), environment.getId());
                     }
                     
                     containerRepository.deleteById(container.getId());
@@ -341,7 +657,7 @@ public class ContainerOrchestrationService {
         }
     }
 
-    private Map<String, Object> parseDockerComposeServices(String dockerComposeContent) {
+    static Map<String, Object> parseDockerComposeServices(String dockerComposeContent) {
         try {
             if (dockerComposeContent == null || dockerComposeContent.trim().isEmpty()) {
                 log.warn("Empty Docker Compose content provided, returning default service");
@@ -392,7 +708,7 @@ public class ContainerOrchestrationService {
         }
     }
     
-    private Map<String, Object> createDefaultService() {
+    private static Map<String, Object> createDefaultService() {
         Map<String, Object> services = new HashMap<>();
         Map<String, Object> defaultService = new HashMap<>();
         defaultService.put("image", "nginx:alpine");
@@ -402,7 +718,7 @@ public class ContainerOrchestrationService {
         return services;
     }
     
-    private boolean isValidServiceConfig(String serviceName, Map<String, Object> serviceConfig) {
+    private static boolean isValidServiceConfig(String serviceName, Map<String, Object> serviceConfig) {
         if (serviceConfig == null) {
             log.warn("Service '{}' has null configuration", serviceName);
             return false;
@@ -423,7 +739,7 @@ public class ContainerOrchestrationService {
         return true;
     }
     
-    private Map<String, Object> sanitizeServiceConfig(Map<String, Object> serviceConfig) {
+    private static Map<String, Object> sanitizeServiceConfig(Map<String, Object> serviceConfig) {
         Map<String, Object> sanitized = new HashMap<>();
         
         // Copy image (required)
@@ -479,6 +795,76 @@ public class ContainerOrchestrationService {
             sanitized.put("environment", new HashMap<>());
         }
         
+        // Normalize depends_on to service -> condition; the short list form means service_started
+        Map<String, String> dependsOn = new LinkedHashMap<>();
+        Object dependencies = serviceConfig.get("depends_on");
+        if (dependencies instanceof List) {
+            for (Object dependency : (List<?>) dependencies) {
+                dependsOn.put(dependency.toString(), ContainerStartupPlan.Condition.STARTED.getComposeName());
+            }
+        } else if (dependencies instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) dependencies).entrySet()) {
+                Object condition = entry.getValue() instanceof Map<?, ?> options ? options.get("condition") : null;
+                dependsOn.put(entry.getKey().toString(), condition != null
+                    ? condition.toString() : ContainerStartupPlan.Condition.STARTED.getComposeName());
+            }
+        }
+        sanitized.put("depends_on", dependsOn);
+        
+        // Convert healthcheck to the Docker API form, so service_healthy conditions can be observed
+        Object healthcheck = serviceConfig.get("healthcheck");
+        if (healthcheck instanceof Map) {
+            sanitized.put("healthcheck", toHealthCheck((Map<?, ?>) healthcheck));
+        }
+        
         return sanitized;
     }
+    
+    private static HealthCheck toHealthCheck(Map<?, ?> healthcheck) {
+        HealthCheck result = new HealthCheck();
+        Object test = healthcheck.get("test");
+        if (Boolean.TRUE.equals(healthcheck.get("disable"))) {
+            result.withTest(List.of("NONE"));
+        } else if (test instanceof List) {
+            result.withTest(((List<?>) test).stream().map(Object::toString).toList());
+        } else if (test != null) {
+            result.withTest(List.of("CMD-SHELL", test.toString()));
+        }
+        result.withInterval(parseComposeDuration(healthcheck.get("interval")));
+        result.withTimeout(parseComposeDuration(healthcheck.get("timeout")));
+        result.withStartPeriod(parseComposeDuration(healthcheck.get("start_period")));
+        if (healthcheck.get("retries") instanceof Number retries) {
+            result.withRetries(retries.intValue());
+        }
+        return result;
+    }
+    
+    /**
+     * Parses compose durations such as "30s" or "1m30s" into nanoseconds
+     */
+    static Long parseComposeDuration(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = COMPOSE_DURATION.matcher(value.toString().trim());
+        double nanos = 0;
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            double amount = Double.parseDouble(matcher.group(1));
+            nanos += switch (matcher.group(2)) {
+                case "ns" -> amount;
+                case "us" -> amount * 1e3;
+                case "ms" -> amount * 1e6;
+                case "s" -> amount * 1e9;
+                case "m" -> amount * 60e9;
+                default -> amount * 3600e9;
+            };
+            end = matcher.end();
+        }
+        if (end == 0 || end != value.toString().trim().length()) {
+            log.warn("Ignoring invalid healthcheck duration: {}", value);
+            return null;
+        }
+        return (long) nanos;
+    }
 }
\ No newline at end of file
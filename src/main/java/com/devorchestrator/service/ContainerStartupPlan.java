@@ -0,0 +1,188 @@
+package com.devorchestrator.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * Startup order of the services of an environment, built from their compose
+ * {@code depends_on} entries. Every service is prepared right away and
+ * started as soon as the services it depends on reached the required
+ * condition, so independent services come up side by side and an
+ * environment is up after its longest dependency chain rather than after
+ * all of its services in turn.
+ */
+class ContainerStartupPlan {
+
+    enum Condition {
+        STARTED("service_started"),
+        HEALTHY("service_healthy"),
+        COMPLETED("service_completed_successfully");
+
+        private final String composeName;
+
+        Condition(String composeName) {
+            this.composeName = composeName;
+        }
+
+        String getComposeName() {
+            return composeName;
+        }
+
+        static Condition fromCompose(String composeName) {
+            for (Condition condition : values()) {
+                if (condition.composeName.equals(composeName)) {
+                    return condition;
+                }
+            }
+            throw new IllegalArgumentException("Unknown depends_on condition: " + composeName);
+        }
+    }
+
+    /**
+     * One step of bringing up a service
+     */
+    @FunctionalInterface
+    interface ServiceStep {
+        void run(String service) throws Exception;
+    }
+
+    private final Map<String, Map<String, Condition>> dependencies;
+    private final List<List<String>> waves;
+
+    /**
+     * @param dependencies the services, sorted by name, each with the services it depends on
+     * @throws IllegalArgumentException if a service depends on an unknown service or the dependencies form a cycle
+     */
+    ContainerStartupPlan(Map<String, Map<String, Condition>> dependencies) {
+        this.dependencies = new TreeMap<>(dependencies);
+        this.dependencies.forEach((service, required) -> required.keySet().forEach(dependency -> {
+            if (!dependencies.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                    String.format("Service '%s' depends on unknown service '%s'", service, dependency));
+            }
+        }));
+        this.waves = computeWaves();
+    }
+
+    /**
+     * Builds the plan from sanitized service configurations, whose
+     * {@code depends_on} maps each dependency to its compose condition
+     */
+    static ContainerStartupPlan fromServices(Map<String, Object> services) {
+        Map<String, Map<String, Condition>> dependencies = new HashMap<>();
+        services.forEach((service, config) -> {
+            Map<String, Condition> required = new LinkedHashMap<>();
+            if (config instanceof Map<?, ?> serviceConfig
+                    && serviceConfig.get("depends_on") instanceof Map<?, ?> dependsOn) {
+                dependsOn.forEach((dependency, condition) ->
+                    required.put(dependency.toString(), Condition.fromCompose(condition.toString())));
+            }
+            dependencies.put(service, required);
+        });
+        return new ContainerStartupPlan(dependencies);
+    }
+
+    /**
+     * Services grouped by their depth in the dependency graph; a service
+     * only depends on services of earlier waves
+     */
+    List<List<String>> getWaves() {
+        return waves;
+    }
+
+    Map<String, Condition> getDependencies(String service) {
+        return dependencies.getOrDefault(service, Collections.emptyMap());
+    }
+
+    /**
+     * Prepares all services concurrently and starts each one once it is
+     * prepared and its dependencies reached their conditions. A failing
+     * service fails the services depending on it, which are then never started.
+     *
+     * @param awaitCondition completes once a started service reached a
+     *        condition other than {@link Condition#STARTED}
+     * @return completes when every service was started, exceptionally if any failed
+     */
+    CompletableFuture<Void> execute(Executor executor, ServiceStep prepare, ServiceStep start,
+                                    BiFunction<String, Condition, CompletableFuture<Void>> awaitCondition) {
+        Map<String, CompletableFuture<Void>> started = new HashMap<>();
+        Map<String, CompletableFuture<Void>> reached = new HashMap<>();
+        for (List<String> wave : waves) {
+            for (String service : wave) {
+                List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+                prerequisites.add(CompletableFuture.runAsync(() -> run(prepare, service), executor));
+                getDependencies(service).forEach((dependency, condition) -> prerequisites.add(
+                    reached.computeIfAbsent(dependency + "/" + condition, key -> condition == Condition.STARTED
+                        ? started.get(dependency)
+                        : started.get(dependency).thenCompose(ignored -> awaitCondition.apply(dependency, condition)))));
+                started.put(service, CompletableFuture.allOf(prerequisites.toArray(CompletableFuture[]::new))
+                    .thenRunAsync(() -> run(start, service), executor));
+            }
+        }
+        return CompletableFuture.allOf(started.values().toArray(CompletableFuture[]::new));
+    }
+
+    private static void run(ServiceStep step, String service) {
+        try {
+            step.run(service);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private List<List<String>> computeWaves() {
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        dependencies.forEach((service, required) -> {
+            pending.put(service, required.size());
+            required.keySet().forEach(dependency ->
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(service));
+        });
+
+        List<List<String>> result = new ArrayList<>();
+        Deque<String> ready = new ArrayDeque<>();
+        pending.forEach((service, count) -> {
+            if (count == 0) {
+                ready.add(service);
+            }
+        });
+        int placed = 0;
+        while (!ready.isEmpty()) {
+            List<String> wave = new ArrayList<>(ready);
+            Collections.sort(wave);
+            ready.clear();
+            for (String service : wave) {
+                for (String dependent : dependents.getOrDefault(service, List.of())) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+            result.add(Collections.unmodifiableList(wave));
+            placed += wave.size();
+        }
+
+        if (placed < dependencies.size()) {
+            List<String> cyclic = pending.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+            throw new IllegalArgumentException("Circular depends_on between services: " + String.join(", ", cyclic));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
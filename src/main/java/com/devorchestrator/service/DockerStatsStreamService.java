@@ -0,0 +1,280 @@
+package com.devorchestrator.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.BlkioStatEntry;
+import com.github.dockerjava.api.model.BlkioStatsConfig;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.MemoryStatsConfig;
+import com.github.dockerjava.api.model.StatisticNetworksConfig;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.dockerjava.api.model.StatsConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one long-lived Docker Engine stats stream per tracked container and
+ * exposes the most recent sample. CPU usage is derived from the raw cgroup
+ * counters of consecutive frames, so reading a sample never blocks on Docker.
+ */
+@Service
+@Slf4j
+public class DockerStatsStreamService {
+
+    private final DockerClient dockerClient;
+
+    private final Map<String, ContainerStatsStream> streams = new ConcurrentHashMap<>();
+
+    public DockerStatsStreamService(DockerClient dockerClient) {
+        this.dockerClient = dockerClient;
+    }
+
+    /**
+     * Opens a stats stream for the container unless one is already running
+     */
+    public void track(String containerId) {
+        ContainerStatsStream stream = new ContainerStatsStream(containerId);
+        if (streams.putIfAbsent(containerId, stream) != null) {
+            return;
+        }
+        // Opened outside any map operation: a stream that fails right away removes itself from the map
+        try {
+            dockerClient.statsCmd(containerId).exec(stream);
+            log.debug("Opened stats stream for container {}", containerId);
+        } catch (RuntimeException e) {
+            streams.remove(containerId, stream);
+            log.debug("Cannot open stats stream for container {}: {}", containerId, e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the stats stream for the container, if any
+     */
+    public void untrack(String containerId) {
+        ContainerStatsStream stream = streams.remove(containerId);
+        if (stream != null) {
+            closeQuietly(stream);
+            log.debug("Closed stats stream for container {}", containerId);
+        }
+    }
+
+    /**
+     * Returns the latest sample received for the container
+     */
+    public Optional<ContainerStatsSnapshot> getLatest(String containerId) {
+        ContainerStatsStream stream = streams.get(containerId);
+        return stream != null ? Optional.ofNullable(stream.latest) : Optional.empty();
+    }
+
+    public Set<String> getTrackedContainers() {
+        return Set.copyOf(streams.keySet());
+    }
+
+    public int getActiveStreamCount() {
+        return streams.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.values().forEach(this::closeQuietly);
+        streams.clear();
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Error closing stats stream: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a raw stats frame into a snapshot, using the previous frame's
+     * counters for CPU deltas when the daemon does not provide precpu_stats.
+     */
+    static ContainerStatsSnapshot toSnapshot(Statistics stats, ContainerStatsSnapshot previous) {
+        CpuStatsConfig cpu = stats.getCpuStats();
+        long cpuTotal = 0;
+        long systemTotal = 0;
+        long onlineCpus = 0;
+        if (cpu != null) {
+            if (cpu.getCpuUsage() != null) {
+                cpuTotal = valueOf(cpu.getCpuUsage().getTotalUsage());
+                if (cpu.getOnlineCpus() == null && cpu.getCpuUsage().getPercpuUsage() != null) {
+                    onlineCpus = cpu.getCpuUsage().getPercpuUsage().size();
+                }
+            }
+            systemTotal = valueOf(cpu.getSystemCpuUsage());
+            if (cpu.getOnlineCpus() != null) {
+                onlineCpus = cpu.getOnlineCpus();
+            }
+        }
+
+        long prevCpuTotal;
+        long prevSystemTotal;
+        if (previous != null) {
+            prevCpuTotal = previous.cpuTotalUsage;
+            prevSystemTotal = previous.systemCpuUsage;
+        } else {
+            CpuStatsConfig preCpu = stats.getPreCpuStats();
+            prevCpuTotal = preCpu != null && preCpu.getCpuUsage() != null
+                ? valueOf(preCpu.getCpuUsage().getTotalUsage()) : 0;
+            prevSystemTotal = preCpu != null ? valueOf(preCpu.getSystemCpuUsage()) : 0;
+        }
+
+        double cpuPercent = 0.0;
+        long cpuDelta = cpuTotal - prevCpuTotal;
+        long systemDelta = systemTotal - prevSystemTotal;
+        if (prevSystemTotal > 0 && cpuDelta > 0 && systemDelta > 0) {
+            cpuPercent = (double) cpuDelta / systemDelta * Math.max(onlineCpus, 1) * 100.0;
+        }
+
+        long memoryUsed = 0;
+        long memoryLimit = 0;
+        MemoryStatsConfig memory = stats.getMemoryStats();
+        if (memory != null) {
+            memoryUsed = valueOf(memory.getUsage()) - pageCacheBytes(memory.getStats());
+            memoryLimit = valueOf(memory.getLimit());
+        }
+        memoryUsed = Math.max(memoryUsed, 0);
+        double memoryPercent = memoryLimit > 0 ? (double) memoryUsed / memoryLimit * 100.0 : 0.0;
+
+        long rxBytes = 0;
+        long txBytes = 0;
+        if (stats.getNetworks() != null) {
+            for (StatisticNetworksConfig network : stats.getNetworks().values()) {
+                rxBytes += valueOf(network.getRxBytes());
+                txBytes += valueOf(network.getTxBytes());
+            }
+        }
+
+        long readBytes = 0;
+        long writeBytes = 0;
+        BlkioStatsConfig blkio = stats.getBlkioStats();
+        if (blkio != null && blkio.getIoServiceBytesRecursive() != null) {
+            for (BlkioStatEntry entry : blkio.getIoServiceBytesRecursive()) {
+                if ("read".equalsIgnoreCase(entry.getOp())) {
+                    readBytes += valueOf(entry.getValue());
+                } else if ("write".equalsIgnoreCase(entry.getOp())) {
+                    writeBytes += valueOf(entry.getValue());
+                }
+            }
+        }
+
+        long pids = stats.getPidsStats() != null ? valueOf(stats.getPidsStats().getCurrent()) : 0;
+
+        return new ContainerStatsSnapshot(Instant.now(), cpuTotal, systemTotal, cpuPercent,
+            memoryUsed, memoryLimit, memoryPercent, rxBytes, txBytes, readBytes, writeBytes, pids);
+    }
+
+    /**
+     * Page cache is reported as inactive_file on cgroup v2 and cache on cgroup v1
+     */
+    private static long pageCacheBytes(StatsConfig memoryStats) {
+        if (memoryStats == null) {
+            return 0;
+        }
+        if (memoryStats.getInactiveFile() != null) {
+            return memoryStats.getInactiveFile();
+        }
+        if (memoryStats.getTotalInactiveFile() != null) {
+            return memoryStats.getTotalInactiveFile();
+        }
+        return valueOf(memoryStats.getCache());
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Callback that receives frames for a single container
+     */
+    private class ContainerStatsStream extends ResultCallback.Adapter<Statistics> {
+        private final String containerId;
+        private volatile ContainerStatsSnapshot latest;
+
+        ContainerStatsStream(String containerId) {
+            this.containerId = containerId;
+        }
+
+        @Override
+        public void onNext(Statistics stats) {
+            try {
+                latest = toSnapshot(stats, latest);
+            } catch (Exception e) {
+                log.debug("Error processing stats frame for container {}: {}", containerId, e.getMessage());
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.debug("Stats stream for container {} failed: {}", containerId, throwable.getMessage());
+            streams.remove(containerId, this);
+            super.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // The daemon ends the stream when the container goes away; allow a later re-track
+            streams.remove(containerId, this);
+            super.onComplete();
+        }
+    }
+
+    /**
+     * Immutable view of a single stats frame. Counters are cumulative since container start.
+     */
+    public static class ContainerStatsSnapshot {
+        private final Instant sampledAt;
+        private final long cpuTotalUsage;
+        private final long systemCpuUsage;
+        private final double cpuPercent;
+        private final long memoryUsedBytes;
+        private final long memoryLimitBytes;
+        private final double memoryPercent;
+        private final long networkRxBytes;
+        private final long networkTxBytes;
+        private final long blockReadBytes;
+        private final long blockWriteBytes;
+        private final long pids;
+
+        ContainerStatsSnapshot(Instant sampledAt, long cpuTotalUsage, long systemCpuUsage, double cpuPercent,
+                               long memoryUsedBytes, long memoryLimitBytes, double memoryPercent,
+                               long networkRxBytes, long networkTxBytes,
+                               long blockReadBytes, long blockWriteBytes, long pids) {
+            this.sampledAt = sampledAt;
+            this.cpuTotalUsage = cpuTotalUsage;
+            this.systemCpuUsage = systemCpuUsage;
+            this.cpuPercent = cpuPercent;
+            this.memoryUsedBytes = memoryUsedBytes;
+            this.memoryLimitBytes = memoryLimitBytes;
+            this.memoryPercent = memoryPercent;
+            this.networkRxBytes = networkRxBytes;
+            this.networkTxBytes = networkTxBytes;
+            this.blockReadBytes = blockReadBytes;
+            this.blockWriteBytes = blockWriteBytes;
+            this.pids = pids;
+        }
+
+        public Instant getSampledAt() { return sampledAt; }
+        public double getCpuPercent() { return cpuPercent; }
+        public long getMemoryUsedBytes() { return memoryUsedBytes; }
+        public long getMemoryLimitBytes() { return memoryLimitBytes; }
+        public double getMemoryPercent() { return memoryPercent; }
+        public long getNetworkRxBytes() { return networkRxBytes; }
+        public long getNetworkTxBytes() { return networkTxBytes; }
+        public long getBlockReadBytes() { return blockReadBytes; }
+        public long getBlockWriteBytes() { return blockWriteBytes; }
+        public long getPids() { return pids; }
+    }
+}
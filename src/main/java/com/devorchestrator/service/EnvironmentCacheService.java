@@ -0,0 +1,121 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.entity.Environment;
+import com.devorchestrator.util.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keyed access to the environments cache. An environment is cached under
+ * {@code environmentId:ownerId}, the key getEnvironment uses, and the ids of
+ * each owner's environments under {@code owner:ownerId}. A change to one
+ * environment rewrites its own entry and drops its owner's list, leaving
+ * every other entry in place. Inside a transaction the cache is only
+ * updated once it commits, so readers never see uncommitted state.
+ */
+@Service
+@Slf4j
+public class EnvironmentCacheService {
+
+    private final Cache cache;
+
+    private final Counter entryWrites;
+    private final Counter entryEvictions;
+    private final Counter ownerEvictions;
+
+    public EnvironmentCacheService(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        Cache environments = cacheManager.getCache(Constants.CACHE_ENVIRONMENTS);
+        this.cache = environments != null ? environments : new NoOpCache(Constants.CACHE_ENVIRONMENTS);
+
+        this.entryWrites = updateCounter(meterRegistry, "write", "entry");
+        this.entryEvictions = updateCounter(meterRegistry, "evict", "entry");
+        this.ownerEvictions = updateCounter(meterRegistry, "evict", "owner");
+    }
+
+    public static String entryKey(String environmentId, Long ownerId) {
+        return environmentId + ":" + ownerId;
+    }
+
+    public static String ownerKey(Long ownerId) {
+        return "owner:" + ownerId;
+    }
+
+    /**
+     * Ids of the owner's environments, loaded once and kept until one of them
+     * is added, changed or removed
+     */
+    public List<String> getOwnerEnvironmentIds(Long ownerId, Supplier<List<String>> loader) {
+        return cache.get(ownerKey(ownerId), () -> new ArrayList<>(loader.get()));
+    }
+
+    /**
+     * Writes the current state of the environment through to its entry
+     */
+    public void environmentChanged(Environment environment) {
+        afterCommit(() -> writeThrough(environment));
+    }
+
+    public void environmentAdded(Environment environment) {
+        Long ownerId = environment.getOwner().getId();
+        afterCommit(() -> evictOwner(ownerId));
+    }
+
+    public void environmentRemoved(String environmentId, Long ownerId) {
+        afterCommit(() -> {
+            cache.evict(entryKey(environmentId, ownerId));
+            entryEvictions.increment();
+            evictOwner(ownerId);
+        });
+    }
+
+    private void writeThrough(Environment environment) {
+        Long ownerId = environment.getOwner().getId();
+        try {
+            cache.put(entryKey(environment.getId(), ownerId), environment);
+            entryWrites.increment();
+        } catch (RuntimeException e) {
+            // A stale entry must not outlive a failed write
+            log.warn("Failed to update cached environment {}: {}", environment.getId(), e.getMessage());
+            cache.evict(entryKey(environment.getId(), ownerId));
+            entryEvictions.increment();
+        }
+        evictOwner(ownerId);
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private void evictOwner(Long ownerId) {
+        cache.evict(ownerKey(ownerId));
+        ownerEvictions.increment();
+    }
+
+    private static Counter updateCounter(MeterRegistry meterRegistry, String operation, String key) {
+        return Counter.builder("environments.cache.updates")
+            .description("Environments cache entries rewritten or evicted on environment changes")
+            .tag("operation", operation)
+            .tag("key", key)
+            .register(meterRegistry);
+    }
+}
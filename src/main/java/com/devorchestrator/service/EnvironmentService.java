@@ -12,18 +12,27 @@ import com.devorchestrator.repository.EnvironmentTemplateRepository;
 import com.devorchestrator.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -34,8 +43,10 @@ public class EnvironmentService {
     private final EnvironmentTemplateRepository templateRepository;
     private final UserRepository userRepository;
     private final ContainerOrchestrationService containerService;
+    private final StandbyPoolService standbyPoolService;
     private final ResourceMonitoringService resourceService;
     private final WebSocketNotificationService notificationService;
+    private final EnvironmentCacheService environmentCache;
     private final ObjectMapper objectMapper;
 
     @Value("${app.environment.max-environments-per-user}")
@@ -45,15 +56,19 @@ public class EnvironmentService {
                             EnvironmentTemplateRepository templateRepository,
                             UserRepository userRepository,
                             ContainerOrchestrationService containerService,
+                            StandbyPoolService standbyPoolService,
                             ResourceMonitoringService resourceService,
                             WebSocketNotificationService notificationService,
+                            EnvironmentCacheService environmentCache,
                             ObjectMapper objectMapper) {
         this.environmentRepository = environmentRepository;
         this.templateRepository = templateRepository;
         this.userRepository = userRepository;
         this.containerService = containerService;
+        this.standbyPoolService = standbyPoolService;
         this.resourceService = resourceService;
         this.notificationService = notificationService;
+        this.environmentCache = environmentCache;
         this.objectMapper = objectMapper;
     }
 
@@ -61,33 +76,95 @@ public class EnvironmentService {
         User user = validateUser(userId);
         EnvironmentTemplate template = validateTemplate(templateId);
         validateUserEnvironmentLimit(userId);
-        validateResourceAvailability(template);
+
+        // A standby's containers already carry the id of the environment that claims them
+        Optional<StandbyEnvironment> standby = standbyPoolService.claim(template);
+        String environmentId = standby.map(StandbyEnvironment::environmentId).orElseGet(() -> UUID.randomUUID().toString());
+
+        // Creation waits in line while the host has no room for the template
+        CompletableFuture<Void> admission;
+        try {
+            admission = resourceService.reserveResources(environmentId, template);
+        } catch (InsufficientResourcesException e) {
+            standby.ifPresent(containerService::destroyStandby);
+            throw e;
+        }
 
         Environment environment = Environment.builder()
-            .id(UUID.randomUUID().toString())
+            .id(environmentId)
             .name(name)
             .template(template)
             .owner(user)
             .status(EnvironmentStatus.CREATING)
             .build();
 
-        Environment saved = environmentRepository.save(environment);
+        Environment saved;
+        try {
+            saved = environmentRepository.save(environment);
+            environmentCache.environmentAdded(saved);
+        } catch (RuntimeException e) {
+            abandonCreation(environmentId, admission, standby);
+            throw e;
+        }
+
+        // Containers are only created for a committed environment, a rollback gives the reservation back
+        afterTransaction(() -> startCreation(saved, template, userId, standby, admission),
+            () -> abandonCreation(environmentId, admission, standby));
         
-        // Start async container creation with proper error handling
-        containerService.createEnvironment(saved, template)
+        log.info("Started async creation of environment {} for user {}", saved.getId(), userId);
+
+        return saved;
+    }
+
+    private void startCreation(Environment saved, EnvironmentTemplate template, Long userId,
+                               Optional<StandbyEnvironment> standby, CompletableFuture<Void> admission) {
+        // Start async container creation with proper error handling, falling back to a full creation
+        CompletableFuture<Void> creation = admission.thenCompose(admitted -> standby
+            .map(claimed -> containerService.claimStandby(saved, claimed)
+                .exceptionallyCompose(e -> containerService.createEnvironment(saved, template)))
+            .orElseGet(() -> containerService.createEnvironment(saved, template)));
+        creation
             .whenComplete((result, throwable) -> {
                 if (throwable != null) {
                     log.error("Failed to create environment {}: {}", saved.getId(), throwable.getMessage());
+                    if (admission.isCompletedExceptionally()) {
+                        standby.ifPresent(containerService::destroyStandby);
+                    }
+                    resourceService.releaseResources(saved.getId());
                     updateEnvironmentStatus(saved.getId(), EnvironmentStatus.FAILED);
                 } else {
                     log.info("Successfully created environment {} for user {}", saved.getId(), userId);
+                    resourceService.commitResources(saved.getId());
                     updateEnvironmentStatus(saved.getId(), EnvironmentStatus.RUNNING);
                 }
             });
-        
-        log.info("Started async creation of environment {} for user {}", saved.getId(), userId);
+    }
 
-        return saved;
+    /**
+     * Gives back the resources of a creation that will not start, including a
+     * reservation still waiting in line once it is admitted
+     */
+    private void abandonCreation(String environmentId, CompletableFuture<Void> admission,
+                                 Optional<StandbyEnvironment> standby) {
+        admission.whenComplete((admitted, failure) -> resourceService.releaseResources(environmentId));
+        standby.ifPresent(containerService::destroyStandby);
+    }
+
+    private static void afterTransaction(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
     }
 
     public Environment createInfrastructureEnvironment(InfrastructureProvisioningRequest request, Long userId) {
@@ -133,6 +210,7 @@ public class EnvironmentService {
         }
 
         Environment saved = environmentRepository.save(environment);
+        environmentCache.environmentAdded(saved);
         
         log.info("Created infrastructure environment {} with provider {} for user {}", 
             saved.getId(), request.getInfrastructureProvider(), userId);
@@ -140,9 +218,39 @@ public class EnvironmentService {
         return saved;
     }
 
+    /**
+     * Reserves the resources of the environments that outlived a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void restoreResourceReservations() {
+        List<Environment> environments = environmentRepository.findByStatusIn(List.of(
+            EnvironmentStatus.CREATING, EnvironmentStatus.STARTING, EnvironmentStatus.RUNNING,
+            EnvironmentStatus.STOPPING, EnvironmentStatus.STOPPED));
+        environments.stream()
+            .filter(environment -> environment.getTemplate() != null)
+            .forEach(environment -> resourceService.restoreResources(environment.getId(), environment.getTemplate()));
+        log.info("Restored resource reservations of {} environments", environments.size());
+    }
+
+    /**
+     * Unsorted pages are cut from the owner's cached environment ids and only
+     * the environments on the page are loaded; sorted pages are queried
+     */
     @Transactional(readOnly = true)
     public Page<Environment> getUserEnvironments(Long userId, Pageable pageable) {
-        return environmentRepository.findByOwnerId(userId, pageable);
+        if (pageable.getSort().isSorted()) {
+            return environmentRepository.findByOwnerId(userId, pageable);
+        }
+
+        List<String> ids = environmentCache.getOwnerEnvironmentIds(userId,
+            () -> environmentRepository.findIdsByOwnerId(userId));
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(loadInOrder(ids));
+        }
+        int start = (int) Math.min(pageable.getOffset(), ids.size());
+        int end = Math.min(start + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(loadInOrder(ids.subList(start, end)), pageable, ids.size());
     }
 
     @Transactional(readOnly = true)
@@ -226,7 +334,9 @@ public class EnvironmentService {
                         log.error("Failed to delete environment {}: {}", environmentId, throwable.getMessage());
                         updateEnvironmentStatus(environmentId, EnvironmentStatus.FAILED);
                     } else {
+                        resourceService.releaseResources(environmentId);
                         environmentRepository.deleteById(environmentId);
+                        environmentCache.environmentRemoved(environmentId, userId);
                         log.info("Successfully deleted environment {} for user {}", environmentId, userId);
                     }
                 });
@@ -237,7 +347,9 @@ public class EnvironmentService {
                         log.error("Failed to delete environment {}: {}", environmentId, throwable.getMessage());
                         updateEnvironmentStatus(environmentId, EnvironmentStatus.FAILED);
                     } else {
+                        resourceService.releaseResources(environmentId);
                         environmentRepository.deleteById(environmentId);
+                        environmentCache.environmentRemoved(environmentId, userId);
                         log.info("Successfully deleted environment {} for user {}", environmentId, userId);
                     }
                 });
@@ -273,6 +385,16 @@ public class EnvironmentService {
             .orElseThrow(() -> new TemplateNotFoundException(templateId));
     }
 
+    private List<Environment> loadInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Environment> byId = environmentRepository.findAllByIdWithDetails(ids).stream()
+            .collect(Collectors.toMap(Environment::getId, Function.identity()));
+        // An environment deleted since the ids were cached is left out
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
     private void validateUserEnvironmentLimit(Long userId) {
         long currentCount = environmentRepository.countActiveEnvironmentsByOwnerId(userId);
         
@@ -284,15 +406,6 @@ public class EnvironmentService {
         }
     }
 
-    private void validateResourceAvailability(EnvironmentTemplate template) {
-        if (!resourceService.hasAvailableResources(template.getCpuLimit().intValue(), template.getMemoryLimitMb().longValue())) {
-            throw new InsufficientResourcesException(
-                "Insufficient system resources to create environment with template: " + template.getId()
-            );
-        }
-    }
-
-    @CacheEvict(value = "environments", allEntries = true)
     private void updateEnvironmentStatus(String environmentId, EnvironmentStatus status) {
         environmentRepository.updateEnvironmentStatus(environmentId, status);
         
@@ -300,6 +413,7 @@ public class EnvironmentService {
         Environment updatedEnvironment = environmentRepository.findById(environmentId).orElse(null);
         if (updatedEnvironment != null) {
             notificationService.notifyEnvironmentStatusChange(updatedEnvironment);
+            environmentCache.environmentChanged(updatedEnvironment);
         }
     }
 
@@ -0,0 +1,287 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.EnvironmentTemplate;
+import com.devorchestrator.exception.DockerOperationException;
+import com.devorchestrator.repository.EnvironmentTemplateRepository;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.command.PullImageResultCallback;
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the images of active environment templates present locally, so
+ * creating an environment does not wait for a pull. Images of public
+ * templates and of templates with live environments are pulled in the
+ * background; concurrent pulls of the same image share one pull. Images
+ * no longer needed by an active template are removed least recently used
+ * first once the tracked images exceed the disk budget.
+ */
+@Service
+@Slf4j
+public class ImageCacheService {
+
+    private final DockerClient dockerClient;
+    private final EnvironmentTemplateRepository templateRepository;
+    private final AppProperties.Docker.ImageCache config;
+    private final ExecutorService pullExecutor;
+
+    private final Map<String, CachedImage> images = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pulls = new ConcurrentHashMap<>();
+
+    private final Counter pullCounter;
+    private final Counter evictionCounter;
+
+    public ImageCacheService(DockerClient dockerClient,
+                             EnvironmentTemplateRepository templateRepository,
+                             AppProperties appProperties,
+                             MeterRegistry meterRegistry) {
+        this.dockerClient = dockerClient;
+        this.templateRepository = templateRepository;
+        this.config = appProperties.getDocker().getImageCache();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pullExecutor = Executors.newFixedThreadPool(config.getPullParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "image-pull-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("docker.image.cache.bytes", images, ImageCacheService::totalBytes)
+            .description("Disk used by images tracked by the image cache")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("docker.image.cache.images", images, Map::size)
+            .description("Images tracked by the image cache")
+            .register(meterRegistry);
+        this.pullCounter = Counter.builder("docker.image.pulls")
+            .description("Images pulled by the image cache")
+            .register(meterRegistry);
+        this.evictionCounter = Counter.builder("docker.image.evictions")
+            .description("Images removed to keep the image cache within its disk budget")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pullExecutor.shutdownNow();
+    }
+
+    /**
+     * Makes sure the image is present locally, pulling it if needed
+     *
+     * @return true if the image was already present (a warm start), false if it had to be pulled
+     */
+    public boolean ensureImage(String image) {
+        String reference = normalize(image);
+        boolean present = inspect(reference);
+        if (!present) {
+            log.info("Image {} is not present locally, pulling it before creating the container", reference);
+            pull(reference).join();
+        }
+        CachedImage cached = images.get(reference);
+        if (cached != null) {
+            cached.lastUsed = System.currentTimeMillis();
+        }
+        return present;
+    }
+
+    /**
+     * Pulls missing images of active templates and evicts images beyond the disk budget
+     */
+    @Scheduled(fixedDelayString = "${app.docker.image-cache.refresh-interval:300}000", initialDelay = 30000)
+    public void refresh() {
+        Set<String> active = activeImages();
+        for (String reference : active) {
+            if (config.isPrePull() && !pulls.containsKey(reference) && !inspect(reference)) {
+                pull(reference).exceptionally(e -> {
+                    log.warn("Failed to pre-pull image {}: {}", reference, e.getMessage());
+                    return null;
+                });
+            }
+        }
+        for (String reference : new ArrayList<>(images.keySet())) {
+            if (!active.contains(reference)) {
+                inspect(reference);
+            }
+        }
+        evictLeastRecentlyUsed(active);
+    }
+
+    public long getCachedBytes() {
+        return totalBytes(images);
+    }
+
+    /**
+     * Pulls the image, or joins the pull already running for it
+     */
+    CompletableFuture<Void> pull(String reference) {
+        CompletableFuture<Void> pull = new CompletableFuture<>();
+        CompletableFuture<Void> running = pulls.putIfAbsent(reference, pull);
+        if (running != null) {
+            return running;
+        }
+        try {
+            pullExecutor.execute(() -> {
+                try {
+                    doPull(reference);
+                    pulls.remove(reference, pull);
+                    pull.complete(null);
+                } catch (Exception e) {
+                    pulls.remove(reference, pull);
+                    pull.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            pulls.remove(reference, pull);
+            pull.completeExceptionally(e);
+        }
+        return pull;
+    }
+
+    private void doPull(String reference) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        PullImageCmd command = dockerClient.pullImageCmd(repositoryOf(reference));
+        String tag = tagOf(reference);
+        if (tag != null) {
+            command = command.withTag(tag);
+        }
+        Duration timeout = Duration.ofMinutes(config.getPullTimeoutMinutes());
+        if (!command.exec(new PullImageResultCallback()).awaitCompletion(timeout.toSeconds(), TimeUnit.SECONDS)) {
+            throw new DockerOperationException("Pull image " + reference, "timed out after " + timeout.toMinutes() + " minutes");
+        }
+        if (!inspect(reference)) {
+            throw new DockerOperationException("Pull image " + reference, "image not present after pull");
+        }
+        pullCounter.increment();
+        log.info("Pulled image {} ({} MB) in {} ms", reference, images.get(reference).sizeBytes / (1024 * 1024),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Records whether the image is present locally and its size
+     */
+    private boolean inspect(String reference) {
+        try {
+            InspectImageResponse response = dockerClient.inspectImageCmd(reference).exec();
+            long size = response.getSize() != null ? response.getSize() : 0;
+            images.computeIfAbsent(reference, key -> new CachedImage()).sizeBytes = size;
+            return true;
+        } catch (NotFoundException e) {
+            images.remove(reference);
+            return false;
+        }
+    }
+
+    private void evictLeastRecentlyUsed(Set<String> active) {
+        long maxBytes = config.getMaxDiskMb() * 1024L * 1024L;
+        long total = totalBytes(images);
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<Map.Entry<String, CachedImage>> candidates = new ArrayList<>(images.entrySet());
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+        for (Map.Entry<String, CachedImage> candidate : candidates) {
+            if (total <= maxBytes) {
+                break;
+            }
+            String reference = candidate.getKey();
+            if (active.contains(reference) || pulls.containsKey(reference)) {
+                continue;
+            }
+            try {
+                dockerClient.removeImageCmd(reference).exec();
+                evictionCounter.increment();
+                log.info("Evicted image {} ({} MB) from the image cache", reference,
+                    candidate.getValue().sizeBytes / (1024 * 1024));
+            } catch (ConflictException e) {
+                log.debug("Image {} is used by a container, not evicting it", reference);
+                continue;
+            } catch (NotFoundException e) {
+                log.debug("Image {} was already removed", reference);
+            }
+            images.remove(reference);
+            total -= candidate.getValue().sizeBytes;
+        }
+
+        if (total > maxBytes) {
+            log.warn("Image cache uses {} MB, above its budget of {} MB; the remaining images are in use",
+                total / (1024 * 1024), config.getMaxDiskMb());
+        }
+    }
+
+    /**
+     * Images referenced by public templates and by templates with environments that were not destroyed
+     */
+    private Set<String> activeImages() {
+        Set<EnvironmentTemplate> templates = new HashSet<>(templateRepository.findByIsPublicTrue());
+        templates.addAll(templateRepository.findTemplatesInUse());
+
+        Set<String> active = new HashSet<>();
+        for (EnvironmentTemplate template : templates) {
+            ContainerOrchestrationService.parseDockerComposeServices(template.getDockerComposeContent())
+                .values().forEach(service -> {
+                    if (service instanceof Map<?, ?> serviceConfig && serviceConfig.get("image") != null) {
+                        active.add(normalize(serviceConfig.get("image").toString()));
+                    }
+                });
+        }
+        return active;
+    }
+
+    private static long totalBytes(Map<String, CachedImage> images) {
+        return images.values().stream().mapToLong(image -> image.sizeBytes).sum();
+    }
+
+    /**
+     * Adds the implicit "latest" tag, so "nginx" and "nginx:latest" are cached once
+     */
+    static String normalize(String image) {
+        if (image.contains("@") || tagOf(image) != null) {
+            return image;
+        }
+        return image + ":latest";
+    }
+
+    private static String repositoryOf(String reference) {
+        String tag = tagOf(reference);
+        return tag != null ? reference.substring(0, reference.length() - tag.length() - 1) : reference;
+    }
+
+    private static String tagOf(String reference) {
+        if (reference.contains("@")) {
+            return null;
+        }
+        int colon = reference.lastIndexOf(':');
+        return colon > reference.lastIndexOf('/') ? reference.substring(colon + 1) : null;
+    }
+
+    private static class CachedImage {
+        volatile long sizeBytes;
+        volatile long lastUsed = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,421 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Samples host and container resource usage straight from procfs and the
+ * cgroup v2 hierarchy, without forking tools or asking the Docker daemon.
+ * File contents are read into one reusable buffer and parsed in place, so
+ * a sample costs a few small reads and allocates little beyond the file
+ * channels it opens, which makes sub-second sampling cheap. CPU usage is
+ * the change between two readings, so the first reading of the host or of
+ * a container only records the baseline. On hosts without procfs or cgroup
+ * v2 the sampler reports nothing and callers fall back to their previous
+ * sources.
+ */
+@Service
+@Slf4j
+public class LinuxResourceSampler {
+
+    private static final byte[] CPU = "cpu ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MEM_TOTAL = "MemTotal:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MEM_AVAILABLE = "MemAvailable:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] USAGE_USEC = "usage_usec".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INACTIVE_FILE = "inactive_file".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] READ_BYTES = "rbytes=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WRITE_BYTES = "wbytes=".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path procRoot;
+    private final Path cgroupRoot;
+    private final boolean procAvailable;
+    private final boolean cgroupV2;
+
+    // Guarded by this; procfs and cgroup files are small, larger files are read up to the buffer size
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private long previousTotalTicks;
+    private long previousIdleTicks;
+    private boolean hostSampled;
+
+    private final Map<String, ContainerCgroup> containers = new ConcurrentHashMap<>();
+    private volatile HostSample latest;
+
+    public LinuxResourceSampler(AppProperties appProperties) {
+        this.procRoot = Paths.get(appProperties.getMetrics().getProcRoot());
+        this.cgroupRoot = Paths.get(appProperties.getMetrics().getCgroupRoot());
+        this.procAvailable = Files.isReadable(procRoot.resolve("stat"));
+        this.cgroupV2 = Files.isRegularFile(cgroupRoot.resolve("cgroup.controllers"));
+        log.info("Resource sampler: procfs {}, cgroup v2 {}", procAvailable ? "available" : "unavailable",
+            cgroupV2 ? "available" : "unavailable");
+    }
+
+    @Scheduled(fixedRateString = "${app.metrics.host-sample-interval-ms:1000}")
+    public void sampleHost() {
+        if (!procAvailable) {
+            return;
+        }
+        try {
+            HostSample sample = readHost();
+            if (sample != null) {
+                latest = sample;
+            }
+        } catch (IOException e) {
+            log.debug("Error sampling host resources: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the most recent host sample, taking one if none was taken yet
+     *
+     * @return empty until two readings of the host CPU counters were taken
+     */
+    public Optional<HostSample> getHostSample() {
+        if (latest == null) {
+            sampleHost();
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * Reads the container's cgroup counters. CPU usage is the share of one
+     * core used since the previous sample of the same container, so the
+     * first call only records the CPU baseline.
+     *
+     * @return empty on the first call for a container, or if it has no cgroup
+     *         v2 directory on this host
+     */
+    public Optional<DockerStatsStreamService.ContainerStatsSnapshot> sampleContainer(String containerId) {
+        if (!cgroupV2) {
+            return Optional.empty();
+        }
+        ContainerCgroup cgroup = containers.computeIfAbsent(containerId, this::findCgroup);
+        if (cgroup == null) {
+            containers.remove(containerId);
+            return Optional.empty();
+        }
+        try {
+            if (!cgroup.sampled) {
+                readCpuBaseline(cgroup);
+                return Optional.empty();
+            }
+            return Optional.of(readContainer(cgroup));
+        } catch (NoSuchFileException e) {
+            // The container was removed since its cgroup was found
+            containers.remove(containerId);
+            return Optional.empty();
+        } catch (IOException e) {
+            log.debug("Error sampling cgroup of container {}: {}", containerId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Whether the container's usage can be read from its cgroup on this host,
+     * even if {@link #sampleContainer} has no value for it yet
+     */
+    public boolean canSampleContainer(String containerId) {
+        return cgroupV2 && containers.computeIfAbsent(containerId, this::findCgroup) != null;
+    }
+
+    public void forget(String containerId) {
+        containers.remove(containerId);
+    }
+
+    /**
+     * @return null when this reading only records the CPU baseline
+     */
+    private synchronized HostSample readHost() throws IOException {
+        int length = read(procRoot.resolve("stat"));
+        byte[] bytes = buffer.array();
+        int position = find(bytes, length, CPU, 0);
+        long totalTicks = 0;
+        long idleTicks = 0;
+        if (position >= 0) {
+            // user nice system idle iowait irq softirq steal; guest time is already part of user
+            position += CPU.length;
+            for (int field = 0; field < 8; field++) {
+                while (position < length && bytes[position] == ' ') {
+                    position++;
+                }
+                long value = 0;
+                while (position < length && bytes[position] >= '0' && bytes[position] <= '9') {
+                    value = value * 10 + (bytes[position++] - '0');
+                }
+                totalTicks += value;
+                if (field == 3 || field == 4) {
+                    idleTicks += value;
+                }
+            }
+        }
+        long totalDelta = totalTicks - previousTotalTicks;
+        long idleDelta = idleTicks - previousIdleTicks;
+        double cpuPercent = totalDelta > 0 ? (double) (totalDelta - idleDelta) / totalDelta * 100.0 : 0.0;
+        previousTotalTicks = totalTicks;
+        previousIdleTicks = idleTicks;
+        if (!hostSampled || totalDelta <= 0) {
+            // Without a previous reading the ticks are totals since boot, and
+            // readings within one tick of each other say nothing yet
+            hostSampled = true;
+            return null;
+        }
+
+        length = read(procRoot.resolve("meminfo"));
+        long totalBytes = valueAfter(bytes, length, MEM_TOTAL) * 1024;
+        long availableBytes = valueAfter(bytes, length, MEM_AVAILABLE) * 1024;
+
+        return new HostSample(Instant.now(), cpuPercent, totalBytes, availableBytes);
+    }
+
+    private synchronized void readCpuBaseline(ContainerCgroup cgroup) throws IOException {
+        long sampledAt = System.nanoTime();
+        int length = read(cgroup.cpuStat);
+        cgroup.previousUsageNanos = valueAfter(buffer.array(), length, USAGE_USEC) * 1000;
+        cgroup.previousSampledAt = sampledAt;
+        cgroup.sampled = true;
+    }
+
+    private synchronized DockerStatsStreamService.ContainerStatsSnapshot readContainer(ContainerCgroup cgroup) throws IOException {
+        byte[] bytes = buffer.array();
+        long sampledAt = System.nanoTime();
+
+        int length = read(cgroup.cpuStat);
+        long usageNanos = valueAfter(bytes, length, USAGE_USEC) * 1000;
+        double cpuPercent = 0.0;
+        if (sampledAt > cgroup.previousSampledAt && usageNanos >= cgroup.previousUsageNanos) {
+            cpuPercent = (double) (usageNanos - cgroup.previousUsageNanos) / (sampledAt - cgroup.previousSampledAt) * 100.0;
+        }
+        cgroup.previousUsageNanos = usageNanos;
+        cgroup.previousSampledAt = sampledAt;
+
+        // Page cache is reclaimable, so it does not count as used like in `docker stats`
+        length = read(cgroup.memoryCurrent);
+        long memoryUsed = parseLong(bytes, length, 0);
+        length = read(cgroup.memoryStat);
+        memoryUsed = Math.max(0, memoryUsed - Math.max(0, valueAfter(bytes, length, INACTIVE_FILE)));
+
+        length = read(cgroup.memoryMax);
+        long memoryLimit = parseLong(bytes, length, 0);
+        if (memoryLimit <= 0) {
+            HostSample host = latest;
+            memoryLimit = host != null ? host.memoryTotalBytes() : 0;
+        }
+        double memoryPercent = memoryLimit > 0 ? (double) memoryUsed / memoryLimit * 100.0 : 0.0;
+
+        long readBytes = 0;
+        long writeBytes = 0;
+        if (cgroup.ioStat != null) {
+            length = read(cgroup.ioStat);
+            readBytes = sumValuesAfter(bytes, length, READ_BYTES);
+            writeBytes = sumValuesAfter(bytes, length, WRITE_BYTES);
+        }
+
+        long pids = 0;
+        if (cgroup.pidsCurrent != null) {
+            length = read(cgroup.pidsCurrent);
+            pids = Math.max(0, parseLong(bytes, length, 0));
+        }
+
+        // Network counters live in the container's network namespace, reached through any of its processes
+        long rxBytes = 0;
+        long txBytes = 0;
+        length = read(cgroup.procs);
+        long pid = parseLong(bytes, length, 0);
+        if (pid > 0) {
+            try {
+                length = read(procRoot.resolve(Long.toString(pid)).resolve("net").resolve("dev"));
+                rxBytes = networkBytes(bytes, length, 0);
+                txBytes = networkBytes(bytes, length, 8);
+            } catch (IOException e) {
+                log.debug("Cannot read network counters of process {}: {}", pid, e.getMessage());
+            }
+        }
+
+        return new DockerStatsStreamService.ContainerStatsSnapshot(Instant.now(), usageNanos, 0, cpuPercent,
+            memoryUsed, memoryLimit, memoryPercent, rxBytes, txBytes, readBytes, writeBytes, pids);
+    }
+
+    /**
+     * Locates the container's cgroup under the systemd or the cgroupfs driver layout
+     */
+    private ContainerCgroup findCgroup(String containerId) {
+        for (Path directory : new Path[] {
+                cgroupRoot.resolve("system.slice").resolve("docker-" + containerId + ".scope"),
+                cgroupRoot.resolve("docker").resolve(containerId)}) {
+            if (Files.isRegularFile(directory.resolve("cpu.stat"))) {
+                return new ContainerCgroup(directory);
+            }
+        }
+        return null;
+    }
+
+    private int read(Path path) throws IOException {
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // procfs reports a size of zero, so read until end of file
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Position of the key at the start of a line, or -1
+     */
+    static int find(byte[] bytes, int length, byte[] key, int from) {
+        for (int start = from; start <= length - key.length; start++) {
+            if (start > 0 && bytes[start - 1] != '\n') {
+                continue;
+            }
+            int matched = 0;
+            while (matched < key.length && bytes[start + matched] == key[matched]) {
+                matched++;
+            }
+            if (matched == key.length) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The number following the key at the start of a line, or -1
+     */
+    static long valueAfter(byte[] bytes, int length, byte[] key) {
+        int position = find(bytes, length, key, 0);
+        return position >= 0 ? parseLong(bytes, length, position + key.length) : -1;
+    }
+
+    /**
+     * Sum of the numbers following every occurrence of the key, as in the per-device lines of io.stat
+     */
+    static long sumValuesAfter(byte[] bytes, int length, byte[] key) {
+        long sum = 0;
+        for (int start = 0; start <= length - key.length; start++) {
+            int matched = 0;
+            while (matched < key.length && bytes[start + matched] == key[matched]) {
+                matched++;
+            }
+            if (matched == key.length) {
+                sum += Math.max(0, parseLong(bytes, length, start + key.length));
+                start += key.length - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Parses the number at the position after optional blanks, or -1 if there is none
+     */
+    static long parseLong(byte[] bytes, int length, int position) {
+        while (position < length && (bytes[position] == ' ' || bytes[position] == '\t')) {
+            position++;
+        }
+        if (position >= length || bytes[position] < '0' || bytes[position] > '9') {
+            return -1;
+        }
+        long value = 0;
+        while (position < length && bytes[position] >= '0' && bytes[position] <= '9') {
+            value = value * 10 + (bytes[position++] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Sums one column of /proc/net/dev over all interfaces but loopback
+     */
+    static long networkBytes(byte[] bytes, int length, int column) {
+        long sum = 0;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            int colon = -1;
+            while (lineEnd < length && bytes[lineEnd] != '\n') {
+                if (bytes[lineEnd] == ':' && colon < 0) {
+                    colon = lineEnd;
+                }
+                lineEnd++;
+            }
+            if (colon > 0 && !isLoopback(bytes, lineStart, colon)) {
+                int position = colon + 1;
+                for (int field = 0; field <= column && position < lineEnd; field++) {
+                    while (position < lineEnd && bytes[position] == ' ') {
+                        position++;
+                    }
+                    if (field == column) {
+                        sum += Math.max(0, parseLong(bytes, lineEnd, position));
+                    }
+                    while (position < lineEnd && bytes[position] != ' ') {
+                        position++;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return sum;
+    }
+
+    private static boolean isLoopback(byte[] bytes, int lineStart, int colon) {
+        int start = lineStart;
+        while (start < colon && bytes[start] == ' ') {
+            start++;
+        }
+        return colon - start == 2 && bytes[start] == 'l' && bytes[start + 1] == 'o';
+    }
+
+    /**
+     * Host CPU usage across all cores since the previous sample, and memory in bytes
+     */
+    public record HostSample(Instant sampledAt, double cpuPercent, long memoryTotalBytes, long memoryAvailableBytes) {
+
+        public long memoryUsedBytes() {
+            return Math.max(0, memoryTotalBytes - memoryAvailableBytes);
+        }
+    }
+
+    /**
+     * Files of one container's cgroup, resolved once, and its previous CPU reading
+     */
+    private static class ContainerCgroup {
+        final Path cpuStat;
+        final Path memoryCurrent;
+        final Path memoryStat;
+        final Path memoryMax;
+        final Path ioStat;
+        final Path procs;
+        final Path pidsCurrent;
+        long previousUsageNanos;
+        long previousSampledAt;
+        boolean sampled;
+
+        ContainerCgroup(Path directory) {
+            this.cpuStat = directory.resolve("cpu.stat");
+            this.memoryCurrent = directory.resolve("memory.current");
+            this.memoryStat = directory.resolve("memory.stat");
+            this.memoryMax = directory.resolve("memory.max");
+            this.procs = directory.resolve("cgroup.procs");
+            // The io and pids controllers are not enabled everywhere
+            this.ioStat = existing(directory.resolve("io.stat"));
+            this.pidsCurrent = existing(directory.resolve("pids.current"));
+        }
+
+        private static Path existing(Path file) {
+            return Files.isRegularFile(file) ? file : null;
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.MetricRollup.Resolution;
+import com.devorchestrator.repository.MetricRollupRepository;
+import com.devorchestrator.repository.ResourceMetricRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Downsamples resource_metrics into 1-minute, 1-hour and 1-day rollups and
+ * enforces tiered retention. Each tier is rolled up from the one below it,
+ * and a per-tier watermark records the end of the last complete bucket.
+ * Rollups recompute whole buckets, so the minute tier re-scans a trailing
+ * window behind its watermark to pick up samples the write-behind queue
+ * persisted late.
+ * Range queries are answered from the coarsest tier whose buckets fit the
+ * range, with finer tiers and raw samples only filling the unaligned edges.
+ */
+@Service
+@Slf4j
+public class MetricRollupService {
+
+    private static final Resolution[] COARSEST_FIRST = {Resolution.DAY, Resolution.HOUR, Resolution.MINUTE};
+
+    private static final String RAW_SAMPLES_SQL =
+        "SELECT container_id, metric_name, value, recorded_at FROM resource_metrics " +
+        "WHERE project_id = ? AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at";
+    private static final int RAW_FETCH_SIZE = 1000;
+
+    private final MetricRollupRepository rollupRepository;
+    private final ResourceMetricRepository metricRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final AppProperties.Metrics metricsProps;
+    private final Duration rescanWindow;
+
+    private final Map<Resolution, LocalDateTime> watermarks = new EnumMap<>(Resolution.class);
+    private final Map<Resolution, Timer> rollupTimers = new EnumMap<>(Resolution.class);
+    private final Map<Resolution, Counter> rollupRowCounters = new EnumMap<>(Resolution.class);
+    private final Counter purgedCounter;
+
+    public MetricRollupService(MetricRollupRepository rollupRepository,
+                               ResourceMetricRepository metricRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               AppProperties appProperties,
+                               MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.metricRepository = metricRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.metricsProps = appProperties.getMetrics();
+        // Whole minutes covering the longest write-behind delay, plus the minute in progress
+        long maxWriteDelaySeconds = (MetricWriteBehindService.maxWriteDelayMs(metricsProps) + 999) / 1000;
+        this.rescanWindow = Duration.ofMinutes((maxWriteDelaySeconds + 59) / 60 + 1);
+
+        for (Resolution resolution : Resolution.values()) {
+            String tag = resolution.name().toLowerCase();
+            rollupTimers.put(resolution, Timer.builder("metrics.rollup.duration")
+                .description("Time taken to roll up one chunk of buckets")
+                .tag("resolution", tag)
+                .register(meterRegistry));
+            rollupRowCounters.put(resolution, Counter.builder("metrics.rollup.rows")
+                .description("Rollup rows inserted or refreshed")
+                .tag("resolution", tag)
+                .register(meterRegistry));
+        }
+        this.purgedCounter = Counter.builder("metrics.retention.rows.purged")
+            .description("Raw samples and rollup rows removed by retention")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Rolls closed minutes of raw samples into MINUTE buckets, leaving the
+     * configured lag for late writes from the write-behind queue. Minutes
+     * within the rescan window behind the watermark are recomputed, so a
+     * batch that was retried still reaches its buckets, also after a restart.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 30000)
+    public void rollupMinutes() {
+        LocalDateTime target = truncate(LocalDateTime.now().minusSeconds(metricsProps.getRollupLagSeconds()),
+            Resolution.MINUTE);
+        LocalDateTime from = getWatermark(Resolution.MINUTE).minus(rescanWindow);
+        int maxGapSeconds = metricsProps.getMaxSampleGapSeconds();
+        advance(Resolution.MINUTE, from, target, Duration.ofHours(1), (chunkFrom, to) ->
+            rollupRepository.rollupRawToMinutes(chunkFrom.minusSeconds(maxGapSeconds), chunkFrom, to, maxGapSeconds));
+    }
+
+    /**
+     * Rolls up hours whose minutes are past the rescan window and no longer change
+     */
+    @Scheduled(cron = "0 5 * * * *")
+    public void rollupHours() {
+        LocalDateTime target = truncate(getWatermark(Resolution.MINUTE).minus(rescanWindow), Resolution.HOUR);
+        advance(Resolution.HOUR, getWatermark(Resolution.HOUR), target, Duration.ofDays(1),
+            rollupRepository::rollupMinutesToHours);
+    }
+
+    /**
+     * Runs before the daily usage reports so yesterday is already a DAY bucket
+     */
+    @Scheduled(cron = "0 15 0 * * *")
+    public void rollupDays() {
+        rollupHours();
+        LocalDateTime target = truncate(getWatermark(Resolution.HOUR), Resolution.DAY);
+        advance(Resolution.DAY, getWatermark(Resolution.DAY), target, Duration.ofDays(30),
+            rollupRepository::rollupHoursToDays);
+    }
+
+    /**
+     * Drops raw samples and rollups past their tier's retention. Nothing is
+     * deleted before it has been rolled up into the next tier.
+     */
+    @Scheduled(cron = "0 40 0 * * *")
+    public void applyRetention() {
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime rawCutoff = earliest(now.minusDays(metricsProps.getRawRetentionDays()),
+            getWatermark(Resolution.MINUTE).minus(rescanWindow));
+        LocalDateTime minuteCutoff = earliest(now.minusDays(metricsProps.getMinuteRollupRetentionDays()),
+            getWatermark(Resolution.HOUR));
+        LocalDateTime hourCutoff = earliest(now.minusDays(metricsProps.getHourRollupRetentionDays()),
+            getWatermark(Resolution.DAY));
+        LocalDateTime dayCutoff = now.minusDays(metricsProps.getDayRollupRetentionDays());
+
+        try {
+            int purged = transactionTemplate.execute(status ->
+                metricRepository.purgeRecordedBefore(rawCutoff)
+                    + rollupRepository.deleteByResolutionAndBucketStartBefore(Resolution.MINUTE, minuteCutoff)
+                    + rollupRepository.deleteByResolutionAndBucketStartBefore(Resolution.HOUR, hourCutoff)
+                    + rollupRepository.deleteByResolutionAndBucketStartBefore(Resolution.DAY, dayCutoff));
+            purgedCounter.increment(purged);
+            log.info("Metric retention removed {} rows (raw before {}, minute before {}, hour before {}, day before {})",
+                purged, rawCutoff, minuteCutoff, hourCutoff, dayCutoff);
+        } catch (Exception e) {
+            log.error("Error applying metric retention", e);
+        }
+    }
+
+    /**
+     * Per-metric totals for a project over [start, end), keyed by metric name
+     */
+    public Map<String, MetricSummary> summarize(String projectId, LocalDateTime start, LocalDateTime end) {
+        Map<String, MetricSummary> summaries = new HashMap<>();
+
+        for (QuerySegment segment : plan(start, end, currentWatermarks())) {
+            if (segment.getResolution() == null) {
+                summarizeRaw(projectId, segment.getStart(), segment.getEnd())
+                    .forEach((name, summary) -> summaries.merge(name, summary, MetricSummary::merge));
+                continue;
+            }
+
+            for (Object[] row : rollupRepository.summarize(projectId, segment.getResolution(),
+                    segment.getStart(), segment.getEnd())) {
+                summaries.merge((String) row[0], toSummary(row, 1), MetricSummary::merge);
+            }
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Per-metric totals for each whole day in [startDay, endDay). Days that are
+     * already DAY buckets come from a single query; the rest are summarized
+     * one by one.
+     */
+    public Map<LocalDate, Map<String, MetricSummary>> summarizeByDay(String projectId,
+                                                                     LocalDate startDay, LocalDate endDay) {
+        Map<LocalDate, Map<String, MetricSummary>> days = new HashMap<>();
+        LocalDate rolledUpEnd = getWatermark(Resolution.DAY).toLocalDate();
+        if (rolledUpEnd.isAfter(endDay)) {
+            rolledUpEnd = endDay;
+        }
+
+        if (startDay.isBefore(rolledUpEnd)) {
+            for (Object[] row : rollupRepository.summarizeDays(projectId, startDay.atStartOfDay(),
+                    rolledUpEnd.atStartOfDay())) {
+                LocalDate day = ((LocalDateTime) row[0]).toLocalDate();
+                days.computeIfAbsent(day, d -> new HashMap<>()).put((String) row[1], toSummary(row, 2));
+            }
+        }
+
+        for (LocalDate day = startDay; day.isBefore(endDay); day = day.plusDays(1)) {
+            if (day.isBefore(rolledUpEnd)) {
+                days.putIfAbsent(day, new HashMap<>());
+            } else {
+                days.put(day, summarize(projectId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Streams raw samples through a {@link UsageAggregator} with a JDBC
+     * fetch-size cursor, so nothing but the per-series accumulators is held
+     * in memory however long the range is. Samples up to one maximum gap
+     * before the range only seed their series, so the interval leading into
+     * the range is counted as it is in the minute rollups.
+     */
+    Map<String, MetricSummary> summarizeRaw(String projectId, LocalDateTime start, LocalDateTime end) {
+        int maxGapSeconds = metricsProps.getMaxSampleGapSeconds();
+        UsageAggregator aggregator = new UsageAggregator(maxGapSeconds);
+        long startMillis = Timestamp.valueOf(start).getTime();
+
+        // PostgreSQL only honours the fetch size inside a transaction
+        readOnlyTransactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RAW_SAMPLES_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(RAW_FETCH_SIZE);
+            ps.setString(1, projectId);
+            ps.setTimestamp(2, Timestamp.valueOf(start.minusSeconds(maxGapSeconds)));
+            ps.setTimestamp(3, Timestamp.valueOf(end));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            long recordedAt = rs.getTimestamp(4).getTime();
+            if (recordedAt < startMillis) {
+                aggregator.seed(rs.getString(1), rs.getString(2), recordedAt, rs.getDouble(3));
+            } else {
+                aggregator.accept(rs.getString(1), rs.getString(2), recordedAt, rs.getDouble(3));
+            }
+        }));
+
+        return aggregator.getSummaries();
+    }
+
+    /**
+     * Bucketed series of one metric across all containers, using the
+     * finest tier that still has data for the start of the range and yields
+     * no more than maxPoints buckets
+     */
+    public List<TrendPoint> getTrend(String projectId, String metricName,
+                                     LocalDateTime start, LocalDateTime end, int maxPoints) {
+        Resolution resolution = chooseTrendResolution(start, end, maxPoints, LocalDateTime.now());
+
+        List<TrendPoint> points = new ArrayList<>();
+        for (Object[] row : rollupRepository.findSeries(projectId, metricName, resolution,
+                truncate(start, resolution), end)) {
+            long count = ((Number) row[4]).longValue();
+            points.add(new TrendPoint((LocalDateTime) row[0], resolution, toDouble(row[1]), toDouble(row[2]),
+                count > 0 ? toDouble(row[3]) / count : 0.0, count));
+        }
+        return points;
+    }
+
+    public LocalDateTime getWatermark(Resolution resolution) {
+        synchronized (watermarks) {
+            LocalDateTime watermark = watermarks.get(resolution);
+            if (watermark == null) {
+                watermark = initialWatermark(resolution);
+                watermarks.put(resolution, watermark);
+            }
+            return watermark;
+        }
+    }
+
+    /**
+     * Splits [start, end) into segments served by the coarsest tier whose
+     * aligned buckets fit inside the range and are already complete. The
+     * unaligned edges fall through to finer tiers, and anything past the
+     * MINUTE watermark is read from raw samples (resolution null).
+     */
+    static List<QuerySegment> plan(LocalDateTime start, LocalDateTime end, Map<Resolution, LocalDateTime> watermarks) {
+        List<QuerySegment> segments = new ArrayList<>();
+        cover(start, end, 0, watermarks, segments);
+        return segments;
+    }
+
+    private static void cover(LocalDateTime start, LocalDateTime end, int tier,
+                              Map<Resolution, LocalDateTime> watermarks, List<QuerySegment> segments) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+        if (tier == COARSEST_FIRST.length) {
+            segments.add(new QuerySegment(null, start, end));
+            return;
+        }
+
+        Resolution resolution = COARSEST_FIRST[tier];
+        LocalDateTime alignedStart = ceil(start, resolution);
+        LocalDateTime alignedEnd = truncate(end, resolution);
+        LocalDateTime watermark = watermarks.get(resolution);
+        if (watermark != null && watermark.isBefore(alignedEnd)) {
+            alignedEnd = watermark;
+        }
+
+        if (watermark == null || !alignedStart.isBefore(alignedEnd)) {
+            cover(start, end, tier + 1, watermarks, segments);
+            return;
+        }
+
+        cover(start, alignedStart, tier + 1, watermarks, segments);
+        segments.add(new QuerySegment(resolution, alignedStart, alignedEnd));
+        cover(alignedEnd, end, tier + 1, watermarks, segments);
+    }
+
+    Resolution chooseTrendResolution(LocalDateTime start, LocalDateTime end, int maxPoints, LocalDateTime now) {
+        long rangeSeconds = Math.max(Duration.between(start, end).getSeconds(), 1);
+        for (int i = COARSEST_FIRST.length - 1; i >= 0; i--) {
+            Resolution resolution = COARSEST_FIRST[i];
+            boolean retained = !start.isBefore(now.minusDays(retentionDays(resolution)));
+            if (retained && rangeSeconds / resolution.getSeconds() <= maxPoints) {
+                return resolution;
+            }
+        }
+        return Resolution.DAY;
+    }
+
+    private void advance(Resolution resolution, LocalDateTime from, LocalDateTime target, Duration chunk,
+                         BiFunction<LocalDateTime, LocalDateTime, Integer> rollup) {
+        if (!from.isBefore(target)) {
+            return;
+        }
+
+        try {
+            while (from.isBefore(target)) {
+                LocalDateTime chunkStart = from;
+                LocalDateTime chunkEnd = earliest(from.plus(chunk), target);
+
+                Integer rows = rollupTimers.get(resolution).record(() ->
+                    transactionTemplate.execute(status -> rollup.apply(chunkStart, chunkEnd)));
+                rollupRowCounters.get(resolution).increment(rows != null ? rows : 0);
+
+                synchronized (watermarks) {
+                    // Re-scanned chunks lie behind the watermark and must not move it back
+                    watermarks.merge(resolution, chunkEnd, (current, end) -> end.isAfter(current) ? end : current);
+                }
+                from = chunkEnd;
+            }
+            log.debug("Rolled up {} buckets through {}", resolution, target);
+        } catch (Exception e) {
+            // The watermark only moves past committed chunks, so the next run resumes here
+            log.error("Error rolling up {} buckets from {}: {}", resolution, from, e.getMessage());
+        }
+    }
+
+    /**
+     * Resumes after the newest bucket of the tier, or starts from the oldest
+     * data of the tier below when the tier is still empty
+     */
+    private LocalDateTime initialWatermark(Resolution resolution) {
+        LocalDateTime latest = rollupRepository.findLatestBucketStart(resolution);
+        if (latest != null) {
+            return latest.plusSeconds(resolution.getSeconds());
+        }
+
+        LocalDateTime earliestSource;
+        switch (resolution) {
+            case MINUTE:
+                earliestSource = metricRepository.findEarliestRecordedAt();
+                return truncate(earliestSource != null ? earliestSource : LocalDateTime.now(), resolution);
+            case HOUR:
+                earliestSource = rollupRepository.findEarliestBucketStart(Resolution.MINUTE);
+                return truncate(earliestSource != null ? earliestSource : getWatermark(Resolution.MINUTE), resolution);
+            case DAY:
+            default:
+                earliestSource = rollupRepository.findEarliestBucketStart(Resolution.HOUR);
+                return truncate(earliestSource != null ? earliestSource : getWatermark(Resolution.HOUR), resolution);
+        }
+    }
+
+    private Map<Resolution, LocalDateTime> currentWatermarks() {
+        Map<Resolution, LocalDateTime> snapshot = new EnumMap<>(Resolution.class);
+        for (Resolution resolution : Resolution.values()) {
+            snapshot.put(resolution, getWatermark(resolution));
+        }
+        return snapshot;
+    }
+
+    private int retentionDays(Resolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return metricsProps.getMinuteRollupRetentionDays();
+            case HOUR:
+                return metricsProps.getHourRollupRetentionDays();
+            case DAY:
+            default:
+                return metricsProps.getDayRollupRetentionDays();
+        }
+    }
+
+    static LocalDateTime truncate(LocalDateTime time, Resolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS);
+        }
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, Resolution resolution) {
+        LocalDateTime truncated = truncate(time, resolution);
+        return truncated.equals(time) ? truncated : truncated.plusSeconds(resolution.getSeconds());
+    }
+
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * Maps min, max, sum, count, integral, covered seconds and series count
+     * starting at the given column
+     */
+    private static MetricSummary toSummary(Object[] row, int offset) {
+        return new MetricSummary(toDouble(row[offset]), toDouble(row[offset + 1]), toDouble(row[offset + 2]),
+            ((Number) row[offset + 3]).longValue(), toDouble(row[offset + 4]), toDouble(row[offset + 5]),
+            ((Number) row[offset + 6]).longValue());
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    /**
+     * Part of a range answered by a single tier; a null resolution means raw samples
+     */
+    @Getter
+    @AllArgsConstructor
+    static class QuerySegment {
+        private final Resolution resolution;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+
+    /**
+     * Totals for one metric over a range. The integral is in value-seconds,
+     * so integral / 3600 gives value-hours. Covered seconds add up the time
+     * each series was reporting; seriesCount is the number of containers.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class MetricSummary {
+        private final double min;
+        private final double max;
+        private final double sum;
+        private final long count;
+        private final double integral;
+        private final double coveredSeconds;
+        private final long seriesCount;
+
+        public double getAvg() {
+            return count > 0 ? sum / count : 0.0;
+        }
+
+        public double getValueHours() {
+            return integral / 3600.0;
+        }
+
+        /**
+         * Average time a series of this metric was reporting
+         */
+        public double getUptimeSeconds() {
+            return seriesCount > 0 ? coveredSeconds / seriesCount : 0.0;
+        }
+
+        /**
+         * Combines summaries of the same series over adjacent time ranges
+         */
+        public MetricSummary merge(MetricSummary other) {
+            return new MetricSummary(Math.min(min, other.min), Math.max(max, other.max),
+                sum + other.sum, count + other.count, integral + other.integral,
+                coveredSeconds + other.coveredSeconds, Math.max(seriesCount, other.seriesCount));
+        }
+
+        /**
+         * Combines summaries of different series over the same time range
+         */
+        public MetricSummary mergeSeries(MetricSummary other) {
+            return new MetricSummary(Math.min(min, other.min), Math.max(max, other.max),
+                sum + other.sum, count + other.count, integral + other.integral,
+                coveredSeconds + other.coveredSeconds, seriesCount + other.seriesCount);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TrendPoint {
+        private final LocalDateTime bucketStart;
+        private final Resolution resolution;
+        private final double min;
+        private final double max;
+        private final double avg;
+        private final long count;
+    }
+}
@@ -0,0 +1,292 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ResourceMetric;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage for resource_metrics. Collectors enqueue samples and
+ * return immediately; a single writer thread drains the queue and inserts
+ * rows with JDBC batches once either the batch size or the flush interval
+ * is reached. When the queue is full the configured overflow policy decides
+ * whether to wait, drop the incoming sample or drop the oldest queued one.
+ * A batch that fails is retried with doubling backoff while new samples keep
+ * queueing behind it, so a short database outage costs no data.
+ */
+@Service
+@Slf4j
+public class MetricWriteBehindService {
+
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO resource_metrics (project_id, environment_id, container_id, metric_type, metric_name, " +
+        "source, value, unit, tags_json, recorded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<ResourceMetric> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMs;
+    private final AppProperties.Metrics.OverflowPolicy overflowPolicy;
+    private final int retryAttempts;
+    private final long retryBackoffMs;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean running;
+    private final CountDownLatch shutdownSignal = new CountDownLatch(1);
+    private Thread writerThread;
+
+    public MetricWriteBehindService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    AppProperties appProperties,
+                                    MeterRegistry meterRegistry) {
+        AppProperties.Metrics metricsProps = appProperties.getMetrics();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(metricsProps.getWriteQueueCapacity());
+        this.batchSize = metricsProps.getWriteBatchSize();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(metricsProps.getWriteFlushIntervalMs());
+        this.offerTimeoutMs = metricsProps.getWriteOfferTimeoutMs();
+        this.overflowPolicy = metricsProps.getWriteOverflowPolicy();
+        this.retryAttempts = metricsProps.getWriteRetryAttempts();
+        this.retryBackoffMs = metricsProps.getWriteRetryBackoffMs();
+
+        Gauge.builder("metrics.write.queue.depth", queue, BlockingQueue::size)
+            .description("Samples waiting to be written to resource_metrics")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("metrics.write.rows.written")
+            .description("Samples written to resource_metrics")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("metrics.write.rows.dropped")
+            .description("Samples dropped because the write queue was full")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("metrics.write.rows.failed")
+            .description("Samples lost because a batch insert failed on every attempt")
+            .register(meterRegistry);
+        this.retriedCounter = Counter.builder("metrics.write.batches.retried")
+            .description("Batch inserts retried after a failure")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("metrics.write.flush.duration")
+            .description("Time taken to insert one batch of samples")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("metrics.write.batch.size")
+            .description("Number of samples per batch insert")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "metrics-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Metric write-behind started: queue={}, batch={}, policy={}",
+            queue.remainingCapacity(), batchSize, overflowPolicy);
+    }
+
+    /**
+     * Flushes whatever is still queued before the datasource goes away. The
+     * writer is signalled rather than interrupted so a batch in flight
+     * finishes; it notices within one flush interval.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        shutdownSignal.countDown();
+        if (writerThread != null) {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            if (writerThread.isAlive()) {
+                log.warn("Metric writer did not finish within 30 seconds, {} samples still queued", queue.size());
+            }
+        }
+    }
+
+    /**
+     * Hands samples to the writer. Never blocks longer than the configured
+     * offer timeout, and only under the BLOCK policy.
+     */
+    public void enqueue(Collection<ResourceMetric> metrics) {
+        for (ResourceMetric metric : metrics) {
+            enqueue(metric);
+        }
+    }
+
+    public void enqueue(ResourceMetric metric) {
+        if (queue.offer(metric)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!queue.offer(metric, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        droppedCounter.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCounter.increment();
+                }
+                break;
+
+            case DROP_OLDEST:
+                while (!queue.offer(metric)) {
+                    if (queue.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                }
+                break;
+
+            case DROP_NEWEST:
+            default:
+                droppedCounter.increment();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<ResourceMetric> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                ResourceMetric first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep filling until the batch is full or the flush interval elapses
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    ResourceMetric next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            writeWithRetry(batch);
+        }
+
+        // Drain what is left on shutdown
+        do {
+            queue.drainTo(batch, batchSize - batch.size());
+            writeWithRetry(batch);
+        } while (!queue.isEmpty());
+
+        log.info("Metric write-behind stopped");
+    }
+
+    /**
+     * Writes the batch, retrying with doubling backoff. Retries stop early on
+     * shutdown so stopping is not held up by an unreachable database.
+     */
+    private void writeWithRetry(List<ResourceMetric> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    insert(batch);
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= retryAttempts || !running) {
+                        failedCounter.increment(batch.size());
+                        log.error("Failed to write batch of {} metrics after {} attempts: {}",
+                            batch.size(), attempt, e.getMessage());
+                        return;
+                    }
+                    long backoff = Math.min(retryBackoffMs << (attempt - 1), MAX_RETRY_BACKOFF_MS);
+                    log.warn("Failed to write batch of {} metrics, retrying in {} ms: {}",
+                        batch.size(), backoff, e.getMessage());
+                    retriedCounter.increment();
+                    shutdownSignal.await(backoff, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCounter.increment(batch.size());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Longest a sample can wait in a batch before it is written: one flush
+     * interval plus the backoff of every retry
+     */
+    static long maxWriteDelayMs(AppProperties.Metrics metricsProps) {
+        long delay = metricsProps.getWriteFlushIntervalMs();
+        for (int attempt = 1; attempt < metricsProps.getWriteRetryAttempts(); attempt++) {
+            delay += Math.min((long) metricsProps.getWriteRetryBackoffMs() << Math.min(attempt - 1, 30),
+                MAX_RETRY_BACKOFF_MS);
+        }
+        return delay;
+    }
+
+    private void insert(List<ResourceMetric> batch) {
+        int size = batch.size();
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, size, (ps, metric) -> {
+                ps.setString(1, metric.getProject().getId());
+                ps.setString(2, metric.getEnvironmentId());
+                ps.setString(3, metric.getContainerId());
+                ps.setString(4, metric.getMetricType().name());
+                ps.setString(5, metric.getMetricName());
+                ps.setString(6, metric.getSource().name());
+                ps.setBigDecimal(7, metric.getValue());
+                ps.setString(8, metric.getUnit());
+                if (metric.getTagsJson() != null) {
+                    ps.setString(9, metric.getTagsJson());
+                } else {
+                    ps.setNull(9, Types.VARCHAR);
+                }
+                ps.setTimestamp(10, Timestamp.valueOf(metric.getRecordedAt()));
+            })));
+        writtenCounter.increment(size);
+        batchSizeSummary.record(size);
+    }
+}
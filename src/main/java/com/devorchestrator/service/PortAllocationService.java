@@ -1,106 +1,275 @@
 package com.devorchestrator.service;
 
 import com.devorchestrator.exception.PortAllocationException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Hands out host ports from the configured range. Ports are tracked in a
+ * bitmap that is claimed with compare-and-set, starting at a rotating word,
+ * so allocations neither take a lock nor probe the range at random. A
+ * claimed port is checked once against the OS; ports found in use by other
+ * processes are held back and re-checked in the background. Ports assigned
+ * to environments are recorded in host_port_allocations and claimed again
+ * on startup. The allocator owns that table; environment_port_mappings
+ * belongs to the Environment entity, which rewrites it whenever it is saved.
+ */
 @Service
 @Slf4j
 public class PortAllocationService {
 
-    @Value("${app.docker.port-range-start:8000}")
-    private int portRangeStart;
-    
-    @Value("${app.docker.port-range-end:9000}")
-    private int portRangeEnd;
-
-    private final Set<Integer> allocatedPorts = ConcurrentHashMap.newKeySet();
-    private final Set<Integer> reservedPorts = Set.of(22, 80, 443, 3306, 5432, 6379, 8080, 8443);
-
-    public synchronized Integer allocatePort() {
-        int maxAttempts = (portRangeEnd - portRangeStart) * 2;
-        int attempts = 0;
-        
-        while (attempts < maxAttempts) {
-            int candidatePort = generateRandomPort();
-            
-            if (isPortAvailable(candidatePort)) {
-                allocatedPorts.add(candidatePort);
-                log.debug("Allocated port: {}", candidatePort);
-                return candidatePort;
+    private static final Set<Integer> RESERVED_PORTS = Set.of(22, 80, 443, 3306, 5432, 6379, 8080, 8443);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int portRangeStart;
+    private final int portRangeEnd;
+
+    // One bit per port of the range, set while the port is taken
+    private final AtomicLongArray taken;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final Set<Integer> busyPorts = ConcurrentHashMap.newKeySet();
+
+    public PortAllocationService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.docker.port-range-start:8000}") int portRangeStart,
+                                 @Value("${app.docker.port-range-end:9000}") int portRangeEnd) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.portRangeStart = portRangeStart;
+        this.portRangeEnd = portRangeEnd;
+        validatePortRange();
+
+        int rangeSize = portRangeEnd - portRangeStart + 1;
+        this.taken = new AtomicLongArray((rangeSize + 63) / 64);
+        // Bits past the end of the range and reserved ports are never handed out
+        for (int bit = rangeSize; bit < taken.length() * 64; bit++) {
+            set(bit);
+        }
+        RESERVED_PORTS.stream().filter(this::inRange).forEach(port -> set(port - portRangeStart));
+    }
+
+    /**
+     * Claims the host ports recorded for environments before a restart, after
+     * dropping the records of environments that were destroyed or never saved
+     */
+    @PostConstruct
+    public void reconcile() {
+        try {
+            int stale = jdbcTemplate.update("DELETE FROM host_port_allocations a WHERE NOT EXISTS " +
+                "(SELECT 1 FROM environments e WHERE e.id = a.environment_id AND e.status <> 'DESTROYED')");
+            List<Integer> ports = jdbcTemplate.queryForList("SELECT host_port FROM host_port_allocations", Integer.class);
+            int claimed = 0;
+            for (Integer port : ports) {
+                if (port != null && inRange(port) && set(port - portRangeStart)) {
+                    claimed++;
+                }
             }
-            
-            attempts++;
+            log.info("Port allocation reconciled {} ports assigned to environments, dropped {} stale assignments",
+                claimed, stale);
+        } catch (DataAccessException e) {
+            log.warn("Failed to reconcile assigned ports, ports in use by containers will be skipped as busy: {}",
+                e.getMessage());
         }
-        
-        throw new PortAllocationException(
-            String.format("Unable to allocate port after %d attempts in range %d-%d", 
-                maxAttempts, portRangeStart, portRangeEnd)
-        );
     }
 
-    public synchronized void releasePort(Integer port) {
-        if (port != null && allocatedPorts.remove(port)) {
-            log.debug("Released port: {}", port);
+    public Integer allocatePort() {
+        int rangeSize = portRangeEnd - portRangeStart + 1;
+        for (int attempt = 0; attempt < rangeSize; attempt++) {
+            int bit = claim();
+            if (bit < 0) {
+                break;
+            }
+            int port = portRangeStart + bit;
+            if (isBindable(port)) {
+                log.debug("Allocated port: {}", port);
+                return port;
+            }
+            busyPorts.add(port);
+            log.debug("Port {} is in use outside the orchestrator, holding it back", port);
+        }
+
+        throw new PortAllocationException(portRangeStart, portRangeEnd);
+    }
+
+    /**
+     * Records that the host port serves the internal port of a service of the
+     * environment, so the port stays taken across restarts
+     */
+    public void recordAllocation(String environmentId, String serviceName, int internalPort, int hostPort) {
+        try {
+            jdbcTemplate.update("INSERT INTO host_port_allocations (environment_id, service_name, internal_port, host_port) " +
+                "VALUES (?, ?, ?, ?)", environmentId, serviceName, internalPort, hostPort);
+        } catch (DuplicateKeyException e) {
+            throw new PortAllocationException(hostPort);
+        }
+    }
+
+    /**
+     * Releases a port that was never recorded for an environment, such as the
+     * port of a standby or of a container that failed to be created
+     */
+    public void releasePort(Integer port) {
+        if (port == null || !inRange(port) || RESERVED_PORTS.contains(port)) {
+            return;
+        }
+        free(port);
+    }
+
+    /**
+     * Releases a port recorded for the environment. The port is only put back
+     * in the pool when the environment's record was removed, so a second
+     * release, or one for a port recorded for another environment, leaves it
+     * taken.
+     */
+    public void releasePort(Integer port, String environmentId) {
+        if (port == null || !inRange(port) || RESERVED_PORTS.contains(port)) {
+            return;
+        }
+        int removed;
+        try {
+            removed = jdbcTemplate.update("DELETE FROM host_port_allocations WHERE host_port = ? AND environment_id = ?",
+                port, environmentId);
+        } catch (DataAccessException e) {
+            log.warn("Failed to remove the assignment of port {} to environment {}, keeping it taken: {}",
+                port, environmentId, e.getMessage());
+            return;
+        }
+        if (removed > 0) {
+            free(port);
+        }
+    }
+
+    /**
+     * Re-checks the ports held back as busy in one pass and puts those that
+     * were freed back in the pool
+     */
+    @Scheduled(fixedDelayString = "${app.docker.port-recheck-interval:60}000")
+    public void recheckBusyPorts() {
+        int freed = 0;
+        for (Integer port : busyPorts) {
+            if (isBindable(port) && busyPorts.remove(port)) {
+                clear(port - portRangeStart);
+                freed++;
+            }
+        }
+        if (freed > 0) {
+            log.debug("Returned {} ports to the pool that are no longer in use outside the orchestrator", freed);
         }
     }
 
     public boolean isPortAvailable(int port) {
         // Check if port is in valid range
-        if (port < portRangeStart || port > portRangeEnd) {
-            return false;
-        }
-        
-        // Check if port is reserved
-        if (reservedPorts.contains(port)) {
+        if (!inRange(port)) {
             return false;
         }
-        
-        // Check if port is already allocated
-        if (allocatedPorts.contains(port)) {
+
+        // Check if port is reserved or already allocated
+        if (isSet(port - portRangeStart)) {
             return false;
         }
-        
+
         // Check if port is actually available on the system
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            return true;
-        } catch (IOException e) {
-            return false;
-        }
+        return isBindable(port);
     }
 
     public Set<Integer> getAllocatedPorts() {
-        return Set.copyOf(allocatedPorts);
+        Set<Integer> allocated = new HashSet<>();
+        for (int port = portRangeStart; port <= portRangeEnd; port++) {
+            if (isSet(port - portRangeStart) && !RESERVED_PORTS.contains(port) && !busyPorts.contains(port)) {
+                allocated.add(port);
+            }
+        }
+        return Set.copyOf(allocated);
     }
 
     public int getAvailablePortCount() {
-        int totalRange = portRangeEnd - portRangeStart + 1;
-        return totalRange - allocatedPorts.size() - reservedPorts.size();
-    }
-
-    private int generateRandomPort() {
-        return ThreadLocalRandom.current().nextInt(portRangeStart, portRangeEnd + 1);
+        int takenCount = 0;
+        for (int word = 0; word < taken.length(); word++) {
+            takenCount += Long.bitCount(taken.get(word));
+        }
+        return taken.length() * 64 - takenCount;
     }
 
     public void validatePortRange() {
         if (portRangeStart >= portRangeEnd) {
             throw new IllegalArgumentException(
-                String.format("Invalid port range: start=%d must be less than end=%d", 
+                String.format("Invalid port range: start=%d must be less than end=%d",
                     portRangeStart, portRangeEnd)
             );
         }
-        
+
         if (portRangeStart < 1024) {
             log.warn("Port range starts below 1024, which may require elevated privileges");
         }
-        
+
         log.info("Port allocation service initialized with range: {}-{}", portRangeStart, portRangeEnd);
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets the lowest clear bit of the first word with one, starting at the
+     * next word after the previous claim
+     *
+     * @return the claimed bit, or -1 if every port is taken
+     */
+    private int claim() {
+        int words = taken.length();
+        int first = Math.floorMod(cursor.getAndIncrement(), words);
+        for (int i = 0; i < words; i++) {
+            int word = (first + i) % words;
+            long bits;
+            while ((bits = taken.get(word)) != -1L) {
+                long free = Long.lowestOneBit(~bits);
+                if (taken.compareAndSet(word, bits, bits | free)) {
+                    return word * 64 + Long.numberOfTrailingZeros(free);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void free(int port) {
+        if (clear(port - portRangeStart)) {
+            busyPorts.remove(port);
+            log.debug("Released port: {}", port);
+        }
+    }
+
+    private boolean set(int bit) {
+        long mask = 1L << (bit & 63);
+        return (taken.getAndAccumulate(bit >>> 6, mask, (bits, m) -> bits | m) & mask) == 0;
+    }
+
+    private boolean clear(int bit) {
+        long mask = 1L << (bit & 63);
+        return (taken.getAndAccumulate(bit >>> 6, mask, (bits, m) -> bits & ~m) & mask) != 0;
+    }
+
+    private boolean isSet(int bit) {
+        return (taken.get(bit >>> 6) & (1L << (bit & 63))) != 0;
+    }
+
+    private boolean inRange(int port) {
+        return port >= portRangeStart && port <= portRangeEnd;
+    }
+
+    private static boolean isBindable(int port) {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectAnalysisEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs project analyses on a bounded pool of workers. At most one analysis
+ * per project is queued or running; further requests for the same project
+ * share its future. Queued jobs run interactive lane first, each lane in
+ * submission order, and an interactive request for a project waiting in the
+ * background lane moves it into the interactive lane. Background jobs are rejected once
+ * the queue is full, so registering many projects at once cannot pile up
+ * unbounded work.
+ */
+@Service
+@Slf4j
+public class ProjectAnalysisScheduler {
+
+    public enum Lane {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final Map<String, Job> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int queueCapacity;
+
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+    private final Timer analysisTimer;
+    private final Counter deduplicatedCounter;
+    private final Counter rejectedCounter;
+
+    public ProjectAnalysisScheduler(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.Analysis config = appProperties.getAnalysis();
+        int workers = config.getMaxConcurrentAnalyses() > 0
+            ? config.getMaxConcurrentAnalyses() : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = config.getAnalysisQueueCapacity();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "project-analysis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Lane lane : Lane.values()) {
+            Gauge.builder("analysis.queue.depth", queue, q -> countQueued(lane))
+                .description("Project analyses waiting for a worker")
+                .tag("lane", lane.name().toLowerCase())
+                .register(meterRegistry);
+            waitTimers.put(lane, Timer.builder("analysis.queue.wait")
+                .description("Time project analyses waited for a worker")
+                .tag("lane", lane.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        Gauge.builder("analysis.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Project analyses currently running")
+            .register(meterRegistry);
+        this.analysisTimer = Timer.builder("analysis.job.duration")
+            .description("Time taken to analyze a project")
+            .register(meterRegistry);
+        this.deduplicatedCounter = Counter.builder("analysis.jobs.deduplicated")
+            .description("Analysis requests that joined an analysis already queued or running")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("analysis.jobs.rejected")
+            .description("Background analyses rejected because the queue was full")
+            .register(meterRegistry);
+
+        log.info("Project analysis scheduler started with {} workers, queue capacity {}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Schedules an analysis of the project, or joins the one already queued or running
+     */
+    public CompletableFuture<ProjectAnalysisEntity> submit(String projectId, Lane lane,
+                                                           Supplier<ProjectAnalysisEntity> analysis) {
+        Job[] created = new Job[1];
+        Job job = inFlight.compute(projectId, (id, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            if (lane == Lane.BACKGROUND && queue.size() >= queueCapacity) {
+                return null;
+            }
+            created[0] = new Job(projectId, lane, analysis);
+            return created[0];
+        });
+
+        if (job == null) {
+            rejectedCounter.increment();
+            log.warn("Analysis queue is full ({} jobs), skipping background analysis of project {}",
+                queueCapacity, projectId);
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Analysis queue is full"));
+        }
+        if (job != created[0]) {
+            deduplicatedCounter.increment();
+            if (lane == Lane.INTERACTIVE) {
+                promote(job);
+            }
+            return job.future;
+        }
+
+        job.future.whenComplete((result, error) -> inFlight.remove(projectId, job));
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            job.future.completeExceptionally(e);
+        }
+        return job.future;
+    }
+
+    /**
+     * Moves a job still waiting in the background lane in front of all background jobs
+     */
+    private void promote(Job job) {
+        synchronized (job) {
+            if (job.lane == Lane.INTERACTIVE || !queue.remove(job)) {
+                return;
+            }
+            job.lane = Lane.INTERACTIVE;
+        }
+        log.debug("Promoted queued analysis of project {} to the interactive lane", job.projectId);
+        queue.add(job);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private int countQueued(Lane lane) {
+        int count = 0;
+        for (Runnable runnable : queue) {
+            if (runnable instanceof Job job && job.lane == lane) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private class Job implements Runnable, Comparable<Job> {
+        final String projectId;
+        final Supplier<ProjectAnalysisEntity> analysis;
+        final CompletableFuture<ProjectAnalysisEntity> future = new CompletableFuture<>();
+        final long sequenceNumber = sequence.incrementAndGet();
+        final long queuedAt = System.nanoTime();
+        volatile Lane lane;
+
+        Job(String projectId, Lane lane, Supplier<ProjectAnalysisEntity> analysis) {
+            this.projectId = projectId;
+            this.lane = lane;
+            this.analysis = analysis;
+        }
+
+        @Override
+        public void run() {
+            waitTimers.get(lane).record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            long startedAt = System.nanoTime();
+            try {
+                future.complete(analysis.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                analysisTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byLane = lane.compareTo(other.lane);
+            return byLane != 0 ? byLane : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
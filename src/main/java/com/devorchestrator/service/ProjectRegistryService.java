@@ -34,6 +34,7 @@ public class ProjectRegistryService {
     private final ProjectRegistrationRepository projectRepository;
     private final ProjectAnalysisRepository analysisRepository;
     private final ProjectAnalyzerService analyzerService;
+    private final ProjectAnalysisScheduler analysisScheduler;
     private final EnvironmentService environmentService;
     private final MetricsCollectorService metricsCollectorService;
     private final ObjectMapper objectMapper;
@@ -41,12 +42,14 @@ public class ProjectRegistryService {
     public ProjectRegistryService(ProjectRegistrationRepository projectRepository,
                                 ProjectAnalysisRepository analysisRepository,
                                 ProjectAnalyzerService analyzerService,
+                                ProjectAnalysisScheduler analysisScheduler,
                                 EnvironmentService environmentService,
                                 MetricsCollectorService metricsCollectorService,
                                 ObjectMapper objectMapper) {
         this.projectRepository = projectRepository;
         this.analysisRepository = analysisRepository;
         this.analyzerService = analyzerService;
+        this.analysisScheduler = analysisScheduler;
         this.environmentService = environmentService;
         this.metricsCollectorService = metricsCollectorService;
         this.objectMapper = objectMapper;
@@ -83,27 +86,25 @@ public class ProjectRegistryService {
         
         log.info("Registered new project: {} at {}", project.getName(), projectPath);
         
-        // Trigger initial analysis asynchronously
-        analyzeProjectAsync(project);
+        // Queue the initial analysis behind user-requested ones
+        analyzeProjectAsync(project, ProjectAnalysisScheduler.Lane.BACKGROUND);
         
         return project;
     }
     
     /**
-     * Analyzes a registered project
+     * Analyzes a registered project on behalf of a user, ahead of background analyses
      */
-    @Async
     public CompletableFuture<ProjectAnalysisEntity> analyzeProjectAsync(ProjectRegistration project) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return analyzeProject(project);
-            } catch (Exception e) {
-                log.error("Error analyzing project {}: {}", project.getName(), e.getMessage());
-                project.setStatus(ProjectRegistration.ProjectStatus.ERROR);
-                projectRepository.save(project);
-                throw new DevOrchestratorException("Project analysis failed", e);
-            }
-        });
+        return analyzeProjectAsync(project, ProjectAnalysisScheduler.Lane.INTERACTIVE);
+    }
+    
+    /**
+     * Queues an analysis of a registered project, or joins the one already queued or running
+     */
+    public CompletableFuture<ProjectAnalysisEntity> analyzeProjectAsync(ProjectRegistration project,
+                                                                        ProjectAnalysisScheduler.Lane lane) {
+        return analysisScheduler.submit(project.getId(), lane, () -> analyzeProject(project));
     }
     
     /**
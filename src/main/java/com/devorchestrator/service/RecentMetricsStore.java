@@ -0,0 +1,461 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ResourceMetric;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory store for the hot window of resource metric samples.
+ *
+ * Each series (project, container, metric name) is a fixed-size ring of
+ * parallel {@code long[]} timestamps and {@code double[]} values, so memory
+ * use is bounded by {@code maxSeries * samplesPerSeries}. Once the series
+ * limit is reached the least recently written series makes room; series
+ * wait in a queue in creation order and one that was written since it was
+ * queued goes to the back instead, so eviction does not scan. Dashboards,
+ * latest-value lookups and short-range aggregates read from here instead of
+ * querying resource_metrics.
+ */
+@Service
+@Slf4j
+public class RecentMetricsStore {
+
+    // Two primitive slots per sample plus the ring header and key/map entry overhead
+    private static final int BYTES_PER_SAMPLE = Long.BYTES + Double.BYTES;
+    private static final int BYTES_PER_SERIES_OVERHEAD = 256;
+
+    private final Map<SeriesKey, SeriesBuffer> series = new ConcurrentHashMap<>();
+    private final Map<String, Set<SeriesKey>> seriesByProject = new ConcurrentHashMap<>();
+    private final Queue<EvictionCandidate> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    private final long hotWindowMillis;
+    private final int samplesPerSeries;
+    private final int maxSeries;
+    private final long startedAtMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final AtomicLong evictedSeries = new AtomicLong();
+
+    public RecentMetricsStore(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.Metrics metricsProps = appProperties.getMetrics();
+        this.hotWindowMillis = metricsProps.getHotWindowMinutes() * 60_000L;
+        this.samplesPerSeries = metricsProps.getSamplesPerSeries();
+        this.maxSeries = metricsProps.getMaxSeries();
+        this.startedAtMillis = System.currentTimeMillis();
+
+        Gauge.builder("metrics.store.series", series, Map::size)
+            .description("Number of series held in the recent metrics store")
+            .register(meterRegistry);
+        Gauge.builder("metrics.store.footprint.bytes", this, RecentMetricsStore::getFootprintBytes)
+            .description("Approximate heap used by the recent metrics store")
+            .register(meterRegistry);
+        Gauge.builder("metrics.store.evicted.series", evictedSeries, AtomicLong::get)
+            .description("Series evicted to stay within the series limit")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records a batch of samples
+     */
+    public void recordAll(Collection<ResourceMetric> metrics) {
+        for (ResourceMetric metric : metrics) {
+            record(metric);
+        }
+    }
+
+    /**
+     * Records a single sample. Samples without a project or value are ignored.
+     */
+    public void record(ResourceMetric metric) {
+        if (metric.getProject() == null || metric.getValue() == null || metric.getRecordedAt() == null) {
+            return;
+        }
+
+        SeriesKey key = new SeriesKey(metric.getProject().getId(), metric.getContainerId(), metric.getMetricName());
+        SeriesBuffer buffer = series.get(key);
+        if (buffer == null) {
+            if (series.size() >= maxSeries) {
+                evictLeastRecentlyWritten();
+            }
+            buffer = createSeries(key, metric);
+        }
+
+        buffer.append(toEpochMillis(metric.getRecordedAt()), metric.getValue().doubleValue());
+    }
+
+    /**
+     * Returns the most recent sample of every series for a project
+     */
+    public List<MetricSample> getLatest(String projectId) {
+        List<MetricSample> samples = new ArrayList<>();
+        for (SeriesBuffer buffer : buffersFor(projectId)) {
+            buffer.latest().ifPresent(samples::add);
+        }
+        return samples;
+    }
+
+    /**
+     * Returns all samples for a project recorded in [start, end], newest first
+     */
+    public List<MetricSample> getSamples(String projectId, LocalDateTime start, LocalDateTime end) {
+        long from = toEpochMillis(start);
+        long to = toEpochMillis(end);
+
+        List<MetricSample> samples = new ArrayList<>();
+        for (SeriesBuffer buffer : buffersFor(projectId)) {
+            buffer.collect(from, to, samples);
+        }
+        samples.sort(Comparator.comparing(MetricSample::getRecordedAt).reversed());
+        return samples;
+    }
+
+    /**
+     * Visits every sample of a project recorded after the given epoch millis,
+     * without materializing MetricSample objects
+     */
+    public void visitSamplesAfter(String projectId, long afterMillis, SampleVisitor visitor) {
+        for (SeriesBuffer buffer : buffersFor(projectId)) {
+            buffer.visitAfter(afterMillis, visitor);
+        }
+    }
+
+    /**
+     * Aggregates a metric across all containers of a project within [start, end]
+     */
+    public SeriesStats aggregate(String projectId, String metricName, LocalDateTime start, LocalDateTime end) {
+        long from = toEpochMillis(start);
+        long to = toEpochMillis(end);
+
+        SeriesStats.Accumulator accumulator = new SeriesStats.Accumulator();
+        for (SeriesBuffer buffer : buffersFor(projectId)) {
+            if (buffer.key.getMetricName().equals(metricName)) {
+                buffer.accumulate(from, to, accumulator);
+            }
+        }
+        return accumulator.toStats();
+    }
+
+    /**
+     * Whether the store holds complete data from {@code start} onwards, i.e. the
+     * range lies inside the hot window and the store has been collecting that long.
+     */
+    public boolean covers(LocalDateTime start) {
+        long from = toEpochMillis(start);
+        return from >= Math.max(startedAtMillis, System.currentTimeMillis() - hotWindowMillis);
+    }
+
+    /**
+     * Drops all series for a project
+     */
+    public void removeProject(String projectId) {
+        seriesByProject.compute(projectId, (p, keys) -> {
+            if (keys != null) {
+                keys.forEach(series::remove);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Removes series that have not been written to within the hot window
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredSeries() {
+        long cutoff = System.currentTimeMillis() - hotWindowMillis;
+        int removed = 0;
+        for (SeriesBuffer buffer : series.values()) {
+            if (buffer.lastWriteMillis < cutoff) {
+                removeSeries(buffer.key);
+                removed++;
+            } else {
+                buffer.trimOlderThan(cutoff);
+            }
+        }
+        evictionQueue.removeIf(candidate -> series.get(candidate.buffer().key) != candidate.buffer());
+        if (removed > 0) {
+            log.debug("Evicted {} expired metric series, {} remaining", removed, series.size());
+        }
+    }
+
+    public int getSeriesCount() {
+        return series.size();
+    }
+
+    /**
+     * Approximate heap footprint. Buffers are fully preallocated, so this is
+     * proportional to the series count rather than the number of samples held.
+     */
+    public long getFootprintBytes() {
+        return (long) series.size() * ((long) samplesPerSeries * BYTES_PER_SAMPLE + BYTES_PER_SERIES_OVERHEAD);
+    }
+
+    public long getMaxFootprintBytes() {
+        return (long) maxSeries * ((long) samplesPerSeries * BYTES_PER_SAMPLE + BYTES_PER_SERIES_OVERHEAD);
+    }
+
+    private Collection<SeriesBuffer> buffersFor(String projectId) {
+        Set<SeriesKey> keys = seriesByProject.get(projectId);
+        if (keys == null) {
+            return List.of();
+        }
+        List<SeriesBuffer> buffers = new ArrayList<>(keys.size());
+        for (SeriesKey key : keys) {
+            SeriesBuffer buffer = series.get(key);
+            if (buffer != null) {
+                buffers.add(buffer);
+            }
+        }
+        return buffers;
+    }
+
+    /**
+     * Creates the series and adds it to the project index under the index
+     * entry's lock, so a concurrent removal cannot orphan either side
+     */
+    private SeriesBuffer createSeries(SeriesKey key, ResourceMetric metric) {
+        SeriesBuffer[] created = new SeriesBuffer[1];
+        seriesByProject.compute(key.getProjectId(), (p, keys) -> {
+            Set<SeriesKey> projectKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            created[0] = series.computeIfAbsent(key, k -> {
+                SeriesBuffer buffer = new SeriesBuffer(k, metric.getMetricType(), metric.getUnit(), samplesPerSeries);
+                // Queued as of the sample that creates it
+                evictionQueue.add(new EvictionCandidate(buffer, 1));
+                return buffer;
+            });
+            projectKeys.add(key);
+            return projectKeys;
+        });
+        return created[0];
+    }
+
+    private void evictLeastRecentlyWritten() {
+        EvictionCandidate candidate;
+        while ((candidate = evictionQueue.poll()) != null) {
+            SeriesBuffer buffer = candidate.buffer();
+            if (series.get(buffer.key) != buffer) {
+                continue;
+            }
+            long writes = buffer.writes;
+            if (writes != candidate.writes()) {
+                // Written since it was queued, give it another round
+                evictionQueue.add(new EvictionCandidate(buffer, writes));
+                continue;
+            }
+            removeSeries(buffer.key);
+            evictedSeries.incrementAndGet();
+            return;
+        }
+    }
+
+    private void removeSeries(SeriesKey key) {
+        seriesByProject.compute(key.getProjectId(), (p, keys) -> {
+            series.remove(key);
+            if (keys == null) {
+                return null;
+            }
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private record EvictionCandidate(SeriesBuffer buffer, long writes) {
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+
+    /**
+     * Fixed-capacity ring of samples for one series. Writes overwrite the oldest slot.
+     */
+    private final class SeriesBuffer {
+        private final SeriesKey key;
+        private final ResourceMetric.MetricType metricType;
+        private final String unit;
+        private final long[] timestamps;
+        private final double[] values;
+        private int head;
+        private int size;
+        private volatile long lastWriteMillis;
+        private volatile long writes;
+
+        SeriesBuffer(SeriesKey key, ResourceMetric.MetricType metricType, String unit, int capacity) {
+            this.key = key;
+            this.metricType = metricType;
+            this.unit = unit;
+            this.timestamps = new long[capacity];
+            this.values = new double[capacity];
+        }
+
+        synchronized void append(long timestamp, double value) {
+            timestamps[head] = timestamp;
+            values[head] = value;
+            head = (head + 1) % timestamps.length;
+            if (size < timestamps.length) {
+                size++;
+            }
+            lastWriteMillis = System.currentTimeMillis();
+            writes++;
+        }
+
+        synchronized Optional<MetricSample> latest() {
+            if (size == 0) {
+                return Optional.empty();
+            }
+            int index = (head - 1 + timestamps.length) % timestamps.length;
+            return Optional.of(toSample(index));
+        }
+
+        synchronized void collect(long from, long to, List<MetricSample> out) {
+            for (int i = 0; i < size; i++) {
+                int index = slot(i);
+                if (timestamps[index] >= from && timestamps[index] <= to) {
+                    out.add(toSample(index));
+                }
+            }
+        }
+
+        synchronized void visitAfter(long after, SampleVisitor visitor) {
+            for (int i = 0; i < size; i++) {
+                int index = slot(i);
+                if (timestamps[index] > after) {
+                    visitor.visit(key, metricType, unit, timestamps[index], values[index]);
+                }
+            }
+        }
+
+        synchronized void accumulate(long from, long to, SeriesStats.Accumulator accumulator) {
+            for (int i = 0; i < size; i++) {
+                int index = slot(i);
+                if (timestamps[index] >= from && timestamps[index] <= to) {
+                    accumulator.add(timestamps[index], values[index]);
+                }
+            }
+        }
+
+        synchronized void trimOlderThan(long cutoff) {
+            while (size > 0 && timestamps[slot(0)] < cutoff) {
+                size--;
+            }
+        }
+
+        // i-th oldest sample
+        private int slot(int i) {
+            return (head - size + i + timestamps.length) % timestamps.length;
+        }
+
+        private MetricSample toSample(int index) {
+            return new MetricSample(key.getProjectId(), key.getContainerId(), key.getMetricName(),
+                metricType, unit, values[index], toLocalDateTime(timestamps[index]));
+        }
+    }
+
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(SeriesKey key, ResourceMetric.MetricType metricType, String unit, long timestampMillis, double value);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SeriesKey {
+        private final String projectId;
+        private final String containerId;
+        private final String metricName;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SeriesKey other)) return false;
+            return projectId.equals(other.projectId)
+                && Objects.equals(containerId, other.containerId)
+                && metricName.equals(other.metricName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, containerId, metricName);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class MetricSample {
+        private final String projectId;
+        private final String containerId;
+        private final String metricName;
+        private final ResourceMetric.MetricType metricType;
+        private final String unit;
+        private final double value;
+        private final LocalDateTime recordedAt;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SeriesStats {
+        private final long count;
+        private final double min;
+        private final double max;
+        private final double sum;
+        private final double last;
+
+        public double getAvg() {
+            return count > 0 ? sum / count : 0.0;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        static class Accumulator {
+            private long count;
+            private double min = Double.POSITIVE_INFINITY;
+            private double max = Double.NEGATIVE_INFINITY;
+            private double sum;
+            private double last;
+            private long lastTimestamp = Long.MIN_VALUE;
+
+            void add(long timestamp, double value) {
+                count++;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += value;
+                if (timestamp >= lastTimestamp) {
+                    lastTimestamp = timestamp;
+                    last = value;
+                }
+            }
+
+            SeriesStats toStats() {
+                return count == 0
+                    ? new SeriesStats(0, 0.0, 0.0, 0.0, 0.0)
+                    : new SeriesStats(count, min, max, sum, last);
+            }
+        }
+    }
+}
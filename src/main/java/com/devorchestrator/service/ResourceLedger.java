@@ -0,0 +1,261 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.exception.InsufficientResourcesException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admission ledger for host resources. All reserved resources are kept in
+ * one immutable snapshot that is replaced with compare-and-set, so a
+ * reservation takes CPU, memory, disk and ports together or nothing at all.
+ * Requests that do not fit wait in line and are admitted in arrival order
+ * as resources are released. Reservations expire after their TTL unless
+ * committed, so creations that never finish give their resources back.
+ */
+class ResourceLedger {
+
+    /**
+     * Amounts of each resource; CPU in thousandths of a core
+     */
+    record Resources(long cpuMillis, long memoryMb, long diskMb, long ports) {
+
+        static final Resources NONE = new Resources(0, 0, 0, 0);
+
+        Resources plus(Resources other) {
+            return new Resources(cpuMillis + other.cpuMillis, memoryMb + other.memoryMb,
+                diskMb + other.diskMb, ports + other.ports);
+        }
+
+        Resources minus(Resources other) {
+            return new Resources(Math.max(0, cpuMillis - other.cpuMillis), Math.max(0, memoryMb - other.memoryMb),
+                Math.max(0, diskMb - other.diskMb), Math.max(0, ports - other.ports));
+        }
+
+        boolean fitsIn(Resources capacity) {
+            return cpuMillis <= capacity.cpuMillis && memoryMb <= capacity.memoryMb
+                && diskMb <= capacity.diskMb && ports <= capacity.ports;
+        }
+    }
+
+    private record Reservation(Resources resources, long expiresAt) {
+    }
+
+    private record Waiter(String key, Resources resources, long deadline, CompletableFuture<Void> admitted) {
+    }
+
+    private final long ttlMillis;
+    private final long queueTimeoutMillis;
+    private final int queueCapacity;
+
+    private volatile Resources capacity;
+    private final AtomicReference<Resources> reserved = new AtomicReference<>(Resources.NONE);
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    ResourceLedger(Resources capacity, long ttlMillis, long queueTimeoutMillis, int queueCapacity) {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Reserves the resources under the key, or queues the request until they
+     * are available
+     *
+     * @return a future completed once the resources are reserved, or failed
+     *         if they did not become available within the queue timeout;
+     *         completed right away if the key already holds them
+     * @throws InsufficientResourcesException if the request exceeds the
+     *         capacity of the host or the queue is full
+     */
+    CompletableFuture<Void> reserve(String key, Resources request) {
+        if (!request.fitsIn(capacity)) {
+            throw new InsufficientResourcesException(String.format(
+                "Requested %s exceeds the capacity of the host %s", request, capacity));
+        }
+
+        // E.g. a reservation transferred from a claimed standby
+        Reservation existing = reservations.get(key);
+        if (existing != null && request.fitsIn(existing.resources())) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Only take the fast path when nobody is waiting, so queued requests keep their turn
+        boolean queued;
+        synchronized (waiters) {
+            queued = !waiters.isEmpty();
+        }
+        if (!queued && tryReserve(key, request)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> admitted = new CompletableFuture<>();
+        synchronized (waiters) {
+            if (waiters.size() >= queueCapacity) {
+                throw new InsufficientResourcesException(String.format(
+                    "Host is at capacity and %d requests are already waiting for resources", waiters.size()));
+            }
+            waiters.addLast(new Waiter(key, request, System.currentTimeMillis() + queueTimeoutMillis, admitted));
+        }
+        admitWaiters();
+        return admitted;
+    }
+
+    /**
+     * Reserves the resources under the key, without expiry, only if they fit
+     * right now and no request is waiting; never queues
+     */
+    boolean reserveIfIdle(String key, Resources request) {
+        synchronized (waiters) {
+            if (!waiters.isEmpty()) {
+                return false;
+            }
+        }
+        if (!tryReserve(key, request)) {
+            return false;
+        }
+        commit(key);
+        return true;
+    }
+
+    /**
+     * Adds a reservation regardless of capacity, for resources already in use
+     */
+    void restore(String key, Resources resources) {
+        if (reservations.putIfAbsent(key, new Reservation(resources, Long.MAX_VALUE)) == null) {
+            reserved.accumulateAndGet(resources, Resources::plus);
+        }
+    }
+
+    /**
+     * Moves a reservation to another key in one step. The reserved total does
+     * not change, so waiting requests cannot take the resources in between.
+     * The moved reservation expires after the TTL unless committed.
+     *
+     * @return false if there is no reservation under {@code from}
+     */
+    boolean transfer(String from, String to) {
+        Reservation reservation = reservations.remove(from);
+        if (reservation == null) {
+            return false;
+        }
+        Reservation previous = reservations.put(to,
+            new Reservation(reservation.resources(), System.currentTimeMillis() + ttlMillis));
+        if (previous != null) {
+            reserved.accumulateAndGet(previous.resources(), Resources::minus);
+            admitWaiters();
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the reservation until it is released
+     */
+    void commit(String key) {
+        reservations.computeIfPresent(key, (k, reservation) -> new Reservation(reservation.resources(), Long.MAX_VALUE));
+    }
+
+    void release(String key) {
+        Reservation reservation = reservations.remove(key);
+        if (reservation != null) {
+            reserved.accumulateAndGet(reservation.resources(), Resources::minus);
+            admitWaiters();
+        }
+    }
+
+    /**
+     * Releases reservations past their TTL and fails requests that waited
+     * longer than the queue timeout
+     *
+     * @return the number of reservations released
+     */
+    int expire(long now) {
+        int expired = 0;
+        for (Map.Entry<String, Reservation> entry : reservations.entrySet()) {
+            if (entry.getValue().expiresAt() < now && reservations.remove(entry.getKey(), entry.getValue())) {
+                reserved.accumulateAndGet(entry.getValue().resources(), Resources::minus);
+                expired++;
+            }
+        }
+
+        List<Waiter> timedOut = new ArrayList<>();
+        synchronized (waiters) {
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (waiter.deadline() < now) {
+                    iterator.remove();
+                    timedOut.add(waiter);
+                }
+            }
+        }
+        timedOut.forEach(waiter -> waiter.admitted().completeExceptionally(new InsufficientResourcesException(
+            String.format("Resources %s did not become available within %d seconds",
+                waiter.resources(), queueTimeoutMillis / 1000))));
+
+        admitWaiters();
+        return expired;
+    }
+
+    void setCapacity(Resources capacity) {
+        this.capacity = capacity;
+        admitWaiters();
+    }
+
+    Resources getCapacity() {
+        return capacity;
+    }
+
+    Resources getReserved() {
+        return reserved.get();
+    }
+
+    int getQueueLength() {
+        synchronized (waiters) {
+            return waiters.size();
+        }
+    }
+
+    private boolean tryReserve(String key, Resources request) {
+        Resources current;
+        Resources updated;
+        do {
+            current = reserved.get();
+            updated = current.plus(request);
+            if (!updated.fitsIn(capacity)) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, updated));
+
+        Reservation previous = reservations.put(key, new Reservation(request, System.currentTimeMillis() + ttlMillis));
+        if (previous != null) {
+            reserved.accumulateAndGet(previous.resources(), Resources::minus);
+        }
+        return true;
+    }
+
+    /**
+     * Admits waiting requests in arrival order while the one at the head fits
+     */
+    private void admitWaiters() {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (waiters) {
+            Waiter head;
+            while ((head = waiters.peekFirst()) != null && tryReserve(head.key(), head.resources())) {
+                waiters.pollFirst();
+                admitted.add(head);
+            }
+        }
+        // Completed outside the lock, dependents start environment creation
+        admitted.forEach(waiter -> waiter.admitted().complete(null));
+    }
+}
@@ -1,16 +1,23 @@
 package com.devorchestrator.service;
 
+import com.devorchestrator.entity.EnvironmentTemplate;
 import com.devorchestrator.exception.InsufficientResourcesException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.OperatingSystemMXBean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
@@ -28,80 +35,111 @@ public class ResourceMonitoringService {
     @Value("${app.resources.max-disk-percent}")
     private int maxDiskPercent;
 
-    private final AtomicLong totalAllocatedMemory = new AtomicLong(0);
-    private final AtomicLong totalAllocatedCpu = new AtomicLong(0);
+    @Value("${app.resources.disk-path:/var/lib/docker}")
+    private String diskPath;
+
+    @Value("${app.resources.disk-per-environment-mb:2048}")
+    private long diskPerEnvironmentMb;
+
+    @Value("${app.docker.port-range-start:8000}")
+    private int portRangeStart;
+
+    @Value("${app.docker.port-range-end:9000}")
+    private int portRangeEnd;
+
+    @Value("${app.resources.reservation-ttl-seconds:1800}")
+    private long reservationTtlSeconds;
+
+    @Value("${app.resources.admission-timeout-seconds:300}")
+    private long admissionTimeoutSeconds;
+
+    @Value("${app.resources.admission-queue-capacity:50}")
+    private int admissionQueueCapacity;
+
+    // Host figures come from procfs when available, otherwise from the JVM's MXBeans
+    @Autowired(required = false)
+    private LinuxResourceSampler resourceSampler;
+
+    private ResourceLedger ledger = new ResourceLedger(ResourceLedger.Resources.NONE, 0, 0, 0);
 
     public ResourceMonitoringService() {
         this.osBean = ManagementFactory.getOperatingSystemMXBean();
         this.memoryBean = ManagementFactory.getMemoryMXBean();
     }
 
-    public boolean hasAvailableResources(int cpuMb, long memoryMb) {
-        return hasAvailableCpu(cpuMb) && hasAvailableMemory(memoryMb);
+    @PostConstruct
+    public void initializeLedger() {
+        this.ledger = new ResourceLedger(hostCapacity(), reservationTtlSeconds * 1000,
+            admissionTimeoutSeconds * 1000, admissionQueueCapacity);
+        log.info("Resource admission initialized with capacity {}", ledger.getCapacity());
     }
 
-    public boolean hasAvailableCpu(int cpuMb) {
-        double currentCpuUsage = getCurrentCpuUsage();
-        double proposedUsage = currentCpuUsage + (cpuMb / 1000.0); // Convert MB to percentage approximation
-        
-        boolean available = proposedUsage <= (maxCpuPercent / 100.0);
-        
-        if (!available) {
-            log.warn("Insufficient CPU: current={}%, requested={}MB, max={}%", 
-                currentCpuUsage * 100, cpuMb, maxCpuPercent);
+    /**
+     * Reserves the CPU, memory, disk and host ports an environment of the
+     * template needs, all at once. The returned future completes when the
+     * resources are reserved, which may be after other environments release
+     * theirs; it fails if they do not become available in time.
+     *
+     * @throws InsufficientResourcesException if the template can never fit
+     *         on this host or too many creations are already waiting
+     */
+    public CompletableFuture<Void> reserveResources(String environmentId, EnvironmentTemplate template) {
+        ResourceLedger.Resources request = resourcesOf(template);
+        CompletableFuture<Void> admitted = ledger.reserve(environmentId, request);
+        if (!admitted.isDone()) {
+            log.info("Environment {} waits for resources {}, {} creations in line",
+                environmentId, request, ledger.getQueueLength());
         }
-        
-        return available;
+        return admitted;
     }
 
-    public boolean hasAvailableMemory(long memoryMb) {
-        long availableMemory = getAvailableMemoryMb();
-        long currentAllocated = totalAllocatedMemory.get();
-        long totalRequired = currentAllocated + memoryMb;
-        long maxAllowedMemory = (getTotalSystemMemoryMb() * maxMemoryPercent) / 100;
-        
-        boolean available = totalRequired <= maxAllowedMemory && memoryMb <= availableMemory;
-        
-        if (!available) {
-            log.warn("Insufficient memory: available={}MB, requested={}MB, allocated={}MB, max={}MB", 
-                availableMemory, memoryMb, currentAllocated, maxAllowedMemory);
-        }
-        
-        return available;
+    /**
+     * Reserves the resources of a standby environment if they are free right
+     * now. Standbys never wait for resources, so they cannot hold back the
+     * creation of a requested environment.
+     */
+    public boolean reserveStandbyResources(String key, EnvironmentTemplate template) {
+        return ledger.reserveIfIdle(key, resourcesOf(template));
     }
 
-    public void allocateResources(int cpuMb, long memoryMb) {
-        if (!hasAvailableResources(cpuMb, memoryMb)) {
-            throw new InsufficientResourcesException(
-                String.format("Cannot allocate resources: CPU=%dMB, Memory=%dMB", cpuMb, memoryMb)
-            );
-        }
-        
-        totalAllocatedCpu.addAndGet(cpuMb);
-        totalAllocatedMemory.addAndGet(memoryMb);
-        
-        log.debug("Allocated resources: CPU={}MB, Memory={}MB. Total allocated: CPU={}MB, Memory={}MB",
-            cpuMb, memoryMb, totalAllocatedCpu.get(), totalAllocatedMemory.get());
+    /**
+     * Moves the reservation of a claimed standby to the environment claiming
+     * it, without releasing the resources to waiting creations in between.
+     * The environment's own reservation then completes right away.
+     *
+     * @return false if the standby holds no reservation
+     */
+    public boolean transferResources(String standbyKey, String environmentId) {
+        return ledger.transfer(standbyKey, environmentId);
     }
 
-    public void releaseResources(int cpuMb, long memoryMb) {
-        totalAllocatedCpu.addAndGet(-cpuMb);
-        totalAllocatedMemory.addAndGet(-memoryMb);
-        
-        // Ensure values don't go negative
-        if (totalAllocatedCpu.get() < 0) {
-            totalAllocatedCpu.set(0);
-        }
-        if (totalAllocatedMemory.get() < 0) {
-            totalAllocatedMemory.set(0);
-        }
-        
-        log.debug("Released resources: CPU={}MB, Memory={}MB. Total allocated: CPU={}MB, Memory={}MB",
-            cpuMb, memoryMb, totalAllocatedCpu.get(), totalAllocatedMemory.get());
+    /**
+     * Keeps the reservation of a created environment until it is released
+     */
+    public void commitResources(String environmentId) {
+        ledger.commit(environmentId);
+    }
+
+    /**
+     * Re-reserves the resources of environments that existed before a restart
+     */
+    public void restoreResources(String environmentId, EnvironmentTemplate template) {
+        ledger.restore(environmentId, resourcesOf(template));
+    }
+
+    public void releaseResources(String environmentId) {
+        ledger.release(environmentId);
+        log.debug("Released resources of environment {}. Total reserved: {}", environmentId, ledger.getReserved());
     }
 
     @Scheduled(fixedRateString = "${app.environment.resource-check-interval:30}000")
     public void monitorSystemResources() {
+        ledger.setCapacity(hostCapacity());
+        int expired = ledger.expire(System.currentTimeMillis());
+        if (expired > 0) {
+            log.warn("Released {} resource reservations of environment creations that did not finish in time", expired);
+        }
+
         double cpuUsage = getCurrentCpuUsage();
         long memoryUsage = getCurrentMemoryUsageMb();
         long totalMemory = getTotalSystemMemoryMb();
@@ -115,12 +153,16 @@ public class ResourceMonitoringService {
             log.warn("High memory usage detected: {:.1f}% (threshold: {}%)", memoryPercentage, maxMemoryPercent);
         }
         
-        log.debug("System resources: CPU={:.1f}%, Memory={:.1f}% ({}/{}MB), Allocated: CPU={}MB, Memory={}MB",
+        log.debug("System resources: CPU={:.1f}%, Memory={:.1f}% ({}/{}MB), Allocated: CPU={} millicores, Memory={}MB",
             cpuUsage * 100, memoryPercentage, memoryUsage, totalMemory, 
-            totalAllocatedCpu.get(), totalAllocatedMemory.get());
+            ledger.getReserved().cpuMillis(), ledger.getReserved().memoryMb());
     }
 
     public double getCurrentCpuUsage() {
+        Optional<LinuxResourceSampler.HostSample> host = hostSample();
+        if (host.isPresent()) {
+            return host.get().cpuPercent() / 100.0;
+        }
         if (osBean instanceof com.sun.management.OperatingSystemMXBean sunOsBean) {
             return sunOsBean.getProcessCpuLoad();
         }
@@ -128,6 +170,10 @@ public class ResourceMonitoringService {
     }
 
     public long getCurrentMemoryUsageMb() {
+        Optional<LinuxResourceSampler.HostSample> host = hostSample();
+        if (host.isPresent()) {
+            return host.get().memoryUsedBytes() / (1024 * 1024);
+        }
         return (memoryBean.getHeapMemoryUsage().getUsed() + 
                 memoryBean.getNonHeapMemoryUsage().getUsed()) / (1024 * 1024);
     }
@@ -136,12 +182,16 @@ public class ResourceMonitoringService {
         long totalMemory = getTotalSystemMemoryMb();
         long usedMemory = getCurrentMemoryUsageMb();
         long maxAllowedMemory = (totalMemory * maxMemoryPercent) / 100;
-        long allocatedMemory = totalAllocatedMemory.get();
+        long allocatedMemory = ledger.getReserved().memoryMb();
         
         return Math.max(0, Math.min(totalMemory - usedMemory, maxAllowedMemory - allocatedMemory));
     }
 
     public long getTotalSystemMemoryMb() {
+        Optional<LinuxResourceSampler.HostSample> host = hostSample();
+        if (host.isPresent() && host.get().memoryTotalBytes() > 0) {
+            return host.get().memoryTotalBytes() / (1024 * 1024);
+        }
         if (osBean instanceof com.sun.management.OperatingSystemMXBean sunOsBean) {
             return sunOsBean.getTotalPhysicalMemorySize() / (1024 * 1024);
         }
@@ -160,8 +210,8 @@ public class ResourceMonitoringService {
             .memoryUsageMb(getCurrentMemoryUsageMb())
             .totalMemoryMb(getTotalSystemMemoryMb())
             .availableMemoryMb(getAvailableMemoryMb())
-            .allocatedCpuMb(totalAllocatedCpu.get())
-            .allocatedMemoryMb(totalAllocatedMemory.get())
+            .allocatedCpuMillicores(ledger.getReserved().cpuMillis())
+            .allocatedMemoryMb(ledger.getReserved().memoryMb())
             .availableProcessors(getAvailableProcessors())
             .build();
     }
@@ -171,7 +221,7 @@ public class ResourceMonitoringService {
         private final long memoryUsageMb;
         private final long totalMemoryMb;
         private final long availableMemoryMb;
-        private final long allocatedCpuMb;
+        private final long allocatedCpuMillicores;
         private final long allocatedMemoryMb;
         private final int availableProcessors;
 
@@ -180,7 +230,7 @@ public class ResourceMonitoringService {
             this.memoryUsageMb = builder.memoryUsageMb;
             this.totalMemoryMb = builder.totalMemoryMb;
             this.availableMemoryMb = builder.availableMemoryMb;
-            this.allocatedCpuMb = builder.allocatedCpuMb;
+            this.allocatedCpuMillicores = builder.allocatedCpuMillicores;
             this.allocatedMemoryMb = builder.allocatedMemoryMb;
             this.availableProcessors = builder.availableProcessors;
         }
@@ -194,7 +244,7 @@ public class ResourceMonitoringService {
         public long getMemoryUsageMb() { return memoryUsageMb; }
         public long getTotalMemoryMb() { return totalMemoryMb; }
         public long getAvailableMemoryMb() { return availableMemoryMb; }
-        public long getAllocatedCpuMb() { return allocatedCpuMb; }
+        public long getAllocatedCpuMillicores() { return allocatedCpuMillicores; }
         public long getAllocatedMemoryMb() { return allocatedMemoryMb; }
         public int getAvailableProcessors() { return availableProcessors; }
 
@@ -203,7 +253,7 @@ public class ResourceMonitoringService {
             private long memoryUsageMb;
             private long totalMemoryMb;
             private long availableMemoryMb;
-            private long allocatedCpuMb;
+            private long allocatedCpuMillicores;
             private long allocatedMemoryMb;
             private int availableProcessors;
 
@@ -227,8 +277,8 @@ public class ResourceMonitoringService {
                 return this;
             }
 
-            public Builder allocatedCpuMb(long allocatedCpuMb) {
-                this.allocatedCpuMb = allocatedCpuMb;
+            public Builder allocatedCpuMillicores(long allocatedCpuMillicores) {
+                this.allocatedCpuMillicores = allocatedCpuMillicores;
                 return this;
             }
 
@@ -261,4 +311,33 @@ public class ResourceMonitoringService {
     public long getAvailableMemoryMB() {
         return getAvailableMemoryMb();
     }
+
+    private Optional<LinuxResourceSampler.HostSample> hostSample() {
+        return resourceSampler != null ? resourceSampler.getHostSample() : Optional.empty();
+    }
+
+    /**
+     * Resources environments may reserve: the configured share of the
+     * processors, memory and disk of the host, and the host port range
+     */
+    private ResourceLedger.Resources hostCapacity() {
+        File disk = new File(diskPath).exists() ? new File(diskPath) : new File("/");
+        return new ResourceLedger.Resources(
+            getAvailableProcessors() * 1000L * maxCpuPercent / 100,
+            getTotalSystemMemoryMb() * maxMemoryPercent / 100,
+            disk.getTotalSpace() / (1024 * 1024) * maxDiskPercent / 100,
+            portRangeEnd - portRangeStart + 1);
+    }
+
+    private ResourceLedger.Resources resourcesOf(EnvironmentTemplate template) {
+        Map<String, Object> services = ContainerOrchestrationService.parseDockerComposeServices(template.getDockerComposeContent());
+        long ports = services.values().stream()
+            .filter(service -> service instanceof Map<?, ?> config && config.get("ports") instanceof List<?> list && !list.isEmpty())
+            .count();
+        return new ResourceLedger.Resources(
+            Math.round(template.getCpuLimit() * 1000),
+            template.getMemoryLimitMb(),
+            diskPerEnvironmentMb,
+            ports);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.devorchestrator.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Containers of a template created, started and paused ahead of demand.
+ * Docker cannot change the environment variables of a container once
+ * created, so the id of the environment that will claim them is chosen
+ * up front and already passed to the containers.
+ *
+ * @param dockerComposeContent the template content the containers were created from, to detect stale standbys
+ */
+public record StandbyEnvironment(String environmentId,
+                                 String templateId,
+                                 String dockerComposeContent,
+                                 List<Container> containers,
+                                 LocalDateTime createdAt) {
+
+    public record Container(String serviceName, String dockerContainerId, Integer containerPort, Integer hostPort) {
+    }
+}
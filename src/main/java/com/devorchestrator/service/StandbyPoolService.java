@@ -0,0 +1,243 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.EnvironmentTemplate;
+import com.devorchestrator.repository.EnvironmentTemplateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pools of standby environments per template. Creating an environment
+ * claims a standby when one is ready and the pool is refilled in the
+ * background, one standby at a time. Pools have a fixed size when one is
+ * configured for the template, otherwise they follow demand: a template
+ * keeps as many standbys as environments were created from it within the
+ * demand window, up to the per-template and total limits.
+ *
+ * <p>Each standby holds a resource reservation while it waits in the pool,
+ * taken only when the resources are free; a claim transfers the reservation
+ * to the environment, so no queued creation can take the resources in between.
+ */
+@Service
+@Slf4j
+public class StandbyPoolService {
+
+    private final ContainerOrchestrationService containerService;
+    private final EnvironmentTemplateRepository templateRepository;
+    private final ResourceMonitoringService resourceService;
+    private final AppProperties.Environment.StandbyPool config;
+    private final ExecutorService refillExecutor;
+
+    private final Map<String, Deque<StandbyEnvironment>> pools = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Long>> demand = new ConcurrentHashMap<>();
+    // Resource reservation of each pooled standby, by environment id
+    private final Map<String, String> reservations = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public StandbyPoolService(ContainerOrchestrationService containerService,
+                              EnvironmentTemplateRepository templateRepository,
+                              ResourceMonitoringService resourceService,
+                              AppProperties appProperties,
+                              MeterRegistry meterRegistry) {
+        this.containerService = containerService;
+        this.templateRepository = templateRepository;
+        this.resourceService = resourceService;
+        this.config = appProperties.getEnvironment().getStandbyPool();
+        this.refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "standby-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("environment.standby.pool.size", pools, StandbyPoolService::countStandbys)
+            .description("Standby environments ready to be claimed")
+            .register(meterRegistry);
+        this.hitCounter = Counter.builder("environment.standby.claims")
+            .description("Environment creations by whether a standby was available")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("environment.standby.claims")
+            .description("Environment creations by whether a standby was available")
+            .tag("result", "miss")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Removes standby containers left behind by an earlier run. Queued as the
+     * first task of the refill thread, before any standby of this run exists.
+     */
+    @PostConstruct
+    public void removeOrphans() {
+        refillExecutor.execute(() -> {
+            try {
+                int removed = containerService.removeOrphanedStandbys();
+                if (removed > 0) {
+                    log.info("Removed {} standby containers left behind by an earlier run", removed);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to remove standby containers left behind by an earlier run: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+        pools.values().forEach(pool -> {
+            StandbyEnvironment standby;
+            while ((standby = pool.pollFirst()) != null) {
+                destroy(standby);
+            }
+        });
+    }
+
+    /**
+     * Takes a standby of the template for a new environment, if one is ready
+     * and still matches the template, and schedules the pool to be refilled
+     */
+    public Optional<StandbyEnvironment> claim(EnvironmentTemplate template) {
+        demand.computeIfAbsent(template.getId(), id -> new ConcurrentLinkedDeque<>()).addLast(System.currentTimeMillis());
+        if (!config.isEnabled()) {
+            return Optional.empty();
+        }
+
+        Deque<StandbyEnvironment> pool = pools.get(template.getId());
+        StandbyEnvironment standby;
+        while (pool != null && (standby = pool.pollFirst()) != null) {
+            if (Objects.equals(standby.dockerComposeContent(), template.getDockerComposeContent())) {
+                String reservation = reservations.remove(standby.environmentId());
+                if (reservation != null) {
+                    resourceService.transferResources(reservation, standby.environmentId());
+                }
+                hitCounter.increment();
+                refillExecutor.execute(() -> resize(template.getId()));
+                return Optional.of(standby);
+            }
+            log.info("Discarding standby {} of template {}, the template changed since",
+                standby.environmentId(), template.getId());
+            StandbyEnvironment stale = standby;
+            refillExecutor.execute(() -> destroy(stale));
+        }
+
+        missCounter.increment();
+        refillExecutor.execute(() -> resize(template.getId()));
+        return Optional.empty();
+    }
+
+    /**
+     * Resizes all pools to their current target
+     */
+    @Scheduled(fixedDelayString = "${app.environment.standby-pool.refresh-interval:60}000", initialDelay = 60000)
+    public void refresh() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        Set<String> templateIds = new HashSet<>(pools.keySet());
+        templateIds.addAll(demand.keySet());
+        templateIds.addAll(config.getSizes().keySet());
+        templateIds.forEach(templateId -> refillExecutor.execute(() -> resize(templateId)));
+    }
+
+    int targetSize(String templateId) {
+        Integer fixed = config.getSizes().get(templateId);
+        if (fixed != null) {
+            return fixed;
+        }
+        Deque<Long> creations = demand.get(templateId);
+        if (creations == null) {
+            return 0;
+        }
+        long windowStart = System.currentTimeMillis() - config.getDemandWindowMinutes() * 60_000L;
+        while (!creations.isEmpty() && creations.peekFirst() < windowStart) {
+            creations.pollFirst();
+        }
+        return Math.min(config.getMaxPerTemplate(), creations.size());
+    }
+
+    public int getPoolSize(String templateId) {
+        Deque<StandbyEnvironment> pool = pools.get(templateId);
+        return pool != null ? pool.size() : 0;
+    }
+
+    /**
+     * Creates or destroys standbys of the template until its pool has its
+     * target size; runs on the refill thread only
+     */
+    private void resize(String templateId) {
+        Deque<StandbyEnvironment> pool = pools.computeIfAbsent(templateId, id -> new ConcurrentLinkedDeque<>());
+        int target = targetSize(templateId);
+        while (pool.size() > target) {
+            StandbyEnvironment surplus = pool.pollLast();
+            if (surplus != null) {
+                destroy(surplus);
+            }
+        }
+        if (pool.size() >= target || countStandbys(pools) >= config.getMaxTotal()) {
+            return;
+        }
+
+        EnvironmentTemplate template = templateRepository.findById(templateId).orElse(null);
+        if (template == null) {
+            demand.remove(templateId);
+            return;
+        }
+        String reservation = "standby:" + UUID.randomUUID();
+        if (!resourceService.reserveStandbyResources(reservation, template)) {
+            log.debug("Not creating a standby of template {}, its resources are not free", templateId);
+            return;
+        }
+        try {
+            StandbyEnvironment standby = containerService.createStandby(template);
+            reservations.put(standby.environmentId(), reservation);
+            pool.addLast(standby);
+            log.info("Created standby {} of template {} ({} of {})",
+                standby.environmentId(), templateId, pool.size(), target);
+        } catch (Exception e) {
+            resourceService.releaseResources(reservation);
+            log.warn("Failed to create standby for template {}: {}", templateId, e.getMessage());
+            return;
+        }
+
+        // One standby per turn, so refills of other templates are not starved
+        if (pool.size() < target) {
+            refillExecutor.execute(() -> resize(templateId));
+        }
+    }
+
+    private void destroy(StandbyEnvironment standby) {
+        containerService.destroyStandby(standby);
+        releaseReservation(standby);
+    }
+
+    private void releaseReservation(StandbyEnvironment standby) {
+        String reservation = reservations.remove(standby.environmentId());
+        if (reservation != null) {
+            resourceService.releaseResources(reservation);
+        }
+    }
+
+    private static int countStandbys(Map<String, Deque<StandbyEnvironment>> pools) {
+        return pools.values().stream().mapToInt(Deque::size).sum();
+    }
+}
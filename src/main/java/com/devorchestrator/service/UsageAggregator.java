@@ -0,0 +1,127 @@
+package com.devorchestrator.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass aggregation over raw metric samples. Samples are pushed one at
+ * a time in recorded_at order and folded into primitive per-series
+ * accumulators, so memory depends on the number of series and not on the
+ * length of the period.
+ *
+ * <p>Resource-hours use trapezoid integration between consecutive samples of
+ * a series. A gap longer than {@code maxGapSeconds} is treated as the series
+ * being down: it contributes neither to the integral nor to covered time.
+ * The interval between two samples is credited to the later one, so a range
+ * also needs the sample just before it, passed to {@link #seed}; totals of
+ * adjacent ranges then add up to the total of the combined range, as the
+ * minute rollups do.
+ */
+public class UsageAggregator {
+
+    private final long maxGapMillis;
+    private final Map<SeriesKey, SeriesAccumulator> series = new HashMap<>();
+
+    public UsageAggregator(long maxGapSeconds) {
+        this.maxGapMillis = maxGapSeconds * 1000L;
+    }
+
+    public void accept(String containerId, String metricName, long recordedAtMillis, double value) {
+        accumulatorFor(containerId, metricName).add(recordedAtMillis, value, maxGapMillis);
+    }
+
+    /**
+     * Sets the sample preceding the range, which only opens the first interval
+     */
+    public void seed(String containerId, String metricName, long recordedAtMillis, double value) {
+        accumulatorFor(containerId, metricName).seed(recordedAtMillis, value);
+    }
+
+    public int getSeriesCount() {
+        return (int) series.values().stream().filter(acc -> acc.count > 0).count();
+    }
+
+    /**
+     * Totals per metric name, combining the series of all containers
+     */
+    public Map<String, MetricRollupService.MetricSummary> getSummaries() {
+        Map<String, MetricRollupService.MetricSummary> summaries = new HashMap<>();
+        for (Map.Entry<SeriesKey, SeriesAccumulator> entry : series.entrySet()) {
+            SeriesAccumulator acc = entry.getValue();
+            if (acc.count == 0) {
+                continue;
+            }
+            MetricRollupService.MetricSummary summary = new MetricRollupService.MetricSummary(
+                acc.min, acc.max, acc.sum, acc.count, acc.integral, acc.coveredMillis / 1000.0, 1);
+            summaries.merge(entry.getKey().metricName, summary, MetricRollupService.MetricSummary::mergeSeries);
+        }
+        return summaries;
+    }
+
+    private SeriesAccumulator accumulatorFor(String containerId, String metricName) {
+        SeriesKey key = new SeriesKey(containerId != null ? containerId : "", metricName);
+        SeriesAccumulator accumulator = series.get(key);
+        if (accumulator == null) {
+            accumulator = new SeriesAccumulator();
+            series.put(key, accumulator);
+        }
+        return accumulator;
+    }
+
+    private static final class SeriesKey {
+        private final String containerId;
+        private final String metricName;
+        private final int hash;
+
+        SeriesKey(String containerId, String metricName) {
+            this.containerId = containerId;
+            this.metricName = metricName;
+            this.hash = 31 * containerId.hashCode() + metricName.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SeriesKey)) return false;
+            SeriesKey other = (SeriesKey) o;
+            return containerId.equals(other.containerId) && metricName.equals(other.metricName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class SeriesAccumulator {
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private long count;
+        private double integral;
+        private long coveredMillis;
+        private long lastAt = Long.MIN_VALUE;
+        private double lastValue;
+
+        void seed(long at, double value) {
+            lastAt = at;
+            lastValue = value;
+        }
+
+        void add(long at, double value, long maxGapMillis) {
+            if (lastAt != Long.MIN_VALUE) {
+                long gap = at - lastAt;
+                if (gap > 0 && gap <= maxGapMillis) {
+                    integral += (lastValue + value) / 2.0 * (gap / 1000.0);
+                    coveredMillis += gap;
+                }
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+            lastAt = at;
+            lastValue = value;
+        }
+    }
+}
@@ -1,21 +1,39 @@
 package com.devorchestrator.service;
 
+import com.devorchestrator.config.AppProperties;
 import com.devorchestrator.entity.*;
 import com.devorchestrator.repository.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @Slf4j
@@ -23,9 +41,20 @@ import java.util.stream.Collectors;
 public class UsageAnalyticsService {
     
     private final UsageReportRepository usageReportRepository;
-    private final ResourceMetricRepository metricRepository;
+    private final MetricRollupService metricRollupService;
     private final ProjectRegistrationRepository projectRepository;
     private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor reportExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties.Reports reportProps;
+    private final MeterRegistry meterRegistry;
+    
+    // Per-project, per-day usage totals shared by the scheduled report runs; only the last DAILY_USAGE_CACHE_DAYS days are kept
+    private final Map<String, Map<LocalDate, Map<String, MetricRollupService.MetricSummary>>> dailyUsageCache =
+        new ConcurrentHashMap<>();
+    private final Deque<ReportRun> recentRuns = new ArrayDeque<>();
+    
+    private static final int DAILY_USAGE_CACHE_DAYS = 32;
     
     // Cost factors per unit (example values, should be configurable)
     private static final BigDecimal CPU_HOUR_COST = new BigDecimal("0.05");
@@ -34,13 +63,21 @@ public class UsageAnalyticsService {
     private static final BigDecimal NETWORK_GB_COST = new BigDecimal("0.12");
     
     public UsageAnalyticsService(UsageReportRepository usageReportRepository,
-                               ResourceMetricRepository metricRepository,
+                               MetricRollupService metricRollupService,
                                ProjectRegistrationRepository projectRepository,
-                               ObjectMapper objectMapper) {
+                               ObjectMapper objectMapper,
+                               @Qualifier("reportTaskExecutor") ThreadPoolTaskExecutor reportExecutor,
+                               PlatformTransactionManager transactionManager,
+                               AppProperties appProperties,
+                               MeterRegistry meterRegistry) {
         this.usageReportRepository = usageReportRepository;
-        this.metricRepository = metricRepository;
+        this.metricRollupService = metricRollupService;
         this.projectRepository = projectRepository;
         this.objectMapper = objectMapper;
+        this.reportExecutor = reportExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reportProps = appProperties.getReports();
+        this.meterRegistry = meterRegistry;
     }
     
     /**
@@ -70,14 +107,17 @@ public class UsageAnalyticsService {
             .reportType(reportType)
             .build();
         
+        // Per-metric totals, read from the coarsest rollups covering the period
+        Map<String, MetricRollupService.MetricSummary> usage = getPeriodUsage(projectId, startTime, endTime);
+        
         // Calculate resource usage
-        calculateResourceUsage(report, projectId, startTime, endTime);
+        calculateResourceUsage(report, usage);
         
         // Calculate service metrics
-        calculateServiceMetrics(report, projectId, startTime, endTime);
+        calculateServiceMetrics(report, usage, startTime, endTime);
         
         // Calculate peak usage
-        calculatePeakUsage(report, projectId, startTime, endTime);
+        calculatePeakUsage(report, usage);
         
         // Calculate availability
         calculateAvailability(report, projectId, startTime, endTime);
@@ -91,70 +131,52 @@ public class UsageAnalyticsService {
     /**
      * Calculate resource usage metrics
      */
-    private void calculateResourceUsage(UsageReport report, String projectId, 
-                                      LocalDateTime startTime, LocalDateTime endTime) {
+    private void calculateResourceUsage(UsageReport report, Map<String, MetricRollupService.MetricSummary> usage) {
         // CPU usage
-        List<ResourceMetric> cpuMetrics = metricRepository
-            .findByProjectIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtDesc(
-                projectId, ResourceMetric.MetricType.CPU, startTime, endTime);
-        
-        if (!cpuMetrics.isEmpty()) {
-            BigDecimal totalCpuHours = calculateResourceHours(cpuMetrics, "cpu_usage_percent", 100);
-            report.setTotalCpuHours(totalCpuHours);
+        MetricRollupService.MetricSummary cpu = usage.get("cpu_usage_percent");
+        if (cpu != null) {
+            report.setTotalCpuHours(toResourceHours(cpu, 100));
         }
         
         // Memory usage
-        List<ResourceMetric> memoryMetrics = metricRepository
-            .findByProjectIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtDesc(
-                projectId, ResourceMetric.MetricType.MEMORY, startTime, endTime);
-        
-        if (!memoryMetrics.isEmpty()) {
-            BigDecimal totalMemoryGbHours = calculateResourceHours(memoryMetrics, "memory_used_mb", 1024);
-            report.setTotalMemoryGbHours(totalMemoryGbHours);
+        MetricRollupService.MetricSummary memory = usage.get("memory_used_mb");
+        if (memory != null) {
+            report.setTotalMemoryGbHours(toResourceHours(memory, 1024));
         }
         
         // Network usage
-        List<ResourceMetric> networkMetrics = metricRepository
-            .findByProjectIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtDesc(
-                projectId, ResourceMetric.MetricType.NETWORK, startTime, endTime);
-        
-        if (!networkMetrics.isEmpty()) {
-            BigDecimal totalNetworkGb = calculateTotalUsage(networkMetrics, 
-                Arrays.asList("network_in_mb", "network_out_mb"), 1024);
-            report.setTotalNetworkGb(totalNetworkGb);
+        if (usage.containsKey("network_in_mb") || usage.containsKey("network_out_mb")) {
+            report.setTotalNetworkGb(calculateTotalUsage(usage, 
+                Arrays.asList("network_in_mb", "network_out_mb"), 1024));
         }
         
         // Storage usage
-        List<ResourceMetric> diskMetrics = metricRepository
-            .findByProjectIdAndMetricTypeAndRecordedAtBetweenOrderByRecordedAtDesc(
-                projectId, ResourceMetric.MetricType.DISK, startTime, endTime);
-        
-        if (!diskMetrics.isEmpty()) {
-            BigDecimal totalStorageGb = calculateTotalUsage(diskMetrics, 
-                Arrays.asList("disk_read_mb", "disk_write_mb"), 1024);
-            report.setTotalStorageGb(totalStorageGb);
+        if (usage.containsKey("disk_read_mb") || usage.containsKey("disk_write_mb")) {
+            report.setTotalStorageGb(calculateTotalUsage(usage, 
+                Arrays.asList("disk_read_mb", "disk_write_mb"), 1024));
         }
     }
     
     /**
      * Calculate service-level metrics
      */
-    private void calculateServiceMetrics(UsageReport report, String projectId,
+    private void calculateServiceMetrics(UsageReport report, Map<String, MetricRollupService.MetricSummary> usage,
                                        LocalDateTime startTime, LocalDateTime endTime) {
-        // Calculate uptime hours
+        // Uptime is the time the containers were reporting CPU samples, averaged over containers
         long totalMinutes = ChronoUnit.MINUTES.between(startTime, endTime);
-        Long metricCount = metricRepository.countByProjectIdAndRecordedAtBetween(
-            projectId, startTime, endTime);
+        MetricRollupService.MetricSummary cpu = usage.get("cpu_usage_percent");
+        double uptimeSeconds = cpu != null ? cpu.getUptimeSeconds() : 0.0;
         
-        // Assuming metrics are collected every 30 seconds
-        BigDecimal uptimeHours = new BigDecimal(metricCount * 0.5 / 60)
-            .setScale(4, RoundingMode.HALF_UP);
+        BigDecimal totalHours = new BigDecimal(totalMinutes).divide(new BigDecimal(60), 4, RoundingMode.HALF_UP);
+        BigDecimal uptimeHours = BigDecimal.valueOf(uptimeSeconds / 3600.0)
+            .setScale(4, RoundingMode.HALF_UP)
+            .min(totalHours);
         report.setTotalUptimeHours(uptimeHours);
         
         // Calculate availability percentage
-        BigDecimal totalHours = new BigDecimal(totalMinutes).divide(new BigDecimal(60), 4, RoundingMode.HALF_UP);
-        BigDecimal availabilityPercent = uptimeHours.divide(totalHours, 2, RoundingMode.HALF_UP)
-            .multiply(new BigDecimal("100"));
+        BigDecimal availabilityPercent = totalHours.signum() > 0
+            ? uptimeHours.multiply(new BigDecimal("100")).divide(totalHours, 2, RoundingMode.HALF_UP)
+            : BigDecimal.ZERO;
         report.setAvailabilityPercent(availabilityPercent);
         
         // Calculate downtime
@@ -170,20 +192,17 @@ public class UsageAnalyticsService {
     /**
      * Calculate peak usage values
      */
-    private void calculatePeakUsage(UsageReport report, String projectId,
-                                  LocalDateTime startTime, LocalDateTime endTime) {
+    private void calculatePeakUsage(UsageReport report, Map<String, MetricRollupService.MetricSummary> usage) {
         // Peak CPU
-        Double peakCpu = metricRepository.getMaxMetricValue(
-            projectId, "cpu_usage_percent", startTime, endTime);
-        if (peakCpu != null) {
-            report.setPeakCpuPercent(BigDecimal.valueOf(peakCpu).setScale(2, RoundingMode.HALF_UP));
+        MetricRollupService.MetricSummary cpu = usage.get("cpu_usage_percent");
+        if (cpu != null) {
+            report.setPeakCpuPercent(BigDecimal.valueOf(cpu.getMax()).setScale(2, RoundingMode.HALF_UP));
         }
         
         // Peak Memory
-        Double peakMemory = metricRepository.getMaxMetricValue(
-            projectId, "memory_used_mb", startTime, endTime);
-        if (peakMemory != null) {
-            report.setPeakMemoryMb(peakMemory.intValue());
+        MetricRollupService.MetricSummary memory = usage.get("memory_used_mb");
+        if (memory != null) {
+            report.setPeakMemoryMb((int) memory.getMax());
         }
         
         // Peak concurrent users (placeholder)
@@ -244,54 +263,25 @@ public class UsageAnalyticsService {
     }
     
     /**
-     * Calculate resource hours from metrics
+     * Calculate resource hours from the time-weighted integral of a metric
      */
-    private BigDecimal calculateResourceHours(List<ResourceMetric> metrics, 
-                                            String metricName, int divisor) {
-        BigDecimal totalHours = BigDecimal.ZERO;
-        
-        Map<String, List<ResourceMetric>> metricsByName = metrics.stream()
-            .filter(m -> m.getMetricName().equals(metricName))
-            .collect(Collectors.groupingBy(ResourceMetric::getContainerId));
-        
-        for (List<ResourceMetric> containerMetrics : metricsByName.values()) {
-            for (int i = 0; i < containerMetrics.size() - 1; i++) {
-                ResourceMetric current = containerMetrics.get(i);
-                ResourceMetric next = containerMetrics.get(i + 1);
-                
-                long minutesBetween = ChronoUnit.MINUTES.between(
-                    next.getRecordedAt(), current.getRecordedAt());
-                
-                BigDecimal avgValue = current.getValue().add(next.getValue())
-                    .divide(new BigDecimal(2), 4, RoundingMode.HALF_UP);
-                
-                BigDecimal hours = new BigDecimal(minutesBetween)
-                    .divide(new BigDecimal(60), 4, RoundingMode.HALF_UP);
-                
-                BigDecimal resourceHours = avgValue.multiply(hours)
-                    .divide(new BigDecimal(divisor), 4, RoundingMode.HALF_UP);
-                
-                totalHours = totalHours.add(resourceHours);
-            }
-        }
-        
-        return totalHours;
+    private BigDecimal toResourceHours(MetricRollupService.MetricSummary summary, int divisor) {
+        return BigDecimal.valueOf(summary.getValueHours())
+            .divide(new BigDecimal(divisor), 4, RoundingMode.HALF_UP);
     }
     
     /**
-     * Calculate total usage from metrics
+     * Calculate total usage from metric sums
      */
-    private BigDecimal calculateTotalUsage(List<ResourceMetric> metrics, 
+    private BigDecimal calculateTotalUsage(Map<String, MetricRollupService.MetricSummary> usage, 
                                          List<String> metricNames, int divisor) {
         BigDecimal total = BigDecimal.ZERO;
         
         for (String metricName : metricNames) {
-            BigDecimal metricTotal = metrics.stream()
-                .filter(m -> m.getMetricName().equals(metricName))
-                .map(ResourceMetric::getValue)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            total = total.add(metricTotal);
+            MetricRollupService.MetricSummary summary = usage.get(metricName);
+            if (summary != null) {
+                total = total.add(BigDecimal.valueOf(summary.getSum()));
+            }
         }
         
         return total.divide(new BigDecimal(divisor), 4, RoundingMode.HALF_UP);
@@ -301,78 +291,180 @@ public class UsageAnalyticsService {
      * Generate daily reports for all active projects
      */
     @Scheduled(cron = "0 0 1 * * *") // Run at 1 AM daily
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void generateDailyReports() {
-        log.info("Starting daily report generation");
-        
         LocalDateTime endTime = LocalDate.now().atStartOfDay();
-        LocalDateTime startTime = endTime.minusDays(1);
-        
-        List<ProjectRegistration> activeProjects = projectRepository
-            .findByStatusAndMonitoringEnabled(
-                ProjectRegistration.ProjectStatus.ACTIVE, true);
-        
-        for (ProjectRegistration project : activeProjects) {
-            try {
-                generateUsageReport(project.getId(), startTime, endTime, 
-                    UsageReport.ReportType.DAILY);
-                log.info("Generated daily report for project: {}", project.getName());
-            } catch (Exception e) {
-                log.error("Error generating daily report for project: {}", 
-                    project.getName(), e);
-            }
-        }
+        runScheduledReports(UsageReport.ReportType.DAILY, endTime.minusDays(1), endTime);
     }
     
     /**
      * Generate weekly reports for all active projects
      */
     @Scheduled(cron = "0 0 2 * * MON") // Run at 2 AM on Mondays
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void generateWeeklyReports() {
-        log.info("Starting weekly report generation");
-        
         LocalDateTime endTime = LocalDate.now().atStartOfDay();
-        LocalDateTime startTime = endTime.minusWeeks(1);
-        
-        List<ProjectRegistration> activeProjects = projectRepository
-            .findByStatusAndMonitoringEnabled(
-                ProjectRegistration.ProjectStatus.ACTIVE, true);
-        
-        for (ProjectRegistration project : activeProjects) {
-            try {
-                generateUsageReport(project.getId(), startTime, endTime, 
-                    UsageReport.ReportType.WEEKLY);
-                log.info("Generated weekly report for project: {}", project.getName());
-            } catch (Exception e) {
-                log.error("Error generating weekly report for project: {}", 
-                    project.getName(), e);
-            }
-        }
+        runScheduledReports(UsageReport.ReportType.WEEKLY, endTime.minusWeeks(1), endTime);
     }
     
     /**
      * Generate monthly reports for all active projects
      */
     @Scheduled(cron = "0 0 3 1 * *") // Run at 3 AM on the 1st of each month
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void generateMonthlyReports() {
-        log.info("Starting monthly report generation");
-        
         LocalDateTime endTime = LocalDate.now().atStartOfDay();
-        LocalDateTime startTime = endTime.minusMonths(1);
-        
+        runScheduledReports(UsageReport.ReportType.MONTHLY, endTime.minusMonths(1), endTime);
+    }
+    
+    /**
+     * Summaries of the most recent scheduled report runs, newest first
+     */
+    public List<ReportRun> getRecentReportRuns() {
+        synchronized (recentRuns) {
+            return new ArrayList<>(recentRuns);
+        }
+    }
+    
+    /**
+     * Fans report generation for every active project out over the report
+     * executor. Each project gets its own timeout, counted from when it
+     * starts running rather than from when it was queued. Executor threads
+     * do not go through the proxy, so each report opens its own transaction.
+     */
+    private ReportRun runScheduledReports(UsageReport.ReportType reportType,
+                                          LocalDateTime startTime, LocalDateTime endTime) {
         List<ProjectRegistration> activeProjects = projectRepository
-            .findByStatusAndMonitoringEnabled(
-                ProjectRegistration.ProjectStatus.ACTIVE, true);
+            .findByMonitoringEnabledTrueAndStatus(ProjectRegistration.ProjectStatus.ACTIVE);
         
+        ReportRun run = new ReportRun(reportType, startTime, endTime, activeProjects.size());
+        synchronized (recentRuns) {
+            recentRuns.addFirst(run);
+            while (recentRuns.size() > reportProps.getRunHistorySize()) {
+                recentRuns.removeLast();
+            }
+        }
+        log.info("Starting {} report generation for {} projects", reportType, activeProjects.size());
+        pruneDailyUsageCache();
+        
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(reportProps.getProjectTimeoutSeconds());
+        List<ProjectTask> tasks = new ArrayList<>(activeProjects.size());
         for (ProjectRegistration project : activeProjects) {
+            ProjectTask task = new ProjectTask(project);
+            task.future = reportExecutor.submit(() -> {
+                task.startedAt = System.nanoTime();
+                return transactionTemplate.execute(status ->
+                    generateUsageReport(project.getId(), startTime, endTime, reportType));
+            });
+            tasks.add(task);
+        }
+        
+        for (ProjectTask task : tasks) {
+            ReportOutcome outcome = awaitReport(task, timeoutNanos);
+            run.record(task.project, outcome);
+            reportCounter(reportType, outcome).increment();
+            if (outcome != ReportOutcome.SUCCEEDED) {
+                log.error("{} report for project {} {}", reportType, task.project.getName(),
+                    outcome == ReportOutcome.TIMED_OUT ? "timed out" : "failed");
+            }
+        }
+        
+        run.finish();
+        Timer.builder("reports.run.duration")
+            .description("Wall time of a scheduled report run")
+            .tag("type", reportType.name().toLowerCase())
+            .register(meterRegistry)
+            .record(Duration.between(run.getStartedAt(), run.getFinishedAt()));
+        log.info("Completed {} report generation: {} succeeded, {} failed, {} timed out in {} ms",
+            reportType, run.getSucceeded(), run.getFailed(), run.getTimedOut(),
+            Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+        return run;
+    }
+    
+    private ReportOutcome awaitReport(ProjectTask task, long timeoutNanos) {
+        while (true) {
+            long waitNanos = task.startedAt == 0
+                ? timeoutNanos
+                : timeoutNanos - (System.nanoTime() - task.startedAt);
             try {
-                generateUsageReport(project.getId(), startTime, endTime, 
-                    UsageReport.ReportType.MONTHLY);
-                log.info("Generated monthly report for project: {}", project.getName());
-            } catch (Exception e) {
-                log.error("Error generating monthly report for project: {}", 
-                    project.getName(), e);
+                task.future.get(Math.max(waitNanos, 0), TimeUnit.NANOSECONDS);
+                return ReportOutcome.SUCCEEDED;
+            } catch (TimeoutException e) {
+                // Still queued behind other projects: keep waiting, the clock starts when it runs
+                if (task.startedAt != 0 && System.nanoTime() - task.startedAt >= timeoutNanos) {
+                    task.future.cancel(true);
+                    return ReportOutcome.TIMED_OUT;
+                }
+            } catch (ExecutionException e) {
+                log.error("Error generating report for project: {}", task.project.getName(), e.getCause());
+                return ReportOutcome.FAILED;
+            } catch (CancellationException e) {
+                return ReportOutcome.FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.future.cancel(true);
+                return ReportOutcome.FAILED;
+            }
+        }
+    }
+    
+    /**
+     * Per-metric totals for a report period. Whole-day periods in the past are
+     * assembled from cached per-day totals, so the daily, weekly and monthly
+     * runs that share days only query each project's usage for a day once.
+     */
+    private Map<String, MetricRollupService.MetricSummary> getPeriodUsage(String projectId,
+                                                                        LocalDateTime startTime,
+                                                                        LocalDateTime endTime) {
+        LocalDate today = LocalDate.now();
+        boolean wholeDays = startTime.equals(startTime.truncatedTo(ChronoUnit.DAYS))
+            && endTime.equals(endTime.truncatedTo(ChronoUnit.DAYS));
+        if (!wholeDays || endTime.toLocalDate().isAfter(today)
+                || startTime.toLocalDate().isBefore(today.minusDays(DAILY_USAGE_CACHE_DAYS))) {
+            return metricRollupService.summarize(projectId, startTime, endTime);
+        }
+        
+        LocalDate startDay = startTime.toLocalDate();
+        LocalDate endDay = endTime.toLocalDate();
+        Map<LocalDate, Map<String, MetricRollupService.MetricSummary>> days =
+            dailyUsageCache.computeIfAbsent(projectId, id -> new ConcurrentHashMap<>());
+        
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate day = startDay; day.isBefore(endDay); day = day.plusDays(1)) {
+            if (!days.containsKey(day)) {
+                firstMissing = firstMissing == null ? day : firstMissing;
+                lastMissing = day;
             }
         }
+        if (firstMissing != null) {
+            days.putAll(metricRollupService.summarizeByDay(projectId, firstMissing, lastMissing.plusDays(1)));
+            pruneDailyUsageCache();
+        }
+        
+        Map<String, MetricRollupService.MetricSummary> usage = new HashMap<>();
+        for (LocalDate day = startDay; day.isBefore(endDay); day = day.plusDays(1)) {
+            days.getOrDefault(day, Map.of()).forEach((name, summary) ->
+                usage.merge(name, summary, MetricRollupService.MetricSummary::merge));
+        }
+        return usage;
+    }
+    
+    /**
+     * Keeps enough days for a monthly report and drops the rest
+     */
+    private void pruneDailyUsageCache() {
+        LocalDate oldest = LocalDate.now().minusDays(DAILY_USAGE_CACHE_DAYS);
+        dailyUsageCache.values().forEach(days -> days.keySet().removeIf(day -> day.isBefore(oldest)));
+        dailyUsageCache.values().removeIf(Map::isEmpty);
+    }
+    
+    private Counter reportCounter(UsageReport.ReportType reportType, ReportOutcome outcome) {
+        return Counter.builder("reports.generated")
+            .description("Scheduled usage reports by outcome")
+            .tag("type", reportType.name().toLowerCase())
+            .tag("outcome", outcome.name().toLowerCase())
+            .register(meterRegistry);
     }
     
     /**
@@ -426,4 +518,78 @@ public class UsageAnalyticsService {
         
         log.info("Completed cleanup of old usage reports");
     }
-}
\ No newline at end of file
+    
+    private enum ReportOutcome {
+        SUCCEEDED,
+        FAILED,
+        TIMED_OUT
+    }
+    
+    private static class ProjectTask {
+        private final ProjectRegistration project;
+        private volatile long startedAt;
+        private Future<?> future;
+        
+        ProjectTask(ProjectRegistration project) {
+            this.project = project;
+        }
+    }
+    
+    /**
+     * Progress and outcome of one scheduled report run
+     */
+    @Getter
+    public static class ReportRun {
+        private final UsageReport.ReportType reportType;
+        private final LocalDateTime periodStart;
+        private final LocalDateTime periodEnd;
+        private final int totalProjects;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private final List<String> failedProjects = Collections.synchronizedList(new ArrayList<>());
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger succeeded = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger failed = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger timedOut = new AtomicInteger();
+        
+        ReportRun(UsageReport.ReportType reportType, LocalDateTime periodStart,
+                  LocalDateTime periodEnd, int totalProjects) {
+            this.reportType = reportType;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.totalProjects = totalProjects;
+        }
+        
+        void record(ProjectRegistration project, ReportOutcome outcome) {
+            switch (outcome) {
+                case SUCCEEDED -> succeeded.incrementAndGet();
+                case TIMED_OUT -> {
+                    timedOut.incrementAndGet();
+                    failedProjects.add(project.getId());
+                }
+                default -> {
+                    failed.incrementAndGet();
+                    failedProjects.add(project.getId());
+                }
+            }
+        }
+        
+        void finish() {
+            finishedAt = LocalDateTime.now();
+        }
+        
+        public int getSucceeded() { return succeeded.get(); }
+        public int getFailed() { return failed.get(); }
+        public int getTimedOut() { return timedOut.get(); }
+        
+        public int getCompleted() {
+            return getSucceeded() + getFailed() + getTimedOut();
+        }
+        
+        public boolean isFinished() {
+            return finishedAt != null;
+        }
+    }
+}
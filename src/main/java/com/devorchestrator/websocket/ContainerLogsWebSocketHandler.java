@@ -1,42 +1,84 @@
 package com.devorchestrator.websocket;
 
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ContainerInstance;
 import com.devorchestrator.entity.Environment;
+import com.devorchestrator.service.ContainerLogStreamService;
 import com.devorchestrator.service.ContainerOrchestrationService;
 import com.devorchestrator.service.EnvironmentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Streams container logs to the browser. Each container is followed once
+ * through {@link ContainerLogStreamService} no matter how many sessions view
+ * it; lines are buffered per session and a single flusher thread batches
+ * them into frames. A session that cannot keep up loses its oldest buffered
+ * lines, and the next frame tells it how many were skipped.
+ */
 @Component
 @Slf4j
 public class ContainerLogsWebSocketHandler implements WebSocketHandler {
 
     private final EnvironmentService environmentService;
     private final ContainerOrchestrationService containerService;
+    private final ContainerLogStreamService logStreamService;
+    private final WebSocketBroadcaster broadcaster;
     private final ObjectMapper objectMapper;
-    private final ScheduledExecutorService executorService;
+    private final ScheduledExecutorService flusher;
+    
+    private final int bufferLines;
+    private final int maxLinesPerFrame;
     
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
     private final Map<String, String> sessionToEnvironment = new ConcurrentHashMap<>();
-    private final Map<String, ScheduledFuture<?>> logStreamTasks = new ConcurrentHashMap<>();
+    private final Map<String, LogViewer> viewers = new ConcurrentHashMap<>();
 
     public ContainerLogsWebSocketHandler(EnvironmentService environmentService,
                                        ContainerOrchestrationService containerService,
+                                       ContainerLogStreamService logStreamService,
+                                       WebSocketBroadcaster broadcaster,
+                                       AppProperties appProperties,
                                        ObjectMapper objectMapper) {
         this.environmentService = environmentService;
         this.containerService = containerService;
+        this.logStreamService = logStreamService;
+        this.broadcaster = broadcaster;
         this.objectMapper = objectMapper;
-        this.executorService = Executors.newScheduledThreadPool(10);
+        
+        AppProperties.WebSocket props = appProperties.getWebsocket();
+        this.bufferLines = props.getLogBufferLines();
+        this.maxLinesPerFrame = props.getLogMaxLinesPerFrame();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushViewers,
+            props.getLogFlushIntervalMs(), props.getLogFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        viewers.values().forEach(LogViewer::close);
+        viewers.clear();
     }
 
     @Override
@@ -56,6 +98,7 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
             
             sessions.put(session.getId(), session);
             sessionToEnvironment.put(session.getId(), environmentId);
+            broadcaster.register(session);
             
             log.info("WebSocket log streaming connection established for environment {} by user {}", 
                 environmentId, userId);
@@ -116,17 +159,28 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
         }
 
         String containerName = (String) payload.get("container");
-        boolean follow = Boolean.TRUE.equals(payload.get("follow"));
-        int tailLines = (Integer) payload.getOrDefault("tail", 100);
+        boolean follow = !Boolean.FALSE.equals(payload.get("follow"));
+        int tailLines = payload.get("tail") instanceof Number tail ? Math.max(0, tail.intValue()) : 100;
 
         try {
-            // Start log streaming task
-            ScheduledFuture<?> task = executorService.scheduleWithFixedDelay(
-                () -> streamContainerLogs(session, environmentId, containerName, tailLines),
-                0, 1, TimeUnit.SECONDS
-            );
+            // Map Docker container ids to service names for the selected containers
+            Map<String, String> containers = new LinkedHashMap<>();
+            for (ContainerInstance container : containerService.getEnvironmentContainers(environmentId)) {
+                if (container.getDockerContainerId() != null
+                        && (containerName == null || containerName.equals(container.getServiceName()))) {
+                    containers.put(container.getDockerContainerId(), container.getServiceName());
+                }
+            }
+            if (containers.isEmpty()) {
+                sendError(session, "No running containers found");
+                return;
+            }
             
-            logStreamTasks.put(session.getId(), task);
+            // Replace any stream this session already had
+            stopViewer(session);
+            LogViewer viewer = new LogViewer(session, environmentId, containers, follow);
+            viewers.put(session.getId(), viewer);
+            viewer.start(tailLines);
             
             Map<String, Object> response = Map.of(
                 "type", "log-stream-started",
@@ -136,19 +190,17 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
                 "timestamp", LocalDateTime.now().toString()
             );
             
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+            broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(response)));
             
         } catch (Exception e) {
             log.error("Failed to start log streaming: {}", e.getMessage());
+            stopViewer(session);
             sendError(session, "Failed to start log streaming");
         }
     }
 
     private void handleStopLogs(WebSocketSession session) {
-        ScheduledFuture<?> task = logStreamTasks.remove(session.getId());
-        if (task != null) {
-            task.cancel(true);
-        }
+        stopViewer(session);
 
         try {
             Map<String, Object> response = Map.of(
@@ -156,7 +208,7 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
                 "timestamp", LocalDateTime.now().toString()
             );
             
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+            broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(response)));
         } catch (IOException e) {
             log.error("Failed to send log stream stop confirmation: {}", e.getMessage());
         }
@@ -167,73 +219,61 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
             "type", "pong",
             "timestamp", LocalDateTime.now().toString()
         );
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(pong)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(pong)));
     }
 
-    private void streamContainerLogs(WebSocketSession session, String environmentId, 
-                                   String containerName, int tailLines) {
-        try {
-            if (!session.isOpen()) {
-                return;
-            }
-
-            // Get container logs (this is a simplified implementation)
-            // In a real implementation, you would use Docker API to stream logs
-            String logs = getContainerLogs(environmentId, containerName, tailLines);
-            
-            if (logs != null && !logs.isEmpty()) {
-                Map<String, Object> logMessage = Map.of(
-                    "type", "container-logs",
-                    "environmentId", environmentId,
-                    "container", containerName != null ? containerName : "all",
-                    "logs", logs,
-                    "timestamp", LocalDateTime.now().toString()
-                );
-                
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(logMessage)));
-            }
-            
-        } catch (Exception e) {
-            log.error("Error streaming container logs: {}", e.getMessage());
-            // Stop streaming on error
-            handleStopLogs(session);
+    private void stopViewer(WebSocketSession session) {
+        LogViewer viewer = viewers.remove(session.getId());
+        if (viewer != null) {
+            viewer.close();
         }
     }
 
-    private String getContainerLogs(String environmentId, String containerName, int tailLines) {
-        // TODO: DOCKER INTEGRATION IMPLEMENTATION REQUIRED
-        // This method currently returns simulated log data for development.
-        // 
-        // PRODUCTION IMPLEMENTATION REQUIREMENTS:
-        // 1. Integrate with Docker API to retrieve actual container logs
-        // 2. Use ContainerOrchestrationService.getContainerLogs() method
-        // 3. Handle log filtering by container name and tail line limits
-        // 4. Stream logs efficiently without loading everything into memory
-        // 5. Handle Docker API errors and network timeouts gracefully
-        // 
-        // CURRENT BEHAVIOR: Returns simulated log messages for testing
-        
-        try {
-            var containers = containerService.getEnvironmentContainers(environmentId);
-            
-            if (containers.isEmpty()) {
-                return null;
-            }
-            
-            // Simulate getting logs
-            StringBuilder logs = new StringBuilder();
-            for (var container : containers) {
-                if (containerName == null || containerName.equals(container.getServiceName())) {
-                    logs.append(String.format("[%s] Container %s is running\n", 
-                        LocalDateTime.now(), container.getServiceName()));
+    /**
+     * Sends one frame per session with buffered lines. A session that still
+     * has an unsent frame queued is skipped, so its lines stay in the bounded
+     * viewer buffer instead of piling up as frames.
+     */
+    private void flushViewers() {
+        for (LogViewer viewer : viewers.values()) {
+            try {
+                WebSocketSession session = viewer.session;
+                if (!session.isOpen() || broadcaster.getQueuedCount(session) > 0) {
+                    continue;
+                }
+                LogBatch batch = viewer.drain(maxLinesPerFrame);
+                if (batch == null) {
+                    continue;
+                }
+                
+                List<Map<String, Object>> lines = new ArrayList<>(batch.lines.size() + 1);
+                if (batch.skipped > 0) {
+                    lines.add(Map.of("stream", "skipped", "line", "... " + batch.skipped + " lines skipped ..."));
+                }
+                for (ContainerLogStreamService.LogLine line : batch.lines) {
+                    lines.add(Map.of(
+                        "container", viewer.containers.getOrDefault(line.getContainerId(), line.getContainerId()),
+                        "stream", line.getStream(),
+                        "line", line.getText()));
                 }
+                
+                Map<String, Object> frame = new LinkedHashMap<>();
+                frame.put("type", "container-logs");
+                frame.put("environmentId", viewer.environmentId);
+                frame.put("lines", lines);
+                frame.put("skipped", batch.skipped);
+                frame.put("timestamp", LocalDateTime.now().toString());
+                broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(frame)));
+                
+                if (batch.ended != null) {
+                    broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(Map.of(
+                        "type", "log-stream-ended",
+                        "container", viewer.containers.getOrDefault(batch.ended, batch.ended),
+                        "timestamp", LocalDateTime.now().toString()))));
+                }
+            } catch (Exception e) {
+                log.debug("Failed to flush logs for session {}: {}", viewer.session.getId(), e.getMessage());
             }
-            
-            return logs.toString();
-            
-        } catch (Exception e) {
-            log.error("Failed to get container logs: {}", e.getMessage());
-            return null;
         }
     }
 
@@ -244,7 +284,7 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
             "timestamp", LocalDateTime.now().toString()
         );
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(confirmation)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(confirmation)));
     }
 
     private void sendError(WebSocketSession session, String message) {
@@ -254,7 +294,7 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
                 "message", message,
                 "timestamp", LocalDateTime.now().toString()
             );
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(error)));
+            broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(error)));
         } catch (IOException e) {
             log.error("Failed to send error message to log streaming session {}: {}", 
                 session.getId(), e.getMessage());
@@ -290,10 +330,107 @@ public class ContainerLogsWebSocketHandler implements WebSocketHandler {
     private void cleanupSession(WebSocketSession session) {
         sessions.remove(session.getId());
         sessionToEnvironment.remove(session.getId());
-        
-        ScheduledFuture<?> task = logStreamTasks.remove(session.getId());
-        if (task != null) {
-            task.cancel(true);
+        stopViewer(session);
+        broadcaster.unregister(session);
+    }
+
+    private static class LogBatch {
+        final List<ContainerLogStreamService.LogLine> lines;
+        final long skipped;
+        final String ended;
+
+        LogBatch(List<ContainerLogStreamService.LogLine> lines, long skipped, String ended) {
+            this.lines = lines;
+            this.skipped = skipped;
+            this.ended = ended;
+        }
+    }
+
+    /**
+     * One session's view of the logs of one or more containers. Lines from
+     * the shared followers land in a bounded buffer; when it is full the
+     * oldest line is dropped and counted as skipped.
+     */
+    private class LogViewer implements ContainerLogStreamService.LogListener {
+        private final WebSocketSession session;
+        private final String environmentId;
+        private final Map<String, String> containers;
+        private final boolean follow;
+        private final Deque<ContainerLogStreamService.LogLine> buffer = new ArrayDeque<>();
+        private long skipped;
+        private String ended;
+        private volatile boolean closed;
+
+        LogViewer(WebSocketSession session, String environmentId, Map<String, String> containers, boolean follow) {
+            this.session = session;
+            this.environmentId = environmentId;
+            this.containers = containers;
+            this.follow = follow;
+        }
+
+        void start(int tailLines) {
+            for (String containerId : containers.keySet()) {
+                if (tailLines > 0) {
+                    logStreamService.fetchTail(containerId, Math.min(tailLines, bufferLines), this);
+                }
+                if (follow) {
+                    logStreamService.subscribe(containerId, this);
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (follow) {
+                for (String containerId : containers.keySet()) {
+                    logStreamService.unsubscribe(containerId, this);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void onLine(ContainerLogStreamService.LogLine line) {
+            if (closed) {
+                return;
+            }
+            if (buffer.size() >= bufferLines) {
+                buffer.pollFirst();
+                skipped++;
+            }
+            buffer.addLast(line);
+        }
+
+        @Override
+        public synchronized void onTail(String containerId, List<ContainerLogStreamService.LogLine> lines) {
+            if (closed) {
+                return;
+            }
+            // History goes before any followed lines that arrived while the tail was being read
+            for (int i = lines.size() - 1; i >= 0 && buffer.size() < bufferLines; i--) {
+                buffer.addFirst(lines.get(i));
+            }
+        }
+
+        @Override
+        public synchronized void onEnd(String containerId) {
+            ended = containerId;
+        }
+
+        synchronized LogBatch drain(int maxLines) {
+            if (buffer.isEmpty() && skipped == 0 && ended == null) {
+                return null;
+            }
+            int count = Math.min(maxLines, buffer.size());
+            List<ContainerLogStreamService.LogLine> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lines.add(buffer.pollFirst());
+            }
+            LogBatch batch = new LogBatch(lines, skipped, buffer.isEmpty() ? ended : null);
+            skipped = 0;
+            if (buffer.isEmpty()) {
+                ended = null;
+            }
+            return batch;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,407 @@
+package com.devorchestrator.websocket;
+
+import com.devorchestrator.entity.ResourceMetric;
+import com.devorchestrator.service.RecentMetricsStore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sequenced delta stream of metric points per project for protocol v2 of
+ * the metrics WebSocket. Each tick reads the points recorded since the
+ * previous tick from {@link RecentMetricsStore} and turns them into a frame
+ * with a sequence number; series are referred to by small integer ids whose
+ * definitions are sent once, in the snapshot or in the frame that first
+ * uses them.
+ *
+ * <p>Recent frames are kept so a client that reconnects or missed frames can
+ * be caught up from its last acknowledged sequence number; when that is no
+ * longer possible the caller falls back to a snapshot.
+ */
+@Component
+public class MetricsDeltaStream {
+
+    public static final int PROTOCOL_VERSION = 2;
+
+    static final int HISTORY_FRAMES = 120;
+
+    private final RecentMetricsStore recentMetricsStore;
+    private final Map<String, ProjectStream> streams = new ConcurrentHashMap<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public MetricsDeltaStream(RecentMetricsStore recentMetricsStore) {
+        this.recentMetricsStore = recentMetricsStore;
+    }
+
+    /**
+     * Collects the points recorded since the last tick; returns null when
+     * there is nothing new, in which case the sequence does not advance
+     */
+    public Frame tick(String projectId) {
+        return stream(projectId).tick();
+    }
+
+    /**
+     * Latest value of every series plus all series definitions, positioned at
+     * the current sequence number
+     */
+    public Frame snapshot(String projectId) {
+        return stream(projectId).snapshot();
+    }
+
+    /**
+     * All points after {@code fromSeq} merged into one frame, an empty frame
+     * when the client is up to date, or null when the history no longer
+     * reaches back that far
+     */
+    public Frame since(String projectId, long fromSeq) {
+        return stream(projectId).since(fromSeq);
+    }
+
+    public long currentSeq(String projectId) {
+        return stream(projectId).currentSeq();
+    }
+
+    /**
+     * Drops the stream once a project has no protocol v2 subscribers
+     */
+    public void remove(String projectId) {
+        streams.remove(projectId);
+    }
+
+    private ProjectStream stream(String projectId) {
+        return streams.computeIfAbsent(projectId, ProjectStream::new);
+    }
+
+    private final class ProjectStream {
+        private final String projectId;
+        private final Map<RecentMetricsStore.SeriesKey, SeriesDef> seriesByKey = new HashMap<>();
+        private final List<SeriesDef> seriesDefs = new ArrayList<>();
+        private final Deque<Frame> history = new ArrayDeque<>();
+        // Series first seen by a snapshot, announced to the other clients with the next delta
+        private final List<SeriesDef> unannounced = new ArrayList<>();
+
+        // Seeded from the clock so sequence numbers of a recreated stream never collide with old ones
+        private long seq = System.currentTimeMillis();
+        private long watermarkMillis;
+
+        ProjectStream(String projectId) {
+            this.projectId = projectId;
+            this.watermarkMillis = System.currentTimeMillis();
+        }
+
+        synchronized Frame tick() {
+            PointBuffer points = new PointBuffer();
+            List<SeriesDef> newSeries = new ArrayList<>(unannounced);
+            long[] maxSeen = {watermarkMillis};
+
+            recentMetricsStore.visitSamplesAfter(projectId, watermarkMillis, (key, type, unit, timestamp, value) -> {
+                SeriesDef def = seriesByKey.get(key);
+                if (def == null) {
+                    def = new SeriesDef(seriesDefs.size(), key.getContainerId(), key.getMetricName(),
+                        type != null ? type.name() : null, unit);
+                    seriesByKey.put(key, def);
+                    seriesDefs.add(def);
+                    newSeries.add(def);
+                }
+                points.add(def.getId(), timestamp, value);
+                maxSeen[0] = Math.max(maxSeen[0], timestamp);
+            });
+
+            if (points.size() == 0) {
+                return null;
+            }
+            watermarkMillis = maxSeen[0];
+            unannounced.clear();
+
+            Frame frame = points.toFrame(Frame.Kind.DELTA, projectId, seq, seq + 1, newSeries);
+            seq++;
+            history.addLast(frame);
+            while (history.size() > HISTORY_FRAMES) {
+                history.pollFirst();
+            }
+            return frame;
+        }
+
+        synchronized Frame snapshot() {
+            PointBuffer points = new PointBuffer();
+            for (RecentMetricsStore.MetricSample sample : recentMetricsStore.getLatest(projectId)) {
+                RecentMetricsStore.SeriesKey key = new RecentMetricsStore.SeriesKey(
+                    sample.getProjectId(), sample.getContainerId(), sample.getMetricName());
+                SeriesDef def = seriesByKey.get(key);
+                if (def == null) {
+                    ResourceMetric.MetricType type = sample.getMetricType();
+                    def = new SeriesDef(seriesDefs.size(), key.getContainerId(), key.getMetricName(),
+                        type != null ? type.name() : null, sample.getUnit());
+                    seriesByKey.put(key, def);
+                    seriesDefs.add(def);
+                    unannounced.add(def);
+                }
+                points.add(def.getId(), sample.getRecordedAt().atZone(zone).toInstant().toEpochMilli(), sample.getValue());
+            }
+            return points.toFrame(Frame.Kind.SNAPSHOT, projectId, seq, seq, new ArrayList<>(seriesDefs));
+        }
+
+        synchronized Frame since(long fromSeq) {
+            if (fromSeq == seq) {
+                return new PointBuffer().toFrame(Frame.Kind.DELTA, projectId, seq, seq, List.of());
+            }
+            if (fromSeq > seq || history.isEmpty() || history.peekFirst().getFromSeq() > fromSeq) {
+                return null;
+            }
+
+            PointBuffer points = new PointBuffer();
+            List<SeriesDef> newSeries = new ArrayList<>();
+            for (Iterator<Frame> it = history.iterator(); it.hasNext(); ) {
+                Frame frame = it.next();
+                if (frame.getFromSeq() < fromSeq) {
+                    continue;
+                }
+                newSeries.addAll(frame.getNewSeries());
+                for (int i = 0; i < frame.size(); i++) {
+                    points.add(frame.getSeriesIds()[i], frame.getTimestamp(i), frame.getValues()[i]);
+                }
+            }
+            return points.toFrame(Frame.Kind.DELTA, projectId, fromSeq, seq, newSeries);
+        }
+
+        synchronized long currentSeq() {
+            return seq;
+        }
+    }
+
+    /**
+     * Growable parallel primitive arrays for the points of one frame
+     */
+    private static final class PointBuffer {
+        private int[] ids = new int[64];
+        private long[] timestamps = new long[64];
+        private double[] values = new double[64];
+        private int size;
+
+        void add(int id, long timestamp, double value) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            ids[size] = id;
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Frame toFrame(Frame.Kind kind, String projectId, long fromSeq, long seq, List<SeriesDef> newSeries) {
+            long baseTime = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                baseTime = Math.min(baseTime, timestamps[i]);
+            }
+            if (size == 0) {
+                baseTime = System.currentTimeMillis();
+            }
+            int[] offsets = new int[size];
+            for (int i = 0; i < size; i++) {
+                offsets[i] = (int) (timestamps[i] - baseTime);
+            }
+            return new Frame(kind, projectId, fromSeq, seq, baseTime, List.copyOf(newSeries),
+                Arrays.copyOf(ids, size), offsets, Arrays.copyOf(values, size));
+        }
+    }
+
+    /**
+     * Definition of a series id, sent to a client once
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SeriesDef {
+        private final int id;
+        private final String containerId;
+        private final String metricName;
+        private final String metricType;
+        private final String unit;
+    }
+
+    /**
+     * A snapshot or delta. Point i is {@code seriesIds[i]} at
+     * {@code baseTime + offsets[i]} ms with {@code values[i]}. Applying a
+     * delta is only valid on a client positioned at {@code fromSeq}.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Frame {
+        public enum Kind { SNAPSHOT, DELTA }
+
+        private final Kind kind;
+        private final String projectId;
+        private final long fromSeq;
+        private final long seq;
+        private final long baseTime;
+        private final List<SeriesDef> newSeries;
+        private final int[] seriesIds;
+        private final int[] offsets;
+        private final double[] values;
+
+        public int size() {
+            return seriesIds.length;
+        }
+
+        public long getTimestamp(int index) {
+            return baseTime + offsets[index];
+        }
+
+        public boolean isEmpty() {
+            return seriesIds.length == 0 && newSeries.isEmpty();
+        }
+
+        /**
+         * Compact JSON: series definitions as arrays and points as a flat
+         * [id, offsetMs, value, ...] array
+         */
+        public String toJson() {
+            StringBuilder json = new StringBuilder(64 + size() * 24);
+            json.append("{\"type\":\"").append(kind == Kind.SNAPSHOT ? "METRICS_SNAPSHOT" : "METRICS_DELTA")
+                .append("\",\"v\":").append(PROTOCOL_VERSION)
+                .append(",\"projectId\":");
+            appendString(json, projectId);
+            json.append(",\"from\":").append(fromSeq)
+                .append(",\"seq\":").append(seq)
+                .append(",\"t0\":").append(baseTime)
+                .append(",\"series\":[");
+            for (int i = 0; i < newSeries.size(); i++) {
+                SeriesDef def = newSeries.get(i);
+                if (i > 0) json.append(',');
+                json.append('[').append(def.getId()).append(',');
+                appendString(json, def.getContainerId());
+                json.append(',');
+                appendString(json, def.getMetricName());
+                json.append(',');
+                appendString(json, def.getMetricType());
+                json.append(',');
+                appendString(json, def.getUnit());
+                json.append(']');
+            }
+            json.append("],\"p\":[");
+            for (int i = 0; i < size(); i++) {
+                if (i > 0) json.append(',');
+                json.append(seriesIds[i]).append(',').append(offsets[i]).append(',');
+                double value = values[i];
+                if (Double.isFinite(value)) {
+                    json.append(value);
+                } else {
+                    json.append("null");
+                }
+            }
+            return json.append("]}").toString();
+        }
+
+        /**
+         * Binary layout, big-endian: version (byte), kind (byte, 0 snapshot,
+         * 1 delta), from (long), seq (long), t0 (long), project id (string),
+         * series count (int) then per series id (int), container id, metric
+         * name, metric type, unit (strings), point count (int) then per point
+         * id (int), offset ms (int), value (double). Strings are a short
+         * length followed by UTF-8 bytes, length -1 for null.
+         */
+        public ByteBuffer toBinary() {
+            List<byte[]> strings = new ArrayList<>(1 + newSeries.size() * 4);
+            strings.add(utf8(projectId));
+            for (SeriesDef def : newSeries) {
+                strings.add(utf8(def.getContainerId()));
+                strings.add(utf8(def.getMetricName()));
+                strings.add(utf8(def.getMetricType()));
+                strings.add(utf8(def.getUnit()));
+            }
+            int length = 2 + 3 * Long.BYTES + 2 * Integer.BYTES + newSeries.size() * Integer.BYTES
+                + size() * (2 * Integer.BYTES + Double.BYTES);
+            for (byte[] string : strings) {
+                length += Short.BYTES + (string != null ? string.length : 0);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            buffer.put((byte) PROTOCOL_VERSION);
+            buffer.put((byte) (kind == Kind.SNAPSHOT ? 0 : 1));
+            buffer.putLong(fromSeq);
+            buffer.putLong(seq);
+            buffer.putLong(baseTime);
+            Iterator<byte[]> stringIt = strings.iterator();
+            putString(buffer, stringIt.next());
+            buffer.putInt(newSeries.size());
+            for (SeriesDef def : newSeries) {
+                buffer.putInt(def.getId());
+                for (int i = 0; i < 4; i++) {
+                    putString(buffer, stringIt.next());
+                }
+            }
+            buffer.putInt(size());
+            for (int i = 0; i < size(); i++) {
+                buffer.putInt(seriesIds[i]);
+                buffer.putInt(offsets[i]);
+                buffer.putDouble(values[i]);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private static byte[] utf8(String value) {
+            if (value == null) {
+                return null;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            // Ids and names are short; cap anything unexpected to the length prefix
+            return bytes.length > Short.MAX_VALUE ? Arrays.copyOf(bytes, Short.MAX_VALUE) : bytes;
+        }
+
+        private static void putString(ByteBuffer buffer, byte[] bytes) {
+            if (bytes == null) {
+                buffer.putShort((short) -1);
+                return;
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private static void appendString(StringBuilder json, String value) {
+            if (value == null) {
+                json.append("null");
+                return;
+            }
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> json.append("\\\"");
+                    case '\\' -> json.append("\\\\");
+                    case '\n' -> json.append("\\n");
+                    case '\r' -> json.append("\\r");
+                    case '\t' -> json.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                    }
+                }
+            }
+            json.append('"');
+        }
+    }
+}
@@ -4,16 +4,20 @@ import com.devorchestrator.entity.ProjectRegistration;
 import com.devorchestrator.entity.ResourceMetric;
 import com.devorchestrator.repository.ResourceMetricRepository;
 import com.devorchestrator.service.ProjectRegistryService;
+import com.devorchestrator.service.RecentMetricsStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,6 +29,9 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
     
     private final ProjectRegistryService projectRegistryService;
     private final ResourceMetricRepository metricRepository;
+    private final RecentMetricsStore recentMetricsStore;
+    private final WebSocketBroadcaster broadcaster;
+    private final MetricsDeltaStream deltaStream;
     private final ObjectMapper objectMapper;
     
     // Track sessions by project ID
@@ -33,17 +40,27 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
     // Track session metadata
     private final Map<String, SessionMetadata> sessionMetadata = new ConcurrentHashMap<>();
     
+    // Serializes tick, catch-up and enqueue per project, so frames reach the queues in sequence order
+    private final Map<String, Object> deltaLocks = new ConcurrentHashMap<>();
+    
     public MetricsWebSocketHandler(ProjectRegistryService projectRegistryService,
                                   ResourceMetricRepository metricRepository,
+                                  RecentMetricsStore recentMetricsStore,
+                                  WebSocketBroadcaster broadcaster,
+                                  MetricsDeltaStream deltaStream,
                                   ObjectMapper objectMapper) {
         this.projectRegistryService = projectRegistryService;
         this.metricRepository = metricRepository;
+        this.recentMetricsStore = recentMetricsStore;
+        this.broadcaster = broadcaster;
+        this.deltaStream = deltaStream;
         this.objectMapper = objectMapper;
     }
     
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         log.info("WebSocket connection established: {}", session.getId());
+        broadcaster.register(session);
         
         // Send welcome message
         WebSocketMessage welcome = WebSocketMessage.builder()
@@ -52,7 +69,7 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             .timestamp(LocalDateTime.now())
             .build();
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(welcome)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(welcome)));
     }
     
     @Override
@@ -76,6 +93,14 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
                     handlePing(session);
                     break;
                     
+                case "ACK":
+                    handleAck(session, command);
+                    break;
+                    
+                case "RESYNC":
+                    handleResync(session, command);
+                    break;
+                    
                 default:
                     sendError(session, "Unknown command: " + command.getAction());
             }
@@ -89,6 +114,7 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         log.info("WebSocket connection closed: {} with status: {}", session.getId(), status);
+        broadcaster.unregister(session);
         
         // Remove session from all project subscriptions
         SessionMetadata metadata = sessionMetadata.remove(session.getId());
@@ -99,6 +125,8 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
                     sessions.remove(session);
                     if (sessions.isEmpty()) {
                         projectSessions.remove(projectId);
+                        deltaStream.remove(projectId);
+                        deltaLocks.remove(projectId);
                     }
                 }
             }
@@ -127,21 +155,34 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             projectSessions.computeIfAbsent(projectId, k -> new CopyOnWriteArrayList<>()).add(session);
             
             // Track subscription in session metadata
-            sessionMetadata.computeIfAbsent(session.getId(), k -> new SessionMetadata())
-                .subscribedProjects.add(projectId);
+            SessionMetadata metadata = sessionMetadata.computeIfAbsent(session.getId(), k -> new SessionMetadata());
+            metadata.subscribedProjects.add(projectId);
+            
+            boolean delta = longParam(command, "protocol") != null
+                && longParam(command, "protocol") >= MetricsDeltaStream.PROTOCOL_VERSION;
             
             // Send confirmation
             WebSocketMessage confirmation = WebSocketMessage.builder()
                 .type("SUBSCRIBED")
                 .projectId(projectId)
-                .message("Subscribed to project metrics")
+                .message(delta ? "Subscribed to project metrics (protocol " + MetricsDeltaStream.PROTOCOL_VERSION + ")"
+                    : "Subscribed to project metrics")
                 .timestamp(LocalDateTime.now())
                 .build();
             
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(confirmation)));
+            broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(confirmation)));
             
-            // Send latest metrics immediately
-            sendLatestMetrics(session, projectId);
+            if (delta) {
+                // Resume from the client's last acknowledged frame when possible, otherwise start with a snapshot
+                boolean binary = Boolean.TRUE.equals(command.getParams() != null ? command.getParams().get("binary") : null)
+                    && !(session instanceof SockJsSession);
+                DeltaSubscription subscription = new DeltaSubscription(binary);
+                metadata.deltaSubscriptions.put(projectId, subscription);
+                sendCatchUp(session, projectId, subscription, longParam(command, "ackSeq"));
+            } else {
+                // Send latest metrics immediately
+                sendLatestMetrics(session, projectId);
+            }
             
         } catch (Exception e) {
             sendError(session, "Failed to subscribe: " + e.getMessage());
@@ -164,6 +205,8 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             sessions.remove(session);
             if (sessions.isEmpty()) {
                 projectSessions.remove(projectId);
+                deltaStream.remove(projectId);
+                deltaLocks.remove(projectId);
             }
         }
         
@@ -171,6 +214,7 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
         SessionMetadata metadata = sessionMetadata.get(session.getId());
         if (metadata != null) {
             metadata.subscribedProjects.remove(projectId);
+            metadata.deltaSubscriptions.remove(projectId);
         }
         
         // Send confirmation
@@ -181,7 +225,7 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             .timestamp(LocalDateTime.now())
             .build();
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(confirmation)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(confirmation)));
     }
     
     /**
@@ -193,7 +237,51 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             .timestamp(LocalDateTime.now())
             .build();
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(pong)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(pong)));
+    }
+    
+    /**
+     * Records the last frame a protocol v2 client has applied
+     */
+    private void handleAck(WebSocketSession session, WebSocketCommand command) throws IOException {
+        DeltaSubscription subscription = deltaSubscription(session, command.getProjectId());
+        Long seq = longParam(command, "seq");
+        if (subscription == null || seq == null) {
+            sendError(session, "ACK requires a protocol 2 subscription and a seq");
+            return;
+        }
+        subscription.ackSeq = Math.max(subscription.ackSeq, seq);
+    }
+    
+    /**
+     * Re-sends everything after the given seq, or a snapshot, to a client that
+     * detected a gap in the frames it received
+     */
+    private void handleResync(WebSocketSession session, WebSocketCommand command) throws IOException {
+        DeltaSubscription subscription = deltaSubscription(session, command.getProjectId());
+        if (subscription == null) {
+            sendError(session, "RESYNC requires a protocol 2 subscription");
+            return;
+        }
+        Long seq = longParam(command, "seq");
+        sendCatchUp(session, command.getProjectId(), subscription, seq != null ? seq : subscription.ackSeq);
+    }
+    
+    private void sendCatchUp(WebSocketSession session, String projectId, DeltaSubscription subscription, Long fromSeq) {
+        synchronized (deltaLock(projectId)) {
+            MetricsDeltaStream.Frame frame = fromSeq != null && fromSeq >= 0 ? deltaStream.since(projectId, fromSeq) : null;
+            if (frame == null) {
+                frame = deltaStream.snapshot(projectId);
+            }
+            // Drops before this point are covered by the catch-up itself
+            subscription.droppedSeen = broadcaster.getDroppedCount(session);
+            subscription.sentSeq = frame.getSeq();
+            broadcaster.send(session, encode(frame, subscription.binary));
+        }
+    }
+    
+    private Object deltaLock(String projectId) {
+        return deltaLocks.computeIfAbsent(projectId, k -> new Object());
     }
     
     /**
@@ -206,23 +294,27 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             .timestamp(LocalDateTime.now())
             .build();
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(errorMsg)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(errorMsg)));
     }
     
     /**
      * Sends latest metrics for a project
      */
     private void sendLatestMetrics(WebSocketSession session, String projectId) throws IOException {
-        List<ResourceMetric> latestMetrics = metricRepository.getLatestMetricsForProject(projectId);
+        // Fall back to the database when the store has nothing yet, e.g. right after a restart
+        List<RecentMetricsStore.MetricSample> latestSamples = recentMetricsStore.getLatest(projectId);
+        List<MetricData> latestMetrics = latestSamples.isEmpty()
+            ? convertMetrics(metricRepository.getLatestMetricsForProject(projectId))
+            : convertSamples(latestSamples);
         
         MetricsUpdate update = MetricsUpdate.builder()
             .type("METRICS_UPDATE")
             .projectId(projectId)
-            .metrics(convertMetrics(latestMetrics))
+            .metrics(latestMetrics)
             .timestamp(LocalDateTime.now())
             .build();
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(update)));
+        broadcaster.send(session, new TextMessage(objectMapper.writeValueAsString(update)));
     }
     
     /**
@@ -234,30 +326,37 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             return;
         }
         
+        sessions.removeIf(session -> !session.isOpen());
+        List<WebSocketSession> legacySessions = new ArrayList<>();
+        List<WebSocketSession> deltaSessions = new ArrayList<>();
+        splitByProtocol(projectId, sessions, legacySessions, deltaSessions);
+        
+        if (!legacySessions.isEmpty()) {
+            broadcastMetricData(projectId, legacySessions, convertMetrics(metrics));
+        }
+        // The samples are already in the store, so v2 clients get them now instead of on the next tick
+        if (!deltaSessions.isEmpty()) {
+            sendDeltas(projectId, deltaSessions);
+        }
+    }
+    
+    private void broadcastMetricData(String projectId, List<WebSocketSession> sessions, List<MetricData> metrics) {
         try {
             MetricsUpdate update = MetricsUpdate.builder()
                 .type("METRICS_UPDATE")
                 .projectId(projectId)
-                .metrics(convertMetrics(metrics))
+                .metrics(metrics)
                 .timestamp(LocalDateTime.now())
                 .build();
             
-            String message = objectMapper.writeValueAsString(update);
-            TextMessage textMessage = new TextMessage(message);
+            // Serialize once; every subscriber is handed the same message
+            TextMessage textMessage = new TextMessage(objectMapper.writeValueAsString(update));
             
-            // Send to all subscribed sessions
-            for (WebSocketSession session : sessions) {
-                if (session.isOpen()) {
-                    try {
-                        session.sendMessage(textMessage);
-                    } catch (IOException e) {
-                        log.error("Failed to send metrics to session: {}", session.getId(), e);
-                    }
-                } else {
-                    // Remove closed sessions
-                    sessions.remove(session);
-                }
-            }
+            // Remove closed sessions
+            sessions.removeIf(session -> !session.isOpen());
+            
+            // A client that has not received the previous update yet only gets this one
+            broadcaster.broadcast(sessions, "metrics:" + projectId, textMessage);
             
         } catch (Exception e) {
             log.error("Failed to broadcast metrics", e);
@@ -274,20 +373,125 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             List<WebSocketSession> sessions = entry.getValue();
             
             if (!sessions.isEmpty()) {
-                // Get recent metrics (last 10 seconds)
-                LocalDateTime since = LocalDateTime.now().minusSeconds(10);
-                List<ResourceMetric> recentMetrics = metricRepository
-                    .findByProjectIdAndRecordedAtBetweenOrderByRecordedAtDesc(
-                        projectId, since, LocalDateTime.now()
-                    ).getContent();
+                sessions.removeIf(session -> !session.isOpen());
+                List<WebSocketSession> legacySessions = new ArrayList<>();
+                List<WebSocketSession> deltaSessions = new ArrayList<>();
+                splitByProtocol(projectId, sessions, legacySessions, deltaSessions);
                 
-                if (!recentMetrics.isEmpty()) {
-                    broadcastMetrics(projectId, recentMetrics);
+                if (!legacySessions.isEmpty()) {
+                    // Get recent metrics (last 10 seconds) from the in-memory store
+                    LocalDateTime now = LocalDateTime.now();
+                    List<RecentMetricsStore.MetricSample> recentSamples =
+                        recentMetricsStore.getSamples(projectId, now.minusSeconds(10), now);
+                    
+                    if (!recentSamples.isEmpty()) {
+                        broadcastMetricData(projectId, legacySessions, convertSamples(recentSamples));
+                    }
+                }
+                
+                if (!deltaSessions.isEmpty()) {
+                    sendDeltas(projectId, deltaSessions);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sends the points recorded since the last tick to protocol v2 sessions.
+     * Sessions positioned at the frame's base share one encoded message; a
+     * session that is behind gets the merged frames since its position, or a
+     * snapshot once the history no longer reaches back. Deltas are never
+     * conflated, since each one builds on the previous; a session whose queue
+     * dropped messages since the last send may have lost one, so it restarts
+     * from its last acknowledged frame, or from a snapshot. Runs under the
+     * project's lock, since both the collector and the scheduler call it.
+     */
+    private void sendDeltas(String projectId, List<WebSocketSession> sessions) {
+        synchronized (deltaLock(projectId)) {
+            try {
+                MetricsDeltaStream.Frame frame = deltaStream.tick(projectId);
+                if (frame == null) {
+                    return;
+                }
+                sendFrame(projectId, sessions, frame);
+            } catch (Exception e) {
+                log.error("Failed to send metrics deltas", e);
+            }
+        }
+    }
+    
+    private void sendFrame(String projectId, List<WebSocketSession> sessions, MetricsDeltaStream.Frame frame) {
+        Map<String, org.springframework.web.socket.WebSocketMessage<?>> encoded = new HashMap<>();
+        for (WebSocketSession session : sessions) {
+            DeltaSubscription subscription = deltaSubscription(session, projectId);
+            if (subscription == null) {
+                continue;
+            }
+            
+            MetricsDeltaStream.Frame toSend = frame;
+            long dropped = broadcaster.getDroppedCount(session);
+            if (dropped != subscription.droppedSeen) {
+                // What was sent is no longer what the client has; restart from what it acknowledged
+                subscription.droppedSeen = dropped;
+                toSend = subscription.ackSeq >= 0 ? deltaStream.since(projectId, subscription.ackSeq) : null;
+                if (toSend == null) {
+                    toSend = deltaStream.snapshot(projectId);
                 }
+            } else if (subscription.sentSeq != frame.getFromSeq()) {
+                toSend = deltaStream.since(projectId, subscription.sentSeq);
+                if (toSend == null) {
+                    toSend = deltaStream.snapshot(projectId);
+                }
+            }
+            
+            MetricsDeltaStream.Frame chosen = toSend;
+            org.springframework.web.socket.WebSocketMessage<?> message = encoded.computeIfAbsent(
+                chosen.getKind() + ":" + chosen.getFromSeq() + ":" + chosen.getSeq() + ":" + subscription.binary,
+                k -> encode(chosen, subscription.binary));
+            if (message instanceof BinaryMessage shared) {
+                // Each send consumes the buffer position, so sessions get their own view of the bytes
+                message = new BinaryMessage(shared.getPayload().duplicate());
+            }
+            subscription.sentSeq = chosen.getSeq();
+            broadcaster.send(session, message);
+        }
+    }
+    
+    private void splitByProtocol(String projectId, List<WebSocketSession> sessions,
+                                 List<WebSocketSession> legacySessions, List<WebSocketSession> deltaSessions) {
+        for (WebSocketSession session : sessions) {
+            if (deltaSubscription(session, projectId) != null) {
+                deltaSessions.add(session);
+            } else {
+                legacySessions.add(session);
             }
         }
     }
     
+    private DeltaSubscription deltaSubscription(WebSocketSession session, String projectId) {
+        SessionMetadata metadata = sessionMetadata.get(session.getId());
+        return metadata != null && projectId != null ? metadata.deltaSubscriptions.get(projectId) : null;
+    }
+    
+    private org.springframework.web.socket.WebSocketMessage<?> encode(MetricsDeltaStream.Frame frame, boolean binary) {
+        return binary ? new BinaryMessage(frame.toBinary()) : new TextMessage(frame.toJson());
+    }
+    
+    private static Long longParam(WebSocketCommand command, String name) {
+        Object value = command.getParams() != null ? command.getParams().get(name) : null;
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
     /**
      * Converts ResourceMetric entities to DTOs
      */
@@ -304,9 +508,39 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
             .toList();
     }
     
+    /**
+     * Converts in-memory samples to DTOs
+     */
+    private List<MetricData> convertSamples(List<RecentMetricsStore.MetricSample> samples) {
+        return samples.stream()
+            .map(sample -> MetricData.builder()
+                .metricType(sample.getMetricType() != null ? sample.getMetricType().name() : null)
+                .metricName(sample.getMetricName())
+                .value(BigDecimal.valueOf(sample.getValue()))
+                .unit(sample.getUnit())
+                .containerId(sample.getContainerId())
+                .recordedAt(sample.getRecordedAt())
+                .build())
+            .toList();
+    }
+    
     // Helper classes
     private static class SessionMetadata {
         final Set<String> subscribedProjects = new HashSet<>();
+        final Map<String, DeltaSubscription> deltaSubscriptions = new ConcurrentHashMap<>();
+    }
+    
+    // Protocol v2 position of one session in a project's delta stream
+    private static class DeltaSubscription {
+        final boolean binary;
+        // Written under the project's delta lock
+        long sentSeq = -1;
+        long droppedSeen;
+        volatile long ackSeq = -1;
+        
+        DeltaSubscription(boolean binary) {
+            this.binary = binary;
+        }
     }
 }
 
@@ -315,7 +549,7 @@ public class MetricsWebSocketHandler extends TextWebSocketHandler {
 @lombok.NoArgsConstructor
 @lombok.AllArgsConstructor
 class WebSocketCommand {
-    private String action; // SUBSCRIBE, UNSUBSCRIBE, PING
+    private String action; // SUBSCRIBE, UNSUBSCRIBE, PING, ACK, RESYNC
     private String projectId;
     private Map<String, Object> params;
 }
@@ -352,7 +586,7 @@ class MetricsUpdate {
 class MetricData {
     private String metricType;
     private String metricName;
-    private java.math.BigDecimal value;
+    private BigDecimal value;
     private String unit;
     private String containerId;
     private LocalDateTime recordedAt;
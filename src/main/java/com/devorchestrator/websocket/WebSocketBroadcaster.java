@@ -0,0 +1,381 @@
+package com.devorchestrator.websocket;
+
+import com.devorchestrator.config.AppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound side of the WebSocket handlers. Every session gets a small bounded
+ * queue that a shared writer pool drains, so callers never block on a slow
+ * client and one session is only ever written by one thread at a time.
+ *
+ * <p>Behaves like Spring's ConcurrentWebSocketSessionDecorator: a session
+ * whose current send exceeds the send time limit is closed as not reliable.
+ * A watchdog enforces the limit while the send is still blocked, so a stuck
+ * client cannot hold a writer. Messages sent with a conflation key replace a
+ * still-queued message with the same key, so a lagging client gets the latest
+ * update instead of a backlog; when the queue is full the oldest message is
+ * dropped. A writer sends a limited number of messages per session before
+ * moving on to the next one.
+ */
+@Component
+@Slf4j
+public class WebSocketBroadcaster {
+
+    private static final int MESSAGES_PER_DRAIN = 32;
+
+    private final int queueCapacity;
+    private final long sendTimeLimitNanos;
+    private final ExecutorService writers;
+    private final ScheduledExecutorService watchdog;
+
+    private final Map<String, SessionChannel> channels = new ConcurrentHashMap<>();
+
+    private final Timer lagTimer;
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter conflatedCounter;
+
+    public WebSocketBroadcaster(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.WebSocket props = appProperties.getWebsocket();
+        this.queueCapacity = props.getSendQueueCapacity();
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(props.getSendTimeLimitMs());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(props.getWriterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "ws-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-send-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkIntervalMs = Math.max(100, props.getSendTimeLimitMs() / 4);
+        watchdog.scheduleWithFixedDelay(this::closeTimedOutSessions, checkIntervalMs, checkIntervalMs,
+            TimeUnit.MILLISECONDS);
+
+        Gauge.builder("websocket.outbound.sessions", channels, Map::size)
+            .description("Sessions with an outbound queue")
+            .register(meterRegistry);
+        Gauge.builder("websocket.outbound.queued", this, WebSocketBroadcaster::getQueuedCount)
+            .description("Messages waiting in session queues")
+            .register(meterRegistry);
+        this.lagTimer = Timer.builder("websocket.outbound.lag")
+            .description("Time from enqueue until the message was written to the session")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.sentCounter = Counter.builder("websocket.outbound.sent")
+            .description("Messages written to sessions")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("websocket.outbound.dropped")
+            .description("Messages dropped because a session queue was full")
+            .register(meterRegistry);
+        this.conflatedCounter = Counter.builder("websocket.outbound.conflated")
+            .description("Queued messages replaced by a newer message with the same key")
+            .register(meterRegistry);
+    }
+
+    public void register(WebSocketSession session) {
+        channels.computeIfAbsent(session.getId(), id -> new SessionChannel(session));
+    }
+
+    public void unregister(WebSocketSession session) {
+        SessionChannel channel = channels.remove(session.getId());
+        if (channel != null) {
+            channel.clear();
+        }
+    }
+
+    /**
+     * Queues a message that must not be conflated, e.g. a command reply
+     */
+    public void send(WebSocketSession session, WebSocketMessage<?> message) {
+        send(session, null, message);
+    }
+
+    /**
+     * Queues a message; a queued message with the same key is replaced.
+     * Messages for sessions that are not registered are discarded.
+     */
+    public void send(WebSocketSession session, String conflationKey, WebSocketMessage<?> message) {
+        SessionChannel channel = channels.get(session.getId());
+        if (channel == null) {
+            log.debug("Discarding message for unregistered WebSocket session {}", session.getId());
+            return;
+        }
+        channel.enqueue(conflationKey, message);
+    }
+
+    /**
+     * Hands the same, already serialized message to every session
+     */
+    public void broadcast(Collection<WebSocketSession> sessions, String conflationKey, WebSocketMessage<?> message) {
+        for (WebSocketSession session : sessions) {
+            if (session.isOpen()) {
+                send(session, conflationKey, message);
+            }
+        }
+    }
+
+    public List<SessionStats> getSessionStats() {
+        List<SessionStats> stats = new ArrayList<>(channels.size());
+        for (SessionChannel channel : channels.values()) {
+            stats.add(channel.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Messages queued for one session, used by producers that prefer to hold
+     * back rather than have their messages dropped
+     */
+    public int getQueuedCount(WebSocketSession session) {
+        SessionChannel channel = channels.get(session.getId());
+        return channel != null ? channel.size() : 0;
+    }
+
+    /**
+     * Messages dropped from the session's queue so far, 0 for an unregistered session
+     */
+    public long getDroppedCount(WebSocketSession session) {
+        SessionChannel channel = channels.get(session.getId());
+        return channel != null ? channel.dropped() : 0;
+    }
+
+    public int getQueuedCount() {
+        int queued = 0;
+        for (SessionChannel channel : channels.values()) {
+            queued += channel.size();
+        }
+        return queued;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    /**
+     * Closes sessions whose send in progress has exceeded the time limit,
+     * which fails the blocked send and frees its writer
+     */
+    void closeTimedOutSessions() {
+        for (SessionChannel channel : channels.values()) {
+            if (channel.isSendTimedOut()) {
+                channels.remove(channel.session.getId(), channel);
+                channel.closeNotReliable();
+            }
+        }
+    }
+
+    /**
+     * Queue and writer state for one session
+     */
+    private class SessionChannel {
+        private final WebSocketSession session;
+        private final Deque<Outbound> queue = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private volatile long sendStartedAt;
+        private volatile long lastLagNanos;
+        private volatile long maxLagNanos;
+        private long sent;
+        private long dropped;
+        private long conflated;
+
+        SessionChannel(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void enqueue(String key, WebSocketMessage<?> message) {
+            if (!session.isOpen()) {
+                return;
+            }
+            if (isSendTimedOut()) {
+                closeNotReliable();
+                return;
+            }
+
+            synchronized (this) {
+                if (key != null && replace(key, message)) {
+                    conflated++;
+                    conflatedCounter.increment();
+                } else {
+                    if (queue.size() >= queueCapacity) {
+                        queue.pollFirst();
+                        dropped++;
+                        droppedCounter.increment();
+                    }
+                    queue.addLast(new Outbound(key, message, System.nanoTime()));
+                }
+            }
+            schedule();
+        }
+
+        private boolean replace(String key, WebSocketMessage<?> message) {
+            for (Iterator<Outbound> it = queue.iterator(); it.hasNext(); ) {
+                Outbound pending = it.next();
+                if (key.equals(pending.key)) {
+                    // Keep the original enqueue time so the lag still reflects how far behind the client is
+                    pending.message = message;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                submitDrain();
+            }
+        }
+
+        private void submitDrain() {
+            try {
+                writers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            for (int turn = 0; turn < MESSAGES_PER_DRAIN; turn++) {
+                Outbound next;
+                synchronized (this) {
+                    next = queue.pollFirst();
+                }
+                if (next == null) {
+                    scheduled.set(false);
+                    // A message may have arrived between the poll and the flag reset
+                    synchronized (this) {
+                        if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                write(next);
+            }
+            // Still scheduled: go to the back of the line behind other sessions
+            submitDrain();
+        }
+
+        private void write(Outbound outbound) {
+            if (!session.isOpen()) {
+                return;
+            }
+            sendStartedAt = System.nanoTime();
+            try {
+                session.sendMessage(outbound.message);
+                long lag = System.nanoTime() - outbound.enqueuedAt;
+                lastLagNanos = lag;
+                maxLagNanos = Math.max(maxLagNanos, lag);
+                lagTimer.record(lag, TimeUnit.NANOSECONDS);
+                sentCounter.increment();
+                synchronized (this) {
+                    sent++;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Failed to send to WebSocket session {}: {}", session.getId(), e.getMessage());
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+
+        private boolean isSendTimedOut() {
+            long started = sendStartedAt;
+            return started != 0 && System.nanoTime() - started > sendTimeLimitNanos;
+        }
+
+        private void closeNotReliable() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            log.warn("Closing WebSocket session {}: send exceeded the time limit", session.getId());
+            clear();
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Error closing WebSocket session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        synchronized void clear() {
+            queue.clear();
+        }
+
+        synchronized long dropped() {
+            return dropped;
+        }
+
+        synchronized int size() {
+            return queue.size();
+        }
+
+        synchronized SessionStats stats() {
+            long queuedLag = queue.isEmpty() ? 0 : System.nanoTime() - queue.peekFirst().enqueuedAt;
+            return new SessionStats(session.getId(), queue.size(), sent, dropped, conflated,
+                TimeUnit.NANOSECONDS.toMillis(Math.max(lastLagNanos, queuedLag)),
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+        }
+    }
+
+    private static class Outbound {
+        private final String key;
+        private WebSocketMessage<?> message;
+        private final long enqueuedAt;
+
+        Outbound(String key, WebSocketMessage<?> message, long enqueuedAt) {
+            this.key = key;
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Per-session view of the outbound queue. Lag is the age of the oldest
+     * queued message, or the lag of the last sent one when the queue is empty.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SessionStats {
+        private final String sessionId;
+        private final int queued;
+        private final long sent;
+        private final long dropped;
+        private final long conflated;
+        private final long lagMs;
+        private final long maxLagMs;
+    }
+}
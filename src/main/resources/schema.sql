@@ -117,6 +117,21 @@ CREATE TABLE IF NOT EXISTS environment_port_mappings (
 CREATE INDEX idx_port_mappings_env_id ON environment_port_mappings(environment_id);
 CREATE INDEX idx_port_mappings_host_port ON environment_port_mappings(host_port);
 
+-- Host ports handed out by PortAllocationService. environment_port_mappings
+-- belongs to the Environment entity, which rewrites it on save. No foreign
+-- key: ports are recorded from the creation thread, possibly before the
+-- environment row is committed; stale rows are dropped on startup.
+CREATE TABLE IF NOT EXISTS host_port_allocations (
+    host_port INTEGER PRIMARY KEY,
+    environment_id VARCHAR(36) NOT NULL,
+    service_name VARCHAR(50) NOT NULL,
+    internal_port INTEGER NOT NULL,
+    allocated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT allocated_host_port_range CHECK (host_port >= 1024 AND host_port <= 65535)
+);
+
+CREATE INDEX idx_host_port_allocations_env_id ON host_port_allocations(environment_id);
+
 CREATE TABLE IF NOT EXISTS environment_cloud_resources (
     id BIGSERIAL PRIMARY KEY,
     environment_id VARCHAR(36) NOT NULL,
@@ -314,6 +329,31 @@ CREATE INDEX idx_metrics_agg_env_id ON resource_metrics_aggregated(environment_i
 CREATE INDEX idx_metrics_agg_project_id ON resource_metrics_aggregated(project_id);
 CREATE INDEX idx_metrics_agg_period ON resource_metrics_aggregated(aggregation_period, period_start);
 
+-- Tiered rollups of resource_metrics (see MetricRollupService). Host-level
+-- series use an empty container_id so the unique key covers them as well.
+CREATE TABLE IF NOT EXISTS resource_metric_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    project_id VARCHAR(36) NOT NULL,
+    container_id VARCHAR(64) NOT NULL DEFAULT '',
+    metric_name VARCHAR(100) NOT NULL,
+    metric_type VARCHAR(50) NOT NULL,
+    resolution VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    min_value DECIMAL(20,4) NOT NULL,
+    max_value DECIMAL(20,4) NOT NULL,
+    sum_value DECIMAL(24,4) NOT NULL,
+    sample_count BIGINT NOT NULL,
+    last_value DECIMAL(20,4) NOT NULL,
+    integral_value DECIMAL(24,4) NOT NULL,
+    covered_seconds BIGINT NOT NULL,
+    last_recorded_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_metric_rollups_series_bucket UNIQUE (project_id, container_id, metric_name, resolution, bucket_start),
+    CONSTRAINT rollup_resolution_check CHECK (resolution IN ('MINUTE', 'HOUR', 'DAY'))
+);
+
+CREATE INDEX idx_metric_rollups_project_bucket ON resource_metric_rollups(project_id, resolution, bucket_start);
+CREATE INDEX idx_metric_rollups_resolution_bucket ON resource_metric_rollups(resolution, bucket_start);
+
 -- =====================================================
 -- USAGE REPORTS AND ANALYTICS
 -- =====================================================
@@ -0,0 +1,104 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.config.AppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AnalysisCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path project;
+    private AnalysisCache cache;
+    private AtomicInteger scans;
+    private AnalysisCache.FileScanner scanner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAnalysis().setCacheDirectory(tempDir.resolve("cache").toString());
+        cache = new AnalysisCache(appProperties, new ObjectMapper());
+
+        project = Files.createDirectories(tempDir.resolve("project"));
+        scans = new AtomicInteger();
+        scanner = content -> {
+            scans.incrementAndGet();
+            return content.contains("redis") ? List.of("redis") : List.of();
+        };
+    }
+
+    @Test
+    @DisplayName("Should reuse persisted findings of unchanged files and re-scan only changed ones")
+    void shouldRescanOnlyChangedFiles() throws Exception {
+        // Given
+        Path unchanged = Files.writeString(project.resolve("cache.js"), "require('redis')");
+        Path changed = Files.writeString(project.resolve("app.js"), "console.log('hi')");
+        try (AnalysisCache.Session session = cache.open(project)) {
+            session.findings("Detector", scanned(unchanged), scanner);
+            session.findings("Detector", scanned(changed), scanner);
+        }
+        Files.writeString(changed, "const client = redis.createClient()");
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        // When
+        List<String> unchangedFindings;
+        List<String> changedFindings;
+        AnalysisCache.CacheStatistics stats;
+        try (AnalysisCache.Session session = cache.open(project)) {
+            unchangedFindings = session.findings("Detector", scanned(unchanged), scanner);
+            changedFindings = session.findings("Detector", scanned(changed), scanner);
+            stats = session.getStatistics();
+        }
+
+        // Then
+        assertThat(unchangedFindings).containsExactly("redis");
+        assertThat(changedFindings).containsExactly("redis");
+        assertThat(scans).hasValue(3);
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Should reuse findings by content hash when only the modification time changed")
+    void shouldReuseFindings_WhenOnlyTouched() throws Exception {
+        // Given
+        Path file = Files.writeString(project.resolve("cache.js"), "require('redis')");
+        try (AnalysisCache.Session session = cache.open(project)) {
+            session.findings("Detector", scanned(file), scanner);
+        }
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        // When
+        AnalysisCache.CacheStatistics stats;
+        List<String> findings;
+        try (AnalysisCache.Session session = cache.open(project)) {
+            findings = session.findings("Detector", scanned(file), scanner);
+            session.findings("Other Detector", scanned(file), scanner);
+            stats = session.getStatistics();
+        }
+
+        // Then
+        assertThat(findings).containsExactly("redis");
+        assertThat(stats.getHashHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(scans).hasValue(2);
+    }
+
+    private ScannedFile scanned(Path file) throws Exception {
+        return new ScannedFile(file, project.relativize(file).toString(), Files.size(file),
+            Files.getLastModifiedTime(file).toMillis(), ContentBudget.defaults());
+    }
+}
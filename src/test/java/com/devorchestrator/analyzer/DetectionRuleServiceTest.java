@@ -0,0 +1,84 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.analyzer.model.DetectionPattern;
+import com.devorchestrator.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DetectionRuleServiceTest {
+
+    private static final String LANGUAGES = "programming_languages";
+
+    @TempDir
+    Path rulesDirectory;
+
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getAnalysis().setRulesDirectory(rulesDirectory.toString());
+    }
+
+    @Test
+    @DisplayName("Should index the bundled rules by extension, file name and glob")
+    void shouldIndexBundledRules() {
+        // Given
+        DetectionRuleSet rules = new DetectionRuleService(appProperties).getRuleSet();
+
+        // When / Then
+        assertThat(rules.findByExtension(LANGUAGES, "Main.java")).extracting(DetectionPattern::getKey)
+            .containsExactly("java");
+        assertThat(rules.findByFile(LANGUAGES, "pom.xml", "pom.xml")).extracting(DetectionPattern::getKey)
+            .containsExactly("java");
+        assertThat(rules.findByFile(LANGUAGES, "web/tsconfig.app.json", "tsconfig.app.json"))
+            .extracting(DetectionPattern::getKey).containsExactly("typescript");
+        assertThat(rules.findByFile(LANGUAGES, ".mvn/wrapper/maven-wrapper.properties", "maven-wrapper.properties"))
+            .extracting(DetectionPattern::getKey).containsExactly("java");
+        assertThat(rules.findByExtension(LANGUAGES, "README.md")).isEmpty();
+        assertThat(rules.getRule(LANGUAGES, "python").getDockerImage()).isEqualTo("python:3.11-alpine");
+        assertThat(rules.getRule("framework_detector", "laravel").getCodePatterns())
+            .containsExactly("namespace App\\\\", "use Illuminate\\\\");
+        assertThat(rules.getRule("database_detector", "postgresql").getDefaultPort()).isEqualTo(5432);
+        assertThat(rules.getRule("service_detector", "prometheus").getType()).isEqualTo("MONITORING");
+    }
+
+    @Test
+    @DisplayName("Should hot-reload changed external rules and keep the current ones when a file is invalid")
+    void shouldReloadExternalRules() throws Exception {
+        // Given
+        DetectionRuleService service = new DetectionRuleService(appProperties);
+        String bundledVersion = service.getRuleSet().getVersion();
+        Path custom = Files.writeString(rulesDirectory.resolve("custom.yml"), """
+            programming_languages:
+              gleam:
+                name: "Gleam"
+                extensions:
+                  - ".gleam"
+                config_files:
+                  - "gleam.toml"
+            """);
+
+        // When
+        service.reloadIfChanged();
+        DetectionRuleSet reloaded = service.getRuleSet();
+        Files.writeString(custom, "programming_languages: [unclosed");
+        Files.setLastModifiedTime(custom, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        service.reloadIfChanged();
+
+        // Then
+        assertThat(reloaded.getVersion()).isNotEqualTo(bundledVersion);
+        assertThat(reloaded.findByExtension(LANGUAGES, "main.gleam")).extracting(DetectionPattern::getTechnology)
+            .containsExactly("Gleam");
+        assertThat(reloaded.findByExtension(LANGUAGES, "Main.java")).isNotEmpty();
+        assertThat(service.getRuleSet()).isSameAs(reloaded);
+    }
+}
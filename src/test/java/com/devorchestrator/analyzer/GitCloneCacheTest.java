@@ -0,0 +1,110 @@
+package com.devorchestrator.analyzer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GitCloneCacheTest {
+
+    @TempDir
+    Path temp;
+
+    private Path cacheDirectory;
+
+    @BeforeEach
+    void setUp() {
+        cacheDirectory = temp.resolve("clones");
+    }
+
+    @Test
+    @DisplayName("Should reuse the cached clone and fetch new commits on re-analysis")
+    void shouldFetchIntoCachedClone() throws Exception {
+        // Given
+        Path work = repository("app", "pom.xml", "node_modules/left-pad/index.js");
+        String url = bare(work, "app.git");
+        GitCloneCache cache = new GitCloneCache(cacheDirectory, Long.MAX_VALUE);
+
+        // When
+        Path first;
+        try (GitCloneCache.Checkout checkout = cache.checkout(url, "main")) {
+            first = checkout.getDirectory();
+            assertThat(first.resolve("pom.xml")).exists();
+            assertThat(first.resolve("node_modules")).doesNotExist();
+        }
+        commit(work, "Dockerfile");
+        git(work, "push", "--quiet", "origin", "main");
+        Path second;
+        try (GitCloneCache.Checkout checkout = cache.checkout(url, "main")) {
+            second = checkout.getDirectory();
+        }
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(second.resolve("Dockerfile")).exists();
+        assertThat(second.resolve(".git/shallow")).exists();
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used clone once the disk budget is exceeded")
+    void shouldEvictLeastRecentlyUsedClone() throws Exception {
+        // Given
+        String first = bare(repository("first", "package.json"), "first.git");
+        String second = bare(repository("second", "go.mod"), "second.git");
+        GitCloneCache cache = new GitCloneCache(cacheDirectory, 1);
+
+        // When
+        Path firstClone;
+        try (GitCloneCache.Checkout checkout = cache.checkout(first, "main")) {
+            firstClone = checkout.getDirectory();
+        }
+        Path secondClone;
+        try (GitCloneCache.Checkout checkout = cache.checkout(second, "main")) {
+            secondClone = checkout.getDirectory();
+        }
+
+        // Then
+        assertThat(firstClone).doesNotExist();
+        assertThat(secondClone.resolve("go.mod")).exists();
+    }
+
+    private Path repository(String name, String... files) throws Exception {
+        Path work = temp.resolve(name);
+        Files.createDirectories(work);
+        git(work, "init", "--quiet", "--initial-branch", "main");
+        commit(work, files);
+        return work;
+    }
+
+    private String bare(Path work, String name) throws Exception {
+        Path bare = temp.resolve(name);
+        git(temp, "clone", "--quiet", "--bare", work.toString(), bare.toString());
+        git(bare, "config", "uploadpack.allowFilter", "true");
+        git(work, "remote", "add", "origin", bare.toString());
+        return bare.toUri().toString();
+    }
+
+    private void commit(Path work, String... files) throws Exception {
+        for (String file : files) {
+            Path path = work.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, file + "\n");
+        }
+        git(work, "add", ".");
+        git(work, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "--quiet", "-m", "update");
+    }
+
+    private void git(Path directory, String... arguments) throws IOException, InterruptedException {
+        String[] command = new String[arguments.length + 1];
+        command[0] = "git";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+        assertThat(process.waitFor()).as("git %s", arguments[0]).isZero();
+    }
+}
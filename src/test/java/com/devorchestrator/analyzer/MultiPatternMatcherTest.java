@@ -0,0 +1,91 @@
+package com.devorchestrator.analyzer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MultiPatternMatcherTest {
+
+    @Test
+    @DisplayName("Should report overlapping literals and honour case sensitivity per pattern")
+    void shouldReportOverlappingLiterals() {
+        // Given
+        MultiPatternMatcher.Builder builder = MultiPatternMatcher.builder();
+        int redis = builder.addLiteral("redis", false);
+        int redisUrl = builder.addLiteral("redis://", true);
+        int edis = builder.addLiteral("edis", false);
+        int postgres = builder.addLiteral("postgres", true);
+        MultiPatternMatcher matcher = builder.build();
+
+        // When
+        BitSet found = matcher.match("REDIS_URL=Redis://cache:6379 # redis");
+
+        // Then
+        assertThat(found.get(redis)).isTrue();
+        assertThat(found.get(redisUrl)).isTrue();
+        assertThat(found.get(edis)).isTrue();
+        assertThat(found.get(postgres)).isFalse();
+        assertThat(matcher.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should find every regex, including alternatives shadowed at the same position")
+    void shouldFindShadowedAlternatives() {
+        // Given
+        MultiPatternMatcher.Builder builder = MultiPatternMatcher.builder();
+        int reactImport = builder.addRegex("import.*React.*from.*['\"]react['\"]", true);
+        int anyImport = builder.addRegex("import\\s+(\\w+)", false);
+        int ginDefault = builder.addRegex("gin\\.Default\\(\\)", false);
+        int graphql = builder.addRegex("type.*Query.*{", true);
+        MultiPatternMatcher matcher = builder.build();
+
+        // When
+        BitSet found = matcher.match("import React from 'react';\ntype Query {\n  hello: String\n}");
+
+        // Then
+        assertThat(found.get(reactImport)).isTrue();
+        assertThat(found.get(anyImport)).isTrue();
+        assertThat(found.get(ginDefault)).isFalse();
+        assertThat(found.get(graphql)).isTrue();
+        assertThat(matcher.match("r := gin.Default()").get(ginDefault)).isTrue();
+        assertThat(matcher.match("r := ginXDefault()").get(ginDefault)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should derive the longest required literal of a regex as its prefilter anchor")
+    void shouldDeriveRequiredLiteral() {
+        // When / Then
+        assertThat(MultiPatternMatcher.requiredLiteral("import.*React.*from.*['\"]react['\"]")).isEqualTo("import");
+        assertThat(MultiPatternMatcher.requiredLiteral("gin\\.Default\\(\\)")).isEqualTo("gin.Default()");
+        assertThat(MultiPatternMatcher.requiredLiteral("colou?r_scheme")).isEqualTo("r_scheme");
+        assertThat(MultiPatternMatcher.requiredLiteral("(foo|bar)baz+")).isEqualTo("baz");
+        assertThat(MultiPatternMatcher.requiredLiteral("(?i)django")).isNull();
+        assertThat(MultiPatternMatcher.requiredLiteral("react|vue")).isNull();
+        assertThat(MultiPatternMatcher.requiredLiteral("\\w+\\s*=")).isNull();
+        assertThat(MultiPatternMatcher.requiredLiteral("x{100}")).isNull();
+        assertThat(MultiPatternMatcher.requiredLiteral("ab{3}cdef")).isEqualTo("cdef");
+        assertThat(MultiPatternMatcher.requiredLiteral("port:\\d{2,4}")).isEqualTo("port:");
+        assertThat(MultiPatternMatcher.requiredLiteral("v\\d{2,}")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not reject content that only matches through a counted quantifier")
+    void shouldMatchCountedQuantifiers() {
+        // Given
+        MultiPatternMatcher.Builder builder = MultiPatternMatcher.builder();
+        int repeated = builder.addRegex("x{100}", false);
+        int port = builder.addRegex("\\d{2,4}/tcp", false);
+        MultiPatternMatcher matcher = builder.build();
+
+        // When
+        BitSet found = matcher.match("x".repeat(100) + " expose 8080/tcp");
+
+        // Then
+        assertThat(found.get(repeated)).isTrue();
+        assertThat(found.get(port)).isTrue();
+        assertThat(matcher.match("x".repeat(99) + " expose 1/tcp").get(repeated)).isFalse();
+    }
+}
@@ -0,0 +1,130 @@
+package com.devorchestrator.analyzer;
+
+import com.devorchestrator.analyzer.detector.DatabaseDetectorService;
+import com.devorchestrator.analyzer.detector.FrameworkDetectorService;
+import com.devorchestrator.analyzer.detector.ServiceDetectorService;
+import com.devorchestrator.analyzer.model.DetectedDatabase;
+import com.devorchestrator.analyzer.model.DetectedTechnology;
+import com.devorchestrator.analyzer.model.ProjectAnalysis;
+import com.devorchestrator.config.AppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProjectAnalyzerServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DetectionRuleService detectionRuleService;
+    private ProjectAnalyzerService analyzer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAnalysis().setCacheEnabled(false);
+        appProperties.getAnalysis().setScanParallelism(4);
+        appProperties.getAnalysis().setRulesDirectory(Files.createDirectories(tempDir.resolve("rules")).toString());
+        detectionRuleService = new DetectionRuleService(appProperties);
+        analyzer = new ProjectAnalyzerService(
+            List.of(new FrameworkDetectorService(detectionRuleService), new DatabaseDetectorService(detectionRuleService),
+                new ServiceDetectorService(detectionRuleService)),
+            new AnalysisCache(appProperties, new ObjectMapper()), detectionRuleService,
+            new GitCloneCache(tempDir.resolve("clones"), Long.MAX_VALUE), appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        analyzer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should scan the same capped set of source files on every parallel run")
+    void shouldDetectSameTechnologies_WhenSourceFilesExceedCap() throws IOException {
+        // Given - more source files than any detector scans, with findings at both ends of the path order
+        Path project = Files.createDirectories(tempDir.resolve("project"));
+        for (int i = 0; i < 150; i++) {
+            write(project, String.format("src/File%03d.java", i), "class File" + i + " {}\n");
+        }
+        write(project, "aa/Primary.java", "String url = \"postgresql://app@first-host:5432/app\";\n");
+        write(project, "mm/Replica.java", "String url = \"postgresql://app@second-host:5432/app\";\n");
+        write(project, "zz/Application.java", "@SpringBootApplication\nclass Application {}\n");
+
+        // When
+        ProjectAnalysis first = analyzer.analyzeProject(project.toString());
+        ProjectAnalysis second = analyzer.analyzeProject(project.toString());
+
+        // Then
+        assertThat(summary(second)).isEqualTo(summary(first));
+        assertThat(first.getFrameworks()).extracting(DetectedTechnology::getName).doesNotContain("Spring Boot");
+        assertThat(first.getDatabases()).extracting(DetectedDatabase::getHost).containsExactly("second-host");
+    }
+
+    @Test
+    @DisplayName("Should detect frameworks, databases and services from reloaded rule files")
+    void shouldDetectTechnologies_WhenRulesAreReloaded() throws IOException {
+        // Given
+        Path project = Files.createDirectories(tempDir.resolve("project"));
+        write(project, "app.js", "Turbo.visit(\"/home\");\nconst db = \"cockroach://app@crdb-host:26257/app\";\n");
+        write(project, "package.json", "{\"dependencies\": {\"bullmq\": \"5.0.0\"}}\n");
+        ProjectAnalysis before = analyzer.analyzeProject(project.toString());
+
+        // When
+        Files.writeString(tempDir.resolve("rules/custom.yml"), """
+            framework_detector:
+              hotwire:
+                name: "Hotwire"
+                language: "JavaScript"
+                type: "web"
+                code_patterns:
+                  - "Turbo\\\\.visit\\\\("
+            database_detector:
+              cockroachdb:
+                name: "CockroachDB"
+                connection_patterns:
+                  - "cockroach://"
+                default_port: 26257
+            service_detector:
+              bullmq:
+                name: "BullMQ"
+                type: "SCHEDULER"
+                dependencies:
+                  - "bullmq"
+            """);
+        detectionRuleService.reloadIfChanged();
+        ProjectAnalysis after = analyzer.analyzeProject(project.toString());
+
+        // Then
+        assertThat(summary(before)).noneMatch(detected -> detected.startsWith("Hotwire")
+            || detected.startsWith("CockroachDB") || detected.startsWith("BullMQ"));
+        assertThat(after.getFrameworks()).extracting(DetectedTechnology::getName).contains("Hotwire");
+        assertThat(after.getDatabases()).extracting(DetectedDatabase::getHost).contains("crdb-host");
+        assertThat(after.getServices()).extracting(DetectedTechnology::getName).contains("BullMQ");
+    }
+
+    private static List<String> summary(ProjectAnalysis analysis) {
+        return Stream.of(analysis.getFrameworks(), analysis.getDatabases(), analysis.getServices())
+            .flatMap(List::stream)
+            .map(detected -> detected.getName() + ":" + detected.getConfidence()
+                + (detected instanceof DetectedDatabase database ? ":" + database.getHost() : ""))
+            .sorted()
+            .toList();
+    }
+
+    private static void write(Path project, String relativePath, String content) throws IOException {
+        Path file = project.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,95 @@
+package com.devorchestrator.analyzer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProjectFileWalkerTest {
+
+    @TempDir
+    Path project;
+
+    @Test
+    @DisplayName("Should prune skipped directories and read each file once however many visitors read it")
+    void shouldPruneSkippedDirectoriesAndReadOnce() throws Exception {
+        // Given
+        Files.writeString(Files.createDirectories(project.resolve("src")).resolve("app.js"), "require('express')");
+        Files.writeString(Files.createDirectories(project.resolve("node_modules/express")).resolve("index.js"), "x");
+        Files.writeString(Files.createDirectories(project.resolve(".git")).resolve("HEAD"), "ref");
+        Files.writeString(Files.createDirectories(project.resolve("build/libs")).resolve("app.jar"), "jar");
+        ProjectFileWalker walker = new ProjectFileWalker(project);
+        List<String> visited = new ArrayList<>();
+
+        // When
+        walker.walk(file -> {
+            visited.add(file.getRelativePath());
+            for (int visitor = 0; visitor < 4; visitor++) {
+                assertThat(file.content()).isEqualTo("require('express')");
+            }
+        });
+
+        // Then
+        assertThat(visited).containsExactly(Path.of("src", "app.js").toString());
+        assertThat(walker.getFilesVisited()).isEqualTo(1);
+        assertThat(walker.getBytesRead()).isEqualTo("require('express')".length());
+    }
+
+    @Test
+    @DisplayName("Should visit every file exactly once when walking in parallel")
+    void shouldVisitEveryFileOnce_WhenParallel() throws Exception {
+        // Given
+        for (int dir = 0; dir < 8; dir++) {
+            Path module = Files.createDirectories(project.resolve("module-" + dir + "/src"));
+            for (int file = 0; file < ProjectFileWalker.FILE_BATCH_SIZE + 10; file++) {
+                Files.writeString(module.resolve("File" + file + ".java"), "class File" + file + " {}");
+            }
+        }
+        Files.createDirectories(project.resolve("module-0/target")).resolve("skipped.class").toFile().createNewFile();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Set<String> visited = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        try {
+            ProjectFileWalker walker = new ProjectFileWalker(project, pool, System.nanoTime() + 60_000_000_000L);
+            walker.walk(file -> {
+                calls.incrementAndGet();
+                visited.add(file.getRelativePath());
+            });
+
+            // Then
+            assertThat(visited).hasSize(8 * (ProjectFileWalker.FILE_BATCH_SIZE + 10));
+            assertThat(calls).hasValue(visited.size());
+            assertThat(walker.isTruncated()).isFalse();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should stop handing out files once the time budget is spent")
+    void shouldStop_WhenDeadlinePassed() throws Exception {
+        // Given
+        Files.writeString(project.resolve("app.py"), "print('hi')");
+        ProjectFileWalker walker = new ProjectFileWalker(project, null, System.nanoTime() - 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        walker.walk(file -> calls.incrementAndGet());
+
+        // Then
+        assertThat(calls).hasValue(0);
+        assertThat(walker.isTruncated()).isTrue();
+    }
+}
@@ -0,0 +1,86 @@
+package com.devorchestrator.analyzer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ScannedFileTest {
+
+    @TempDir
+    Path project;
+
+    @Test
+    @DisplayName("Should stream oversized files for line counts and hashes without exposing their content")
+    void shouldStreamOversizedFiles() throws Exception {
+        // Given
+        ContentBudget budget = new ContentBudget(100, 1024 * 1024);
+        Path bundle = Files.writeString(project.resolve("bundle.min.js"), "var a = 1;\n".repeat(20_000) + "end");
+        Path small = Files.writeString(project.resolve("app.js"), "one\ntwo\r\nthree");
+        Path image = Files.write(project.resolve("logo.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, '\n', 1});
+
+        // When
+        ScannedFile oversized = scanned(bundle, budget);
+        ScannedFile text = scanned(small, budget);
+        ScannedFile binary = scanned(image, budget);
+
+        // Then
+        assertThat(oversized.isOversized()).isTrue();
+        assertThat(oversized.content()).isNull();
+        assertThat(oversized.lineCount()).isEqualTo(20_001);
+        assertThat(oversized.hash()).isEqualTo(AnalysisCache.sha256(Files.readAllBytes(bundle)));
+        assertThat(text.lineCount()).isEqualTo(3);
+        assertThat(text.content()).isEqualTo("one\ntwo\r\nthree");
+        assertThat(binary.content()).isNull();
+        assertThat(binary.lineCount()).isZero();
+        assertThat(budget.getFilesOversized()).isEqualTo(1);
+        assertThat(budget.getFilesSkipped()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop reading content once the analysis byte budget is used up")
+    void shouldStopReading_WhenBudgetExhausted() throws Exception {
+        // Given
+        ContentBudget budget = new ContentBudget(1024, 25);
+        ScannedFile first = scanned(Files.writeString(project.resolve("a.py"), "import flask\n"), budget);
+        ScannedFile second = scanned(Files.writeString(project.resolve("b.py"), "import django\n"), budget);
+
+        // When
+        String firstContent = first.content();
+        String secondContent = second.content();
+
+        // Then
+        assertThat(firstContent).isEqualTo("import flask\n");
+        assertThat(secondContent).isNull();
+        assertThat(second.hash()).isNull();
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(budget.getBytesRead()).isEqualTo(13);
+        assertThat(budget.getFilesSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should read no more than the size taken from the budget when the file grew")
+    void shouldReadOnlyReservedBytes_WhenFileGrew() throws Exception {
+        // Given
+        ContentBudget budget = new ContentBudget(1024, 1024);
+        Path log = Files.writeString(project.resolve("app.log"), "started\n");
+        ScannedFile file = scanned(log, budget);
+        Files.writeString(log, "started\nserving\n");
+
+        // When
+        String content = file.content();
+
+        // Then
+        assertThat(content).isEqualTo("started\n");
+        assertThat(budget.getBytesRead()).isEqualTo(8);
+    }
+
+    private ScannedFile scanned(Path file, ContentBudget budget) throws Exception {
+        return new ScannedFile(file, project.relativize(file).toString(), Files.size(file),
+            Files.getLastModifiedTime(file).toMillis(), budget);
+    }
+}
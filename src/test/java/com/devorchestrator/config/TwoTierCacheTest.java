@@ -0,0 +1,163 @@
+package com.devorchestrator.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> published = new ArrayList<>();
+
+    private Cache remote;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = spy(new ConcurrentMapCache("environments", false));
+        cache = new TwoTierCache(remote, new LocalCacheTier(2, Duration.ofMinutes(1)),
+            (cacheName, key) -> published.add(cacheName + ":" + key), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should answer repeated lookups from the local tier and record hits per tier")
+    void shouldServeFromLocalTier_AfterRemoteHit() {
+        // Given
+        remote.put("env-1:user-1", "environment");
+
+        // When
+        Object first = cache.get("env-1:user-1", String.class);
+        Object second = cache.get("env-1:user-1", String.class);
+        Cache.ValueWrapper missing = cache.get("env-2:user-1");
+
+        // Then
+        assertThat(first).isEqualTo("environment");
+        assertThat(second).isEqualTo("environment");
+        assertThat(missing).isNull();
+        verify(remote, times(1)).get("env-1:user-1");
+        assertThat(meterRegistry.get("cache.tier.requests").tags("tier", "l1", "result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.tier.requests").tags("tier", "l2", "result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.tier.hit.ratio").tags("tier", "l1").gauge().value()).isCloseTo(1.0 / 3, within(0.001));
+        assertThat(meterRegistry.get("cache.gets").tags("tier", "l1", "result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should write through to Redis and announce changed entries to other nodes")
+    void shouldPublishInvalidation_WhenWritten() {
+        // When
+        cache.put("env-1:user-1", "environment");
+        cache.evict("env-2:user-1");
+        cache.clear();
+
+        // Then
+        assertThat(remote.get("env-1:user-1")).isNull();
+        assertThat(published).containsExactly("environments:env-1:user-1", "environments:env-2:user-1", "environments:null");
+    }
+
+    @Test
+    @DisplayName("Should keep the more frequently used entries locally once the local tier is full")
+    void shouldEvictColdEntry_WhenLocalTierFull() {
+        // Given
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        // When
+        cache.put("c", "3");
+        clearInvocations(remote);
+        cache.get("a");
+        cache.get("b");
+
+        // Then
+        verify(remote, never()).get("a");
+        verify(remote).get("b");
+    }
+
+    @Test
+    @DisplayName("Should drop local copies on invalidations from other nodes only")
+    void shouldEvictLocalCopy_WhenInvalidatedByOtherNode() {
+        // Given
+        Cache redisCache = spy(new ConcurrentMapCache("environments", false));
+        CacheManager redisCacheManager = mock(CacheManager.class);
+        when(redisCacheManager.getCache("environments")).thenReturn(redisCache);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        TwoTierCacheManager manager = new TwoTierCacheManager(redisCacheManager, redisTemplate,
+            new AppProperties.Cache(), meterRegistry);
+        Cache environments = manager.getCache("environments");
+        environments.put("env-1:user-1", "environment");
+        String ownMessage = captureMessage(redisTemplate);
+
+        // When
+        manager.onMessage(message(ownMessage), null);
+        environments.get("env-1:user-1");
+        manager.onMessage(message("other-node|environments|env-1:user-1"), null);
+        environments.get("env-1:user-1");
+
+        // Then
+        assertThat(environments).isInstanceOf(TwoTierCache.class);
+        verify(redisCache, times(1)).get("env-1:user-1");
+    }
+
+    @Test
+    @DisplayName("Should not keep a Redis value locally when the entry was invalidated during the read")
+    void shouldSkipLocalCopy_WhenInvalidatedDuringRemoteRead() {
+        // Given
+        remote.put("env-1:user-1", "stale");
+        doAnswer(invocation -> {
+            Object value = invocation.callRealMethod();
+            cache.evictLocal("env-1:user-1");
+            return value;
+        }).doCallRealMethod().when(remote).get("env-1:user-1");
+
+        // When
+        cache.get("env-1:user-1");
+        cache.get("env-1:user-1");
+
+        // Then
+        verify(remote, times(2)).get("env-1:user-1");
+    }
+
+    @Test
+    @DisplayName("Should not keep a loaded value locally when the entry was invalidated while loading")
+    void shouldSkipLocalCopy_WhenInvalidatedWhileLoading() {
+        // When
+        String loaded = cache.get("env-1:user-1", () -> {
+            cache.evictLocal("env-1:user-1");
+            return "stale";
+        });
+        clearInvocations(remote);
+        cache.get("env-1:user-1");
+
+        // Then
+        assertThat(loaded).isEqualTo("stale");
+        verify(remote).get("env-1:user-1");
+    }
+
+    private static String captureMessage(StringRedisTemplate redisTemplate) {
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq("devorchestrator:cache-invalidation"), message.capture());
+        return (String) message.getValue();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("devorchestrator:cache-invalidation".getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+}
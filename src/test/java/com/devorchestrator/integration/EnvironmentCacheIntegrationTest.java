@@ -0,0 +1,158 @@
+package com.devorchestrator.integration;
+
+import com.devorchestrator.entity.Environment;
+import com.devorchestrator.entity.EnvironmentStatus;
+import com.devorchestrator.entity.EnvironmentTemplate;
+import com.devorchestrator.entity.InfrastructureProvider;
+import com.devorchestrator.entity.User;
+import com.devorchestrator.entity.UserRole;
+import com.devorchestrator.repository.EnvironmentRepository;
+import com.devorchestrator.repository.EnvironmentTemplateRepository;
+import com.devorchestrator.repository.UserRepository;
+import com.devorchestrator.service.ContainerOrchestrationService;
+import com.devorchestrator.service.EnvironmentCacheService;
+import com.devorchestrator.service.EnvironmentService;
+import com.devorchestrator.service.ResourceMonitoringService;
+import com.devorchestrator.service.StandbyPoolService;
+import com.devorchestrator.service.WebSocketNotificationService;
+import com.devorchestrator.util.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+    "spring.flyway.enabled=false",
+    "spring.sql.init.mode=never",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "app.environment.max-environments-per-user=5"
+})
+@Import({EnvironmentService.class, EnvironmentCacheService.class, EnvironmentCacheIntegrationTest.CacheConfig.class})
+// Service calls run in their own transactions, so cache updates happen on commit
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EnvironmentCacheIntegrationTest {
+
+    @TestConfiguration
+    static class CacheConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(Constants.CACHE_ENVIRONMENTS);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @MockBean
+    private ContainerOrchestrationService containerService;
+
+    @MockBean
+    private StandbyPoolService standbyPoolService;
+
+    @MockBean
+    private ResourceMonitoringService resourceService;
+
+    @MockBean
+    private WebSocketNotificationService notificationService;
+
+    @Autowired
+    private EnvironmentService environmentService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EnvironmentTemplateRepository templateRepository;
+
+    @Autowired
+    private EnvironmentRepository environmentRepository;
+
+    private User testUser;
+    private Environment testEnvironment;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(User.builder()
+            .username("testuser")
+            .email("test@example.com")
+            .role(UserRole.USER)
+            .maxEnvironments(5)
+            .build());
+
+        EnvironmentTemplate testTemplate = templateRepository.save(EnvironmentTemplate.builder()
+            .id("web-dev-template")
+            .name("Web Development Template")
+            .cpuLimit(2.0)
+            .memoryLimitMb(4096)
+            .dockerComposeContent("version: '3'\nservices:\n  web:\n    image: nginx:alpine")
+            .isPublic(true)
+            .infrastructureType(InfrastructureProvider.DOCKER)
+            .build());
+
+        testEnvironment = environmentRepository.save(Environment.builder()
+            .id("env-123")
+            .name("Test Environment")
+            .template(testTemplate)
+            .owner(testUser)
+            .status(EnvironmentStatus.STOPPED)
+            .autoStopAfterHours(8)
+            .infrastructureProvider(InfrastructureProvider.DOCKER)
+            .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        environmentRepository.deleteAll();
+        templateRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should cache the new status after a status change of an environment loaded in the same transaction")
+    void shouldCacheNewStatus_WhenStatusChanged() {
+        // Given - nothing cached yet and the start never completes
+        when(containerService.startEnvironment(any(Environment.class))).thenReturn(new CompletableFuture<>());
+
+        // When
+        environmentService.startEnvironment(testEnvironment.getId(), testUser.getId());
+
+        // Then
+        Environment cached = cacheManager.getCache(Constants.CACHE_ENVIRONMENTS)
+            .get(EnvironmentCacheService.entryKey(testEnvironment.getId(), testUser.getId()), Environment.class);
+        assertThat(cached).isNotNull();
+        assertThat(cached.getStatus()).isEqualTo(EnvironmentStatus.STARTING);
+        assertThat(environmentService.getEnvironment(testEnvironment.getId(), testUser.getId()).getStatus())
+            .isEqualTo(EnvironmentStatus.STARTING);
+    }
+}
@@ -9,8 +9,10 @@ import com.devorchestrator.repository.EnvironmentRepository;
 import com.devorchestrator.repository.EnvironmentTemplateRepository;
 import com.devorchestrator.repository.UserRepository;
 import com.devorchestrator.service.ContainerOrchestrationService;
+import com.devorchestrator.service.EnvironmentCacheService;
 import com.devorchestrator.service.EnvironmentService;
 import com.devorchestrator.service.ResourceMonitoringService;
+import com.devorchestrator.service.StandbyPoolService;
 import com.devorchestrator.service.WebSocketNotificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,7 +22,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -59,6 +60,12 @@ class EnvironmentServicePerformanceTest {
     @Mock
     private WebSocketNotificationService notificationService;
     
+    @Mock
+    private StandbyPoolService standbyPoolService;
+
+    @Mock
+    private EnvironmentCacheService environmentCache;
+    
     @InjectMocks
     private EnvironmentService environmentService;
 
@@ -114,7 +121,8 @@ class EnvironmentServicePerformanceTest {
         // Setup common mocks
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(templateRepository.findById("web-dev-template")).thenReturn(Optional.of(testTemplate));
-        when(resourceService.hasAvailableResources(anyInt(), anyLong())).thenReturn(true);
+        lenient().when(resourceService.reserveResources(anyString(), any(EnvironmentTemplate.class)))
+            .thenReturn(CompletableFuture.completedFuture(null));
         when(environmentRepository.countActiveEnvironmentsByOwnerId(1L)).thenReturn(0);
         when(environmentRepository.save(any(Environment.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(environmentRepository.findById(anyString())).thenReturn(Optional.of(testEnvironment));
@@ -281,8 +289,9 @@ class EnvironmentServicePerformanceTest {
     @DisplayName("Measure user environments retrieval performance")
     void measureUserEnvironmentsRetrievalPerformance() {
         // Given
-        Page<Environment> environmentPage = new PageImpl<>(testEnvironments);
-        when(environmentRepository.findByOwnerId(eq(1L), any(Pageable.class))).thenReturn(environmentPage);
+        List<String> ids = testEnvironments.stream().map(Environment::getId).toList();
+        when(environmentCache.getOwnerEnvironmentIds(eq(1L), any())).thenReturn(ids);
+        when(environmentRepository.findAllByIdWithDetails(ids)).thenReturn(testEnvironments);
         
         long startTime = System.currentTimeMillis();
         
@@ -1,5 +1,6 @@
 package com.devorchestrator.performance;
 
+import com.devorchestrator.entity.EnvironmentTemplate;
 import com.devorchestrator.service.ResourceMonitoringService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -25,6 +26,7 @@ class ResourceMonitoringPerformanceTest {
     private ResourceMonitoringService resourceService;
     private OperatingSystemMXBean osBean;
     private MemoryMXBean memoryBean;
+    private EnvironmentTemplate template;
 
     @BeforeEach
     void setUp() {
@@ -36,6 +38,21 @@ class ResourceMonitoringPerformanceTest {
         ReflectionTestUtils.setField(resourceService, "maxCpuPercent", 80);
         ReflectionTestUtils.setField(resourceService, "maxMemoryPercent", 80);
         ReflectionTestUtils.setField(resourceService, "maxDiskPercent", 85);
+        ReflectionTestUtils.setField(resourceService, "diskPath", "/");
+        ReflectionTestUtils.setField(resourceService, "diskPerEnvironmentMb", 1L);
+        ReflectionTestUtils.setField(resourceService, "portRangeStart", 8000);
+        ReflectionTestUtils.setField(resourceService, "portRangeEnd", 9000);
+        ReflectionTestUtils.setField(resourceService, "reservationTtlSeconds", 60L);
+        ReflectionTestUtils.setField(resourceService, "admissionTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(resourceService, "admissionQueueCapacity", 50);
+        resourceService.initializeLedger();
+
+        template = EnvironmentTemplate.builder()
+            .id("perf-template")
+            .cpuLimit(0.1)
+            .memoryLimitMb(256)
+            .dockerComposeContent("services:\n  web:\n    image: nginx:alpine\n")
+            .build();
     }
 
     @Test
@@ -100,17 +117,16 @@ class ResourceMonitoringPerformanceTest {
     }
 
     @Test
-    @DisplayName("Measure resource availability check performance")
+    @DisplayName("Measure resource admission check performance")
     void measureResourceAvailabilityCheckPerformance() {
         // Given
         int numberOfChecks = 1000;
-        int cpuMb = 500;
-        long memoryMb = 1024;
         long startTime = System.currentTimeMillis();
         
-        // When - Measure resource availability check overhead
+        // When - Measure the overhead of admitting a creation through the ledger
         for (int i = 0; i < numberOfChecks; i++) {
-            boolean available = resourceService.hasAvailableResources(cpuMb, memoryMb);
+            boolean available = resourceService.reserveResources("check-" + i, template).isDone();
+            resourceService.releaseResources("check-" + i);
             // Resource availability result doesn't matter for performance test
         }
         
@@ -144,7 +160,9 @@ class ResourceMonitoringPerformanceTest {
                 for (int i = 0; i < callsPerThread; i++) {
                     double cpuUsage = resourceService.getCurrentCpuUsage();
                     long memoryUsage = resourceService.getCurrentMemoryUsageMb();
-                    boolean available = resourceService.hasAvailableResources(100, 256);
+                    String environmentId = "env-" + threadIndex + "-" + i;
+                    boolean available = resourceService.reserveResources(environmentId, template).isDone();
+                    resourceService.releaseResources(environmentId);
                 }
             }, executor))
             .toArray(CompletableFuture[]::new);
@@ -214,15 +232,13 @@ class ResourceMonitoringPerformanceTest {
     void measureResourceAllocationPerformance() {
         // Given
         int numberOfOperations = 1000;
-        int cpuMb = 100;
-        long memoryMb = 256;
         long startTime = System.currentTimeMillis();
         
-        // When - Measure allocation/release performance
+        // When - Measure reservation/release performance
         for (int i = 0; i < numberOfOperations; i++) {
             try {
-                resourceService.allocateResources(cpuMb, memoryMb);
-                resourceService.releaseResources(cpuMb, memoryMb);
+                resourceService.reserveResources("env-" + i, template);
+                resourceService.releaseResources("env-" + i);
             } catch (Exception e) {
                 // Ignore allocation failures for performance test
             }
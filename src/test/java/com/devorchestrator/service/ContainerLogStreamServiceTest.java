@@ -0,0 +1,82 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ContainerLogStreamServiceTest {
+
+    private DockerClient dockerClient;
+    private LogContainerCmd logCmd;
+    private ContainerLogStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        dockerClient = mock(DockerClient.class);
+        logCmd = mock(LogContainerCmd.class, RETURNS_SELF);
+        when(dockerClient.logContainerCmd(anyString())).thenReturn(logCmd);
+        service = new ContainerLogStreamService(dockerClient, new AppProperties());
+    }
+
+    @Test
+    @DisplayName("Should share one follower per container and split frames into lines for every listener")
+    @SuppressWarnings("unchecked")
+    void shouldShareFollowerAndSplitLines() {
+        // Given
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        ContainerLogStreamService.LogListener firstListener = line -> first.add(line.getText());
+        ContainerLogStreamService.LogListener secondListener = line -> second.add(line.getText());
+
+        // When
+        service.subscribe("abc123", firstListener);
+        service.subscribe("abc123", secondListener);
+
+        ArgumentCaptor<ResultCallback<Frame>> callback = ArgumentCaptor.forClass(ResultCallback.class);
+        verify(logCmd, times(1)).exec(callback.capture());
+        callback.getValue().onNext(frame("started\nlistening on "));
+        callback.getValue().onNext(frame("8080\r\n"));
+
+        // Then
+        assertThat(first).containsExactly("started", "listening on 8080");
+        assertThat(second).containsExactly("started", "listening on 8080");
+        assertThat(service.getActiveFollowerCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should close the follower when the last listener leaves")
+    void shouldCloseFollower_WhenLastListenerLeaves() {
+        // Given
+        ContainerLogStreamService.LogListener firstListener = line -> { };
+        ContainerLogStreamService.LogListener secondListener = line -> { };
+        service.subscribe("abc123", firstListener);
+        service.subscribe("abc123", secondListener);
+
+        // When
+        service.unsubscribe("abc123", firstListener);
+        int afterFirst = service.getActiveFollowerCount();
+        service.unsubscribe("abc123", secondListener);
+
+        // Then
+        assertThat(afterFirst).isEqualTo(1);
+        assertThat(service.getActiveFollowerCount()).isZero();
+    }
+
+    private Frame frame(String text) {
+        return new Frame(StreamType.STDOUT, text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,99 @@
+package com.devorchestrator.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.devorchestrator.service.ContainerStartupPlan.Condition.HEALTHY;
+import static com.devorchestrator.service.ContainerStartupPlan.Condition.STARTED;
+import static org.assertj.core.api.Assertions.*;
+
+class ContainerStartupPlanTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should start each service once its dependencies reached their conditions")
+    void shouldStartAlongDependencies() throws Exception {
+        // Given
+        ContainerStartupPlan plan = ContainerStartupPlan.fromServices(Map.of(
+            "db", Map.of("depends_on", Map.of()),
+            "cache", Map.of(),
+            "api", Map.of("depends_on", Map.of("db", "service_healthy", "cache", "service_started")),
+            "worker", Map.of("depends_on", Map.of("api", "service_started"))
+        ));
+        List<String> events = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> dbHealthy = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<Void> startup = plan.execute(executor,
+            service -> events.add("prepare " + service),
+            service -> events.add("start " + service),
+            (service, condition) -> {
+                events.add("await " + service + " " + condition);
+                return dbHealthy;
+            });
+        Thread.sleep(100);
+        List<String> beforeHealthy = List.copyOf(events);
+        dbHealthy.complete(null);
+        startup.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(plan.getWaves()).containsExactly(List.of("cache", "db"), List.of("api"), List.of("worker"));
+        assertThat(plan.getDependencies("api")).containsEntry("db", HEALTHY).containsEntry("cache", STARTED);
+        assertThat(beforeHealthy).contains("prepare api", "prepare worker", "start cache", "start db", "await db HEALTHY")
+            .doesNotContain("start api", "start worker");
+        assertThat(events.indexOf("start api")).isLessThan(events.indexOf("start worker"));
+    }
+
+    @Test
+    @DisplayName("Should not start dependents of a service that failed to start")
+    void shouldFailDependents_WhenServiceFails() {
+        // Given
+        ContainerStartupPlan plan = ContainerStartupPlan.fromServices(Map.of(
+            "db", Map.of(),
+            "api", Map.of("depends_on", Map.of("db", "service_started"))
+        ));
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        // When
+        CompletableFuture<Void> startup = plan.execute(executor, service -> { }, service -> {
+            if (service.equals("db")) {
+                throw new IllegalStateException("port already allocated");
+            }
+            started.add(service);
+        }, (service, condition) -> CompletableFuture.completedFuture(null));
+
+        // Then
+        assertThatThrownBy(startup::join).hasRootCauseMessage("port already allocated");
+        assertThat(started).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown and circular dependencies")
+    void shouldRejectInvalidDependencies() {
+        assertThatThrownBy(() -> ContainerStartupPlan.fromServices(Map.of(
+            "api", Map.of("depends_on", Map.of("db", "service_started")))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("unknown service 'db'");
+        assertThatThrownBy(() -> ContainerStartupPlan.fromServices(Map.of(
+            "a", Map.of("depends_on", Map.of("b", "service_started")),
+            "b", Map.of("depends_on", Map.of("a", "service_healthy")),
+            "c", Map.of())))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Circular depends_on between services: a, b");
+    }
+}
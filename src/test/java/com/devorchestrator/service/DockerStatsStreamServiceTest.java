@@ -0,0 +1,114 @@
+package com.devorchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.StatsCmd;
+import com.github.dockerjava.api.model.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DockerStatsStreamServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should compute CPU percent from precpu counters on the first frame")
+    void shouldComputeCpuPercent_FromPreCpuStats() throws Exception {
+        // Given
+        Statistics stats = frame(400_000_000L, 10_000_000_000L, 200_000_000L, 8_000_000_000L, 4);
+
+        // When
+        DockerStatsStreamService.ContainerStatsSnapshot snapshot = DockerStatsStreamService.toSnapshot(stats, null);
+
+        // Then - 200ms of container time over 2s of system time on 4 CPUs
+        assertThat(snapshot.getCpuPercent()).isCloseTo(40.0, within(0.001));
+    }
+
+    @Test
+    @DisplayName("Should compute CPU percent from the previous frame when streaming")
+    void shouldComputeCpuPercent_FromPreviousFrame() throws Exception {
+        // Given
+        DockerStatsStreamService.ContainerStatsSnapshot previous = DockerStatsStreamService.toSnapshot(
+            frame(100_000_000L, 5_000_000_000L, 0L, 0L, 2), null);
+        Statistics next = frame(300_000_000L, 7_000_000_000L, 0L, 0L, 2);
+
+        // When
+        DockerStatsStreamService.ContainerStatsSnapshot snapshot = DockerStatsStreamService.toSnapshot(next, previous);
+
+        // Then
+        assertThat(previous.getCpuPercent()).isZero();
+        assertThat(snapshot.getCpuPercent()).isCloseTo(20.0, within(0.001));
+    }
+
+    @Test
+    @DisplayName("Should subtract page cache and sum network and block I/O counters")
+    void shouldAggregateMemoryNetworkAndBlockIo() throws Exception {
+        // Given
+        Statistics stats = objectMapper.readValue("""
+            {
+              "memory_stats": {"usage": 104857600, "limit": 209715200, "stats": {"inactive_file": 52428800}},
+              "networks": {
+                "eth0": {"rx_bytes": 1000, "tx_bytes": 2000},
+                "eth1": {"rx_bytes": 500, "tx_bytes": 250}
+              },
+              "blkio_stats": {"io_service_bytes_recursive": [
+                {"major": 8, "minor": 0, "op": "read", "value": 4096},
+                {"major": 8, "minor": 0, "op": "write", "value": 8192},
+                {"major": 8, "minor": 16, "op": "Read", "value": 1024}
+              ]},
+              "pids_stats": {"current": 7}
+            }
+            """, Statistics.class);
+
+        // When
+        DockerStatsStreamService.ContainerStatsSnapshot snapshot = DockerStatsStreamService.toSnapshot(stats, null);
+
+        // Then
+        assertThat(snapshot.getMemoryUsedBytes()).isEqualTo(52428800L);
+        assertThat(snapshot.getMemoryLimitBytes()).isEqualTo(209715200L);
+        assertThat(snapshot.getMemoryPercent()).isCloseTo(25.0, within(0.001));
+        assertThat(snapshot.getNetworkRxBytes()).isEqualTo(1500L);
+        assertThat(snapshot.getNetworkTxBytes()).isEqualTo(2250L);
+        assertThat(snapshot.getBlockReadBytes()).isEqualTo(5120L);
+        assertThat(snapshot.getBlockWriteBytes()).isEqualTo(8192L);
+        assertThat(snapshot.getPids()).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("Should forget a stream whose callback fails while it is being opened")
+    void shouldUntrack_WhenStreamFailsWhileOpening() {
+        // Given
+        DockerClient dockerClient = mock(DockerClient.class);
+        StatsCmd statsCmd = mock(StatsCmd.class);
+        when(dockerClient.statsCmd("c1")).thenReturn(statsCmd);
+        when(statsCmd.exec(any())).thenAnswer(invocation -> {
+            ResultCallback<Statistics> callback = invocation.getArgument(0);
+            callback.onError(new IllegalStateException("no such container"));
+            return callback;
+        });
+        DockerStatsStreamService service = new DockerStatsStreamService(dockerClient);
+
+        // When
+        service.track("c1");
+
+        // Then
+        assertThat(service.getTrackedContainers()).isEmpty();
+        assertThat(service.getLatest("c1")).isEmpty();
+    }
+
+    private Statistics frame(long cpuTotal, long systemTotal, long preCpuTotal, long preSystemTotal,
+                             int onlineCpus) throws Exception {
+        String json = String.format("""
+            {
+              "cpu_stats": {"cpu_usage": {"total_usage": %d}, "system_cpu_usage": %d, "online_cpus": %d},
+              "precpu_stats": {"cpu_usage": {"total_usage": %d}, "system_cpu_usage": %d}
+            }
+            """, cpuTotal, systemTotal, onlineCpus, preCpuTotal, preSystemTotal);
+        return objectMapper.readValue(json, Statistics.class);
+    }
+}
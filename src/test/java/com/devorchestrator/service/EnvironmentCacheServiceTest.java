@@ -0,0 +1,104 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.entity.Environment;
+import com.devorchestrator.entity.EnvironmentStatus;
+import com.devorchestrator.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EnvironmentCacheServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Cache cache;
+    private EnvironmentCacheService environmentCache;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("environments");
+        cache = cacheManager.getCache("environments");
+        environmentCache = new EnvironmentCacheService(cacheManager, meterRegistry);
+        owner = User.builder().id(1L).username("owner").build();
+    }
+
+    @Test
+    @DisplayName("Should write the new status through and leave other environments cached")
+    void shouldWriteThrough_WhenStatusChanges() {
+        // Given
+        Environment changed = environment("env-1", EnvironmentStatus.RUNNING);
+        cache.put("env-1:1", environment("env-1", EnvironmentStatus.STARTING));
+        cache.put("env-2:1", environment("env-2", EnvironmentStatus.RUNNING));
+        cache.put("env-3:2", "other owner");
+        environmentCache.getOwnerEnvironmentIds(1L, () -> List.of("env-1"));
+
+        // When
+        environmentCache.environmentChanged(changed);
+
+        // Then
+        assertThat(cache.get("env-1:1", Environment.class).getStatus()).isEqualTo(EnvironmentStatus.RUNNING);
+        assertThat(cache.get("env-2:1")).isNotNull();
+        assertThat(cache.get("env-3:2")).isNotNull();
+        assertThat(cache.get("owner:1")).isNull();
+        assertThat(meterRegistry.get("environments.cache.updates").tags("operation", "write", "key", "entry").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should load an owner's environments once until one of them is added or removed")
+    void shouldReloadOwnerList_AfterAddOrRemove() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        Environment environment = environment("env-1", EnvironmentStatus.RUNNING);
+        cache.put("env-1:1", environment);
+
+        // When
+        environmentCache.getOwnerEnvironmentIds(1L, () -> { loads.incrementAndGet(); return List.of("env-1"); });
+        environmentCache.getOwnerEnvironmentIds(1L, () -> { loads.incrementAndGet(); return List.of("env-1"); });
+        environmentCache.environmentAdded(environment("env-2", EnvironmentStatus.CREATING));
+        environmentCache.getOwnerEnvironmentIds(1L, () -> { loads.incrementAndGet(); return List.of("env-1", "env-2"); });
+        environmentCache.environmentRemoved("env-1", 1L);
+        List<String> reloaded = environmentCache.getOwnerEnvironmentIds(1L, () -> { loads.incrementAndGet(); return List.of(); });
+
+        // Then
+        assertThat(loads).hasValue(3);
+        assertThat(reloaded).isEmpty();
+        assertThat(cache.get("env-1:1")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should update the cache only once the surrounding transaction commits")
+    void shouldDeferWriteThrough_UntilCommit() {
+        // Given
+        cache.put("env-1:1", environment("env-1", EnvironmentStatus.STARTING));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            environmentCache.environmentChanged(environment("env-1", EnvironmentStatus.RUNNING));
+            EnvironmentStatus beforeCommit = cache.get("env-1:1", Environment.class).getStatus();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Then
+            assertThat(beforeCommit).isEqualTo(EnvironmentStatus.STARTING);
+            assertThat(cache.get("env-1:1", Environment.class).getStatus()).isEqualTo(EnvironmentStatus.RUNNING);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Environment environment(String id, EnvironmentStatus status) {
+        return Environment.builder().id(id).name(id).owner(owner).status(status).build();
+    }
+}
@@ -14,11 +14,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -45,12 +46,18 @@ class EnvironmentServiceTest {
     @Mock
     private ContainerOrchestrationService containerService;
     
+    @Mock
+    private StandbyPoolService standbyPoolService;
+    
     @Mock
     private ResourceMonitoringService resourceService;
     
     @Mock
     private WebSocketNotificationService notificationService;
     
+    @Mock
+    private EnvironmentCacheService environmentCache;
+    
     @InjectMocks
     private EnvironmentService environmentService;
 
@@ -93,7 +100,8 @@ class EnvironmentServiceTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(templateRepository.findById("web-dev-template")).thenReturn(Optional.of(testTemplate));
         when(environmentRepository.countActiveEnvironmentsByOwnerId(eq(1L))).thenReturn(0);
-        when(resourceService.hasAvailableResources(2, 4096L)).thenReturn(true);
+        when(resourceService.reserveResources(anyString(), eq(testTemplate)))
+            .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null));
         when(containerService.createEnvironment(any(Environment.class), any(EnvironmentTemplate.class)))
             .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null));
         when(environmentRepository.save(any(Environment.class))).thenReturn(testEnvironment);
@@ -108,6 +116,26 @@ class EnvironmentServiceTest {
         verify(containerService).createEnvironment(any(Environment.class), eq(testTemplate));
     }
 
+    @Test
+    @DisplayName("Should release the reserved resources when the environment cannot be saved")
+    void shouldReleaseResources_WhenSaveFails() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(templateRepository.findById("web-dev-template")).thenReturn(Optional.of(testTemplate));
+        when(environmentRepository.countActiveEnvironmentsByOwnerId(eq(1L))).thenReturn(0);
+        when(resourceService.reserveResources(anyString(), eq(testTemplate)))
+            .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null));
+        when(environmentRepository.save(any(Environment.class))).thenThrow(new IllegalStateException("database down"));
+
+        // When / Then
+        assertThatThrownBy(() -> environmentService.createEnvironment("web-dev-template", 1L, "Test Environment"))
+            .isInstanceOf(IllegalStateException.class);
+        ArgumentCaptor<String> reserved = ArgumentCaptor.forClass(String.class);
+        verify(resourceService).reserveResources(reserved.capture(), eq(testTemplate));
+        verify(resourceService).releaseResources(reserved.getValue());
+        verify(containerService, never()).createEnvironment(any(Environment.class), any(EnvironmentTemplate.class));
+    }
+
     @Test
     @DisplayName("Should throw exception when template not found")
     void shouldThrowException_WhenTemplateNotFound() {
@@ -124,9 +152,10 @@ class EnvironmentServiceTest {
     @DisplayName("Should get user environments with pagination")
     void shouldGetUserEnvironments_WithPagination() {
         // Given
-        List<Environment> environments = List.of(testEnvironment);
-        Page<Environment> environmentPage = new PageImpl<>(environments);
-        when(environmentRepository.findByOwnerId(eq(1L), any(Pageable.class))).thenReturn(environmentPage);
+        when(environmentRepository.findIdsByOwnerId(1L)).thenReturn(List.of("env-123"));
+        when(environmentRepository.findAllByIdWithDetails(List.of("env-123"))).thenReturn(List.of(testEnvironment));
+        when(environmentCache.getOwnerEnvironmentIds(eq(1L), any()))
+            .thenAnswer(invocation -> invocation.<java.util.function.Supplier<List<String>>>getArgument(1).get());
 
         // When
         Page<Environment> result = environmentService.getUserEnvironments(1L, Pageable.unpaged());
@@ -136,6 +165,22 @@ class EnvironmentServiceTest {
         assertThat(result.getContent().get(0).getId()).isEqualTo("env-123");
     }
 
+    @Test
+    @DisplayName("Should load only the environments on the requested page")
+    void shouldLoadOnlyPageEnvironments_WhenPaged() {
+        // Given
+        when(environmentCache.getOwnerEnvironmentIds(eq(1L), any())).thenReturn(List.of("env-1", "env-123", "env-3"));
+        when(environmentRepository.findAllByIdWithDetails(List.of("env-123"))).thenReturn(List.of(testEnvironment));
+
+        // When
+        Page<Environment> result = environmentService.getUserEnvironments(1L, PageRequest.of(1, 1));
+
+        // Then
+        assertThat(result.getContent()).extracting(Environment::getId).containsExactly("env-123");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        verify(environmentRepository, never()).findIdsByOwnerId(any());
+    }
+
     @Test
     @DisplayName("Should throw exception when environment not found")
     void shouldThrowException_WhenEnvironmentNotFound() {
@@ -0,0 +1,146 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.EnvironmentTemplate;
+import com.devorchestrator.repository.EnvironmentTemplateRepository;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.InspectImageCmd;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.command.RemoveImageCmd;
+import com.github.dockerjava.api.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageCacheServiceTest {
+
+    private final Map<String, Long> localImages = new ConcurrentHashMap<>();
+    private final List<String> removedImages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger pullCount = new AtomicInteger();
+    private final CountDownLatch finishPull = new CountDownLatch(1);
+
+    private EnvironmentTemplateRepository templateRepository;
+    private AppProperties appProperties;
+    private ImageCacheService imageCacheService;
+
+    @BeforeEach
+    void setUp() {
+        templateRepository = mock(EnvironmentTemplateRepository.class);
+        appProperties = new AppProperties();
+        imageCacheService = new ImageCacheService(fakeDocker(), templateRepository, appProperties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        finishPull.countDown();
+        imageCacheService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should share one pull between concurrent requests and report warm starts afterwards")
+    void shouldDeduplicateConcurrentPulls() throws Exception {
+        // Given
+        CompletableFuture<Void> first = imageCacheService.pull("redis:7");
+
+        // When
+        CompletableFuture<Void> second = imageCacheService.pull("redis:7");
+        finishPull.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(pullCount.get()).isEqualTo(1);
+        assertThat(imageCacheService.ensureImage("redis:7")).isTrue();
+        assertThat(imageCacheService.ensureImage("postgres")).isFalse();
+        assertThat(localImages).containsKey("postgres:latest");
+        assertThat(pullCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used image no active template needs once over budget")
+    void shouldEvictLeastRecentlyUsedImage() throws Exception {
+        // Given
+        appProperties.getDocker().getImageCache().setMaxDiskMb(1);
+        localImages.put("old:1", 500_000L);
+        localImages.put("new:1", 500_000L);
+        localImages.put("template:1", 400_000L);
+        EnvironmentTemplate template = new EnvironmentTemplate();
+        template.setDockerComposeContent("services:\n  app:\n    image: template:1\n");
+        when(templateRepository.findByIsPublicTrue()).thenReturn(List.of(template));
+        imageCacheService.ensureImage("old:1");
+        Thread.sleep(5);
+        imageCacheService.ensureImage("new:1");
+
+        // When
+        imageCacheService.refresh();
+
+        // Then
+        assertThat(removedImages).containsExactly("old:1");
+        assertThat(localImages).containsOnlyKeys("new:1", "template:1");
+        assertThat(imageCacheService.getCachedBytes()).isEqualTo(900_000L);
+    }
+
+    private DockerClient fakeDocker() {
+        DockerClient dockerClient = mock(DockerClient.class);
+        when(dockerClient.inspectImageCmd(anyString())).thenAnswer(invocation -> {
+            String reference = invocation.getArgument(0);
+            InspectImageCmd command = mock(InspectImageCmd.class);
+            when(command.exec()).thenAnswer(exec -> {
+                Long size = localImages.get(reference);
+                if (size == null) {
+                    throw new NotFoundException("No such image: " + reference);
+                }
+                InspectImageResponse response = mock(InspectImageResponse.class);
+                when(response.getSize()).thenReturn(size);
+                return response;
+            });
+            return command;
+        });
+        when(dockerClient.pullImageCmd(anyString())).thenAnswer(invocation -> {
+            String repository = invocation.getArgument(0);
+            String[] tag = {"latest"};
+            PullImageCmd command = mock(PullImageCmd.class);
+            when(command.withTag(anyString())).thenAnswer(withTag -> {
+                tag[0] = withTag.getArgument(0);
+                return command;
+            });
+            when(command.exec(any())).thenAnswer(exec -> {
+                pullCount.incrementAndGet();
+                finishPull.await(5, TimeUnit.SECONDS);
+                localImages.put(repository + ":" + tag[0], 1000L);
+                ResultCallback<?> callback = exec.getArgument(0);
+                callback.onComplete();
+                return callback;
+            });
+            return command;
+        });
+        when(dockerClient.removeImageCmd(anyString())).thenAnswer(invocation -> {
+            String reference = invocation.getArgument(0);
+            RemoveImageCmd command = mock(RemoveImageCmd.class);
+            when(command.exec()).thenAnswer(exec -> {
+                localImages.remove(reference);
+                removedImages.add(reference);
+                return null;
+            });
+            return command;
+        });
+        return dockerClient;
+    }
+}
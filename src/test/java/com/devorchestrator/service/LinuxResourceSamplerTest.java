@@ -0,0 +1,151 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LinuxResourceSamplerTest {
+
+    private static final String CONTAINER_ID = "3f4e8a9b2c1d";
+
+    @TempDir
+    Path root;
+
+    private Path proc;
+    private Path cgroup;
+    private LinuxResourceSampler sampler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        proc = Files.createDirectories(root.resolve("proc"));
+        Path cgroupRoot = Files.createDirectories(root.resolve("cgroup"));
+        Files.writeString(cgroupRoot.resolve("cgroup.controllers"), "cpuset cpu io memory pids\n");
+        cgroup = Files.createDirectories(cgroupRoot.resolve("system.slice").resolve("docker-" + CONTAINER_ID + ".scope"));
+
+        Files.writeString(proc.resolve("stat"),
+            "cpu  1000 0 500 8000 500 0 0 0 0 0\ncpu0 500 0 250 4000 250 0 0 0 0 0\nintr 12345\n");
+        Files.writeString(proc.resolve("meminfo"),
+            "MemTotal:       16384000 kB\nMemFree:         1024000 kB\nMemAvailable:    4096000 kB\n");
+        Files.writeString(cgroup.resolve("cpu.stat"), "usage_usec 2000000\nuser_usec 1500000\nsystem_usec 500000\n");
+        Files.writeString(cgroup.resolve("memory.current"), "314572800\n");
+        Files.writeString(cgroup.resolve("memory.stat"), "anon 209715200\nfile 104857600\ninactive_file 104857600\n");
+        Files.writeString(cgroup.resolve("memory.max"), "max\n");
+        Files.writeString(cgroup.resolve("io.stat"),
+            "8:0 rbytes=1048576 wbytes=2097152 rios=10 wios=20\n8:16 rbytes=1048576 wbytes=0 rios=1 wios=0\n");
+        Files.writeString(cgroup.resolve("pids.current"), "7\n");
+        Files.writeString(cgroup.resolve("cgroup.procs"), "4242\n4243\n");
+        Files.createDirectories(proc.resolve("4242").resolve("net"));
+        Files.writeString(proc.resolve("4242").resolve("net").resolve("dev"),
+            "Inter-|   Receive                                                |  Transmit\n" +
+            " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n" +
+            "    lo:  999999      10    0    0    0     0          0         0   999999      10    0    0    0     0       0          0\n" +
+            "  eth0: 5242880     100    0    0    0     0          0         0  1048576      50    0    0    0     0       0          0\n");
+
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMetrics().setProcRoot(proc.toString());
+        appProperties.getMetrics().setCgroupRoot(cgroupRoot.toString());
+        sampler = new LinuxResourceSampler(appProperties);
+    }
+
+    @Test
+    @DisplayName("Should derive host CPU usage from consecutive /proc/stat readings")
+    void shouldSampleHost() throws IOException {
+        // Given
+        sampler.sampleHost();
+        Files.writeString(proc.resolve("stat"), "cpu  1300 0 600 8500 600 0 0 0 0 0\n");
+
+        // When
+        sampler.sampleHost();
+        LinuxResourceSampler.HostSample host = sampler.getHostSample().orElseThrow();
+
+        // Then
+        assertThat(host.cpuPercent()).isCloseTo(40.0, within(0.01));
+        assertThat(host.memoryTotalBytes()).isEqualTo(16384000L * 1024);
+        assertThat(host.memoryAvailableBytes()).isEqualTo(4096000L * 1024);
+        assertThat(host.memoryUsedBytes()).isEqualTo(12288000L * 1024);
+    }
+
+    @Test
+    @DisplayName("Should report no host sample until a CPU baseline was taken")
+    void shouldReturnEmptyHostSample_OnFirstReading() {
+        // When
+        sampler.sampleHost();
+
+        // Then
+        assertThat(sampler.getHostSample()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read container usage from its cgroup v2 files")
+    void shouldSampleContainer() throws Exception {
+        // Given
+        sampler.sampleHost();
+        Files.writeString(proc.resolve("stat"), "cpu  1300 0 600 8500 600 0 0 0 0 0\n");
+        sampler.sampleHost();
+        sampler.sampleContainer(CONTAINER_ID);
+        Thread.sleep(50);
+        Files.writeString(cgroup.resolve("cpu.stat"), "usage_usec 2025000\n");
+
+        // When
+        DockerStatsStreamService.ContainerStatsSnapshot snapshot = sampler.sampleContainer(CONTAINER_ID).orElseThrow();
+
+        // Then
+        assertThat(snapshot.getCpuPercent()).isGreaterThan(0.0).isLessThanOrEqualTo(50.0);
+        assertThat(snapshot.getMemoryUsedBytes()).isEqualTo(209715200L);
+        assertThat(snapshot.getMemoryLimitBytes()).isEqualTo(16384000L * 1024);
+        assertThat(snapshot.getBlockReadBytes()).isEqualTo(2097152L);
+        assertThat(snapshot.getBlockWriteBytes()).isEqualTo(2097152L);
+        assertThat(snapshot.getNetworkRxBytes()).isEqualTo(5242880L);
+        assertThat(snapshot.getNetworkTxBytes()).isEqualTo(1048576L);
+    }
+
+    @Test
+    @DisplayName("Should report nothing on the first sample of a container so callers fall back")
+    void shouldReturnEmpty_OnFirstSample() {
+        // When
+        Optional<DockerStatsStreamService.ContainerStatsSnapshot> first = sampler.sampleContainer(CONTAINER_ID);
+        Optional<DockerStatsStreamService.ContainerStatsSnapshot> second = sampler.sampleContainer(CONTAINER_ID);
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should tell containers with a readable cgroup from those without one")
+    void shouldReportWhetherContainerCanBeSampled() {
+        // When
+        boolean known = sampler.canSampleContainer(CONTAINER_ID);
+        boolean unknown = sampler.canSampleContainer("unknown");
+
+        // Then
+        assertThat(known).isTrue();
+        assertThat(unknown).isFalse();
+        assertThat(sampler.sampleContainer(CONTAINER_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should report nothing for containers without a cgroup so callers fall back")
+    void shouldReturnEmpty_WhenCgroupMissing() throws IOException {
+        // Given
+        Optional<DockerStatsStreamService.ContainerStatsSnapshot> unknown = sampler.sampleContainer("unknown");
+        sampler.sampleContainer(CONTAINER_ID);
+
+        // When
+        Files.delete(cgroup.resolve("cpu.stat"));
+        Optional<DockerStatsStreamService.ContainerStatsSnapshot> removed = sampler.sampleContainer(CONTAINER_ID);
+
+        // Then
+        assertThat(unknown).isEmpty();
+        assertThat(removed).isEmpty();
+    }
+}
@@ -0,0 +1,110 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.MetricRollup.Resolution;
+import com.devorchestrator.repository.MetricRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MetricRollupServiceTest {
+
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2024, 3, 10, 0, 0);
+
+    @Test
+    @DisplayName("Should read whole days from DAY rollups and edges from finer tiers")
+    void shouldPlanCoarsestTierForAlignedRange() {
+        // Given
+        Map<Resolution, LocalDateTime> watermarks = watermarks(
+            MIDNIGHT.plusDays(3), MIDNIGHT.plusDays(3).plusHours(5), MIDNIGHT.plusDays(3).plusHours(5).plusMinutes(40));
+        LocalDateTime start = MIDNIGHT.minusHours(2).minusMinutes(30);
+        LocalDateTime end = MIDNIGHT.plusDays(2).plusHours(1).plusMinutes(15).plusSeconds(20);
+
+        // When
+        List<MetricRollupService.QuerySegment> plan = MetricRollupService.plan(start, end, watermarks);
+
+        // Then
+        assertThat(plan).extracting(MetricRollupService.QuerySegment::getResolution)
+            .containsExactly(Resolution.MINUTE, Resolution.HOUR, Resolution.DAY,
+                Resolution.HOUR, Resolution.MINUTE, null);
+        assertThat(plan.get(2).getStart()).isEqualTo(MIDNIGHT);
+        assertThat(plan.get(2).getEnd()).isEqualTo(MIDNIGHT.plusDays(2));
+        assertThat(plan.get(5).getStart()).isEqualTo(MIDNIGHT.plusDays(2).plusHours(1).plusMinutes(15));
+        assertThat(plan.get(5).getEnd()).isEqualTo(end);
+    }
+
+    @Test
+    @DisplayName("Should fall back to raw samples past the minute watermark")
+    void shouldPlanRawTail_WhenRollupsAreBehind() {
+        // Given
+        LocalDateTime now = MIDNIGHT.plusHours(10).plusMinutes(3);
+        Map<Resolution, LocalDateTime> watermarks = watermarks(
+            MIDNIGHT, MIDNIGHT.plusHours(10), MIDNIGHT.plusHours(10).plusMinutes(1));
+
+        // When
+        List<MetricRollupService.QuerySegment> plan = MetricRollupService.plan(MIDNIGHT.plusHours(9), now, watermarks);
+
+        // Then
+        assertThat(plan).extracting(MetricRollupService.QuerySegment::getResolution)
+            .containsExactly(Resolution.HOUR, Resolution.MINUTE, null);
+        assertThat(plan.get(2).getStart()).isEqualTo(MIDNIGHT.plusHours(10).plusMinutes(1));
+        assertThat(plan.get(2).getEnd()).isEqualTo(now);
+    }
+
+    @Test
+    @DisplayName("Should pick the finest retained tier within the point budget for trends")
+    void shouldChooseTrendResolution() {
+        // Given
+        MetricRollupService service = new MetricRollupService(null, null, null, null,
+            new AppProperties(), new SimpleMeterRegistry());
+        LocalDateTime now = MIDNIGHT.plusDays(400);
+
+        // When / Then
+        assertThat(service.chooseTrendResolution(now.minusHours(6), now, 500, now)).isEqualTo(Resolution.MINUTE);
+        assertThat(service.chooseTrendResolution(now.minusDays(7), now, 500, now)).isEqualTo(Resolution.HOUR);
+        assertThat(service.chooseTrendResolution(now.minusDays(30), now.minusDays(29), 500, now))
+            .isEqualTo(Resolution.HOUR);
+        assertThat(service.chooseTrendResolution(now.minusDays(365), now, 500, now)).isEqualTo(Resolution.DAY);
+    }
+
+    @Test
+    @DisplayName("Should re-scan minutes the write-behind queue may still persist late")
+    void shouldRescanTrailingMinutes_WhenRollingUp() {
+        // Given - defaults retry a batch for up to 33s, so two minutes are re-scanned
+        MetricRollupRepository rollupRepository = mock(MetricRollupRepository.class);
+        LocalDateTime latest = MetricRollupService.truncate(LocalDateTime.now(), Resolution.MINUTE).minusMinutes(10);
+        when(rollupRepository.findLatestBucketStart(Resolution.MINUTE)).thenReturn(latest);
+        MetricRollupService service = new MetricRollupService(rollupRepository, null, null,
+            mock(PlatformTransactionManager.class), new AppProperties(), new SimpleMeterRegistry());
+
+        // When
+        service.rollupMinutes();
+        LocalDateTime watermark = service.getWatermark(Resolution.MINUTE);
+        service.rollupMinutes();
+
+        // Then
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rollupRepository, times(2)).rollupRawToMinutes(any(), from.capture(), any(), anyInt());
+        assertThat(from.getAllValues()).containsExactly(latest.minusMinutes(1), watermark.minusMinutes(2));
+        assertThat(service.getWatermark(Resolution.MINUTE)).isEqualTo(watermark);
+    }
+
+    private Map<Resolution, LocalDateTime> watermarks(LocalDateTime day, LocalDateTime hour, LocalDateTime minute) {
+        Map<Resolution, LocalDateTime> watermarks = new EnumMap<>(Resolution.class);
+        watermarks.put(Resolution.DAY, day);
+        watermarks.put(Resolution.HOUR, hour);
+        watermarks.put(Resolution.MINUTE, minute);
+        return watermarks;
+    }
+}
@@ -0,0 +1,169 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectRegistration;
+import com.devorchestrator.entity.ResourceMetric;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MetricWriteBehindServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<Double>> batches = new CopyOnWriteArrayList<>();
+
+    private AppProperties appProperties;
+    private ProjectRegistration project;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getMetrics().setWriteQueueCapacity(100);
+        appProperties.getMetrics().setWriteBatchSize(3);
+        appProperties.getMetrics().setWriteFlushIntervalMs(100);
+        appProperties.getMetrics().setWriteRetryBackoffMs(10);
+
+        project = new ProjectRegistration();
+        project.setId("project-1");
+
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocation -> {
+                Collection<ResourceMetric> batch = invocation.getArgument(1);
+                List<Double> values = new ArrayList<>();
+                batch.forEach(metric -> values.add(metric.getValue().doubleValue()));
+                batches.add(values);
+                return new int[0][];
+            });
+    }
+
+    @Test
+    @DisplayName("Should insert queued samples in batches of at most the batch size")
+    void shouldWriteInBatches() throws Exception {
+        // Given
+        MetricWriteBehindService writer = writer();
+        writer.start();
+
+        // When
+        for (int i = 0; i < 7; i++) {
+            writer.enqueue(metric(i));
+        }
+        awaitCondition(() -> written() == 7);
+        writer.stop();
+
+        // Then
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(3));
+        assertThat(batches.stream().flatMap(List::stream)).containsExactly(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0);
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest queued sample when the queue is full under DROP_OLDEST")
+    void shouldDropOldest_WhenQueueFull() throws Exception {
+        // Given
+        appProperties.getMetrics().setWriteQueueCapacity(2);
+        MetricWriteBehindService writer = writer();
+
+        // When
+        writer.enqueue(List.of(metric(1), metric(2), metric(3)));
+        int depth = writer.getQueueDepth();
+        writer.start();
+        writer.stop();
+
+        // Then
+        assertThat(depth).isEqualTo(2);
+        assertThat(meterRegistry.get("metrics.write.rows.dropped").counter().count()).isEqualTo(1);
+        assertThat(batches.stream().flatMap(List::stream)).containsExactly(2.0, 3.0);
+    }
+
+    @Test
+    @DisplayName("Should write everything still queued when stopped")
+    void shouldFlushQueue_WhenStopped() throws Exception {
+        // Given
+        appProperties.getMetrics().setWriteBatchSize(1000);
+        appProperties.getMetrics().setWriteFlushIntervalMs(500);
+        MetricWriteBehindService writer = writer();
+        writer.start();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            writer.enqueue(metric(i));
+        }
+        writer.stop();
+
+        // Then
+        assertThat(written()).isEqualTo(5);
+        assertThat(writer.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch instead of dropping it")
+    void shouldRetryBatch_WhenInsertFails() throws Exception {
+        // Given
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+            .doThrow(new DataAccessResourceFailureException("connection refused"))
+            .doAnswer(invocation -> {
+                batches.add(List.of(1.0));
+                return new int[0][];
+            })
+            .when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        MetricWriteBehindService writer = writer();
+        writer.start();
+
+        // When
+        writer.enqueue(metric(1));
+        awaitCondition(() -> written() == 1);
+        writer.stop();
+
+        // Then
+        assertThat(batches).containsExactly(List.of(1.0));
+        assertThat(meterRegistry.get("metrics.write.batches.retried").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("metrics.write.rows.failed").counter().count()).isZero();
+    }
+
+    private MetricWriteBehindService writer() {
+        return new MetricWriteBehindService(jdbcTemplate, mock(PlatformTransactionManager.class),
+            appProperties, meterRegistry);
+    }
+
+    private double written() {
+        return meterRegistry.get("metrics.write.rows.written").counter().count();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private ResourceMetric metric(double value) {
+        return ResourceMetric.builder()
+            .project(project)
+            .containerId("c1")
+            .metricType(ResourceMetric.MetricType.CPU)
+            .metricName("cpu_usage_percent")
+            .source(ResourceMetric.MetricSource.DOCKER)
+            .value(BigDecimal.valueOf(value))
+            .unit("percent")
+            .recordedAt(LocalDateTime.now())
+            .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.exception.PortAllocationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PortAllocationServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @DisplayName("Should hand out every port of the range once under concurrent allocation")
+    void shouldAllocateDistinctPorts_WhenConcurrent() throws Exception {
+        // Given
+        PortAllocationService portService = new PortAllocationService(jdbcTemplate, 47100, 47229);
+        Set<Integer> allocated = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 130; i++) {
+            executor.execute(() -> allocated.add(portService.allocatePort()));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(allocated).hasSize(130).allMatch(port -> port >= 47100 && port <= 47229);
+        assertThat(portService.getAvailablePortCount()).isZero();
+        assertThatThrownBy(portService::allocatePort).isInstanceOf(PortAllocationException.class);
+
+        portService.releasePort(47150);
+        assertThat(portService.allocatePort()).isEqualTo(47150);
+    }
+
+    @Test
+    @DisplayName("Should put a recorded port back only when the environment's record is removed")
+    void shouldReleaseRecordedPort_OnlyForItsEnvironment() {
+        // Given
+        String delete = "DELETE FROM host_port_allocations WHERE host_port = ? AND environment_id = ?";
+        when(jdbcTemplate.update(delete, 47500, "env-1")).thenReturn(1, 0);
+        PortAllocationService portService = new PortAllocationService(jdbcTemplate, 47500, 47501);
+        portService.allocatePort();
+        portService.allocatePort();
+
+        // When
+        portService.releasePort(47500, "env-2");
+        int availableAfterOtherEnvironment = portService.getAvailablePortCount();
+        portService.releasePort(47500, "env-1");
+        Integer reallocated = portService.allocatePort();
+        portService.releasePort(47500, "env-1");
+
+        // Then
+        assertThat(availableAfterOtherEnvironment).isZero();
+        assertThat(reallocated).isEqualTo(47500);
+        assertThat(portService.getAvailablePortCount()).isZero();
+        verify(jdbcTemplate).update(delete, 47500, "env-2");
+    }
+
+    @Test
+    @DisplayName("Should not hand out ports recorded for environments before a restart")
+    void shouldSkipRecordedPorts_AfterReconcile() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(47301, 47302, 9999));
+        PortAllocationService portService = new PortAllocationService(jdbcTemplate, 47300, 47303);
+
+        // When
+        portService.reconcile();
+        Integer first = portService.allocatePort();
+        Integer second = portService.allocatePort();
+
+        // Then
+        assertThat(Set.of(first, second)).containsExactlyInAnyOrder(47300, 47303);
+        assertThat(portService.getAllocatedPorts()).containsExactlyInAnyOrder(47300, 47301, 47302, 47303);
+        assertThat(portService.isPortAvailable(47301)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should hold back ports used by other processes until they are free again")
+    void shouldHoldBackBusyPorts_UntilFree() throws Exception {
+        // Given
+        PortAllocationService portService = new PortAllocationService(jdbcTemplate, 47400, 47401);
+        Integer allocated;
+
+        // When
+        try (ServerSocket busy = new ServerSocket(47400)) {
+            allocated = portService.allocatePort();
+            assertThatThrownBy(portService::allocatePort).isInstanceOf(PortAllocationException.class);
+        }
+        portService.recheckBusyPorts();
+
+        // Then
+        assertThat(allocated).isEqualTo(47401);
+        assertThat(portService.getAllocatedPorts()).containsExactly(47401);
+        assertThat(portService.allocatePort()).isEqualTo(47400);
+    }
+}
@@ -0,0 +1,108 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectAnalysisEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.devorchestrator.service.ProjectAnalysisScheduler.Lane.BACKGROUND;
+import static com.devorchestrator.service.ProjectAnalysisScheduler.Lane.INTERACTIVE;
+import static org.assertj.core.api.Assertions.*;
+
+class ProjectAnalysisSchedulerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProjectAnalysisScheduler scheduler;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAnalysis().setMaxConcurrentAnalyses(1);
+        appProperties.getAnalysis().setAnalysisQueueCapacity(2);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new ProjectAnalysisScheduler(appProperties, meterRegistry);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should share one analysis between concurrent requests for the same project")
+    void shouldJoinInFlightAnalysis() throws Exception {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<ProjectAnalysisEntity> first = scheduler.submit("p1", BACKGROUND, () -> {
+            runs.incrementAndGet();
+            return blocked().get();
+        });
+
+        // When
+        CompletableFuture<ProjectAnalysisEntity> second = scheduler.submit("p1", INTERACTIVE, blocked());
+        release.countDown();
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("analysis.jobs.deduplicated").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should run interactive analyses before queued background ones and reject background overflow")
+    void shouldPrioritizeInteractiveLane() throws Exception {
+        // Given
+        List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.submit("running", INTERACTIVE, blocked());
+        CompletableFuture<ProjectAnalysisEntity> background = scheduler.submit("bg", BACKGROUND, recording("bg", order));
+        scheduler.submit("promoted", BACKGROUND, recording("promoted", order));
+
+        // When
+        CompletableFuture<ProjectAnalysisEntity> rejected = scheduler.submit("overflow", BACKGROUND, recording("overflow", order));
+        CompletableFuture<ProjectAnalysisEntity> interactive = scheduler.submit("ui", INTERACTIVE, recording("ui", order));
+        scheduler.submit("promoted", INTERACTIVE, recording("promoted", order));
+        assertThat(meterRegistry.get("analysis.queue.depth").tag("lane", "interactive").gauge().value()).isEqualTo(2.0);
+        release.countDown();
+        CompletableFuture.allOf(background, interactive).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(order).containsExactly("promoted", "ui", "bg");
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("analysis.jobs.rejected").count()).isEqualTo(1.0);
+        assertThat(scheduler.getQueueDepth()).isZero();
+    }
+
+    private Supplier<ProjectAnalysisEntity> blocked() {
+        return () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ProjectAnalysisEntity();
+        };
+    }
+
+    private Supplier<ProjectAnalysisEntity> recording(String projectId, List<String> order) {
+        return () -> {
+            order.add(projectId);
+            return new ProjectAnalysisEntity();
+        };
+    }
+}
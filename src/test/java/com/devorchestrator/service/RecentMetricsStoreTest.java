@@ -0,0 +1,134 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectRegistration;
+import com.devorchestrator.entity.ResourceMetric;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RecentMetricsStoreTest {
+
+    private RecentMetricsStore store;
+    private ProjectRegistration project;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMetrics().setSamplesPerSeries(60);
+        appProperties.getMetrics().setMaxSeries(100);
+        store = new RecentMetricsStore(appProperties, new SimpleMeterRegistry());
+
+        project = new ProjectRegistration();
+        project.setId("project-1");
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest samples once a series wraps around")
+    void shouldOverwriteOldestSamples_WhenRingIsFull() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            store.record(metric("c1", "cpu_usage_percent", i, now.minusSeconds(100 - i)));
+        }
+
+        // When
+        List<RecentMetricsStore.MetricSample> samples = store.getSamples("project-1", now.minusHours(1), now);
+
+        // Then
+        assertThat(samples).hasSize(60);
+        assertThat(samples.get(0).getValue()).isEqualTo(99.0);
+        assertThat(samples.get(59).getValue()).isEqualTo(40.0);
+    }
+
+    @Test
+    @DisplayName("Should aggregate a metric across containers within the range")
+    void shouldAggregateAcrossContainers() {
+        // Given
+        store.record(metric("c1", "memory_used_mb", 100, now.minusMinutes(3)));
+        store.record(metric("c1", "memory_used_mb", 300, now.minusMinutes(2)));
+        store.record(metric("c2", "memory_used_mb", 200, now.minusMinutes(1)));
+        store.record(metric("c2", "memory_used_mb", 999, now.minusMinutes(30)));
+
+        // When
+        RecentMetricsStore.SeriesStats stats = store.aggregate(
+            "project-1", "memory_used_mb", now.minusMinutes(5), now);
+
+        // Then
+        assertThat(stats.getCount()).isEqualTo(3);
+        assertThat(stats.getMin()).isEqualTo(100.0);
+        assertThat(stats.getMax()).isEqualTo(300.0);
+        assertThat(stats.getAvg()).isEqualTo(200.0);
+        assertThat(stats.getLast()).isEqualTo(200.0);
+    }
+
+    @Test
+    @DisplayName("Should return the latest sample per series")
+    void shouldReturnLatestSamplePerSeries() {
+        // Given
+        store.record(metric("c1", "cpu_usage_percent", 10, now.minusSeconds(60)));
+        store.record(metric("c1", "cpu_usage_percent", 20, now.minusSeconds(30)));
+        store.record(metric("c2", "cpu_usage_percent", 5, now.minusSeconds(30)));
+
+        // When
+        List<RecentMetricsStore.MetricSample> latest = store.getLatest("project-1");
+
+        // Then
+        assertThat(latest).extracting(RecentMetricsStore.MetricSample::getValue)
+            .containsExactlyInAnyOrder(20.0, 5.0);
+    }
+
+    @Test
+    @DisplayName("Should evict series to stay within the series limit")
+    void shouldEvictSeries_WhenLimitReached() {
+        // When
+        for (int i = 0; i < 150; i++) {
+            store.record(metric("c" + i, "cpu_usage_percent", i, now));
+        }
+
+        // Then
+        assertThat(store.getSeriesCount()).isEqualTo(100);
+        assertThat(store.getFootprintBytes()).isLessThanOrEqualTo(store.getMaxFootprintBytes());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently written series first")
+    void shouldEvictLeastRecentlyWritten_WhenLimitReached() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            store.record(metric("c" + i, "cpu_usage_percent", i, now));
+        }
+        store.record(metric("c0", "cpu_usage_percent", 1000, now.plusSeconds(1)));
+
+        // When
+        store.record(metric("c100", "cpu_usage_percent", 100, now));
+
+        // Then
+        assertThat(store.getLatest(project.getId()))
+            .extracting(RecentMetricsStore.MetricSample::getContainerId)
+            .hasSize(100)
+            .contains("c0", "c100")
+            .doesNotContain("c1");
+    }
+
+    private ResourceMetric metric(String containerId, String name, double value, LocalDateTime recordedAt) {
+        return ResourceMetric.builder()
+            .project(project)
+            .containerId(containerId)
+            .metricType(ResourceMetric.MetricType.CPU)
+            .metricName(name)
+            .source(ResourceMetric.MetricSource.DOCKER)
+            .value(BigDecimal.valueOf(value))
+            .unit("percent")
+            .recordedAt(recordedAt)
+            .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.exception.InsufficientResourcesException;
+import com.devorchestrator.service.ResourceLedger.Resources;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResourceLedgerTest {
+
+    private static final Resources CAPACITY = new Resources(8000, 16384, 20480, 10);
+    private static final Resources ENVIRONMENT = new Resources(1000, 2048, 2048, 1);
+
+    @Test
+    @DisplayName("Should admit concurrent reservations only up to capacity and queue the rest")
+    void shouldNotOversubscribe_WhenConcurrent() throws Exception {
+        // Given
+        ResourceLedger ledger = new ResourceLedger(CAPACITY, 60_000, 60_000, 100);
+        List<CompletableFuture<Void>> reservations = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        for (int i = 0; i < 32; i++) {
+            String key = "env-" + i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                reservations.add(ledger.reserve(key, ENVIRONMENT));
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(reservations).hasSize(32);
+        assertThat(reservations.stream().filter(CompletableFuture::isDone)).hasSize(8);
+        assertThat(ledger.getReserved()).isEqualTo(new Resources(8000, 16384, 16384, 8));
+        assertThat(ledger.getQueueLength()).isEqualTo(24);
+    }
+
+    @Test
+    @DisplayName("Should admit waiting reservations in arrival order as resources are released")
+    void shouldAdmitWaitersInOrder_WhenReleased() {
+        // Given
+        ResourceLedger ledger = new ResourceLedger(new Resources(2000, 4096, 4096, 2), 60_000, 60_000, 10);
+        ledger.reserve("env-1", ENVIRONMENT);
+        ledger.reserve("env-2", ENVIRONMENT);
+        CompletableFuture<Void> large = ledger.reserve("env-3", new Resources(2000, 2048, 2048, 1));
+        CompletableFuture<Void> small = ledger.reserve("env-4", ENVIRONMENT);
+
+        // When
+        ledger.release("env-1");
+        boolean smallAdmittedBeforeLarge = small.isDone();
+        ledger.commit("env-2");
+        ledger.release("env-2");
+
+        // Then
+        assertThat(smallAdmittedBeforeLarge).isFalse();
+        assertThat(large).isDone();
+        assertThat(small).isNotDone();
+        assertThat(ledger.getReserved()).isEqualTo(new Resources(2000, 2048, 2048, 1));
+    }
+
+    @Test
+    @DisplayName("Should release uncommitted reservations after their TTL and time out waiting ones")
+    void shouldExpireReservations() {
+        // Given
+        ResourceLedger ledger = new ResourceLedger(new Resources(1000, 2048, 2048, 1), 60_000, 30_000, 10);
+        ledger.reserve("env-1", ENVIRONMENT);
+        ledger.restore("env-0", Resources.NONE);
+        CompletableFuture<Void> waiting = ledger.reserve("env-2", ENVIRONMENT);
+        CompletableFuture<Void> timingOut = ledger.reserve("env-3", ENVIRONMENT);
+
+        // When
+        int releasedEarly = ledger.expire(System.currentTimeMillis() + 10_000);
+        ledger.release("env-1");
+        int releasedAfterTimeout = ledger.expire(System.currentTimeMillis() + 45_000);
+        int releasedAfterTtl = ledger.expire(System.currentTimeMillis() + 120_000);
+
+        // Then
+        assertThat(releasedEarly).isZero();
+        assertThat(waiting).isDone();
+        assertThat(timingOut).isCompletedExceptionally();
+        assertThatThrownBy(timingOut::join).hasCauseInstanceOf(InsufficientResourcesException.class);
+        assertThat(releasedAfterTimeout).isZero();
+        assertThat(releasedAfterTtl).isEqualTo(1);
+        assertThat(ledger.getReserved()).isEqualTo(Resources.NONE);
+    }
+
+    @Test
+    @DisplayName("Should reject reservations larger than the host and when the queue is full")
+    void shouldRejectImpossibleReservations() {
+        // Given
+        ResourceLedger ledger = new ResourceLedger(new Resources(1000, 2048, 2048, 1), 60_000, 60_000, 1);
+        ledger.reserve("env-1", ENVIRONMENT);
+        ledger.reserve("env-2", ENVIRONMENT);
+
+        // Then
+        assertThatThrownBy(() -> ledger.reserve("env-3", new Resources(4000, 1024, 1024, 1)))
+            .isInstanceOf(InsufficientResourcesException.class)
+            .hasMessageContaining("exceeds the capacity");
+        assertThatThrownBy(() -> ledger.reserve("env-4", ENVIRONMENT))
+            .isInstanceOf(InsufficientResourcesException.class)
+            .hasMessageContaining("already waiting");
+    }
+
+    @Test
+    @DisplayName("Should reserve standbys only when resources are free and nobody is waiting")
+    void shouldReserveIfIdle_OnlyWithoutWaiters() {
+        // Given
+        ResourceLedger ledger = new ResourceLedger(new Resources(2000, 4096, 4096, 2), 60_000, 600_000, 10);
+
+        // When
+        boolean first = ledger.reserveIfIdle("standby-1", ENVIRONMENT);
+        ledger.reserve("env-1", ENVIRONMENT);
+        ledger.reserve("env-2", ENVIRONMENT);
+        boolean whileQueued = ledger.reserveIfIdle("standby-2", ENVIRONMENT);
+        int queued = ledger.getQueueLength();
+        ledger.expire(System.currentTimeMillis() + 120_000);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(whileQueued).isFalse();
+        assertThat(queued).isEqualTo(1);
+        // env-1 expired and env-2 took its place, the standby reservation does not expire
+        assertThat(ledger.getQueueLength()).isZero();
+        assertThat(ledger.getReserved()).isEqualTo(ENVIRONMENT.plus(ENVIRONMENT));
+    }
+
+    @Test
+    @DisplayName("Should transfer a standby reservation without letting a waiting request take it")
+    void shouldTransferReservation_WhenRequestsAreWaiting() {
+        // Given
+        ResourceLedger ledger = new ResourceLedger(new Resources(1000, 2048, 2048, 1), 60_000, 600_000, 10);
+        ledger.reserveIfIdle("standby-1", ENVIRONMENT);
+        CompletableFuture<Void> waiting = ledger.reserve("env-1", ENVIRONMENT);
+
+        // When
+        boolean transferred = ledger.transfer("standby-1", "env-2");
+        CompletableFuture<Void> claimed = ledger.reserve("env-2", ENVIRONMENT);
+
+        // Then
+        assertThat(transferred).isTrue();
+        assertThat(claimed).isDone();
+        assertThat(waiting).isNotDone();
+        assertThat(ledger.getReserved()).isEqualTo(ENVIRONMENT);
+        assertThat(ledger.transfer("standby-1", "env-3")).isFalse();
+
+        // The transferred reservation expires unless committed, then the waiting request gets its turn
+        ledger.expire(System.currentTimeMillis() + 120_000);
+        assertThat(waiting).isDone();
+    }
+}
@@ -0,0 +1,160 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.EnvironmentTemplate;
+import com.devorchestrator.repository.EnvironmentTemplateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StandbyPoolServiceTest {
+
+    private ContainerOrchestrationService containerService;
+    private ResourceMonitoringService resourceService;
+    private AppProperties appProperties;
+    private StandbyPoolService standbyPoolService;
+    private EnvironmentTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        containerService = mock(ContainerOrchestrationService.class);
+        resourceService = mock(ResourceMonitoringService.class);
+        when(resourceService.reserveStandbyResources(anyString(), any(EnvironmentTemplate.class))).thenReturn(true);
+        EnvironmentTemplateRepository templateRepository = mock(EnvironmentTemplateRepository.class);
+        appProperties = new AppProperties();
+        template = EnvironmentTemplate.builder()
+            .id("web-dev-template")
+            .dockerComposeContent("services:\n  app:\n    image: nginx\n")
+            .build();
+        when(templateRepository.findById("web-dev-template")).thenReturn(Optional.of(template));
+        when(containerService.createStandby(any(EnvironmentTemplate.class))).thenAnswer(invocation -> {
+            EnvironmentTemplate source = invocation.getArgument(0);
+            return new StandbyEnvironment("env-" + System.nanoTime(), source.getId(), source.getDockerComposeContent(),
+                List.of(new StandbyEnvironment.Container("app", "container-1", 80, 30001)), LocalDateTime.now());
+        });
+        standbyPoolService = new StandbyPoolService(containerService, templateRepository, resourceService,
+            appProperties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        standbyPoolService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should refill the pool after a miss and hand out the standby on the next creation")
+    void shouldClaimStandby_AfterRefill() throws Exception {
+        // Given
+        Optional<StandbyEnvironment> miss = standbyPoolService.claim(template);
+        awaitPoolSize(1);
+
+        // When
+        Optional<StandbyEnvironment> hit = standbyPoolService.claim(template);
+
+        // Then
+        assertThat(miss).isEmpty();
+        assertThat(hit).isPresent();
+        assertThat(hit.get().templateId()).isEqualTo("web-dev-template");
+        verify(containerService, timeout(5000).atLeast(2)).createStandby(template);
+    }
+
+    @Test
+    @DisplayName("Should discard standbys created from an earlier version of the template")
+    void shouldDiscardStaleStandby() throws Exception {
+        // Given
+        appProperties.getEnvironment().getStandbyPool().getSizes().put("web-dev-template", 1);
+        standbyPoolService.refresh();
+        awaitPoolSize(1);
+        template.setDockerComposeContent("services:\n  app:\n    image: nginx:1.27\n");
+
+        // When
+        Optional<StandbyEnvironment> claimed = standbyPoolService.claim(template);
+
+        // Then
+        assertThat(claimed).isEmpty();
+        verify(containerService, timeout(5000)).destroyStandby(argThat(standby ->
+            standby.dockerComposeContent().contains("image: nginx\n")));
+    }
+
+    @Test
+    @DisplayName("Should size pools by recent demand unless a size is configured for the template")
+    void shouldFollowDemand_UnlessSizeConfigured() {
+        // Given
+        AppProperties.Environment.StandbyPool config = appProperties.getEnvironment().getStandbyPool();
+        config.setEnabled(false);
+        config.setMaxPerTemplate(2);
+
+        // When
+        standbyPoolService.claim(template);
+        int afterOne = standbyPoolService.targetSize("web-dev-template");
+        standbyPoolService.claim(template);
+        standbyPoolService.claim(template);
+        int afterThree = standbyPoolService.targetSize("web-dev-template");
+        config.getSizes().put("web-dev-template", 4);
+
+        // Then
+        assertThat(afterOne).isEqualTo(1);
+        assertThat(afterThree).isEqualTo(2);
+        assertThat(standbyPoolService.targetSize("web-dev-template")).isEqualTo(4);
+        assertThat(standbyPoolService.targetSize("unused-template")).isZero();
+        verify(containerService, never()).createStandby(any());
+    }
+
+    @Test
+    @DisplayName("Should remove containers of an earlier run before creating any standby")
+    void shouldRemoveOrphans_BeforeFirstStandby() throws Exception {
+        // Given
+        standbyPoolService.removeOrphans();
+
+        // When
+        standbyPoolService.claim(template);
+        awaitPoolSize(1);
+
+        // Then
+        InOrder inOrder = inOrder(containerService);
+        inOrder.verify(containerService).removeOrphanedStandbys();
+        inOrder.verify(containerService).createStandby(template);
+    }
+
+    @Test
+    @DisplayName("Should reserve resources for each standby and hand them over on claim")
+    void shouldReserveResources_ForStandbys() throws Exception {
+        // Given
+        standbyPoolService.claim(template);
+        awaitPoolSize(1);
+        ArgumentCaptor<String> reservation = ArgumentCaptor.forClass(String.class);
+        verify(resourceService).reserveStandbyResources(reservation.capture(), eq(template));
+        when(resourceService.reserveStandbyResources(anyString(), any(EnvironmentTemplate.class))).thenReturn(false);
+
+        // When
+        Optional<StandbyEnvironment> claimed = standbyPoolService.claim(template);
+
+        // Then
+        assertThat(claimed).isPresent();
+        verify(resourceService).transferResources(reservation.getValue(), claimed.get().environmentId());
+        verify(resourceService, never()).releaseResources(anyString());
+        verify(resourceService, timeout(5000).times(2)).reserveStandbyResources(anyString(), eq(template));
+        verify(containerService, times(1)).createStandby(template);
+        assertThat(standbyPoolService.getPoolSize("web-dev-template")).isZero();
+    }
+
+    private void awaitPoolSize(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (standbyPoolService.getPoolSize("web-dev-template") != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(standbyPoolService.getPoolSize("web-dev-template")).isEqualTo(size);
+    }
+}
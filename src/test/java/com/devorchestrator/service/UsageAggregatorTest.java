@@ -0,0 +1,89 @@
+package com.devorchestrator.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UsageAggregatorTest {
+
+    @Test
+    @DisplayName("Should integrate each series with the trapezoid rule and combine containers")
+    void shouldIntegratePerSeries() {
+        // Given
+        UsageAggregator aggregator = new UsageAggregator(90);
+
+        // When - two containers interleaved in time order
+        aggregator.accept("c1", "cpu_usage_percent", 0, 10);
+        aggregator.accept("c2", "cpu_usage_percent", 0, 50);
+        aggregator.accept("c1", "cpu_usage_percent", 30_000, 30);
+        aggregator.accept("c2", "cpu_usage_percent", 30_000, 50);
+        aggregator.accept("c1", "cpu_usage_percent", 60_000, 20);
+
+        // Then
+        MetricRollupService.MetricSummary cpu = aggregator.getSummaries().get("cpu_usage_percent");
+        assertThat(cpu.getIntegral()).isCloseTo(20 * 30 + 25 * 30 + 50 * 30, within(1e-9));
+        assertThat(cpu.getMax()).isEqualTo(50.0);
+        assertThat(cpu.getMin()).isEqualTo(10.0);
+        assertThat(cpu.getCount()).isEqualTo(5);
+        assertThat(cpu.getSeriesCount()).isEqualTo(2);
+        assertThat(cpu.getCoveredSeconds()).isEqualTo(90.0);
+        assertThat(cpu.getUptimeSeconds()).isEqualTo(45.0);
+    }
+
+    @Test
+    @DisplayName("Should treat gaps longer than the limit as downtime")
+    void shouldSkipLongGaps() {
+        // Given
+        UsageAggregator aggregator = new UsageAggregator(90);
+
+        // When
+        aggregator.accept("c1", "memory_used_mb", 0, 100);
+        aggregator.accept("c1", "memory_used_mb", 30_000, 100);
+        aggregator.accept("c1", "memory_used_mb", 600_000, 100);
+        aggregator.accept("c1", "network_in_mb", 600_000, 4);
+
+        // Then
+        Map<String, MetricRollupService.MetricSummary> summaries = aggregator.getSummaries();
+        assertThat(summaries.get("memory_used_mb").getIntegral()).isEqualTo(3000.0);
+        assertThat(summaries.get("memory_used_mb").getCoveredSeconds()).isEqualTo(30.0);
+        assertThat(summaries.get("network_in_mb").getSum()).isEqualTo(4.0);
+        assertThat(aggregator.getSeriesCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should add up adjacent ranges to the combined range when each is seeded with its predecessor")
+    void shouldBeAdditiveAcrossRanges_WhenSeeded() {
+        // Given
+        long[] times = {0, 20_000, 50_000, 70_000, 100_000};
+        double[] values = {10, 30, 20, 40, 40};
+        UsageAggregator whole = new UsageAggregator(90);
+        UsageAggregator first = new UsageAggregator(90);
+        UsageAggregator second = new UsageAggregator(90);
+
+        // When - split at 60s, the interval 50s..70s belongs to the second range
+        second.seed("c1", "cpu_usage_percent", 50_000, 20);
+        for (int i = 0; i < times.length; i++) {
+            whole.accept("c1", "cpu_usage_percent", times[i], values[i]);
+            if (times[i] < 60_000) {
+                first.accept("c1", "cpu_usage_percent", times[i], values[i]);
+            } else {
+                second.accept("c1", "cpu_usage_percent", times[i], values[i]);
+            }
+        }
+        UsageAggregator seedOnly = new UsageAggregator(90);
+        seedOnly.seed("c1", "cpu_usage_percent", 50_000, 20);
+
+        // Then
+        MetricRollupService.MetricSummary total = whole.getSummaries().get("cpu_usage_percent");
+        MetricRollupService.MetricSummary before = first.getSummaries().get("cpu_usage_percent");
+        MetricRollupService.MetricSummary after = second.getSummaries().get("cpu_usage_percent");
+        assertThat(before.getIntegral() + after.getIntegral()).isCloseTo(total.getIntegral(), within(1e-9));
+        assertThat(before.getCoveredSeconds() + after.getCoveredSeconds()).isEqualTo(total.getCoveredSeconds());
+        assertThat(after.getCount()).isEqualTo(2);
+        assertThat(seedOnly.getSummaries()).isEmpty();
+        assertThat(seedOnly.getSeriesCount()).isZero();
+    }
+}
@@ -0,0 +1,164 @@
+package com.devorchestrator.service;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectRegistration;
+import com.devorchestrator.entity.UsageReport;
+import com.devorchestrator.repository.ProjectRegistrationRepository;
+import com.devorchestrator.repository.UsageReportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsageAnalyticsServiceTest {
+
+    @Mock
+    private UsageReportRepository usageReportRepository;
+
+    @Mock
+    private MetricRollupService metricRollupService;
+
+    @Mock
+    private ProjectRegistrationRepository projectRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor reportExecutor;
+    private UsageAnalyticsService usageAnalyticsService;
+    private ProjectRegistration project;
+
+    @BeforeEach
+    void setUp() {
+        reportExecutor = new ThreadPoolTaskExecutor();
+        reportExecutor.setCorePoolSize(2);
+        reportExecutor.setMaxPoolSize(2);
+        reportExecutor.initialize();
+
+        usageAnalyticsService = new UsageAnalyticsService(usageReportRepository, metricRollupService,
+            projectRepository, new ObjectMapper(), reportExecutor, transactionManager, new AppProperties(),
+            new SimpleMeterRegistry());
+
+        project = new ProjectRegistration();
+        project.setId("project-1");
+        project.setName("demo");
+
+        lenient().when(projectRepository.findByMonitoringEnabledTrueAndStatus(ProjectRegistration.ProjectStatus.ACTIVE))
+            .thenReturn(List.of(project));
+        lenient().when(projectRepository.findById("project-1")).thenReturn(Optional.of(project));
+        lenient().when(usageReportRepository.save(any(UsageReport.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should reuse per-day usage from the daily run when building the weekly report")
+    void shouldReuseDailyUsage_AcrossReportTypes() {
+        // Given
+        LocalDate today = LocalDate.now();
+        when(metricRollupService.summarizeByDay(eq("project-1"), any(LocalDate.class), any(LocalDate.class)))
+            .thenAnswer(inv -> days(inv.getArgument(1), inv.getArgument(2)));
+
+        // When
+        usageAnalyticsService.generateDailyReports();
+        usageAnalyticsService.generateWeeklyReports();
+
+        // Then - the weekly run only asks for the six days the daily run did not cover
+        verify(metricRollupService).summarizeByDay("project-1", today.minusDays(1), today);
+        verify(metricRollupService).summarizeByDay("project-1", today.minusDays(7), today.minusDays(1));
+        verifyNoMoreInteractions(metricRollupService);
+
+        UsageAnalyticsService.ReportRun weekly = usageAnalyticsService.getRecentReportRuns().get(0);
+        assertThat(weekly.getReportType()).isEqualTo(UsageReport.ReportType.WEEKLY);
+        assertThat(weekly.getSucceeded()).isEqualTo(1);
+        assertThat(weekly.isFinished()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should record failed projects in the run summary without stopping the run")
+    void shouldRecordFailures_InRunSummary() {
+        // Given
+        ProjectRegistration missing = new ProjectRegistration();
+        missing.setId("project-2");
+        missing.setName("missing");
+        when(projectRepository.findByMonitoringEnabledTrueAndStatus(ProjectRegistration.ProjectStatus.ACTIVE))
+            .thenReturn(List.of(project, missing));
+        when(projectRepository.findById("project-2")).thenReturn(Optional.empty());
+        when(metricRollupService.summarizeByDay(eq("project-1"), any(LocalDate.class), any(LocalDate.class)))
+            .thenAnswer(inv -> days(inv.getArgument(1), inv.getArgument(2)));
+
+        // When
+        usageAnalyticsService.generateDailyReports();
+
+        // Then
+        UsageAnalyticsService.ReportRun run = usageAnalyticsService.getRecentReportRuns().get(0);
+        assertThat(run.getTotalProjects()).isEqualTo(2);
+        assertThat(run.getSucceeded()).isEqualTo(1);
+        assertThat(run.getFailed()).isEqualTo(1);
+        assertThat(run.getFailedProjects()).containsExactly("project-2");
+        verify(usageReportRepository, times(1)).save(any(UsageReport.class));
+    }
+
+    @Test
+    @DisplayName("Should run each scheduled report in its own transaction")
+    void shouldOpenTransactionPerReport() {
+        // Given
+        when(metricRollupService.summarizeByDay(eq("project-1"), any(LocalDate.class), any(LocalDate.class)))
+            .thenAnswer(inv -> days(inv.getArgument(1), inv.getArgument(2)));
+
+        // When
+        usageAnalyticsService.generateDailyReports();
+
+        // Then
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should not cache per-day usage for periods older than the cache window")
+    void shouldNotCacheDailyUsage_OutsideWindow() {
+        // Given
+        LocalDateTime end = LocalDate.now().minusDays(60).atStartOfDay();
+        when(metricRollupService.summarize(eq("project-1"), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(Map.of());
+
+        // When
+        usageAnalyticsService.generateUsageReport("project-1", end.minusDays(1), end, UsageReport.ReportType.DAILY);
+        usageAnalyticsService.generateUsageReport("project-1", end.minusDays(1), end, UsageReport.ReportType.DAILY);
+
+        // Then
+        verify(metricRollupService, times(2)).summarize("project-1", end.minusDays(1), end);
+        verify(metricRollupService, never()).summarizeByDay(anyString(), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    private Map<LocalDate, Map<String, MetricRollupService.MetricSummary>> days(LocalDate start, LocalDate end) {
+        Map<LocalDate, Map<String, MetricRollupService.MetricSummary>> days = new HashMap<>();
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            days.put(day, Map.of("cpu_usage_percent",
+                new MetricRollupService.MetricSummary(5, 50, 1000, 100, 86400 * 20.0, 86400, 1)));
+        }
+        return days;
+    }
+}
@@ -0,0 +1,108 @@
+package com.devorchestrator.websocket;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectRegistration;
+import com.devorchestrator.entity.ResourceMetric;
+import com.devorchestrator.service.RecentMetricsStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MetricsDeltaStreamTest {
+
+    private RecentMetricsStore store;
+    private MetricsDeltaStream deltaStream;
+    private ProjectRegistration project;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMetrics().setSamplesPerSeries(60);
+        appProperties.getMetrics().setMaxSeries(100);
+        store = new RecentMetricsStore(appProperties, new SimpleMeterRegistry());
+        deltaStream = new MetricsDeltaStream(store);
+
+        project = new ProjectRegistration();
+        project.setId("project-1");
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    @DisplayName("Should send only points recorded after the snapshot, announcing each series id once")
+    void shouldSendOnlyNewPointsAfterSnapshot() {
+        // Given
+        store.record(metric("c1", "cpu_usage_percent", 10, now.minusSeconds(30)));
+        MetricsDeltaStream.Frame snapshot = deltaStream.snapshot("project-1");
+        store.record(metric("c1", "cpu_usage_percent", 20, now.plusSeconds(1)));
+        store.record(metric("c2", "cpu_usage_percent", 30, now.plusSeconds(2)));
+
+        // When
+        MetricsDeltaStream.Frame first = deltaStream.tick("project-1");
+        MetricsDeltaStream.Frame idle = deltaStream.tick("project-1");
+        store.record(metric("c2", "cpu_usage_percent", 40, now.plusSeconds(3)));
+        MetricsDeltaStream.Frame second = deltaStream.tick("project-1");
+
+        // Then
+        assertThat(snapshot.getNewSeries()).extracting(MetricsDeltaStream.SeriesDef::getContainerId).containsExactly("c1");
+        assertThat(first.getFromSeq()).isEqualTo(snapshot.getSeq());
+        assertThat(first.getValues()).containsExactlyInAnyOrder(20.0, 30.0);
+        // c1 was first seen by the snapshot, so the first delta announces it to clients that missed it
+        assertThat(first.getNewSeries()).extracting(MetricsDeltaStream.SeriesDef::getContainerId).containsExactly("c1", "c2");
+        assertThat(idle).isNull();
+        assertThat(second.getFromSeq()).isEqualTo(first.getSeq());
+        assertThat(second.getValues()).containsExactly(40.0);
+        assertThat(second.getNewSeries()).isEmpty();
+        assertThat(second.toJson()).contains("\"v\":2").contains("\"p\":[1,0,40.0]");
+    }
+
+    @Test
+    @DisplayName("Should catch a client up from its acknowledged seq, or require a snapshot once history is gone")
+    void shouldCatchUpFromAcknowledgedSeq() {
+        // Given
+        long acked = deltaStream.currentSeq("project-1");
+        for (int i = 1; i <= MetricsDeltaStream.HISTORY_FRAMES + 5; i++) {
+            store.record(metric("c1", "memory_used_mb", i, now.plusSeconds(i)));
+            deltaStream.tick("project-1");
+        }
+        long current = deltaStream.currentSeq("project-1");
+
+        // When
+        MetricsDeltaStream.Frame recent = deltaStream.since("project-1", current - 3);
+        MetricsDeltaStream.Frame upToDate = deltaStream.since("project-1", current);
+        MetricsDeltaStream.Frame tooOld = deltaStream.since("project-1", acked);
+
+        // Then
+        assertThat(recent.getFromSeq()).isEqualTo(current - 3);
+        assertThat(recent.getSeq()).isEqualTo(current);
+        assertThat(recent.getValues()).hasSize(3);
+        assertThat(upToDate.isEmpty()).isTrue();
+        assertThat(tooOld).isNull();
+
+        ByteBuffer binary = recent.toBinary();
+        assertThat(binary.get()).isEqualTo((byte) MetricsDeltaStream.PROTOCOL_VERSION);
+        assertThat(binary.get()).isEqualTo((byte) 1);
+        assertThat(binary.getLong()).isEqualTo(current - 3);
+        assertThat(binary.getLong()).isEqualTo(current);
+    }
+
+    private ResourceMetric metric(String containerId, String name, double value, LocalDateTime recordedAt) {
+        return ResourceMetric.builder()
+            .project(project)
+            .containerId(containerId)
+            .metricType(ResourceMetric.MetricType.CPU)
+            .metricName(name)
+            .source(ResourceMetric.MetricSource.DOCKER)
+            .value(BigDecimal.valueOf(value))
+            .unit("percent")
+            .recordedAt(recordedAt)
+            .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.devorchestrator.websocket;
+
+import com.devorchestrator.config.AppProperties;
+import com.devorchestrator.entity.ProjectRegistration;
+import com.devorchestrator.entity.ResourceMetric;
+import com.devorchestrator.repository.ResourceMetricRepository;
+import com.devorchestrator.service.ProjectRegistryService;
+import com.devorchestrator.service.RecentMetricsStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MetricsWebSocketHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final WebSocketBroadcaster broadcaster = mock(WebSocketBroadcaster.class);
+    private final List<JsonNode> sent = new CopyOnWriteArrayList<>();
+    private final AtomicInteger recorded = new AtomicInteger();
+
+    private RecentMetricsStore store;
+    private MetricsWebSocketHandler handler;
+    private WebSocketSession session;
+    private ProjectRegistration project;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        store = new RecentMetricsStore(appProperties, new SimpleMeterRegistry());
+        handler = new MetricsWebSocketHandler(mock(ProjectRegistryService.class), mock(ResourceMetricRepository.class),
+            store, broadcaster, new MetricsDeltaStream(store), objectMapper);
+
+        project = new ProjectRegistration();
+        project.setId("project-1");
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sent.add(objectMapper.readTree(((TextMessage) invocation.getArgument(1)).getPayload()));
+            return null;
+        }).when(broadcaster).send(eq(session), any());
+
+        command("{\"action\":\"SUBSCRIBE\",\"projectId\":\"project-1\",\"params\":{\"protocol\":2}}");
+    }
+
+    @Test
+    @DisplayName("Should restart from the acknowledged frame once the session's queue dropped messages")
+    void shouldResendFromAck_WhenQueueDroppedMessages() throws Exception {
+        // Given - the client applied and acknowledged the first delta
+        record();
+        handler.sendScheduledMetricsUpdates();
+        long acked = frames("METRICS_DELTA").get(0).get("seq").asLong();
+        command("{\"action\":\"ACK\",\"projectId\":\"project-1\",\"params\":{\"seq\":" + acked + "}}");
+        record();
+        handler.sendScheduledMetricsUpdates();
+
+        // When - the second delta was dropped from the outbound queue
+        when(broadcaster.getDroppedCount(session)).thenReturn(1L);
+        record();
+        handler.sendScheduledMetricsUpdates();
+
+        // Then
+        List<JsonNode> deltas = frames("METRICS_DELTA");
+        JsonNode resend = deltas.get(deltas.size() - 1);
+        assertThat(deltas).hasSize(3);
+        assertThat(resend.get("from").asLong()).isEqualTo(acked);
+        assertThat(resend.get("seq").asLong()).isEqualTo(acked + 2);
+        assertThat(resend.get("p")).hasSize(2 * 3);
+    }
+
+    @Test
+    @DisplayName("Should hand out frames in sequence order when the collector and scheduler send at once")
+    void shouldSendFramesInOrder_WhenSentConcurrently() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < 2; thread++) {
+            boolean collector = thread == 0;
+            tasks.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    if (collector) {
+                        handler.broadcastMetrics("project-1", List.of(record()));
+                    } else {
+                        record();
+                        handler.sendScheduledMetricsUpdates();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+
+        // Then - every frame applies on top of the one before it
+        long position = frames("METRICS_SNAPSHOT").get(0).get("seq").asLong();
+        for (JsonNode delta : frames("METRICS_DELTA")) {
+            assertThat(delta.get("from").asLong()).isEqualTo(position);
+            position = delta.get("seq").asLong();
+        }
+        assertThat(frames("METRICS_DELTA")).isNotEmpty();
+    }
+
+    private void command(String json) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(json));
+    }
+
+    private List<JsonNode> frames(String type) {
+        return sent.stream().filter(message -> type.equals(message.path("type").asText())).toList();
+    }
+
+    private ResourceMetric record() {
+        ResourceMetric metric = ResourceMetric.builder()
+            .project(project)
+            .containerId("c1")
+            .metricType(ResourceMetric.MetricType.CPU)
+            .metricName("cpu_usage_percent")
+            .source(ResourceMetric.MetricSource.DOCKER)
+            .value(BigDecimal.valueOf(recorded.incrementAndGet()))
+            .unit("percent")
+            .recordedAt(LocalDateTime.now().plusSeconds(recorded.get()))
+            .build();
+        store.record(metric);
+        return metric;
+    }
+}
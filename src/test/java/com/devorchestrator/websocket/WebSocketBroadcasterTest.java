@@ -0,0 +1,179 @@
+package com.devorchestrator.websocket;
+
+import com.devorchestrator.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WebSocketBroadcasterTest {
+
+    private AppProperties appProperties;
+    private WebSocketBroadcaster broadcaster;
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getWebsocket().setSendQueueCapacity(4);
+        appProperties.getWebsocket().setWriterThreads(2);
+        broadcaster = new WebSocketBroadcaster(appProperties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should deliver only the latest update to a session that is still sending")
+    void shouldConflateUpdates_ForSlowSession() throws Exception {
+        // Given - a session whose first send blocks
+        WebSocketSession session = blockingSession("s1");
+        broadcaster.register(session);
+        broadcaster.send(session, "metrics:p1", new TextMessage("tick-1"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        for (int i = 2; i <= 10; i++) {
+            broadcaster.send(session, "metrics:p1", new TextMessage("tick-" + i));
+        }
+        WebSocketBroadcaster.SessionStats stats = broadcaster.getSessionStats().get(0);
+        release.countDown();
+
+        // Then
+        verify(session, timeout(5000).times(2)).sendMessage(any());
+        assertThat(delivered).containsExactly("tick-1", "tick-10");
+        assertThat(stats.getQueued()).isEqualTo(1);
+        assertThat(stats.getConflated()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest message when a session queue is full")
+    void shouldDropOldest_WhenQueueFull() throws Exception {
+        // Given
+        WebSocketSession session = blockingSession("s2");
+        broadcaster.register(session);
+        broadcaster.send(session, new TextMessage("m0"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        for (int i = 1; i <= 6; i++) {
+            broadcaster.send(session, new TextMessage("m" + i));
+        }
+        release.countDown();
+
+        // Then
+        verify(session, timeout(5000).times(5)).sendMessage(any());
+        assertThat(delivered).containsExactly("m0", "m3", "m4", "m5", "m6");
+        assertThat(broadcaster.getSessionStats().get(0).getDropped()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not send to or track a session that is no longer registered")
+    void shouldDiscardMessage_WhenSessionUnregistered() throws Exception {
+        // Given
+        WebSocketSession session = blockingSession("s3");
+        broadcaster.register(session);
+        broadcaster.unregister(session);
+
+        // When
+        broadcaster.send(session, new TextMessage("late"));
+
+        // Then
+        verify(session, after(200).never()).sendMessage(any());
+        assertThat(broadcaster.getSessionStats()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should close a session whose send stays blocked past the time limit")
+    void shouldCloseSession_WhenSendBlockedPastTimeLimit() throws Exception {
+        // Given
+        broadcaster.shutdown();
+        appProperties.getWebsocket().setSendTimeLimitMs(1000);
+        broadcaster = new WebSocketBroadcaster(appProperties, new SimpleMeterRegistry());
+        WebSocketSession session = blockingSession("s4");
+        doAnswer(inv -> {
+            release.countDown();
+            return null;
+        }).when(session).close(any());
+        broadcaster.register(session);
+
+        // When - nothing else is sent, so only the watchdog can notice
+        broadcaster.send(session, new TextMessage("stuck"));
+
+        // Then
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(broadcaster.getSessionStats()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep serving other sessions while one session has a long backlog")
+    void shouldInterleaveSessions_WhenOneHasBacklog() throws Exception {
+        // Given - one writer and a queue deeper than one drain pass
+        broadcaster.shutdown();
+        appProperties.getWebsocket().setWriterThreads(1);
+        appProperties.getWebsocket().setSendQueueCapacity(200);
+        broadcaster = new WebSocketBroadcaster(appProperties, new SimpleMeterRegistry());
+        List<String> order = new CopyOnWriteArrayList<>();
+        WebSocketSession busy = recordingSession("busy", order);
+        WebSocketSession quiet = recordingSession("quiet", order);
+        broadcaster.register(busy);
+        broadcaster.register(quiet);
+        WebSocketSession gate = blockingSession("gate");
+        broadcaster.register(gate);
+        broadcaster.send(gate, new TextMessage("hold"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When - queued while the only writer is held
+        for (int i = 0; i < 100; i++) {
+            broadcaster.send(busy, new TextMessage("b" + i));
+        }
+        broadcaster.send(quiet, new TextMessage("q"));
+        release.countDown();
+
+        // Then
+        verify(busy, timeout(5000).times(100)).sendMessage(any());
+        verify(quiet, timeout(5000)).sendMessage(any());
+        assertThat(order.indexOf("q")).isLessThan(order.indexOf("b99"));
+    }
+
+    private WebSocketSession recordingSession(String id, List<String> order) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            order.add(((TextMessage) inv.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private WebSocketSession blockingSession(String id) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            firstSendStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            delivered.add(((TextMessage) inv.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+}